@@ -0,0 +1,292 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.TransformationChecker;
+import org.deidentifier.arx.framework.check.distribution.DistributionAggregateFunction;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.metric.Metric;
+
+/**
+ * Prepares the internal data structures used by the anonymization core for benchmarks, the same way
+ * as ARXAnonymizer does before traversing the solution space.
+ *
+ * @author Fabian Prasser
+ */
+public class BenchmarkEnvironment {
+
+    /** The quasi-identifiers of the adult dataset */
+    public static final String[] QUASI_IDENTIFIERS = { "age", "education", "marital-status", "native-country", "race",
+                                                       "salary-class", "sex", "workclass", "occupation" };
+
+    /** Folder with the bundled datasets, can be set via the system property "arx.benchmark.data" */
+    public static final String   DATA_FOLDER       = System.getProperty("arx.benchmark.data", "data");
+
+    /**
+     * Returns a configuration enforcing k-anonymity
+     *
+     * @param k
+     * @param suppressionLimit
+     * @return
+     */
+    public static ARXConfiguration getConfiguration(int k, double suppressionLimit) {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(k));
+        config.setQualityModel(Metric.createLossMetric());
+        config.setSuppressionLimit(suppressionLimit);
+        return config;
+    }
+
+    /**
+     * Returns the adult dataset, scaled up to the given multiple of its size. All quasi-identifiers
+     * are associated with their generalization hierarchies.
+     *
+     * @param scale
+     * @return
+     * @throws IOException
+     * @see #getData(int, int)
+     */
+    public static Data getData(int scale) throws IOException {
+        return getData(scale, 1);
+    }
+
+    /**
+     * Returns the adult dataset, scaled up to the given multiple of its size. Each original record
+     * is followed by scale - 1 synthetic variants, in which each value of a quasi-identifier is
+     * replaced with a random value from its domain with a probability of 50%. The number of distinct
+     * combinations of values, and thus the number of equivalence classes, therefore grows with the
+     * size of the dataset. To obtain high-dimensional data, all quasi-identifiers are replicated the
+     * given number of times. All quasi-identifiers, including replicas, are associated with their
+     * generalization hierarchies. Synthetic values are drawn from a generator with a fixed seed,
+     * so that results are reproducible.
+     *
+     * @param scale
+     * @param replicas
+     * @return
+     * @throws IOException
+     */
+    public static Data getData(int scale, int replicas) throws IOException {
+
+        // Load
+        Data data = Data.create(DATA_FOLDER + "/adult.csv", StandardCharsets.UTF_8, ';');
+        Map<String, Hierarchy> hierarchies = new HashMap<>();
+        for (String attribute : QUASI_IDENTIFIERS) {
+            hierarchies.put(attribute, Hierarchy.create(DATA_FOLDER + "/adult_hierarchy_" + attribute + ".csv",
+                                                        StandardCharsets.UTF_8, ';'));
+        }
+
+        // Scale and replicate
+        if (scale > 1 || replicas > 1) {
+            Data.DefaultData scaled = Data.create();
+            Iterator<String[]> iterator = data.getHandle().iterator();
+            String[] header = iterator.next();
+            String[] replicatedHeader = getReplicatedHeader(header, replicas);
+            String[][] domains = getDomains(header, replicatedHeader, hierarchies);
+            Random random = new Random(0xDEADBEEF);
+            scaled.add(replicatedHeader);
+            while (iterator.hasNext()) {
+                String[] record = getReplicatedRecord(header, replicatedHeader, iterator.next());
+                scaled.add(record);
+                for (int i = 1; i < scale; i++) {
+                    scaled.add(getSyntheticRecord(record, domains, random));
+                }
+            }
+            data.getHandle().release();
+            data = scaled;
+        }
+
+        // Define
+        for (String attribute : QUASI_IDENTIFIERS) {
+            Hierarchy hierarchy = hierarchies.get(attribute);
+            data.getDefinition().setAttributeType(attribute, hierarchy);
+            for (int i = 1; i < replicas; i++) {
+                data.getDefinition().setAttributeType(attribute + "-" + i, hierarchy);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns the domain of each column of a dataset in which all quasi-identifiers have been
+     * replicated, i.e. the values at the lowest level of its hierarchy. Null for columns which
+     * are not quasi-identifiers.
+     *
+     * @param header
+     * @param replicatedHeader
+     * @param hierarchies
+     * @return
+     */
+    private static String[][] getDomains(String[] header, String[] replicatedHeader, Map<String, Hierarchy> hierarchies) {
+        String[][] result = new String[replicatedHeader.length][];
+        for (int i = 0; i < result.length; i++) {
+            String attribute = i < header.length ? header[i] :
+                               replicatedHeader[i].substring(0, replicatedHeader[i].lastIndexOf('-'));
+            Hierarchy hierarchy = hierarchies.get(attribute);
+            if (hierarchy != null) {
+                String[][] array = hierarchy.getHierarchy();
+                result[i] = new String[array.length];
+                for (int j = 0; j < array.length; j++) {
+                    result[i][j] = array[j][0];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the header of a dataset in which all quasi-identifiers have been replicated
+     *
+     * @param header
+     * @param replicas
+     * @return
+     */
+    private static String[] getReplicatedHeader(String[] header, int replicas) {
+        List<String> result = new ArrayList<>(Arrays.asList(header));
+        for (int replica = 1; replica < replicas; replica++) {
+            for (String attribute : header) {
+                if (Arrays.asList(QUASI_IDENTIFIERS).contains(attribute)) {
+                    result.add(attribute + "-" + replica);
+                }
+            }
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Returns the record with all quasi-identifiers replicated
+     *
+     * @param header
+     * @param replicatedHeader
+     * @param record
+     * @return
+     */
+    private static String[] getReplicatedRecord(String[] header, String[] replicatedHeader, String[] record) {
+        String[] result = Arrays.copyOf(record, replicatedHeader.length);
+        for (int i = record.length; i < result.length; i++) {
+            String attribute = replicatedHeader[i].substring(0, replicatedHeader[i].lastIndexOf('-'));
+            result[i] = record[Arrays.asList(header).indexOf(attribute)];
+        }
+        return result;
+    }
+
+    /**
+     * Returns a synthetic variant of the given record, in which values of quasi-identifiers are
+     * replaced with random values from their domains
+     *
+     * @param record
+     * @param domains
+     * @param random
+     * @return
+     */
+    private static String[] getSyntheticRecord(String[] record, String[][] domains, Random random) {
+        String[] result = record.clone();
+        for (int i = 0; i < result.length; i++) {
+            if (domains[i] != null && random.nextBoolean()) {
+                result[i] = domains[i][random.nextInt(domains[i].length)];
+            }
+        }
+        return result;
+    }
+
+    /** The configuration */
+    private final ARXConfiguration      config;
+
+    /** The data manager */
+    private final DataManager           manager;
+
+    /** The solution space */
+    private final SolutionSpace         solutionSpace;
+
+    /** The transformation checker */
+    private final TransformationChecker checker;
+
+    /**
+     * Creates a new instance
+     *
+     * @param data
+     * @param config
+     * @throws IOException
+     */
+    public BenchmarkEnvironment(Data data, ARXConfiguration config) throws IOException {
+
+        // Encode
+        DataHandleInput handle = (DataHandleInput) data.getHandle();
+        DataDefinition definition = handle.getDefinition();
+        definition.materializeHierarchies(handle);
+        handle.getRegistry().reset();
+        this.config = config;
+        this.manager = new DataManager(handle.header, handle.data, handle.dictionary, definition,
+                                       new HashMap<String, DistributionAggregateFunction>(), config);
+
+        // Initialize
+        config.initialize(manager);
+        this.solutionSpace = new SolutionSpace(manager.getHierarchiesMinLevels(), manager.getHierarchiesMaxLevels());
+        config.getQualityModel().initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        this.checker = new TransformationChecker(manager, config.getQualityModel(), config.getInternalConfiguration(),
+                                                 anonymizer.getHistorySize(),
+                                                 anonymizer.getMaximumSnapshotSizeDataset(),
+                                                 anonymizer.getMaximumSnapshotSizeSnapshot(),
+                                                 solutionSpace);
+    }
+
+    /**
+     * Returns the transformation checker
+     * @return
+     */
+    public TransformationChecker getChecker() {
+        return checker;
+    }
+
+    /**
+     * Returns the internal configuration
+     * @return
+     */
+    public ARXConfiguration.ARXConfigurationInternal getConfiguration() {
+        return config.getInternalConfiguration();
+    }
+
+    /**
+     * Returns the data manager
+     * @return
+     */
+    public DataManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Returns the solution space
+     * @return
+     */
+    public SolutionSpace getSolutionSpace() {
+        return solutionSpace;
+    }
+}
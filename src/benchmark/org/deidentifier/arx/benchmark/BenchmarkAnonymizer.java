@@ -0,0 +1,89 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks complete anonymization processes
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchmarkAnonymizer {
+
+    /** Factor by which the adult dataset is scaled */
+    @Param({ "1", "10" })
+    public int    scale;
+
+    /** Parameter k */
+    @Param({ "5" })
+    public int    k;
+
+    /** Suppression limit */
+    @Param({ "0", "0.05" })
+    public double suppressionLimit;
+
+    /** Number of threads */
+    @Param({ "1" })
+    public int    parallelism;
+
+    /** Data */
+    private Data  data;
+
+    @Setup
+    public void setup() throws IOException {
+        data = BenchmarkEnvironment.getData(scale);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        data.getHandle().release();
+    }
+
+    @Benchmark
+    public ARXResult anonymize() throws IOException {
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        anonymizer.setParallelism(parallelism);
+        return anonymizer.anonymize(data, BenchmarkEnvironment.getConfiguration(k, suppressionLimit));
+    }
+}
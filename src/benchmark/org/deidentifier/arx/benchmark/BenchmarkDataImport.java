@@ -0,0 +1,98 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.io.CSVDataInput;
+import org.deidentifier.arx.io.CSVDataOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks parsing CSV files, as well as parsing and encoding them into a data object, sequentially and in parallel
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkDataImport {
+
+    /** Factor by which the adult dataset is scaled */
+    @Param({ "1", "10" })
+    public int  scale;
+
+    /** The file */
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("arx", ".csv");
+        DataHandle handle = BenchmarkEnvironment.getData(scale).getHandle();
+        new CSVDataOutput(file, ';').write(handle.iterator());
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws IOException {
+        CSVDataInput input = new CSVDataInput(file, StandardCharsets.UTF_8, ';');
+        Iterator<String[]> iterator = input.iterator();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+        input.close();
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        Data data = Data.create(file, StandardCharsets.UTF_8, ';');
+        return data.getHandle().getNumRows();
+    }
+
+    @Benchmark
+    public int loadParallel() throws IOException {
+        Data data = Data.create(file, StandardCharsets.UTF_8, ';', Runtime.getRuntime().availableProcessors());
+        return data.getHandle().getNumRows();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.framework.data.Dictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks encoding all values of a dataset with a dictionary
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkDictionary {
+
+    /** Factor by which the adult dataset is scaled */
+    @Param({ "1", "10" })
+    public int        scale;
+
+    /** Records */
+    private String[][] records;
+
+    @Setup
+    public void setup() throws IOException {
+        List<String[]> list = new ArrayList<String[]>();
+        Iterator<String[]> iterator = BenchmarkEnvironment.getData(scale).getHandle().iterator();
+        iterator.next();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        records = list.toArray(new String[list.size()][]);
+    }
+
+    @Benchmark
+    public Dictionary register() {
+        Dictionary dictionary = new Dictionary(records[0].length);
+        for (String[] record : records) {
+            for (int column = 0; column < record.length; column++) {
+                dictionary.register(column, record[column]);
+            }
+        }
+        dictionary.finalizeAll();
+        return dictionary;
+    }
+}
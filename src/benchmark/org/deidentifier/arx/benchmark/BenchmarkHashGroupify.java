@@ -0,0 +1,114 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building and analyzing equivalence classes with the groupify operator
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkHashGroupify {
+
+    /** Factor by which the adult dataset is scaled */
+    @Param({ "1", "10" })
+    public int             scale;
+
+    /** Suppression limit */
+    @Param({ "0", "0.05" })
+    public double          suppressionLimit;
+
+    /** Groupify operator */
+    private HashGroupify   groupify;
+
+    /** The transformation */
+    private Transformation transformation;
+
+    /** The number of rows */
+    private int            rows;
+
+    @Setup
+    public void setup() throws IOException {
+
+        // Prepare
+        BenchmarkEnvironment environment = new BenchmarkEnvironment(BenchmarkEnvironment.getData(scale),
+                                                                    BenchmarkEnvironment.getConfiguration(5, suppressionLimit));
+        DataManager manager = environment.getManager();
+        History history = environment.getChecker().getHistory();
+        Transformer transformer = new Transformer(manager.getDataGeneralized().getArray(),
+                                                  manager.getDataAnalyzed().getArray(),
+                                                  manager.getAggregationInformation().getHotThreshold(),
+                                                  manager.getHierarchies(),
+                                                  environment.getConfiguration(),
+                                                  history.getDictionarySensValue(),
+                                                  history.getDictionarySensFreq());
+        groupify = new HashGroupify((int) (manager.getDataGeneralized().getDataLength() * 0.01d),
+                                    environment.getConfiguration(),
+                                    manager.getAggregationInformation().getHotThreshold(),
+                                    manager.getDataGeneralized().getArray(),
+                                    transformer.getBuffer(),
+                                    manager.getDataAnalyzed().getArray());
+
+        // Fill the output buffer
+        int[] generalization = BenchmarkTransformer.getTransformation(manager);
+        transformation = environment.getSolutionSpace().getTransformation(generalization);
+        groupify = transformer.apply(0L, generalization, groupify);
+        rows = manager.getDataGeneralized().getArray().getNumRows();
+    }
+
+    @Benchmark
+    public HashGroupify addFromBuffer() {
+        groupify.stateClear();
+        for (int row = 0; row < rows; row++) {
+            groupify.addFromBuffer(row, -1, row, 1, -1);
+        }
+        return groupify;
+    }
+
+    @Benchmark
+    public boolean stateAnalyze() {
+        groupify.stateAnalyze(transformation, true);
+        return groupify.isPrivacyModelFulfilled();
+    }
+}
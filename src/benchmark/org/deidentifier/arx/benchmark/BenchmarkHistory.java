@@ -0,0 +1,127 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks storing and retrieving snapshots. The history is filled with snapshots of
+ * transformations on a path from the bottom of the solution space. Storing includes
+ * clearing the history, so that each invocation creates a new snapshot.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkHistory {
+
+    /** Factor by which the adult dataset is scaled */
+    @Param({ "1", "10" })
+    public int             scale;
+
+    /** History */
+    private History        history;
+
+    /** Groupify operator */
+    private HashGroupify   groupify;
+
+    /** Transformation from which the snapshot is created */
+    private Transformation transformation;
+
+    /** Transformation for which a snapshot is retrieved */
+    private int[]          successor;
+
+    @Setup
+    public void setup() throws IOException {
+
+        // Prepare
+        BenchmarkEnvironment environment = new BenchmarkEnvironment(BenchmarkEnvironment.getData(scale),
+                                                                    BenchmarkEnvironment.getConfiguration(5, 0d));
+        DataManager manager = environment.getManager();
+        SolutionSpace solutionSpace = environment.getSolutionSpace();
+        history = environment.getChecker().getHistory();
+        history.setStorageStrategy(StorageStrategy.ALL);
+        Transformer transformer = new Transformer(manager.getDataGeneralized().getArray(),
+                                                  manager.getDataAnalyzed().getArray(),
+                                                  manager.getAggregationInformation().getHotThreshold(),
+                                                  manager.getHierarchies(),
+                                                  environment.getConfiguration(),
+                                                  history.getDictionarySensValue(),
+                                                  history.getDictionarySensFreq());
+        groupify = new HashGroupify((int) (manager.getDataGeneralized().getDataLength() * 0.01d),
+                                    environment.getConfiguration(),
+                                    manager.getAggregationInformation().getHotThreshold(),
+                                    manager.getDataGeneralized().getArray(),
+                                    transformer.getBuffer(),
+                                    manager.getDataAnalyzed().getArray());
+
+        // Fill the history with snapshots of the transformations on a path from the bottom
+        int[] generalization = BenchmarkTransformer.getTransformation(manager);
+        transformation = solutionSpace.getTransformation(generalization);
+        successor = BenchmarkTransformer.getSuccessor(manager, generalization);
+        int[] current = manager.getHierarchiesMinLevels().clone();
+        while (!Arrays.equals(current, generalization)) {
+            groupify = transformer.apply(0L, current, groupify);
+            history.store(solutionSpace.getTransformation(current), groupify, null);
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] < generalization[i]) {
+                    current[i]++;
+                    break;
+                }
+            }
+        }
+        groupify = transformer.apply(0L, generalization, groupify);
+    }
+
+    @Benchmark
+    public int[] get() {
+        return history.get(successor);
+    }
+
+    @Benchmark
+    public boolean store() {
+        history.reset();
+        return history.store(transformation, groupify, null);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkEnvironment;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the three types of transitions implemented by the transformer, on data with
+ * up to 15 and on data with more than 15 quasi-identifiers
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkTransformer {
+
+    /**
+     * Returns the projection of a transition, i.e. a bit set with the columns that do not change
+     * @param from
+     * @param to
+     * @return
+     */
+    static long getProjection(int[] from, int[] to) {
+        long projection = 0L;
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] == to[i]) {
+                projection |= 1L << i;
+            }
+        }
+        return projection;
+    }
+
+    /**
+     * Returns a transformation in the middle of the solution space
+     * @param manager
+     * @return
+     */
+    static int[] getTransformation(DataManager manager) {
+        int[] min = manager.getHierarchiesMinLevels();
+        int[] max = manager.getHierarchiesMaxLevels();
+        int[] result = new int[min.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (min[i] + max[i]) / 2;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the direct successor of the given transformation, in which the first
+     * generalization level that is not maximal has been increased
+     * @param manager
+     * @param transformation
+     * @return
+     */
+    static int[] getSuccessor(DataManager manager, int[] transformation) {
+        int[] max = manager.getHierarchiesMaxLevels();
+        int[] result = transformation.clone();
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] < max[i]) {
+                result[i]++;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /** Factor by which the adult dataset is scaled */
+    @Param({ "1", "10" })
+    public int           scale;
+
+    /** Number of replicas of each quasi-identifier, more than one results in high-dimensional data */
+    @Param({ "1", "2" })
+    public int           replicas;
+
+    /** Transformer */
+    private Transformer  transformer;
+
+    /** Source of roll-ups */
+    private HashGroupify source;
+
+    /** Target */
+    private HashGroupify target;
+
+    /** Transformation */
+    private int[]        transformation;
+
+    /** Transformation */
+    private int[]        successor;
+
+    /** Projection */
+    private long         projection;
+
+    /** Snapshot of transformation */
+    private int[]        snapshot;
+
+    @Setup
+    public void setup() throws IOException {
+
+        // Prepare
+        BenchmarkEnvironment environment = new BenchmarkEnvironment(BenchmarkEnvironment.getData(scale, replicas),
+                                                                    BenchmarkEnvironment.getConfiguration(5, 0d));
+        DataManager manager = environment.getManager();
+        SolutionSpace solutionSpace = environment.getSolutionSpace();
+        History history = environment.getChecker().getHistory();
+        transformer = new Transformer(manager.getDataGeneralized().getArray(),
+                                      manager.getDataAnalyzed().getArray(),
+                                      manager.getAggregationInformation().getHotThreshold(),
+                                      manager.getHierarchies(),
+                                      environment.getConfiguration(),
+                                      history.getDictionarySensValue(),
+                                      history.getDictionarySensFreq());
+        source = createGroupify(environment);
+        target = createGroupify(environment);
+
+        // Transformations
+        transformation = getTransformation(manager);
+        successor = getSuccessor(manager, transformation);
+        projection = getProjection(transformation, successor);
+
+        // Source of roll-ups and snapshots
+        source = transformer.apply(0L, transformation, source);
+        history.setStorageStrategy(StorageStrategy.ALL);
+        history.store(solutionSpace.getTransformation(transformation), source, null);
+        snapshot = history.get(successor);
+        if (snapshot == null) {
+            throw new IllegalStateException("Snapshot has not been stored");
+        }
+    }
+
+    @Benchmark
+    public HashGroupify apply() {
+        return transformer.apply(0L, successor, target);
+    }
+
+    @Benchmark
+    public HashGroupify applyRollup() {
+        return transformer.applyRollup(projection, successor, source, target);
+    }
+
+    @Benchmark
+    public HashGroupify applySnapshot() {
+        return transformer.applySnapshot(projection, successor, target, snapshot);
+    }
+
+    /**
+     * Creates a groupify operator
+     * @param environment
+     * @return
+     */
+    private HashGroupify createGroupify(BenchmarkEnvironment environment) {
+        DataManager manager = environment.getManager();
+        return new HashGroupify((int) (manager.getDataGeneralized().getDataLength() * 0.01d),
+                                environment.getConfiguration(),
+                                manager.getAggregationInformation().getHotThreshold(),
+                                manager.getDataGeneralized().getArray(),
+                                transformer.getBuffer(),
+                                manager.getDataAnalyzed().getArray());
+    }
+}
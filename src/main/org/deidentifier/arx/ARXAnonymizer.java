@@ -17,8 +17,13 @@
 
 package org.deidentifier.arx;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -31,15 +36,20 @@ import org.deidentifier.arx.criteria.BasicBLikeness;
 import org.deidentifier.arx.criteria.DDisclosurePrivacy;
 import org.deidentifier.arx.criteria.EDDifferentialPrivacy;
 import org.deidentifier.arx.criteria.EnhancedBLikeness;
+import org.deidentifier.arx.criteria.HierarchicalDistanceTCloseness;
 import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.criteria.KMap;
 import org.deidentifier.arx.criteria.LDiversity;
+import org.deidentifier.arx.criteria.PrivacyCriterion;
 import org.deidentifier.arx.criteria.TCloseness;
 import org.deidentifier.arx.framework.check.TransformationChecker;
+import org.deidentifier.arx.framework.check.TransformationCheckerPool;
 import org.deidentifier.arx.framework.check.distribution.DistributionAggregateFunction;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
+import org.deidentifier.arx.framework.lattice.Checkpoint;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.v2.MetricSDClassification;
@@ -132,6 +142,12 @@ public class ARXAnonymizer { // NO_UCD
 	/** History size. */
 	private int historySize = 200;
 
+	/** Maximal number of bytes occupied by snapshots in the history. */
+	private long historyMemoryLimit = Long.MAX_VALUE;
+
+	/** Whether snapshots in the history are compressed. */
+	private boolean historyCompression = false;
+
 	/** The listener, if any. */
 	private ARXListener listener = null;
 
@@ -144,6 +160,15 @@ public class ARXAnonymizer { // NO_UCD
 	/** The maximal number of QIs that can be processed. */
 	private int maxQuasiIdentifiers = Integer.MAX_VALUE;
 
+	/** The number of threads used for checking transformations. */
+	private int parallelism = 1;
+
+	/** The file to which checkpoints are written, if any. */
+	private File checkpointFile = null;
+
+	/** The minimal number of milliseconds between two checkpoints. */
+	private long checkpointInterval = 60000L;
+
 	/**
 	 * Creates a new anonymizer with the default configuration.
 	 */
@@ -187,29 +212,26 @@ public class ARXAnonymizer { // NO_UCD
 	 * @throws IOException
 	 */
 	public ARXResult anonymize(final Data data, ARXConfiguration config) throws IOException {
+		return anonymize(data, config, null);
+	}
 
-		if (((DataHandleInput) data.getHandle()).isLocked()) {
-			throw new RuntimeException("This data handle is locked. Please release it first");
-		}
-
-		// Update registry
-		DataHandle handle = data.getHandle();
-		handle.getDefinition().materializeHierarchies(handle);
-		checkBeforeEncoding(handle, config);
-		handle.getRegistry().reset();
-
-		// Create manager
-		DataManager manager = getDataManager(handle, handle.getDefinition(), config);
-
-		// Attach subset to handle
-		handle.getRegistry().createInputSubset(config);
-
-		// Attach arrays to data handle
-		((DataHandleInput) handle).update(manager.getDataGeneralized().getArray(),
-				manager.getDataAnalyzed().getArray());
+	/**
+	 * Returns the file to which checkpoints are written, null if checkpoints
+	 * are disabled.
+	 * 
+	 * @return
+	 */
+	public File getCheckpointFile() {
+		return checkpointFile;
+	}
 
-		// Execute
-		return anonymize(manager, handle.getDefinition(), config).asResult(config, handle);
+	/**
+	 * Returns the minimal number of milliseconds between two checkpoints.
+	 * 
+	 * @return
+	 */
+	public long getCheckpointInterval() {
+		return checkpointInterval;
 	}
 
 	/**
@@ -221,6 +243,24 @@ public class ARXAnonymizer { // NO_UCD
 		return historySize;
 	}
 
+	/**
+	 * Returns the maximal number of bytes occupied by snapshots in the history.
+	 * 
+	 * @return The limit
+	 */
+	public long getHistoryMemoryLimit() {
+		return historyMemoryLimit;
+	}
+
+	/**
+	 * Returns whether snapshots in the history are compressed.
+	 * 
+	 * @return
+	 */
+	public boolean isHistoryCompression() {
+		return historyCompression;
+	}
+
 	/**
 	 * Gets the snapshot size.
 	 * 
@@ -249,6 +289,99 @@ public class ARXAnonymizer { // NO_UCD
 		return maxQuasiIdentifiers;
 	}
 
+	/**
+	 * Returns the number of threads used for checking transformations.
+	 * 
+	 * @return
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Resumes an anonymization process from a checkpoint, which has been
+	 * written by a previous run with the same data and configuration.
+	 * Transformations that have already been checked will not be checked
+	 * again. If checkpoints are enabled, the resumed process continues to
+	 * write checkpoints.<br>
+	 * <br>
+	 * The checkpoint may also have been written for data to which records
+	 * have been appended since, e.g. with {@link Data#create(Data, java.util.Iterator)}.
+	 * In this case, all transformations are checked again, but, if supported
+	 * by the privacy models, classes are derived from the distinct records
+	 * stored in the checkpoint and the appended records only.<br>
+	 * <br>
+	 * Checkpoints which have been written for other data, including sensitive
+	 * attributes and research subsets, or with a different configuration, i.e.
+	 * with other privacy models and parameters, suppression limit, quality
+	 * model or hierarchies, are rejected with an
+	 * {@link IllegalArgumentException}.
+	 *
+	 * @param data
+	 *            The data
+	 * @param config
+	 *            The privacy config
+	 * @param checkpoint
+	 *            The checkpoint file
+	 * @return ARXResult
+	 * @throws IOException
+	 */
+	public ARXResult resume(final Data data, ARXConfiguration config, final File checkpoint) throws IOException {
+		if (checkpoint == null || !checkpoint.exists()) {
+			throw new IllegalArgumentException("Checkpoint " + checkpoint + " does not exist");
+		}
+		return anonymize(data, config, checkpoint);
+	}
+
+	/**
+	 * Enables checkpoints, which periodically persist the state of the search
+	 * to the given file. An interrupted process can be continued with
+	 * {@link #resume(Data, ARXConfiguration, File)}. Snapshots stored in the
+	 * history are not persisted. Pass null to disable checkpoints, which is the
+	 * default.
+	 * 
+	 * @param file
+	 * @param interval
+	 *            The minimal number of milliseconds between two checkpoints
+	 */
+	public void setCheckpoint(final File file, final long interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("Interval must be positive or 0");
+		}
+		this.checkpointFile = file;
+		this.checkpointInterval = interval;
+	}
+
+	/**
+	 * Sets whether snapshots in the history are stored in compressed form.
+	 * Compressed snapshots typically occupy a fraction of the memory, which
+	 * allows to keep more snapshots within the memory limit at the cost of
+	 * decompressing them when they are used. By default, snapshots are not
+	 * compressed.
+	 * 
+	 * @param historyCompression
+	 */
+	public void setHistoryCompression(final boolean historyCompression) {
+		this.historyCompression = historyCompression;
+	}
+
+	/**
+	 * Sets the maximal number of bytes occupied by snapshots in the history.
+	 * Snapshots are evicted when either this limit or the maximal number of
+	 * snapshots is reached. By default, the memory is not limited. When
+	 * transformations are checked in parallel, the limit is divided evenly
+	 * among the histories of all checkers.
+	 * 
+	 * @param historyMemoryLimit
+	 *            The limit in bytes
+	 */
+	public void setHistoryMemoryLimit(final long historyMemoryLimit) {
+		if (historyMemoryLimit < 0) {
+			throw new IllegalArgumentException("Memory limit must be positive or 0");
+		}
+		this.historyMemoryLimit = historyMemoryLimit;
+	}
+
 	/**
 	 * Sets the maximum number of snapshots allowed to store in the history.
 	 * 
@@ -309,6 +442,57 @@ public class ARXAnonymizer { // NO_UCD
 		this.maxQuasiIdentifiers = maxQuasiIdentifiers;
 	}
 
+	/**
+	 * Sets the number of threads used for checking transformations. Each
+	 * thread uses its own buffers and history. Moreover, transformations of
+	 * large datasets are applied by multiple threads. The default is 1, which
+	 * disables parallel checks. May be overridden by the configuration.
+	 * 
+	 * @param parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be >= 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Performs data anonymization, potentially resuming from a checkpoint.
+	 *
+	 * @param data
+	 * @param config
+	 * @param checkpoint
+	 *            The checkpoint to resume from, may be null
+	 * @return
+	 * @throws IOException
+	 */
+	private ARXResult anonymize(final Data data, ARXConfiguration config, final File checkpoint) throws IOException {
+
+		if (((DataHandleInput) data.getHandle()).isLocked()) {
+			throw new RuntimeException("This data handle is locked. Please release it first");
+		}
+
+		// Update registry
+		DataHandle handle = data.getHandle();
+		handle.getDefinition().materializeHierarchies(handle);
+		checkBeforeEncoding(handle, config);
+		handle.getRegistry().reset();
+
+		// Create manager
+		DataManager manager = getDataManager(handle, handle.getDefinition(), config);
+
+		// Attach subset to handle
+		handle.getRegistry().createInputSubset(config);
+
+		// Attach arrays to data handle
+		((DataHandleInput) handle).update(manager.getDataGeneralized().getArray(),
+				manager.getDataAnalyzed().getArray());
+
+		// Execute
+		return anonymize(manager, handle.getDefinition(), config, checkpoint).asResult(config, handle);
+	}
+
 	/**
 	 * Performs some sanity checks.
 	 *
@@ -672,6 +856,112 @@ public class ARXAnonymizer { // NO_UCD
 		 */
 	}
 
+	/**
+	 * Returns the number of threads to use with the given configuration.
+	 * 
+	 * @param config
+	 * @return
+	 */
+	private int getParallelism(final ARXConfiguration config) {
+		return config.getParallelism() != 0 ? config.getParallelism() : this.parallelism;
+	}
+
+	/**
+	 * Returns a pool of checkers for parallel checks, null if transformations
+	 * should be checked sequentially.
+	 * 
+	 * @param manager
+	 * @param definition
+	 * @param config
+	 * @param solutionSpace
+	 * @return
+	 */
+	private TransformationCheckerPool getCheckerPool(final DataManager manager, final DataDefinition definition,
+			final ARXConfiguration config, final SolutionSpace solutionSpace) {
+
+		// Check
+		int parallelism = getParallelism(config);
+		if (parallelism <= 1) {
+			return null;
+		}
+
+		// Create one checker per thread
+		TransformationChecker[] checkers = new TransformationChecker[parallelism];
+		for (int i = 0; i < checkers.length; i++) {
+
+			// The quality model cannot be cloned, fall back to sequential checks
+			ARXConfiguration workerConfig = config.getInstanceForParallelSearch(manager);
+			if (workerConfig == null) {
+				return null;
+			}
+			workerConfig.getQualityModel().initialize(manager, definition, manager.getDataGeneralized(),
+					manager.getHierarchies(), workerConfig);
+			checkers[i] = new TransformationChecker(manager, workerConfig.getQualityModel(),
+					workerConfig.getInternalConfiguration(), historySize, snapshotSizeDataset, snapshotSizeSnapshot,
+					solutionSpace);
+		}
+		return new TransformationCheckerPool(checkers);
+	}
+
+	/**
+	 * Returns a fingerprint of the configuration which determines the results
+	 * of checking transformations, i.e. of the privacy models and their
+	 * parameters, the suppression limit, the quality model, the hierarchies
+	 * of the given attributes and the data types of the analyzed attributes.
+	 * It is used to detect checkpoints which have been created with a different
+	 * configuration. The data, including analyzed attributes and the research
+	 * subset, is covered by the checkpoint itself.
+	 * 
+	 * @param definition
+	 * @param config
+	 * @param header
+	 * @param manager
+	 * @return
+	 */
+	private long getConfigurationFingerprint(final DataDefinition definition, final ARXConfiguration config,
+			final String[] header, final DataManager manager) {
+
+		// Privacy models and parameters not contained in their string representation, in a defined order
+		List<String> models = new ArrayList<String>();
+		for (PrivacyCriterion model : config.getPrivacyModels()) {
+			long parameters = 0L;
+			if (model.getPopulationModel() != null) {
+				parameters = model.getPopulationModel().getPopulationSize();
+			}
+			if (model instanceof KMap) {
+				parameters = 31L * parameters + Double.doubleToLongBits(((KMap) model).getSignificanceLevel());
+			}
+			if (model instanceof HierarchicalDistanceTCloseness) {
+				parameters = 31L * parameters
+						+ Arrays.deepHashCode(((HierarchicalDistanceTCloseness) model).getHierarchy().getHierarchy());
+			}
+			models.add(model.getClass().getName() + ":" + model.toString() + ":" + parameters);
+		}
+		Collections.sort(models);
+		long result = models.hashCode();
+
+		// Suppression limit and quality model
+		result = 31L * result + Double.doubleToLongBits(config.getSuppressionLimit());
+		result = 31L * result + config.getQualityModel().getClass().getName().hashCode();
+		result = 31L * result + config.getQualityModel().toString().hashCode();
+		result = 31L * result + Double.doubleToLongBits(config.getQualityModel().getGeneralizationSuppressionFactor());
+
+		// Hierarchies and generalization levels
+		for (String attribute : header) {
+			result = 31L * result + Arrays.deepHashCode(definition.getHierarchy(attribute));
+			result = 31L * result + Double.doubleToLongBits(config.getAttributeWeight(attribute));
+		}
+		result = 31L * result + Arrays.hashCode(manager.getHierarchiesMinLevels());
+		result = 31L * result + Arrays.hashCode(manager.getHierarchiesMaxLevels());
+
+		// Analyzed attributes, whose data types determine orders
+		for (String attribute : manager.getDataAnalyzed().getHeader()) {
+			result = 31L * result + attribute.hashCode();
+			result = 31L * result + String.valueOf(definition.getDataType(attribute)).hashCode();
+		}
+		return result;
+	}
+
 	/**
 	 * Prepares the data manager.
 	 *
@@ -708,6 +998,23 @@ public class ARXAnonymizer { // NO_UCD
 	 */
 	protected Result anonymize(final DataManager manager, final DataDefinition definition,
 			final ARXConfiguration config) throws IOException {
+		return anonymize(manager, definition, config, null);
+	}
+
+	/**
+	 * Reset a previous lattice and run the algorithm, potentially resuming from
+	 * a checkpoint.
+	 *
+	 * @param manager
+	 * @param definition
+	 * @param config
+	 * @param checkpoint
+	 *            The checkpoint to resume from, may be null
+	 * @return
+	 * @throws IOException
+	 */
+	protected Result anonymize(final DataManager manager, final DataDefinition definition,
+			final ARXConfiguration config, final File checkpoint) throws IOException {
 
 		// Initialize
 		config.initialize(manager);
@@ -728,17 +1035,68 @@ public class ARXAnonymizer { // NO_UCD
 				config.getInternalConfiguration(), historySize, snapshotSizeDataset, snapshotSizeSnapshot,
 				solutionSpace);
 
-		// Create an algorithm instance
-		AbstractAlgorithm algorithm = getAlgorithm(config, manager, solutionSpace, checker);
-		algorithm.setListener(listener);
+		// Prepare
+		TransformationCheckerPool pool = null;
+		AbstractAlgorithm algorithm;
+		long time;
+		boolean optimumFound;
+		try {
 
-		// Execute
+			// Apply transformations to large datasets in parallel, if requested
+			checker.setParallelism(getParallelism(config));
+
+			// Build a pool of checkers for parallel checks, if requested
+			pool = getCheckerPool(manager, definition, config, solutionSpace);
 
-		long time = System.currentTimeMillis();
-		boolean optimumFound = algorithm.traverse();
+			// Divide the memory available for snapshots evenly among all histories
+			long memoryLimit = historyMemoryLimit;
+			if (pool != null && memoryLimit != Long.MAX_VALUE) {
+				memoryLimit /= pool.getSize() + 1;
+			}
+			checker.getHistory().setMemoryLimit(memoryLimit);
+			checker.getHistory().setCompression(historyCompression);
+			if (pool != null) {
+				pool.setMemoryLimit(memoryLimit);
+				pool.setCompression(historyCompression);
+			}
 
-		// Free resources
-		checker.reset();
+			// Create an algorithm instance
+			algorithm = getAlgorithm(config, manager, solutionSpace, checker);
+			algorithm.setListener(listener);
+			algorithm.setCheckerPool(pool);
+
+			// Resume from and write checkpoints, if requested. Checkpoints contain a
+			// baseline, which allows to efficiently resume after records have been appended
+			String[] header = manager.getDataGeneralized().getHeader();
+			DataMatrix data = manager.getDataGeneralized().getArray();
+			DataMatrix analyzed = manager.getDataAnalyzed().isEmpty() ? null : manager.getDataAnalyzed().getArray();
+			RowSet subset = config.getSubset() == null ? null : config.getSubset().getSet();
+			long configuration = getConfigurationFingerprint(definition, config, header, manager);
+			if (checkpoint != null) {
+				algorithm.resume(new Checkpoint(checkpoint, checkpointInterval, header, data, analyzed, subset,
+						configuration));
+			} else if (checkpointFile != null) {
+				algorithm.createBaseline(null, 0);
+			}
+			if (checkpointFile != null) {
+				algorithm.setCheckpoint(new Checkpoint(checkpointFile, checkpointInterval, header, data, analyzed,
+						subset, configuration));
+			}
+
+			// Execute
+			time = System.currentTimeMillis();
+			optimumFound = algorithm.traverse();
+
+			// Persist the final state
+			algorithm.writeCheckpoint();
+		} finally {
+
+			// Free resources, also if the search fails
+			checker.reset();
+			if (pool != null) {
+				pool.reset();
+			}
+		}
 
 		// Return the result
 		return new Result(checker, solutionSpace, manager, algorithm, time, optimumFound);
@@ -751,8 +1109,11 @@ public class ARXAnonymizer { // NO_UCD
 	 */
 	protected void parse(ARXAnonymizer anonymizer) {
 		this.historySize = anonymizer.historySize;
+		this.historyMemoryLimit = anonymizer.historyMemoryLimit;
+		this.historyCompression = anonymizer.historyCompression;
 		this.snapshotSizeDataset = anonymizer.snapshotSizeDataset;
 		this.snapshotSizeSnapshot = anonymizer.snapshotSizeSnapshot;
 		this.maxQuasiIdentifiers = anonymizer.maxQuasiIdentifiers;
+		this.parallelism = anonymizer.parallelism;
 	}
 }
\ No newline at end of file
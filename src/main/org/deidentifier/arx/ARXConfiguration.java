@@ -47,6 +47,7 @@ import org.deidentifier.arx.criteria.TCloseness;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.MetricConfiguration;
+import org.deidentifier.arx.metric.MetricDescription;
 
 /**
  * A generic configuration for the ARX anonymizer.
@@ -393,6 +394,9 @@ public class ARXConfiguration implements Serializable, Cloneable {
     /** Semantics of heuristic search steps */
     private SearchStepSemantics                searchStepSemantics                   = SearchStepSemantics.CHECKS;
 
+    /** Number of threads used for checking transformations, null if the anonymizer's setting is used */
+    private Integer                            parallelism                           = null;
+
     /**
      * Creates a new configuration without tuple suppression.
      */
@@ -522,6 +526,7 @@ public class ARXConfiguration implements Serializable, Cloneable {
         result.costBenefitConfiguration = this.getCostBenefitConfiguration().clone();
         result.dpSearchBudget = this.dpSearchBudget;
         result.searchStepSemantics = this.searchStepSemantics;
+        result.parallelism = this.parallelism;
         if (this.attributeWeights != null) {
             result.attributeWeights = new HashMap<String, Double>(this.attributeWeights);
         } else {
@@ -713,6 +718,15 @@ public class ARXConfiguration implements Serializable, Cloneable {
         }
     }
 
+    /**
+     * Returns the number of threads used for checking transformations. Returns 0 if the
+     * setting of the anonymizer is to be used, which is the default.
+     * @return
+     */
+    public int getParallelism() {
+        return this.parallelism == null ? 0 : this.parallelism;
+    }
+
     /**
      * Returns an instance of the class, if any. Throws an exception if more than one such model exists.
      *
@@ -1040,6 +1054,16 @@ public class ARXConfiguration implements Serializable, Cloneable {
         this.relMaxOutliers = max;
     }
 
+    /**
+     * Sets the number of threads used for checking transformations. Overrides the setting of
+     * the anonymizer. Set to 0 to use the anonymizer's setting, which is the default.
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 0) { throw new IllegalArgumentException("Parameter must be >= 0"); }
+        this.parallelism = parallelism == 0 ? null : parallelism;
+    }
+
     /**
      * Set, if practical monotonicity assumed.
      *
@@ -1221,6 +1245,46 @@ public class ARXConfiguration implements Serializable, Cloneable {
         return result;
     }
 
+    /**
+     * Clones this config for a worker that checks transformations in parallel to others.
+     * Privacy models may use internal buffers when checking transformations. They are
+     * therefore cloned and initialized with the given data manager. The quality model
+     * is cloned and must be initialized by the caller.
+     *
+     * @param manager
+     * @return The clone, or null if the quality model cannot be cloned
+     */
+    protected ARXConfiguration getInstanceForParallelSearch(DataManager manager) {
+
+        // Check, if we can do this
+        MetricDescription description = this.metric.getDescription();
+        if (description == null) {
+            return null;
+        }
+
+        // Clone the quality model
+        Metric<?> metric;
+        try {
+            metric = description.createInstance(this.metric.getConfiguration());
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+
+        // Clone the privacy models. Differential privacy has been initialized
+        // by the DataManager and is shared.
+        Set<PrivacyCriterion> criteria = new HashSet<PrivacyCriterion>();
+        for (PrivacyCriterion criterion : this.criteria) {
+            criteria.add(criterion instanceof EDDifferentialPrivacy ? criterion : criterion.clone());
+        }
+
+        // Clone the config
+        ARXConfiguration result = this.clone();
+        result.criteria = criteria;
+        result.metric = metric;
+        result.initialize(manager);
+        return result;
+    }
+
     /**
      * Returns an internal variant of the class which provides a broader interface
      *
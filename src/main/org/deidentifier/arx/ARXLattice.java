@@ -25,10 +25,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.ARXProcessStatistics.Step;
@@ -39,16 +37,20 @@ import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.InformationLoss;
 import org.deidentifier.arx.metric.Metric;
 
+import cern.colt.list.IntArrayList;
 import cern.colt.list.LongArrayList;
 
-import com.carrotsearch.hppc.IntObjectOpenHashMap;
-import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.LongIntOpenHashMap;
 
 import de.linearbits.jhpl.JHPLIterator.LongIterator;
 
 /**
  * This class implements a representation of the generalization lattice that is
- * exposed to users of the API.
+ * exposed to users of the API.<br>
+ * <br>
+ * Lattices of solution spaces are backed by the identifiers of the materialized
+ * transformations. Nodes, as well as their predecessors and successors, are only
+ * created when they are accessed.
  *
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -149,15 +151,7 @@ public class ARXLattice implements Serializable {
             lattice.solutions = solutions;
             
             // For backwards compatibility
-            lattice.map = new LongObjectOpenHashMap<ARXNode>();
-            for (ARXNode[] level : lattice.levels) {
-                for (ARXNode node : level) {
-                    int[] levels = node.getTransformation();
-                    Transformation transformation = lattice.solutions.getTransformation(levels);
-                    long id = transformation.getIdentifier();
-                    lattice.map.put(id, node);
-                }
-            }
+            lattice.index();
         }
         
         /**
@@ -402,30 +396,7 @@ public class ARXLattice implements Serializable {
             this.maxInformationLoss = transformation.getInformationLoss();
             this.lowerBound = transformation.getLowerBound();
             this.checked = transformation.hasProperty(solutions.getPropertyChecked());
-            
-            // Transfer anonymity property without uncertainty
-            if (transformation.hasProperty(solutions.getPropertyChecked())){
-                if (transformation.hasProperty(solutions.getPropertyAnonymous())) {
-                    this.anonymity = Anonymity.ANONYMOUS;
-                } else if(transformation.hasProperty(solutions.getPropertyNotAnonymous())) {
-                    this.anonymity = Anonymity.NOT_ANONYMOUS;
-                } else {                  
-                    this.anonymity = Anonymity.UNKNOWN;
-                }
-            // This is a node for which the property is unknown
-            } else {
-                if (transformation.hasProperty(solutions.getPropertyAnonymous())) {
-                    this.anonymity = uncertainty ? Anonymity.PROBABLY_ANONYMOUS : Anonymity.ANONYMOUS;
-                } else if (transformation.hasProperty(solutions.getPropertyNotAnonymous())) {
-                    this.anonymity = uncertainty ? Anonymity.PROBABLY_NOT_ANONYMOUS : Anonymity.NOT_ANONYMOUS;
-                } else if (transformation.hasProperty(solutions.getPropertyNotKAnonymous())) {
-                    this.anonymity = Anonymity.NOT_ANONYMOUS;
-                } else if (transformation.hasProperty(solutions.getPropertyInsufficientUtility())) {
-                    this.anonymity = Anonymity.UNKNOWN;
-                } else {
-                    this.anonymity = Anonymity.UNKNOWN;
-                }
-            }
+            this.anonymity = lattice.getAnonymity(solutions, transformation);
 
             // Make sure that we have information loss available
             // Important for expand operations
@@ -533,6 +504,9 @@ public class ARXLattice implements Serializable {
          * @return
          */
         public ARXNode[] getPredecessors() {
+            if (predecessors == null && lattice.identifiers != null) {
+                predecessors = lattice.getNodes(lattice.getPredecessors(id));
+            }
             return predecessors;
         }
 
@@ -555,6 +529,9 @@ public class ARXLattice implements Serializable {
          * @return
          */
         public ARXNode[] getSuccessors() {
+            if (successors == null && lattice.identifiers != null) {
+                successors = lattice.getNodes(lattice.getSuccessors(id));
+            }
             return successors;
         }
 
@@ -754,8 +731,29 @@ public class ARXLattice implements Serializable {
     /** The solution space */
     private transient SolutionSpace                  solutions;
 
-    /** Map from ids to nodes */
-    private transient LongObjectOpenHashMap<ARXNode> map;
+    /** The header map of all nodes */
+    private transient Map<String, Integer>           headermap;
+
+    /** Identifiers of the transformations, indexed by position */
+    private transient long[]                         identifiers;
+
+    /** Map from identifiers to positions */
+    private transient LongIntOpenHashMap             positions;
+
+    /** Positions of the transformations in each level */
+    private transient int[][]                        levelPositions;
+
+    /** Nodes which have been created, indexed by position */
+    private transient ARXNode[]                      nodes;
+
+    /** Lower bounds of transformations without nodes, indexed by position */
+    private transient InformationLoss<?>[]           lowerBounds;
+
+    /** Lowest scores of transformations without nodes, indexed by position */
+    private transient InformationLoss<?>[]           lowestScores;
+
+    /** Highest scores of transformations without nodes, indexed by position */
+    private transient InformationLoss<?>[]           highestScores;
 
     /**
      * Constructor.
@@ -766,7 +764,7 @@ public class ARXLattice implements Serializable {
         
         // Lots of null values
         solutions = null;
-        map = null;
+        identifiers = null;
         monotonicNonAnonymous = false;
         monotonicAnonymous = false;
         complete = null;
@@ -816,33 +814,40 @@ public class ARXLattice implements Serializable {
         // Create relationships
         for (int level = 0; level < levels.length - 1; level++) {
 
-            // Outer loop
+            // Index the next level by generalization vector
+            ARXNode[] upperLevel = levels[level + 1];
+            Map<String, Integer> positions = new HashMap<String, Integer>();
+            List<List<ARXNode>> predecessors = new ArrayList<List<ARXNode>>();
+            for (int position = 0; position < upperLevel.length; position++) {
+                positions.put(Arrays.toString(upperLevel[position].getTransformation()), position);
+                predecessors.add(new ArrayList<ARXNode>());
+            }
+
+            // Look up the direct generalizations of each node
             for (ARXNode lower : levels[level]) {
-                
-                // Inner loop
-                for (ARXNode upper : levels[level + 1]) {
-                    
-                    // Check
-                    boolean relationship = true;
-                    loop: for (int i=0; i<lower.getTransformation().length; i++) {
-                        if (lower.getTransformation()[i] > upper.getTransformation()[i]) {
-                            relationship = false;
-                            break loop;
-                        }
-                    }
-                    
-                    // Connect
-                    if (relationship) {
-                        List<ARXNode> predecessors = new ArrayList<>();
-                        predecessors.addAll(Arrays.asList(upper.getPredecessors()));
-                        List<ARXNode> successors = new ArrayList<>();
-                        successors.addAll(Arrays.asList(lower.getSuccessors()));
-                        predecessors.add(lower);
-                        successors.add(upper);
-                        lower.predecessors = predecessors.toArray(new ARXNode[predecessors.size()]);
-                        lower.successors = successors.toArray(new ARXNode[successors.size()]);
+                int[] transformation = lower.getTransformation().clone();
+                int[] successors = new int[transformation.length];
+                int count = 0;
+                for (int i = 0; i < transformation.length; i++) {
+                    transformation[i]++;
+                    Integer position = positions.get(Arrays.toString(transformation));
+                    transformation[i]--;
+                    if (position != null) {
+                        successors[count++] = position;
                     }
                 }
+                
+                // Connect, ordered by position in the level
+                Arrays.sort(successors, 0, count);
+                lower.successors = new ARXNode[count];
+                for (int i = 0; i < count; i++) {
+                    lower.successors[i] = upperLevel[successors[i]];
+                    predecessors.get(successors[i]).add(lower);
+                }
+            }
+            for (int position = 0; position < upperLevel.length; position++) {
+                List<ARXNode> list = predecessors.get(position);
+                upperLevel[position].predecessors = list.toArray(new ARXNode[list.size()]);
             }
         }
     }
@@ -884,30 +889,6 @@ public class ARXLattice implements Serializable {
             build(optimum, headermap);
         }
 
-        // find bottom node
-        outer: for (int i = 0; i < this.levels.length; i++) {
-            final ARXNode[] level = this.levels[i];
-            for (int j = 0; j < level.length; j++) {
-                final ARXNode node = level[j];
-                if (node != null) {
-                    this.bottom = node;
-                    break outer;
-                }
-            }
-        }
-
-        // find top node
-        outer: for (int i = this.levels.length - 1; i >= 0; i--) {
-            final ARXNode[] level = this.levels[i];
-            for (int j = 0; j < level.length; j++) {
-                final ARXNode node = level[j];
-                if (node != null) {
-                    this.top = node;
-                    break outer;
-                }
-            }
-        }
-
         // Estimate information loss of all nodes
         estimateInformationLoss();
     }
@@ -940,117 +921,102 @@ public class ARXLattice implements Serializable {
         LongArrayList successors = transformation.getSuccessors();
         neighbors.addAllOfFromTo(successors, 0, successors.size() - 1);
         
-        // Collect affected levels
-        int lowerLevel = transformation.getLevel() - 1;
-        int higherLevel = transformation.getLevel() + 1;
-        if (transformation.getLevel() == solutions.getTop().getLevel()) {
-            lowerLevel = solutions.getTop().getLevel() - 1;
-            higherLevel = solutions.getTop().getLevel() - 1;
-        } else if (transformation.getLevel() == solutions.getBottom().getLevel()) {
-            lowerLevel = solutions.getBottom().getLevel() + 1;
-            higherLevel = solutions.getBottom().getLevel() + 1;
-        }
-
-        // Find missing neighbors and initialize variables
-        Map<String, Integer>            headermap = this.getBottom().getHeaderMap();
-        Set<Long>                       missing = new HashSet<Long>();
+        // Materialize missing neighbors
+        Map<Integer, List<Integer>> levels = new HashMap<Integer, List<Integer>>();
+        List<Integer> missing = new ArrayList<Integer>();
         for (int i = 0; i < neighbors.size(); i++) {
-            missing.add(neighbors.getQuick(i));
-        }
-        outer: for (int level = lowerLevel; level <= higherLevel; level ++) {
-            if (level != transformation.getLevel()) {
-                for (ARXNode node : this.levels[level]) {
-                    Long id = solutions.getTransformation(node.getTransformation()).getIdentifier();
-                    missing.remove(id);
-                    if (missing.isEmpty()) {
-                        break outer;
-                    }
+            long id = neighbors.getQuick(i);
+            if (!positions.containsKey(id)) {
+                
+                // Materialize
+                transformation = solutions.getTransformation(id);
+                int position = add(transformation);
+                missing.add(position);
+                
+                // Store in map of levels
+                if (!levels.containsKey(transformation.getLevel())) {
+                    levels.put(transformation.getLevel(), new ArrayList<Integer>());
                 }
+                levels.get(transformation.getLevel()).add(position);
             }
         }
         
-        // Materialize missing nodes
-        Map<Integer, List<ARXNode>> levels = new HashMap<Integer, List<ARXNode>>();
-        for (long id : missing) {
-            
-            // Materialize
-            transformation = solutions.getTransformation(id);
-            ARXNode node = new ARXNode(this, solutions, transformation, headermap);
-            
-            // Store in global map
-            map.put(id, node);
-            
-            // Store in map of levels
-            if (!levels.containsKey(transformation.getLevel())) {
-                levels.put(transformation.getLevel(), new ArrayList<ARXNode>());
-            }
-            levels.get(transformation.getLevel()).add(node);
-        }
-        
-        // Insert missing nodes into level Arrays
+        // Insert missing transformations into levels
         for (int level : levels.keySet()) {
             
-            // Sort nodes to insert, lexicographically
-            List<ARXNode> nodes = levels.get(level);
-            Collections.sort(nodes, new Comparator<ARXNode>(){
-                public int compare(ARXNode o1, ARXNode o2) {
-                    return compareLexicographically(o1, o2);
+            // Sort positions to insert, lexicographically
+            final List<Integer> inserted = levels.get(level);
+            Collections.sort(inserted, new Comparator<Integer>(){
+                public int compare(Integer o1, Integer o2) {
+                    return compareLexicographically(getGeneralization(o1), getGeneralization(o2));
                 }
             });
 
-            // Initialize new level
-            List<ARXNode> list = new ArrayList<ARXNode>();
-            
-            // Now add all nodes in one pass
+            // Now add all positions in one pass
+            int[] existing = this.levelPositions[level];
+            int[] list = new int[existing.length + inserted.size()];
             int index = 0;
-            for (ARXNode node : this.levels[level]) {
-                while (index < nodes.size() && compareLexicographically(nodes.get(index), node) < 0) {
-                    list.add(nodes.get(index++));
+            int count = 0;
+            for (int position : existing) {
+                int[] generalization = getGeneralization(position);
+                while (index < inserted.size() && compareLexicographically(getGeneralization(inserted.get(index)), generalization) < 0) {
+                    list[count++] = inserted.get(index++);
                 }
-                list.add(node);
+                list[count++] = position;
             }
             
             // Add remaining
-            while (index < nodes.size()) {
-                list.add(nodes.get(index++));
+            while (index < inserted.size()) {
+                list[count++] = inserted.get(index++);
             }
+            this.levelPositions[level] = list;
             
-            // Convert
-            this.levels[level] = list.toArray(new ARXNode[list.size()]);
+            // Update levels, if they have been created
+            if (this.levels != null) {
+                this.levels[level] = getNodes(list);
+            }
         }
         
-        // Build relationships from/to missing nodes
-        for (long id : missing) {
-            this.createExpandedRelationships(solutions, id);
+        // Neighbors of existing nodes are recreated when they are accessed
+        for (int position : missing) {
+            transformation = solutions.getTransformation(identifiers[position]);
+            neighbors = transformation.getPredecessors();
+            successors = transformation.getSuccessors();
+            neighbors.addAllOfFromTo(successors, 0, successors.size() - 1);
+            for (int i = 0; i < neighbors.size(); i++) {
+                long id = neighbors.getQuick(i);
+                if (positions.containsKey(id) && nodes[positions.get(id)] != null) {
+                    ARXNode node = nodes[positions.get(id)];
+                    node.predecessors = null;
+                    node.successors = null;
+                }
+            }
         }
         
-        // Update size
-        this.size += missing.size();
-        
         // Update information loss
-        for (long id : missing) {
+        for (int position : missing) {
             
             // Pull lower bound from predecessors
-            transformation = solutions.getTransformation(id);
-            ARXNode node = map.get(id);
+            transformation = solutions.getTransformation(identifiers[position]);
             InformationLoss<?> lowerBound = null;
             InformationLoss<?> min = metric.createInstanceOfLowestScore();
             InformationLoss<?> max = metric.createInstanceOfHighestScore();
             LongArrayList list = transformation.getPredecessors();
             for (int i = 0; i < list.size(); i++) {
-                ARXNode predecessor = map.get(list.getQuick(i));
-                if (predecessor != null && predecessor.getLowerBound() != null) {
-                    min.max(predecessor.getLowerBound().clone());
+                long id = list.getQuick(i);
+                InformationLoss<?> bound = positions.containsKey(id) ? getLowerBound(positions.get(id)) : null;
+                if (bound != null) {
+                    min.max(bound.clone());
                     if (lowerBound == null) {
-                        lowerBound = predecessor.getLowerBound().clone();
+                        lowerBound = bound.clone();
                     } else {
-                        lowerBound.max(predecessor.getLowerBound().clone());
+                        lowerBound.max(bound.clone());
                     }
                 }
             }
-            node.access.setLowestScore(min);
-            node.access.setLowerBound(lowerBound);
-            node.access.setHighestScore(max);
+            setLowestScore(position, min);
+            setLowerBound(position, lowerBound);
+            setHighestScore(position, max);
         }
     }
     
@@ -1081,6 +1047,12 @@ public class ARXLattice implements Serializable {
      * @return
      */
     public ARXNode[][] getLevels() {
+        if (levels == null && identifiers != null) {
+            levels = new ARXNode[levelPositions.length][];
+            for (int level = 0; level < levels.length; level++) {
+                levels[level] = getNodes(levelPositions[level]);
+            }
+        }
         return levels;
     }
 
@@ -1134,73 +1106,97 @@ public class ARXLattice implements Serializable {
     }
     
     /**
-     * Build an ARX lattice for an incompletely classified solution space
+     * Adds the given transformation and returns its position
+     * @param transformation
+     * @return
+     */
+    private int add(Transformation transformation) {
+        
+        // Grow
+        int position = size++;
+        if (position == identifiers.length) {
+            int capacity = Math.max(16, identifiers.length * 2);
+            identifiers = Arrays.copyOf(identifiers, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+            lowerBounds = Arrays.copyOf(lowerBounds, capacity);
+            lowestScores = Arrays.copyOf(lowestScores, capacity);
+            highestScores = Arrays.copyOf(highestScores, capacity);
+        }
+        
+        // Make sure that we have information loss available
+        // Important for expand operations
+        InformationLoss<?> loss = transformation.getInformationLoss();
+        identifiers[position] = transformation.getIdentifier();
+        positions.put(transformation.getIdentifier(), position);
+        lowerBounds[position] = transformation.getLowerBound();
+        lowestScores[position] = loss != null ? loss : metric.createInstanceOfLowestScore();
+        highestScores[position] = loss != null ? loss : metric.createInstanceOfHighestScore();
+        return position;
+    }
+
+    /**
+     * Build an ARX lattice for an incompletely classified solution space. Only the
+     * identifiers of the transformations are stored, nodes are created on demand.
      * @param optimum
      * @param headermap
      */
     private void build(final Transformation optimum, Map<String, Integer> headermap) {
 
-        // Create nodes
-        this.map = new LongObjectOpenHashMap<ARXNode>();
-        final IntObjectOpenHashMap<List<ARXNode>> levels = new IntObjectOpenHashMap<List<ARXNode>>(); 
-        int size = 0;
-        int maxlevel = 0;
+        // Initialize
+        this.headermap = headermap;
+        this.identifiers = new long[0];
+        this.nodes = new ARXNode[0];
+        this.lowerBounds = new InformationLoss<?>[0];
+        this.lowestScores = new InformationLoss<?>[0];
+        this.highestScores = new InformationLoss<?>[0];
+        this.positions = new LongIntOpenHashMap();
+        this.size = 0;
+        
+        // Collect transformations
+        List<IntArrayList> levels = new ArrayList<IntArrayList>();
         for (LongIterator iterator = solutions.getMaterializedTransformations(); iterator.hasNext();) {
-            
-            Transformation transformation = solutions.getTransformation(iterator.next());
-            if (!levels.containsKey(transformation.getLevel())) {
-                levels.put(transformation.getLevel(), new ArrayList<ARXNode>());
-            }
-            ARXNode node = new ARXNode(this, solutions, transformation, headermap);
-            map.put(transformation.getIdentifier(), node);
-            levels.get(transformation.getLevel()).add(node);
-            if (optimum != null && transformation.getIdentifier() == optimum.getIdentifier()) {
-                this.optimum = node;
-            }
-            maxlevel = Math.max(maxlevel, transformation.getLevel());
-            size++;
+            add(solutions.getTransformation(iterator.next()), levels);
         }
         
         // Make sure that bottom and top are in the resulting solution space
         Transformation top = solutions.getTop();
         Transformation bottom = solutions.getBottom();
-        if (!map.containsKey(top.getIdentifier())) {
-            if (!levels.containsKey(top.getLevel())) {
-                levels.put(top.getLevel(), new ArrayList<ARXNode>());
-            }
-            ARXNode node = new ARXNode(this, solutions, top, headermap);
-            map.put(top.getIdentifier(), node);
-            levels.get(top.getLevel()).add(node);
-            maxlevel = top.getLevel();
-            size++;
-        }
-        if (!map.containsKey(bottom.getIdentifier())) {
-            if (!levels.containsKey(bottom.getLevel())) {
-                levels.put(bottom.getLevel(), new ArrayList<ARXNode>());
-            }
-            ARXNode node = new ARXNode(this, solutions, bottom, headermap);
-            map.put(bottom.getIdentifier(), node);
-            levels.get(bottom.getLevel()).add(node);
-            size++;
-        }
-
-        // Create levels array
-        this.size = size;
-        this.levels = new ARXNode[maxlevel+1][];
-        for (int i = 0; i < this.levels.length; i++) {
-            if (levels.containsKey(i)) {
-                this.levels[i] = levels.get(i).toArray(new ARXNode[levels.get(i).size()]);
-            } else {
-                this.levels[i] = new ARXNode[0];
-            }
+        if (!positions.containsKey(top.getIdentifier())) {
+            add(top, levels);
+        }
+        if (!positions.containsKey(bottom.getIdentifier())) {
+            add(bottom, levels);
+        }
+
+        // Create levels
+        this.levelPositions = new int[levels.size()][];
+        for (int i = 0; i < this.levelPositions.length; i++) {
+            IntArrayList level = levels.get(i);
+            this.levelPositions[i] = level == null ? new int[0] : Arrays.copyOf(level.elements(), level.size());
         }
         
-        // Create relationships
-        for (LongIterator iterator = solutions.getMaterializedTransformations(); iterator.hasNext();) {
-            createRelationships(solutions, iterator.next());
+        // Create nodes for bottom, top and optimum
+        this.bottom = getNode(positions.get(bottom.getIdentifier()));
+        this.top = getNode(positions.get(top.getIdentifier()));
+        if (optimum != null) {
+            this.optimum = getNode(positions.get(optimum.getIdentifier()));
         }
-        createRelationships(solutions, solutions.getTop().getIdentifier());
-        createRelationships(solutions, solutions.getBottom().getIdentifier());
+    }
+
+    /**
+     * Adds the given transformation and stores its position in the given list of levels
+     * @param transformation
+     * @param levels
+     */
+    private void add(Transformation transformation, List<IntArrayList> levels) {
+        int level = transformation.getLevel();
+        while (levels.size() <= level) {
+            levels.add(null);
+        }
+        if (levels.get(level) == null) {
+            levels.set(level, new IntArrayList());
+        }
+        levels.get(level).add(add(transformation));
     }
     
     /**
@@ -1222,8 +1218,10 @@ public class ARXLattice implements Serializable {
         node.successors = new ARXNode[0];
         node.predecessors = new ARXNode[0];
         
-        // Store optimum
+        // Store optimum, bottom and top
         this.optimum = node;
+        this.bottom = node;
+        this.top = node;
         
         // Generate level arrays
         this.levels = new ARXNode[optimum.getLevel() + 1][];
@@ -1234,133 +1232,170 @@ public class ARXLattice implements Serializable {
     }
 
     /**
-     * Compares the transformations of two nodes lexicographically
+     * Compares two transformations lexicographically
      * @param first
      * @param second
      * @return
      */
-    private int compareLexicographically(ARXNode first, ARXNode second) {
-        int[] firstArray = first.getTransformation();
-        int[] secondArray = second.getTransformation();
-        for (int i = 0; i < firstArray.length; i++) {
-            if (firstArray[i] < secondArray[i]) {
+    private int compareLexicographically(int[] first, int[] second) {
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] < second[i]) {
                 return -1;
-            } else if (firstArray[i] > secondArray[i]) {
+            } else if (first[i] > second[i]) {
                 return +1;
             }
         }
         return 0;
     }
-    
+
     /**
-     * Creates all relationships 
+     * Returns the anonymity of the given transformation
      * @param solutions
-     * @param map
-     * @param id
+     * @param transformation
+     * @return
      */
-    private void createExpandedRelationships(final SolutionSpace solutions,
-                                             final long id) {
+    private Anonymity getAnonymity(SolutionSpace solutions, Transformation transformation) {
         
-        // Obtain given node
-        final ARXNode center = map.get(id);
-        final Transformation transformation = solutions.getTransformation(id);
-        
-        // Collect materialized successors and predecessors
-        List<ARXNode> successors = new ArrayList<ARXNode>();
-        List<ARXNode> predecessors = new ArrayList<ARXNode>();
-        
-        LongArrayList list1 = transformation.getSuccessors();
-        for (int i = 0; i < list1.size(); i++) {
-            ARXNode node = map.get(list1.getQuick(i));
-            if (node != null) {
-                successors.add(node);
+        // Transfer anonymity property without uncertainty
+        if (transformation.hasProperty(solutions.getPropertyChecked())){
+            if (transformation.hasProperty(solutions.getPropertyAnonymous())) {
+                return Anonymity.ANONYMOUS;
+            } else if(transformation.hasProperty(solutions.getPropertyNotAnonymous())) {
+                return Anonymity.NOT_ANONYMOUS;
+            } else {                  
+                return Anonymity.UNKNOWN;
+            }
+        // This is a node for which the property is unknown
+        } else {
+            if (transformation.hasProperty(solutions.getPropertyAnonymous())) {
+                return uncertainty ? Anonymity.PROBABLY_ANONYMOUS : Anonymity.ANONYMOUS;
+            } else if (transformation.hasProperty(solutions.getPropertyNotAnonymous())) {
+                return uncertainty ? Anonymity.PROBABLY_NOT_ANONYMOUS : Anonymity.NOT_ANONYMOUS;
+            } else if (transformation.hasProperty(solutions.getPropertyNotKAnonymous())) {
+                return Anonymity.NOT_ANONYMOUS;
+            } else if (transformation.hasProperty(solutions.getPropertyInsufficientUtility())) {
+                return Anonymity.UNKNOWN;
+            } else {
+                return Anonymity.UNKNOWN;
             }
         }
+    }
 
-        LongArrayList list2 = transformation.getPredecessors();
-        for (int i = 0; i < list2.size(); i++) {
-            ARXNode node = map.get(list2.getQuick(i));
-            if (node != null) {
-                predecessors.add(node);
+    /**
+     * Returns the generalization levels of the transformation at the given position
+     * @param position
+     * @return
+     */
+    private int[] getGeneralization(int position) {
+        return nodes[position] != null ? nodes[position].getTransformation() :
+               solutions.getTransformation(identifiers[position]).getGeneralization();
+    }
+
+    /**
+     * Returns the positions of the materialized transformations with the given identifiers, in the given order
+     * @param ids
+     * @return
+     */
+    private int[] getMaterializedPositions(final LongArrayList ids) {
+        int[] result = new int[ids.size()];
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.getQuick(i);
+            if (positions.containsKey(id)) {
+                result[count++] = positions.get(id);
             }
         }
-        
-        // Add successors and predecessors to given node
-        center.successors = successors.toArray(new ARXNode[successors.size()]);
-        center.predecessors = predecessors.toArray(new ARXNode[predecessors.size()]);
-        
-        // Update predecessors
-        for (ARXNode node : predecessors) {
-            
-           List<ARXNode> nodeSuccessors = new ArrayList<ARXNode>();
-           nodeSuccessors.addAll(Arrays.asList(node.successors));
-           int index = 0;
-           while (index < nodeSuccessors.size() && compareLexicographically(nodeSuccessors.get(index), center) < 0 ) {
-               index++;
-           }
-           // Subtract
-           index = index == 0 ? 0 : index - 1;
-           nodeSuccessors.add(index, center);
-           
-           // Add and update
-           node.successors = nodeSuccessors.toArray(new ARXNode[nodeSuccessors.size()]); 
-        }
-        
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
 
-        // Update successors
-        for (ARXNode node : successors) {
-            
-           List<ARXNode> nodePredecessors = new ArrayList<ARXNode>();
-           nodePredecessors.addAll(Arrays.asList(node.predecessors));
-           int index = 0;
-           while (index < nodePredecessors.size() && compareLexicographically(nodePredecessors.get(index), center) < 0 ) {
-               index++;
-           }
-           // Subtract
-           index = index == 0 ? 0 : index - 1;
-           
-           // Add and update
-           nodePredecessors.add(index, center);
-           node.predecessors = nodePredecessors.toArray(new ARXNode[nodePredecessors.size()]); 
-        }
+    /**
+     * Returns the node at the given position, which is created if needed
+     * @param position
+     * @return
+     */
+    private ARXNode getNode(int position) {
+        ARXNode node = nodes[position];
+        if (node == null) {
+            node = new ARXNode(this, solutions, solutions.getTransformation(identifiers[position]), headermap);
+            node.lowerBound = lowerBounds[position];
+            node.minInformationLoss = lowestScores[position];
+            node.maxInformationLoss = highestScores[position];
+            node.id = position;
+            nodes[position] = node;
+            lowerBounds[position] = null;
+            lowestScores[position] = null;
+            highestScores[position] = null;
+        }
+        return node;
     }
 
+    /**
+     * Returns the positions of the given nodes
+     * @param nodes
+     * @return
+     */
+    private int[] getPositions(ARXNode[] nodes) {
+        int[] result = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = nodes[i].getId();
+        }
+        return result;
+    }
 
     /**
-     * Creates all relationships
-     * @param solutions
-     * @param map
-     * @param id
+     * Returns the nodes at the given positions
+     * @param positions
+     * @return
      */
-    private void createRelationships(final SolutionSpace solutions,
-                                     final long id) {
-        
-        final ARXNode fnode = map.get(id);
-        final Transformation transformation = solutions.getTransformation(id);
-        
-        List<ARXNode> successors = new ArrayList<ARXNode>();
-        List<ARXNode> predecessors = new ArrayList<ARXNode>();
+    private ARXNode[] getNodes(int[] positions) {
+        ARXNode[] result = new ARXNode[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = getNode(positions[i]);
+        }
+        return result;
+    }
+    
+    /**
+     * Indexes the nodes of the levels. If a solution space is available, the lattice
+     * is backed by the identifiers of the nodes afterwards.
+     */
+    private void index() {
         
-        LongArrayList list1 = transformation.getSuccessors();
-        for (int i = 0; i < list1.size(); i++) {
-            ARXNode node = map.get(list1.getQuick(i));
-            if (node != null) {
-                successors.add(node);
-            }
+        // Count
+        int count = 0;
+        for (ARXNode[] level : levels) {
+            count += level.length;
         }
-
-        LongArrayList list2 = transformation.getPredecessors();
-        for (int i = 0; i < list2.size(); i++) {
-            ARXNode node = map.get(list2.getQuick(i));
-            if (node != null) {
-                predecessors.add(node);
+        
+        // Index
+        this.nodes = new ARXNode[count];
+        this.levelPositions = new int[levels.length][];
+        if (solutions != null) {
+            this.identifiers = new long[count];
+            this.positions = new LongIntOpenHashMap(count);
+            this.lowerBounds = new InformationLoss<?>[count];
+            this.lowestScores = new InformationLoss<?>[count];
+            this.highestScores = new InformationLoss<?>[count];
+            this.headermap = bottom.getHeaderMap();
+            this.size = count;
+        }
+        int position = 0;
+        for (int i = 0; i < levels.length; i++) {
+            this.levelPositions[i] = new int[levels[i].length];
+            for (int j = 0; j < levels[i].length; j++) {
+                ARXNode node = levels[i][j];
+                node.setId(position);
+                this.nodes[position] = node;
+                this.levelPositions[i][j] = position;
+                if (solutions != null) {
+                    long id = solutions.getTransformation(node.getTransformation()).getIdentifier();
+                    this.identifiers[position] = id;
+                    this.positions.put(id, position);
+                }
+                position++;
             }
         }
-        
-        fnode.successors = successors.toArray(new ARXNode[successors.size()]);
-        fnode.predecessors = predecessors.toArray(new ARXNode[predecessors.size()]);
     }
-    
 
     /**
      * De-serialization.
@@ -1391,6 +1426,19 @@ public class ARXLattice implements Serializable {
                                           getDeserializationContext().maxLevel);
     }
     
+    /**
+     * Sets the lower bound of the transformation at the given position
+     * @param position
+     * @param bound
+     */
+    private void setLowerBound(int position, InformationLoss<?> bound) {
+        if (nodes[position] != null) {
+            nodes[position].access().setLowerBound(bound);
+        } else {
+            lowerBounds[position] = bound;
+        }
+    }
+
     /**
      * Sets the monotonicity based on the current configuration
      * @param isSuppressionAlwaysEnabled
@@ -1433,4 +1481,122 @@ public class ARXLattice implements Serializable {
     boolean _legacySearchedWithFlash() {
         return complete == null ? true : complete;
     }
+
+    /**
+     * Returns the anonymity of the transformation at the given position
+     * @param position
+     * @return
+     */
+    Anonymity getAnonymity(int position) {
+        return nodes[position] != null ? nodes[position].getAnonymity() :
+               getAnonymity(solutions, solutions.getTransformation(identifiers[position]));
+    }
+
+    /**
+     * Returns the highest score of the transformation at the given position
+     * @param position
+     * @return
+     */
+    InformationLoss<?> getHighestScore(int position) {
+        return nodes[position] != null ? nodes[position].getHighestScore() : highestScores[position];
+    }
+
+    /**
+     * Returns the positions of the transformations in each level. Positions range from
+     * zero to the number of nodes and are used as identifiers of nodes.
+     * @return
+     */
+    int[][] getLevelPositions() {
+        if (identifiers == null) {
+            index();
+        }
+        return levelPositions;
+    }
+
+    /**
+     * Returns the lower bound of the transformation at the given position
+     * @param position
+     * @return
+     */
+    InformationLoss<?> getLowerBound(int position) {
+        return nodes[position] != null ? nodes[position].getLowerBound() : lowerBounds[position];
+    }
+
+    /**
+     * Returns the lowest score of the transformation at the given position
+     * @param position
+     * @return
+     */
+    InformationLoss<?> getLowestScore(int position) {
+        return nodes[position] != null ? nodes[position].getLowestScore() : lowestScores[position];
+    }
+
+    /**
+     * Returns the number of transformations which have been checked or whose
+     * score is known, without creating nodes
+     * @return
+     */
+    int getNumberOfCheckedTransformations() {
+        int result = 0;
+        for (int[] level : getLevelPositions()) {
+            for (int position : level) {
+                boolean checked = nodes[position] != null ? nodes[position].isChecked() :
+                                  solutions.getTransformation(identifiers[position]).hasProperty(solutions.getPropertyChecked());
+                if (checked || getHighestScore(position).compareTo(getLowestScore(position)) == 0) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions of the predecessors of the transformation at the given position
+     * @param position
+     * @return
+     */
+    int[] getPredecessors(int position) {
+        if (identifiers != null) {
+            return getMaterializedPositions(solutions.getTransformation(identifiers[position]).getPredecessors());
+        }
+        return getPositions(nodes[position].getPredecessors());
+    }
+
+    /**
+     * Returns the positions of the successors of the transformation at the given position
+     * @param position
+     * @return
+     */
+    int[] getSuccessors(int position) {
+        if (identifiers != null) {
+            return getMaterializedPositions(solutions.getTransformation(identifiers[position]).getSuccessors());
+        }
+        return getPositions(nodes[position].getSuccessors());
+    }
+
+    /**
+     * Sets the highest score of the transformation at the given position
+     * @param position
+     * @param score
+     */
+    void setHighestScore(int position, InformationLoss<?> score) {
+        if (nodes[position] != null) {
+            nodes[position].access().setHighestScore(score);
+        } else {
+            highestScores[position] = score;
+        }
+    }
+
+    /**
+     * Sets the lowest score of the transformation at the given position
+     * @param position
+     * @param score
+     */
+    void setLowestScore(int position, InformationLoss<?> score) {
+        if (nodes[position] != null) {
+            nodes[position].access().setLowestScore(score);
+        } else {
+            lowestScores[position] = score;
+        }
+    }
 }
@@ -309,13 +309,7 @@ public class ARXProcessStatistics implements Serializable {
         // Compute statistics
         this.duration += duration;
         this.transformationsTotal += lattice.getVirtualSize();        
-        for (final ARXNode[] level : lattice.getLevels()) {
-            for (final ARXNode node : level) {
-                if (node.isChecked() || node.getHighestScore().compareTo(node.getLowestScore()) == 0) {
-                    transformationsChecked++;
-                }
-            }
-        }
+        this.transformationsChecked += lattice.getNumberOfCheckedTransformations();
     }
 
     /**
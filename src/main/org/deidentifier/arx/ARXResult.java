@@ -149,8 +149,8 @@ public class ARXResult {
         // Initialize the metric
         metric.initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
 
-        this.buffer = new DataMatrix(manager.getDataGeneralized().getArray().getNumRows(), 
-                                     manager.getDataGeneralized().getArray().getNumColumns());
+        this.buffer = DataMatrix.create(manager.getDataGeneralized().getArray().getNumRows(), 
+                                        manager.getDataGeneralized().getArray().getNumColumns());
         
         // Initialize the result
         this.registry = handle.getRegistry();
@@ -22,10 +22,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+import org.deidentifier.arx.io.CSVDataEncoder;
 import org.deidentifier.arx.io.CSVDataInput;
 import org.deidentifier.arx.io.CSVOptions;
 import org.deidentifier.arx.io.CSVSyntax;
@@ -162,6 +166,115 @@ public abstract class Data { // NO_UCD
         }
     }
 
+    /**
+     * A data object for data which has already been encoded. Data and dictionary are shared with
+     * the handles created from this object, which copy them before modifying them.
+     *
+     * @author Fabian Prasser
+     */
+    static class EncodedData extends Data {
+
+        /** Header */
+        private final String[]   header;
+
+        /** Dictionary */
+        private final Dictionary dictionary;
+
+        /** Data */
+        private final DataMatrix data;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param encoder the encoder
+         */
+        private EncodedData(final CSVDataEncoder encoder) {
+            this(encoder.getHeader(), encoder.getDictionary(), encoder.getData());
+        }
+
+        /**
+         * Creates a new instance.
+         *
+         * @param header the header
+         * @param dictionary the dictionary
+         * @param data the data
+         */
+        private EncodedData(final String[] header, final Dictionary dictionary, final DataMatrix data) {
+            this.header = header;
+            this.dictionary = dictionary;
+            this.data = data;
+        }
+
+        /**
+         * Returns the data
+         *
+         * @return
+         */
+        DataMatrix getData() {
+            return data;
+        }
+
+        /**
+         * Returns the dictionary
+         *
+         * @return
+         */
+        Dictionary getDictionary() {
+            return dictionary;
+        }
+
+        /**
+         * Returns the header
+         *
+         * @return
+         */
+        String[] getHeader() {
+            return header;
+        }
+
+        @Override
+        protected Integer getLength() {
+            return data.getNumRows();
+        }
+
+        @Override
+        protected Iterator<String[]> iterator() {
+            return new Iterator<String[]>() {
+
+                /** Row, -1 for the header */
+                private int row = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return row < data.getNumRows();
+                }
+
+                @Override
+                public String[] next() throws NoSuchElementException {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    if (row == -1) {
+                        row++;
+                        return header.clone();
+                    }
+                    String[][] mapping = dictionary.getMapping();
+                    String[] result = new String[header.length];
+                    for (int column = 0; column < result.length; column++) {
+                        result[column] = mapping[column][data.get(row, column)];
+                    }
+                    row++;
+                    return result;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
     /**
      * Creates a new default data object.
      *
@@ -171,6 +284,71 @@ public abstract class Data { // NO_UCD
         return new DefaultData();
     }
 
+    /**
+     * Creates a new data object, which consists of the records of the given data followed by the
+     * records provided by the given iterator. The first element returned by the iterator must be
+     * a header, which matches the header of the given data. The records of the given data are not
+     * parsed again and their encoding is reused, so that only the appended records are encoded. The
+     * data definition of the given data is copied.<br>
+     * <br>
+     * Together with checkpoints, this allows to efficiently re-anonymize data to which records are
+     * appended regularly, see {@link ARXAnonymizer#resume(Data, ARXConfiguration, File)}.
+     *
+     * @param data The data, to which records are appended
+     * @param iterator The header and the records to append
+     * @return A Data object
+     */
+    public static Data create(final Data data, final Iterator<String[]> iterator) {
+
+        // Obtain encoded data
+        DataHandleInput handle = (DataHandleInput) data.getHandle();
+        String[] header = handle.header;
+        DataMatrix input = handle.data;
+
+        // Check header
+        if (!iterator.hasNext() || !Arrays.equals(header, iterator.next())) {
+            throw new IllegalArgumentException("Header does not match the header of the data");
+        }
+
+        // Copy and extend dictionary
+        int[] columns = new int[header.length];
+        for (int column = 0; column < columns.length; column++) {
+            columns[column] = column;
+        }
+        Dictionary dictionary = new Dictionary(handle.dictionary, columns);
+        dictionary.definalizeAll();
+
+        // Encode appended records
+        List<int[]> records = new ArrayList<int[]>();
+        while (iterator.hasNext()) {
+            String[] strings = iterator.next();
+            int[] tuple = new int[header.length];
+            for (int i = 0; i < header.length; i++) {
+                String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
+                value = (value != null) ? value : DataType.NULL_VALUE;
+                tuple[i] = dictionary.register(i, value);
+            }
+            records.add(tuple);
+        }
+        dictionary.finalizeAll();
+
+        // Copy existing and append new records
+        int rows = input.getNumRows();
+        DataMatrix matrix = DataMatrix.create(rows + records.size(), header.length);
+        for (int row = 0; row < rows; row++) {
+            matrix.copyFrom(row, input, row);
+        }
+        for (int row = 0; row < records.size(); row++) {
+            matrix.setRow(rows + row, records.get(row));
+        }
+
+        // Create
+        Data result = new EncodedData(Arrays.copyOf(header, header.length), dictionary, matrix);
+        result.definition = data.getDefinition().clone();
+        result.definition.setLocked(false);
+        return result;
+    }
+
     /**
      * Creates a new data object from the given data source specification.
      *
@@ -275,6 +453,41 @@ public abstract class Data { // NO_UCD
         return new IterableData(new CSVDataInput(file, charset, config, options).iterator());
     }
 
+    /**
+     * Creates a new data object from a CSV file, which is parsed and encoded by the given number of threads.
+     * Records are encoded directly, without being materialized as strings.
+     *
+     * @param file the file
+     * @param charset the charset
+     * @param delimiter the delimiter
+     * @param threads the number of threads
+     * @return the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @see CSVDataEncoder
+     */
+    public static Data create(final File file, final Charset charset, final char delimiter, final int threads) throws IOException {
+        return create(file, charset, new CSVSyntax(delimiter), null, threads);
+    }
+
+    /**
+     * Creates a new data object from a CSV file, which is parsed and encoded by the given number of threads.
+     * Records are encoded directly, without being materialized as strings.
+     *
+     * @param file the file
+     * @param charset the charset
+     * @param config the config
+     * @param options the options, may be null
+     * @param threads the number of threads
+     * @return the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @see CSVDataEncoder
+     */
+    public static Data create(final File file, final Charset charset, final CSVSyntax config, final CSVOptions options, final int threads) throws IOException {
+        CSVDataEncoder encoder = new CSVDataEncoder(file, charset, config, options, threads);
+        encoder.encode();
+        return new EncodedData(encoder);
+    }
+
     /**
      * Creates a new data object from a CSV file.
      *
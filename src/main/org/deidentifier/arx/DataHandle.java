@@ -43,14 +43,19 @@ import org.deidentifier.arx.DataType.ARXDecimal;
 import org.deidentifier.arx.DataType.ARXInteger;
 import org.deidentifier.arx.DataType.DataTypeDescription;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
 import org.deidentifier.arx.certificate.elements.ElementData;
 import org.deidentifier.arx.io.CSVDataOutput;
 import org.deidentifier.arx.io.CSVSyntax;
 import org.deidentifier.arx.risk.RiskEstimateBuilder;
 import org.deidentifier.arx.risk.RiskModelHistogram;
 
+import cern.colt.GenericSorting;
 import cern.colt.Swapper;
+import cern.colt.function.IntComparator;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 
 /**
@@ -87,6 +92,9 @@ public abstract class DataHandle {
 
     /** The current research subset. */
     protected DataHandle                   subset           = null;
+
+    /** Cached feature matrices used for classification. */
+    private Map<String, ClassificationFeatureMatrix> featureMatrices = null;
     
     /**
      * Returns the name of the specified column.
@@ -928,6 +936,16 @@ public abstract class DataHandle {
      */
     protected abstract String[] getDistinctValues(int column, boolean ignoreSuppression, InterruptHandler handler);
 
+    /**
+     * Returns the cached feature matrix with the given key, null if there is none.
+     *
+     * @param key
+     * @return
+     */
+    protected synchronized ClassificationFeatureMatrix getFeatureMatrix(String key) {
+        return featureMatrices == null ? null : featureMatrices.get(key);
+    }
+
     /**
      * Returns the registry associated with this handle.
      *
@@ -979,6 +997,71 @@ public abstract class DataHandle {
         }
     }
 
+    /**
+     * Returns the ranks of the values of the given column in the given range of rows,
+     * with regards to the order implemented by {@link #internalCompare(int, int, int[], boolean)}.
+     * Values are compared only once per distinct value, equal values have equal ranks and
+     * ranks are dense, i.e. they range from zero to the number of distinct values minus one.
+     * The result is indexed by <code>row - from</code>.
+     *
+     * @param from
+     * @param to
+     * @param column
+     * @return
+     */
+    protected int[] internalGetRanks(final int from, final int to, final int column) {
+
+        // Find a representative row for each distinct value
+        final int[] result = new int[to - from];
+        IntIntOpenHashMap codes = new IntIntOpenHashMap();
+        IntArrayList representatives = new IntArrayList();
+        for (int row = from; row < to; row++) {
+            int code = internalGetEncodedValue(row, column, false);
+            int slot = codes.getOrDefault(code, -1);
+            if (slot == -1) {
+                slot = representatives.size();
+                codes.put(code, slot);
+                representatives.add(row);
+            }
+            result[row - from] = slot;
+        }
+
+        // Sort distinct values
+        final int[] rows = representatives.toArray();
+        final int[] order = new int[rows.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        final int[] columns = new int[] { column };
+        GenericSorting.mergeSort(0, order.length, new IntComparator() {
+            @Override
+            public int compare(int arg0, int arg1) {
+                return internalCompare(rows[order[arg0]], rows[order[arg1]], columns, true);
+            }
+        }, new Swapper() {
+            @Override
+            public void swap(int arg0, int arg1) {
+                int temp = order[arg0];
+                order[arg0] = order[arg1];
+                order[arg1] = temp;
+            }
+        });
+
+        // Assign ranks
+        int[] ranks = new int[order.length];
+        int rank = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i > 0 && internalCompare(rows[order[i - 1]], rows[order[i]], columns, true) != 0) {
+                rank++;
+            }
+            ranks[order[i]] = rank;
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ranks[result[i]];
+        }
+        return result;
+    }
+
     /**
      * Internal representation of get encoded value. Returns -1 for suppressed values.
      *
@@ -1015,6 +1098,26 @@ public abstract class DataHandle {
         return false;
     }
 
+    /**
+     * Clears all cached data which depends on the order or on the values of the records.
+     */
+    protected synchronized void resetCaches() {
+        featureMatrices = null;
+    }
+
+    /**
+     * Caches the given feature matrix.
+     *
+     * @param key
+     * @param matrix
+     */
+    protected synchronized void setFeatureMatrix(String key, ClassificationFeatureMatrix matrix) {
+        if (featureMatrices == null) {
+            featureMatrices = new HashMap<String, ClassificationFeatureMatrix>();
+        }
+        featureMatrices.put(key, matrix);
+    }
+
     /**
      * Sets the current header
      * @param header
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import org.deidentifier.arx.Data.EncodedData;
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.framework.data.DataMatrix;
@@ -50,6 +51,12 @@ public class DataHandleInput extends DataHandle {
     /** Is this handle locked?. */
     private boolean      locked          = false;
 
+    /** Whether the data is shared with the data object and must be copied before being modified. */
+    private boolean      sharedData       = false;
+
+    /** Whether the dictionary is shared with the data object and must be copied before being modified. */
+    private boolean      sharedDictionary = false;
+
     /**
      * Creates a new data handle.
      *
@@ -57,6 +64,22 @@ public class DataHandleInput extends DataHandle {
      */
     protected DataHandleInput(final Data data) {
         
+        // Data has already been encoded. It is shared with the data object, which must remain
+        // unchanged, because further handles may be created from it.
+        if (data instanceof EncodedData) {
+            EncodedData encoded = (EncodedData) data;
+            this.setRegistry(new DataRegistry());
+            this.getRegistry().updateInput(this);
+            this.definition = data.getDefinition().clone();
+            super.setHeader(Arrays.copyOf(encoded.getHeader(), encoded.getHeader().length));
+            this.dictionary = encoded.getDictionary();
+            this.data = encoded.getData();
+            this.sharedData = true;
+            this.sharedDictionary = true;
+            this.columnToDataType = getColumnToDataType();
+            return;
+        }
+
         // Obtain and check iterator
         Iterator<String[]> iterator = data.iterator();
         if (!iterator.hasNext()) { 
@@ -82,7 +105,7 @@ public class DataHandleInput extends DataHandle {
             int records = data.getLength();
 
             // Build array
-            this.data = new DataMatrix(records, header.length);
+            this.data = DataMatrix.create(records, header.length);
             
             // Encode data on the fly
             int row = 0;
@@ -123,7 +146,7 @@ public class DataHandleInput extends DataHandle {
             }
     
             // Build array
-            this.data = new DataMatrix(vals.size(), header.length);
+            this.data = DataMatrix.create(vals.size(), header.length);
             for (int row = 0; row < vals.size(); row++) {
                 this.data.setRow(row, vals.get(row));
             }
@@ -296,6 +319,16 @@ public class DataHandleInput extends DataHandle {
                                       String original,
                                       String replacement) {
 
+        // Copy shared dictionary
+        if (sharedDictionary) {
+            int[] columns = new int[header.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = i;
+            }
+            dictionary = new Dictionary(dictionary, columns);
+            sharedDictionary = false;
+        }
+
         String[] values = dictionary.getMapping()[column];
         boolean found = false;
         for (int i = 0; i < values.length; i++) {
@@ -319,6 +352,12 @@ public class DataHandleInput extends DataHandle {
         checkRow(row1, data.getNumRows());
         checkRow(row2, data.getNumRows());
 
+        // Copy shared data
+        if (sharedData) {
+            data = data.clone();
+            sharedData = false;
+        }
+
         // Swap
         data.swap(row1, row2);
         if (dataGeneralized != null) dataGeneralized.swap(row1, row2);
@@ -18,6 +18,7 @@
 package org.deidentifier.arx;
 
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
 
 /**
  * Wrapper class that provides information to StatisticsBuilder.
@@ -158,6 +159,15 @@ public class DataHandleInternal {
         return handle.internalGetEncodedValue(row, col, ignoreSuppression);
     }
 
+    /**
+     * Returns the cached feature matrix with the given key, null if there is none
+     * @param key
+     * @return
+     */
+    public ClassificationFeatureMatrix getFeatureMatrix(String key) {
+        return handle.getFeatureMatrix(key);
+    }
+
     /**
      * Method
      * @param attribute
@@ -278,4 +288,13 @@ public class DataHandleInternal {
             return this.handle instanceof DataHandleOutput;
         }
     }
+
+    /**
+     * Caches the given feature matrix
+     * @param key
+     * @param matrix
+     */
+    public void setFeatureMatrix(String key, ClassificationFeatureMatrix matrix) {
+        handle.setFeatureMatrix(key, matrix);
+    }
 }
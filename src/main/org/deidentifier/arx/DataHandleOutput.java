@@ -706,6 +706,9 @@ public class DataHandleOutput extends DataHandle {
      */
     protected void updateDataTypes(int[] transformation) {
 
+        // Data has been modified
+        this.resetCaches();
+
         // For each column
         for (int i = 0; i < header.length; i++) {
             
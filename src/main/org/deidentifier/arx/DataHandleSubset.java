@@ -22,6 +22,7 @@ import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
 
 
 /**
@@ -108,6 +109,12 @@ public class DataHandleSubset extends DataHandle {
         return this;
     }
 
+    @Override
+    protected ClassificationFeatureMatrix getFeatureMatrix(String key) {
+        // Views are not cached, as they are not notified about modifications of their source
+        return null;
+    }
+
     @Override
     protected int getValueIdentifier(int column, String value) {
         return source.getValueIdentifier(column, value);
@@ -262,4 +269,9 @@ public class DataHandleSubset extends DataHandle {
     protected boolean isAnonymous() {
         return source.isAnonymous();
     }
+
+    @Override
+    protected void setFeatureMatrix(String key, ClassificationFeatureMatrix matrix) {
+        // Views are not cached
+    }
 }
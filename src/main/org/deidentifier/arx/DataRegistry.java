@@ -24,9 +24,7 @@ import java.util.Map.Entry;
 
 import org.deidentifier.arx.ARXLattice.ARXNode;
 
-import cern.colt.GenericSorting;
 import cern.colt.Swapper;
-import cern.colt.function.IntComparator;
 
 /**
  * This class implements sorting and swapping for a set of paired data handles.
@@ -63,6 +61,7 @@ class DataRegistry {
      */
     public boolean replace(int column, String original, String replacement) {
         boolean replaced = false; 
+        resetCaches();
         replaced |= input.internalReplace(column, original, replacement);
         if (!output.isEmpty()) {
             replaced |= output.values().iterator().next().internalReplace(column, original, replacement);
@@ -99,6 +98,113 @@ class DataRegistry {
         return subset;
     }
     
+    /**
+     * Returns the permutation which sorts the given range of rows. Values are replaced
+     * by their ranks, which are then sorted with a stable counting sort, one column
+     * after the other, starting with the least significant one. The result is thus
+     * identical to a stable sort which compares the values of all rows.
+     *
+     * @param handle
+     * @param from
+     * @param to
+     * @param ascending
+     * @param columns
+     * @return The row, relative to <code>from</code>, to be moved to each position
+     */
+    private int[] getPermutation(final DataHandle handle,
+                                 final int from,
+                                 final int to,
+                                 final boolean ascending,
+                                 final int... columns) {
+
+        // Prepare
+        int size = to - from;
+        int[] permutation = new int[size];
+        int[] buffer = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+
+        // Sort by each column
+        for (int i = columns.length - 1; i >= 0; i--) {
+
+            // Determine ranks
+            int[] ranks = handle.internalGetRanks(from, to, columns[i]);
+            int max = 0;
+            for (int rank : ranks) {
+                max = Math.max(max, rank);
+            }
+            if (max == 0) {
+                continue;
+            }
+            if (!ascending) {
+                for (int j = 0; j < size; j++) {
+                    ranks[j] = max - ranks[j];
+                }
+            }
+
+            // Counting sort
+            int[] offsets = new int[max + 2];
+            for (int rank : ranks) {
+                offsets[rank + 1]++;
+            }
+            for (int j = 1; j < offsets.length; j++) {
+                offsets[j] += offsets[j - 1];
+            }
+            for (int row : permutation) {
+                buffer[offsets[ranks[row]]++] = row;
+            }
+            int[] temp = permutation;
+            permutation = buffer;
+            buffer = temp;
+        }
+
+        // Return
+        return permutation;
+    }
+
+    /**
+     * Moves the rows into the order defined by the given permutation, using at most
+     * one swap per row.
+     *
+     * @param from
+     * @param permutation
+     * @param swapper
+     */
+    private void permute(final int from, final int[] permutation, final Swapper swapper) {
+
+        // Current position of each row and current row at each position
+        int[] positions = new int[permutation.length];
+        int[] rows = new int[permutation.length];
+        for (int i = 0; i < permutation.length; i++) {
+            positions[i] = i;
+            rows[i] = i;
+        }
+
+        // Move rows into place
+        for (int i = 0; i < permutation.length; i++) {
+            int row = permutation[i];
+            int position = positions[row];
+            if (position != i) {
+                swapper.swap(from + i, from + position);
+                int other = rows[i];
+                rows[position] = other;
+                positions[other] = position;
+                rows[i] = row;
+                positions[row] = i;
+            }
+        }
+    }
+
+    /**
+     * Clears cached data of all handles which depends on the order or on the values of the records.
+     * Views are not considered, as they do not maintain such data.
+     */
+    private void resetCaches() {
+        if (input != null) input.resetCaches();
+        for (DataHandleOutput handle : output.values()) handle.resetCaches();
+    }
+
     /**
      * Sort.
      *
@@ -116,15 +222,7 @@ class DataRegistry {
                          final boolean ascending,
                          final int... columns) {
 
-        final DataHandle outer = handle;
         final DataHandleSubset subset = getSubset();
-        
-        final IntComparator c = new IntComparator() {
-            @Override
-            public int compare(final int arg0, final int arg1) {
-                return outer.internalCompare(arg0, arg1, columns, ascending);
-            }
-        };
         final Swapper s = new Swapper() {
             @Override
             public void swap(final int arg0, final int arg1) {
@@ -135,7 +233,7 @@ class DataRegistry {
             }
         };
         
-        GenericSorting.mergeSort(from, to, c, s);
+        permute(from, getPermutation(handle, from, to, ascending, columns), s);
         
         if (subset != null){
             subset.internalRebuild();
@@ -160,12 +258,6 @@ class DataRegistry {
                               final int... columns) {
 
         final DataHandleSubset outer = handle;
-        final IntComparator c = new IntComparator() {
-            @Override
-            public int compare(final int arg0, final int arg1) {
-                return outer.internalCompare(arg0, arg1, columns, ascending);
-            }
-        };
         final Swapper s = new Swapper() {
             @Override
             public void swap(final int arg0, final int arg1) {
@@ -176,7 +268,7 @@ class DataRegistry {
         };
         
         // No need to swap and rebuild the subset views
-        GenericSorting.mergeSort(from, to, c, s);
+        permute(from, getPermutation(handle, from, to, ascending, columns), s);
     }
     
     /**
@@ -400,6 +492,7 @@ class DataRegistry {
         handle.checkColumns(columns);
         handle.checkRow(from, handle.getNumRows());
         handle.checkRow(to, handle.getNumRows());
+        resetCaches();
         
         if (handle instanceof DataHandleSubset){
             sortSubset((DataHandleSubset)handle, swapper, from, to, ascending, columns);
@@ -416,6 +509,7 @@ class DataRegistry {
      * @param row2
      */
     protected void swap(DataHandle handle, int row1, int row2) {
+        resetCaches();
         if (handle instanceof DataHandleSubset){
             swapSubset((DataHandleSubset)handle, row1, row2);
         } else {
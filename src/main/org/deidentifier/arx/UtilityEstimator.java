@@ -16,7 +16,6 @@
  */
 package org.deidentifier.arx;
 
-import org.deidentifier.arx.ARXLattice.ARXNode;
 import org.deidentifier.arx.ARXLattice.Anonymity;
 import org.deidentifier.arx.metric.InformationLoss;
 import org.deidentifier.arx.metric.Metric;
@@ -35,6 +34,9 @@ import org.deidentifier.arx.metric.Metric;
  *    -   Anonymous & !monotonic: metric.max<br>
  *    -  !Anonymous &  monotonic: push(max)<br>
  *    -  !Anonymous & !monotonic: metric.max<br>
+ * <br>
+ * Nodes are identified by their positions in the lattice, so that estimates can be
+ * computed without creating nodes.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -47,6 +49,12 @@ class UtilityEstimator {
     /** The metric. */
     private Metric<?>            metric;
 
+    /** The positions of the nodes in each level. */
+    private int[][]              levels;
+
+    /** The anonymity of each node. */
+    private Anonymity[]          anonymity;
+
     /** Additional fields. */
     private InformationLoss<?>[] minimumAnonymous;
     
@@ -87,19 +95,24 @@ class UtilityEstimator {
         // Init
         this.lattice = lattice;
         this.metric = metric;
-        this.minimumAnonymous = new InformationLoss<?>[this.lattice.getSize()];
-        this.minimumNonAnonymous = new InformationLoss<?>[this.lattice.getSize()];
-        this.maximumAnonymous = new InformationLoss<?>[this.lattice.getSize()];
-        this.maximumNonAnonymous = new InformationLoss<?>[this.lattice.getSize()];
-        this.lowerBound = new InformationLoss<?>[this.lattice.getSize()];
+        this.levels = lattice.getLevelPositions();
+        int size = 0;
+        for (int[] level : levels) {
+            size += level.length;
+        }
+        this.minimumAnonymous = new InformationLoss<?>[size];
+        this.minimumNonAnonymous = new InformationLoss<?>[size];
+        this.maximumAnonymous = new InformationLoss<?>[size];
+        this.maximumNonAnonymous = new InformationLoss<?>[size];
+        this.lowerBound = new InformationLoss<?>[size];
         this.monotonicAnonymous = monotonicAnonymous;
         this.monotonicNonAnonymous = monotonicNonAnonymous;
         
-        // Make sure that all nodes have an identifier
-        int id = 0;
-        for (ARXNode[] level : this.lattice.getLevels()) {
-            for (ARXNode node : level) {
-                node.setId(id++);
+        // Collect anonymity of all nodes
+        this.anonymity = new Anonymity[size];
+        for (int[] level : levels) {
+            for (int id : level) {
+                anonymity[id] = lattice.getAnonymity(id);
             }
         }
     }
@@ -110,18 +123,18 @@ class UtilityEstimator {
     private void estimateMax() {
 
         // Prepare
-        initializeTopDown(lattice.getTop());
-        setMaximum(lattice.getTop());
-        this.globalMaximum = lattice.getTop().getHighestScore();
+        int top = lattice.getTop().getId();
+        initializeTopDown(top);
+        setMaximum(top);
+        this.globalMaximum = lattice.getHighestScore(top);
         
         // Pull
-        ARXNode[][] levels = lattice.getLevels();
         for (int i = levels.length-2; i >= 0; i--) {
-            final ARXNode[] level = levels[i];
-            for (final ARXNode node : level) {
-                pullTopDown(node);
-                setMaximum(node);
-                this.globalMaximum = max(this.globalMaximum, node.getHighestScore());
+            final int[] level = levels[i];
+            for (final int id : level) {
+                pullTopDown(id);
+                setMaximum(id);
+                this.globalMaximum = max(this.globalMaximum, lattice.getHighestScore(id));
             }
         }
     }
@@ -132,18 +145,18 @@ class UtilityEstimator {
     private void estimateMin() {
 
         // Prepare
-        initializeBottomUp(lattice.getBottom());
-        setMinimum(lattice.getBottom());
-        this.globalMinimum = lattice.getBottom().getLowestScore();
+        int bottom = lattice.getBottom().getId();
+        initializeBottomUp(bottom);
+        setMinimum(bottom);
+        this.globalMinimum = lattice.getLowestScore(bottom);
         
         // Pull
-        ARXNode[][] levels = lattice.getLevels();
         for (int i = 1; i < levels.length; i++) {
-            final ARXNode[] level = levels[i];
-            for (final ARXNode node : level) {
-                pullBottomUp(node);
-                setMinimum(node);
-                this.globalMinimum = min(this.globalMinimum, node.getLowestScore());
+            final int[] level = levels[i];
+            for (final int id : level) {
+                pullBottomUp(id);
+                setMinimum(id);
+                this.globalMinimum = min(this.globalMinimum, lattice.getLowestScore(id));
             }
         }
     }
@@ -161,16 +174,15 @@ class UtilityEstimator {
     /**
      * Initializes the bottom node.
      *
-     * @param node
+     * @param id
      */
-    private void initializeBottomUp(ARXNode node) {
+    private void initializeBottomUp(int id) {
 
-        int id = node.getId();
-        Anonymity nodeAnonymity = node.getAnonymity();
-        InformationLoss<?> nodeMin = node.getLowestScore();
+        Anonymity nodeAnonymity = anonymity[id];
+        InformationLoss<?> nodeMin = lattice.getLowestScore(id);
         InformationLoss<?> metricMin = metric.createInstanceOfLowestScore();
 
-        lowerBound[id] = getValueOrDefault(node.getLowerBound(), metricMin);
+        lowerBound[id] = getValueOrDefault(lattice.getLowerBound(id), metricMin);
         
         if (nodeAnonymity == Anonymity.ANONYMOUS && monotonicAnonymous) {
             minimumAnonymous[id] = getValueOrDefault(nodeMin, metricMin);
@@ -187,13 +199,12 @@ class UtilityEstimator {
     /**
      * Initializes the top node.
      *
-     * @param node
+     * @param id
      */
-    private void initializeTopDown(ARXNode node) {
+    private void initializeTopDown(int id) {
         
-        int id = node.getId();
-        Anonymity nodeAnonymity = node.getAnonymity();
-        InformationLoss<?> nodeMax = node.getHighestScore();
+        Anonymity nodeAnonymity = anonymity[id];
+        InformationLoss<?> nodeMax = lattice.getHighestScore(id);
         InformationLoss<?> metricMax = metric.createInstanceOfHighestScore();
 
         if (nodeAnonymity == Anonymity.ANONYMOUS && monotonicAnonymous) {
@@ -237,31 +248,30 @@ class UtilityEstimator {
     /**
      * Propagate bottom up.
      *
-     * @param node
+     * @param id
      */
-    private void pullBottomUp(ARXNode node) {
-        
-        int id = node.getId();
+    private void pullBottomUp(int id) {
         
         // Pull all values
-        for (ARXNode pre : node.getPredecessors()) {
-            int preId = pre.getId();
+        for (int preId : lattice.getPredecessors(id)) {
             pullMax(minimumAnonymous, id, preId);
             pullMax(minimumNonAnonymous, id, preId);
             pullMax(lowerBound, id, preId);
         }
         
         // Lower bound can always be replaced
-        if (node.getLowerBound() != null) {
-            lowerBound[id] = max(lowerBound[id], node.getLowerBound());
+        InformationLoss<?> nodeLowerBound = lattice.getLowerBound(id);
+        if (nodeLowerBound != null) {
+            lowerBound[id] = max(lowerBound[id], nodeLowerBound);
         }
         
         // Check if values can be replaced
-        if (node.getLowestScore() != null) {
-            if (node.getAnonymity() == Anonymity.ANONYMOUS && monotonicAnonymous) {
-                minimumAnonymous[id] = max(minimumAnonymous[id], node.getLowestScore());
-            } else if (node.getAnonymity() == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
-                minimumNonAnonymous[id] = max(minimumNonAnonymous[id], node.getLowestScore());
+        InformationLoss<?> nodeMin = lattice.getLowestScore(id);
+        if (nodeMin != null) {
+            if (anonymity[id] == Anonymity.ANONYMOUS && monotonicAnonymous) {
+                minimumAnonymous[id] = max(minimumAnonymous[id], nodeMin);
+            } else if (anonymity[id] == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
+                minimumNonAnonymous[id] = max(minimumNonAnonymous[id], nodeMin);
             }
         }
     }
@@ -292,25 +302,23 @@ class UtilityEstimator {
     /**
      * Propagate top down.
      *
-     * @param node
+     * @param id
      */
-    private void pullTopDown(ARXNode node) {
-        
-        int id = node.getId();
+    private void pullTopDown(int id) {
         
         // Pull all values
-        for (ARXNode succ : node.getSuccessors()) {
-            int succId = succ.getId();
+        for (int succId : lattice.getSuccessors(id)) {
             pullMin(maximumAnonymous, id, succId);
             pullMin(maximumNonAnonymous, id, succId);
         }
         
         // Check if values can be replaced
-        if (node.getHighestScore() != null) {
-            if (node.getAnonymity() == Anonymity.ANONYMOUS && monotonicAnonymous) {
-                maximumAnonymous[id] = min(maximumAnonymous[id], node.getHighestScore());
-            } else if (node.getAnonymity() == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
-                maximumNonAnonymous[id] = min(maximumNonAnonymous[id], node.getHighestScore());
+        InformationLoss<?> nodeMax = lattice.getHighestScore(id);
+        if (nodeMax != null) {
+            if (anonymity[id] == Anonymity.ANONYMOUS && monotonicAnonymous) {
+                maximumAnonymous[id] = min(maximumAnonymous[id], nodeMax);
+            } else if (anonymity[id] == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
+                maximumNonAnonymous[id] = min(maximumNonAnonymous[id], nodeMax);
             }
         }
     }
@@ -318,63 +326,67 @@ class UtilityEstimator {
     /**
      * Selects a maximum for the given node.
      *
-     * @param node
+     * @param id
      */
-    private void setMaximum(ARXNode node) {
+    private void setMaximum(int id) {
     
         // If we already know everything, abort
-        if (node.getLowestScore() != null && 
-            node.getHighestScore() != null && 
-            node.getLowestScore().compareTo(node.getHighestScore())==0){
+        InformationLoss<?> nodeMin = lattice.getLowestScore(id);
+        InformationLoss<?> nodeMax = lattice.getHighestScore(id);
+        if (nodeMin != null && 
+            nodeMax != null && 
+            nodeMin.compareTo(nodeMax)==0){
             return;
         }
         
         // Check if values can be replaced
         InformationLoss<?> minimalMaximum = null;
-        if (node.getAnonymity() == Anonymity.ANONYMOUS && monotonicAnonymous) {
-            minimalMaximum = min(node.getHighestScore(), maximumAnonymous[node.getId()]);
-        } else if (node.getAnonymity() == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
-            minimalMaximum = min(node.getHighestScore(), maximumNonAnonymous[node.getId()]);
+        if (anonymity[id] == Anonymity.ANONYMOUS && monotonicAnonymous) {
+            minimalMaximum = min(nodeMax, maximumAnonymous[id]);
+        } else if (anonymity[id] == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
+            minimalMaximum = min(nodeMax, maximumNonAnonymous[id]);
         } else {
-            minimalMaximum = min(node.getHighestScore(), metric.createInstanceOfHighestScore());
+            minimalMaximum = min(nodeMax, metric.createInstanceOfHighestScore());
         }
         
         // Set
-        node.access().setHighestScore(minimalMaximum);
+        lattice.setHighestScore(id, minimalMaximum);
     }
 
     /**
      * Selects a minimum for the given node.
      *
-     * @param node
+     * @param id
      */
-    private void setMinimum(ARXNode node) {
+    private void setMinimum(int id) {
     
         // If we already know everything, abort
-        if (node.getLowestScore() != null && 
-            node.getHighestScore() != null && 
-            node.getLowestScore().compareTo(node.getHighestScore())==0){
+        InformationLoss<?> nodeMin = lattice.getLowestScore(id);
+        InformationLoss<?> nodeMax = lattice.getHighestScore(id);
+        if (nodeMin != null && 
+            nodeMax != null && 
+            nodeMin.compareTo(nodeMax)==0){
             return;
         }
         
         // We can always use the lower bound
-        InformationLoss<?> maximalMinimum = max(node.getLowestScore(), lowerBound[node.getId()]);
+        InformationLoss<?> maximalMinimum = max(nodeMin, lowerBound[id]);
         
         // Check if values can be replaced
-        if (node.getAnonymity() == Anonymity.ANONYMOUS) {
+        if (anonymity[id] == Anonymity.ANONYMOUS) {
             
             // We can always use the optimum as a minimum for anonymous nodes
             maximalMinimum = max(maximalMinimum, lattice.getOptimum().getLowestScore());
             
             if (monotonicAnonymous) {
-                maximalMinimum = max(maximalMinimum, minimumAnonymous[node.getId()]);
+                maximalMinimum = max(maximalMinimum, minimumAnonymous[id]);
             }
-        } else if (node.getAnonymity() == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
-            maximalMinimum = max(maximalMinimum, minimumNonAnonymous[node.getId()]);
+        } else if (anonymity[id] == Anonymity.NOT_ANONYMOUS && monotonicNonAnonymous) {
+            maximalMinimum = max(maximalMinimum, minimumNonAnonymous[id]);
         }
         
         // Set
-        node.access().setLowestScore(maximalMinimum);
+        lattice.setLowestScore(id, maximalMinimum);
     }
 
     /**
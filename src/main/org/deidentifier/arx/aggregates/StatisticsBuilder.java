@@ -19,6 +19,7 @@ package org.deidentifier.arx.aggregates;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -28,8 +29,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-import org.apache.commons.math3.stat.descriptive.moment.GeometricMean;
 import org.deidentifier.arx.ARXClassificationConfiguration;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXFeatureScaling;
@@ -41,10 +40,8 @@ import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.ARXString;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
+import org.deidentifier.arx.aggregates.StatisticsSummary.StatisticsSummaryNumeric;
 import org.deidentifier.arx.aggregates.StatisticsSummary.StatisticsSummaryOrdinal;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -581,15 +578,78 @@ public class StatisticsBuilder {
             }
         }
 
-        // Calculate equivalence classes
-        int capacity = handle.getNumRows() / 10;
-        capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
+        // Codes of suppressed values. Suppressed values are encoded as -1, while they must
+        // be considered equal to values that have been generalized to the same string.
+        final int width = indices.length;
+        final int[] suppressed = new int[width];
+        for (int i = 0; i < width; i++) {
+            suppressed[i] = handle.getValueIdentifier(indices[i], DataType.ANY_VALUE);
+        }
+
+        // Calculate equivalence classes by grouping the encoded values in an open-addressing
+        // hash table. Keys, sizes and flags of classes are stored in primitive arrays.
         int numRows = handle.getNumRows();
+        int capacity = 16;
+        while (capacity < numRows / 10) {
+            capacity <<= 1;
+        }
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        int[] hashes = new int[16];
+        int[] keys = new int[16 * width];
+        int[] sizes = new int[16];
+        boolean[] outliers = new boolean[16];
+        int[] key = new int[width];
+        int classes = 0;
         for (int row = 0; row < numRows; row++) {
 
-            TupleWrapper tuple = new TupleWrapper(handle, indices, row, false);
-            map.add(tuple);
+            // Encode and hash
+            int hash = 1;
+            for (int i = 0; i < width; i++) {
+                int code = handle.getEncodedValue(row, indices[i], false);
+                code = code == -1 ? suppressed[i] : code;
+                key[i] = code;
+                hash = 31 * hash + code;
+            }
+            hash ^= hash >>> 16;
+
+            // Probe
+            int slot = hash & (table.length - 1);
+            while (table[slot] != -1 && !equals(keys, table[slot], hashes, key, hash)) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+
+            // Existing class
+            if (table[slot] != -1) {
+                sizes[table[slot]]++;
+
+            // New class
+            } else {
+                if (classes == sizes.length) {
+                    hashes = Arrays.copyOf(hashes, classes * 2);
+                    keys = Arrays.copyOf(keys, classes * 2 * width);
+                    sizes = Arrays.copyOf(sizes, classes * 2);
+                    outliers = Arrays.copyOf(outliers, classes * 2);
+                }
+                System.arraycopy(key, 0, keys, classes * width, width);
+                hashes[classes] = hash;
+                sizes[classes] = 1;
+                outliers[classes] = handle.isOutlier(row);
+                table[slot] = classes++;
+
+                // Rehash
+                if (classes > table.length * 3 / 4) {
+                    table = new int[table.length << 1];
+                    Arrays.fill(table, -1);
+                    for (int i = 0; i < classes; i++) {
+                        slot = hashes[i] & (table.length - 1);
+                        while (table[slot] != -1) {
+                            slot = (slot + 1) & (table.length - 1);
+                        }
+                        table[slot] = i;
+                    }
+                }
+            }
             checkInterrupt();
         }
 
@@ -601,35 +661,33 @@ public class StatisticsBuilder {
         int minimalEquivalenceClassSize = Integer.MAX_VALUE;
         int minimalEquivalenceClassSizeIncludingOutliers = Integer.MAX_VALUE;
         int numberOfEquivalenceClasses = 0;
-        int numberOfEquivalenceClassesIncludingOutliers = map.size();
+        int numberOfEquivalenceClassesIncludingOutliers = classes;
         int numberOfTuples = 0;
         int numberOfOutlyingTuples = 0;
          
         // Let's do it
         boolean containsOutliers = false;
-        Group<TupleWrapper> element = map.first();
-        while (element != null) {
+        for (int i = 0; i < classes; i++) {
             
             checkInterrupt();
-            maximalEquivalenceClassSizeIncludingOutliers = Math.max(element.getCount(), maximalEquivalenceClassSizeIncludingOutliers);
-            minimalEquivalenceClassSizeIncludingOutliers = Math.min(element.getCount(), minimalEquivalenceClassSizeIncludingOutliers);
-            averageEquivalenceClassSizeIncludingOutliers += element.getCount();
-            numberOfTuples += element.getCount();
+            int size = sizes[i];
+            maximalEquivalenceClassSizeIncludingOutliers = Math.max(size, maximalEquivalenceClassSizeIncludingOutliers);
+            minimalEquivalenceClassSizeIncludingOutliers = Math.min(size, minimalEquivalenceClassSizeIncludingOutliers);
+            averageEquivalenceClassSizeIncludingOutliers += size;
+            numberOfTuples += size;
             
-            if (!element.getElement().isSuppressed()) {
+            if (!outliers[i]) {
                 
-                maximalEquivalenceClassSize = Math.max(element.getCount(), maximalEquivalenceClassSize);
-                minimalEquivalenceClassSize = Math.min(element.getCount(), minimalEquivalenceClassSize);
-                averageEquivalenceClassSize += element.getCount();
+                maximalEquivalenceClassSize = Math.max(size, maximalEquivalenceClassSize);
+                minimalEquivalenceClassSize = Math.min(size, minimalEquivalenceClassSize);
+                averageEquivalenceClassSize += size;
                 
             } else {
                 
                 containsOutliers = true;
                 // All suppressed records will collapse into a single group, so we can use the "=" assignment operator here
-                numberOfOutlyingTuples = element.getCount();
+                numberOfOutlyingTuples = size;
             }
-            
-            element = element.next();
         }
         
         numberOfEquivalenceClasses = numberOfEquivalenceClassesIncludingOutliers;
@@ -791,7 +849,8 @@ public class StatisticsBuilder {
         }
 
         // Build and return
-        return new StatisticsQuality(input.getHandle(), output, config, interrupt, progress, qis);
+        DataHandleInternal internalOutput = output == this.handle.getHandle() ? this.handle : output.getStatistics().handle;
+        return new StatisticsQuality(input, internalOutput, config, interrupt, progress, qis);
     }
 
     /**
@@ -817,10 +876,9 @@ public class StatisticsBuilder {
         // Reset stop flag
         interrupt.value = false;
         
-        Map<String, DescriptiveStatistics> statistics = new HashMap<String, DescriptiveStatistics>();
+        Map<String, StatisticsSummaryNumeric> statistics = new HashMap<String, StatisticsSummaryNumeric>();
         Map<String, StatisticsSummaryOrdinal> ordinal = new HashMap<String, StatisticsSummaryOrdinal>();
         Map<String, DataScale> scales = new HashMap<String, DataScale>();
-        Map<String, GeometricMean> geomean = new HashMap<String, GeometricMean>();
         
         // Detect scales
         for (int col = 0; col < handle.getNumColumns(); col++) {
@@ -842,25 +900,40 @@ public class StatisticsBuilder {
             
             // Store
             scales.put(attribute, scale);
-            statistics.put(attribute, new DescriptiveStatistics());
-            geomean.put(attribute, new GeometricMean());
+            statistics.put(attribute, new StatisticsSummaryNumeric());
             ordinal.put(attribute, getSummaryStatisticsOrdinal(handle.getGeneralization(attribute),
                                                                handle.getDataType(attribute),
                                                                handle.getBaseDataType(attribute),
                                                                getHierarchy(col, true)));
         }
         
-        // Compute summary statistics
+        // Count the frequencies of values, indexed by their code in the dictionary + 1.
+        // Suppressed values and values of identifying attributes have the code -1.
+        int columns = handle.getNumColumns();
+        int[][] frequencies = new int[columns][16];
+        String[][] values = new String[columns][16];
+        int[] codes = new int[columns];
         for (int row = 0; row < handle.getNumRows(); row++) {
             
-            // Check, if we should include this row
-            boolean include = true;
-            if (listwiseDeletion) {
-                for (int col = 0; col < handle.getNumColumns(); col++) {
-                    if (handle.isOutlier(row) || DataType.isNull(handle.getValue(row, col))) {
-                        include = false;
-                        break;
-                    }
+            // Encode and check, if we should include this row
+            boolean include = !listwiseDeletion || !handle.isOutlier(row);
+            for (int col = 0; col < columns; col++) {
+                
+                // Encode
+                int code = handle.getEncodedValue(row, col, false) + 1;
+                if (code >= values[col].length) {
+                    int length = Math.max(code + 1, values[col].length * 2);
+                    values[col] = Arrays.copyOf(values[col], length);
+                    frequencies[col] = Arrays.copyOf(frequencies[col], length);
+                }
+                if (values[col][code] == null) {
+                    values[col][code] = handle.getValue(row, col);
+                }
+                codes[col] = code;
+                
+                // Check
+                if (listwiseDeletion && DataType.isNull(values[col][code])) {
+                    include = false;
                 }
             }
             
@@ -869,26 +942,36 @@ public class StatisticsBuilder {
             
             // If yes, add
             if (include) {
+                for (int col = 0; col < columns; col++) {
+                    frequencies[col][codes[col]]++;
+                }
+            }
+        }
+        
+        // Compute summary statistics, parsing each distinct value only once
+        for (int col = 0; col < columns; col++) {
+            
+            // Meta
+            String attribute = handle.getAttributeName(col);
+            DataType<?> type = handle.getDataType(attribute);
+            
+            // For each distinct value
+            for (int code = 0; code < values[col].length; code++) {
                 
-                // For each column
-                for (int col = 0; col < handle.getNumColumns(); col++) {
-                    
-                    // Meta
-                    String value = handle.getValue(row, col);
-                    String attribute = handle.getAttributeName(col);
-                    DataType<?> type = handle.getDataType(attribute);
-                    
-                    // Analyze
-                    if (!DataType.isAny(value) && !DataType.isNull(value)) {
-                        ordinal.get(attribute).addValue(value);
-                        if (type instanceof DataTypeWithRatioScale) {
-                            double doubleValue = ((DataTypeWithRatioScale) type).toDouble(type.parse(value));
-                            statistics.get(attribute).addValue(doubleValue);
-                            geomean.get(attribute).increment(doubleValue + 1d);
-                        }
+                // Analyze
+                String value = values[col][code];
+                int count = frequencies[col][code];
+                if (count != 0 && !DataType.isAny(value) && !DataType.isNull(value)) {
+                    ordinal.get(attribute).addValue(value, count);
+                    if (type instanceof DataTypeWithRatioScale) {
+                        double doubleValue = ((DataTypeWithRatioScale) type).toDouble(type.parse(value));
+                        statistics.get(attribute).addValue(doubleValue, count);
                     }
                 }
             }
+            
+            // Check
+            checkInterrupt();
         }
         
         // Convert
@@ -903,6 +986,7 @@ public class StatisticsBuilder {
             DataScale scale = scales.get(attribute);
             DataType<T> type = (DataType<T>) handle.getDataType(attribute);
             ordinal.get(attribute).analyze();
+            statistics.get(attribute).analyze();
             if (scale == DataScale.NOMINAL) {
                 StatisticsSummaryOrdinal stats = ordinal.get(attribute);
                 result.put(attribute, new StatisticsSummary<T>(DataScale.NOMINAL,
@@ -925,7 +1009,7 @@ public class StatisticsBuilder {
                                                                type.parse(stats.getMax())));
             } else if (scale == DataScale.INTERVAL) {
                 StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                DescriptiveStatistics stats2 = statistics.get(attribute);
+                StatisticsSummaryNumeric stats2 = statistics.get(attribute);
                 boolean isPeriod = type.getDescription().getWrappedClass() == Date.class;
                 
                 // TODO: Something is wrong with commons math's kurtosis
@@ -965,8 +1049,7 @@ public class StatisticsBuilder {
                                                                kurtosis));
             } else if (scale == DataScale.RATIO) {
                 StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                DescriptiveStatistics stats2 = statistics.get(attribute);
-                GeometricMean geo = geomean.get(attribute);
+                StatisticsSummaryNumeric stats2 = statistics.get(attribute);
                 
                 // TODO: Something is wrong with commons math's kurtosis
                 double kurtosis = stats2.getKurtosis();
@@ -1003,8 +1086,8 @@ public class StatisticsBuilder {
                                                                toString(type, kurtosis, false, false),
                                                                toValue(type, kurtosis),
                                                                kurtosis,
-                                                               toString(type, geo.getResult() - 1d, false, false),
-                                                               toValue(type, geo.getResult() - 1d),
+                                                               toString(type, stats2.getGeometricMeanShifted(), false, false),
+                                                               toValue(type, stats2.getGeometricMeanShifted()),
                                                                stats2.getGeometricMean()));
             }
         }
@@ -1012,6 +1095,29 @@ public class StatisticsBuilder {
         return result;
     }
 
+    /**
+     * Returns whether the given key equals the key of the given equivalence class
+     *
+     * @param keys
+     * @param index
+     * @param hashes
+     * @param key
+     * @param hash
+     * @return
+     */
+    private boolean equals(int[] keys, int index, int[] hashes, int[] key, int hash) {
+        if (hashes[index] != hash) {
+            return false;
+        }
+        int offset = index * key.length;
+        for (int i = 0; i < key.length; i++) {
+            if (keys[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Checks whether an interruption happened.
      */
@@ -1335,4 +1441,4 @@ public class StatisticsBuilder {
     void interrupt() {
         this.interrupt.value = true;
     }
-}
+}
@@ -24,6 +24,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deidentifier.arx.ARXClassificationConfiguration;
 import org.deidentifier.arx.ARXFeatureScaling;
@@ -312,11 +319,11 @@ public class StatisticsClassification {
      * @param progress 
      * @throws ParseException 
      */
-    StatisticsClassification(DataHandleInternal inputHandle,
-                             DataHandleInternal outputHandle,
+    StatisticsClassification(final DataHandleInternal inputHandle,
+                             final DataHandleInternal outputHandle,
                              String[] features,
                              String clazz,
-                             ARXClassificationConfiguration<?> config,
+                             final ARXClassificationConfiguration<?> config,
                              ARXFeatureScaling scaling, 
                              WrappedBoolean interrupt,
                              WrappedInteger progress) throws ParseException {
@@ -336,7 +343,7 @@ public class StatisticsClassification {
         }
         
         // Create specification
-        ClassificationDataSpecification specification = new ClassificationDataSpecification(inputHandle, 
+        final ClassificationDataSpecification specification = new ClassificationDataSpecification(inputHandle, 
                                                                                             outputHandle, 
                                                                                             scaling,
                                                                                             features,
@@ -348,108 +355,162 @@ public class StatisticsClassification {
         
         // Train and evaluate
         int k = numSamples > config.getNumFolds() ? config.getNumFolds() : numSamples;
-        List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
+        final List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
 
         // Track
-        int classifications = 0;
-        double total = 100d / ((double)numSamples * (double)folds.size());
-        double done = 0d;
+        final int classifications = numSamples;
+        final double total = 100d / ((double)numSamples * (double)folds.size());
+        final AtomicInteger done = new AtomicInteger();
         
         // ROC
-        double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
-        double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
-        double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
-        int confidencesIndex = 0;
-                
-        // For each fold as a validation set
-        for (int evaluationFold = 0; evaluationFold < folds.size(); evaluationFold++) {
-            
-            // Create classifiers
-            ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
-            ClassificationMethod outputClassifier = null;
-            if (inputHandle != outputHandle) {
-                outputClassifier = getClassifier(interrupt, specification, config, inputHandle);
+        final double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
+        final double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
+        final double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
+        
+        // Results per sample, reduced in order afterwards to obtain results independent of the schedule
+        final double[] zerorErrors = new double[numSamples];
+        final boolean[] zerorCorrect = new boolean[numSamples];
+        final double[] inputErrors = new double[numSamples];
+        final boolean[] inputCorrect = new boolean[numSamples];
+        final double[] outputErrors = new double[numSamples];
+        final boolean[] outputCorrect = new boolean[numSamples];
+        final boolean[] outputClassified = new boolean[numSamples];
+        
+        // Prepare parallel evaluation
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), folds.size());
+        ExecutorService executor = threads <= 1 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX-StatisticsClassification-" + count++);
+                thread.setDaemon(true);
+                return thread;
             }
+        });
+        
+        try {
             
-            // Try
-            try {
-                
-                // Train with all training sets
-                boolean trained = false;
-                for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
-                    if (trainingFold != evaluationFold) {                        
-                        for (int index : folds.get(trainingFold)) {
-                            checkInterrupt();
-                            inputClassifier.train(inputHandle, outputHandle, index);
-                            inputZeroR.train(inputHandle, outputHandle, index);
-                            if (outputClassifier != null && !outputHandle.isOutlier(index)) {
-                                outputClassifier.train(outputHandle, outputHandle, index);
-                                trained = true;
-                            }
-                            this.progress.value = (int)((++done) * total);
-                        }
-                    }
-                }
-                
-                // Close
-                inputClassifier.close();
-                inputZeroR.close();
-                if (outputClassifier != null && trained) {
-                    outputClassifier.close();
-                }
-                
-                // Now validate
-                for (int index : folds.get(evaluationFold)) {
-                    
-                    // Check
-                    checkInterrupt();
-                    
-                    // Classify
-                    ClassificationResult resultInput = inputClassifier.classify(inputHandle, index);
-                    ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
-                    ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputHandle, index);
-                    classifications++;
+            // For each fold as a validation set
+            List<Callable<Void>> tasks = new ArrayList<>();
+            int offset = 0;
+            for (int fold = 0; fold < folds.size(); fold++) {
+                final int evaluationFold = fold;
+                final int evaluationOffset = offset;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
                         
-                    // Correct result
-                    String actualValue = outputHandle.getValue(index, specification.classIndex, true);
+                        // Each fold uses its own specification and classifiers
+                        ClassificationDataSpecification _specification = specification.clone();
+                        ClassificationMethod inputClassifier = getClassifier(interrupt, _specification, config, inputHandle);
+                        ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, _specification);
+                        ClassificationMethod outputClassifier = null;
+                        if (inputHandle != outputHandle) {
+                            outputClassifier = getClassifier(interrupt, _specification, config, inputHandle);
+                        }
                         
-                    // Maintain data about ZeroR
-                    this.zeroRAverageError += resultInputZR.error(actualValue);
-                    this.zeroRAccuracy += resultInputZR.correct(actualValue) ? 1d : 0d;
-                    double[] confidences = resultInputZR.confidences();
-                    zerorConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, zerorConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about input-based classifier
-                    boolean correct = resultInput.correct(actualValue);
-                    this.originalAverageError += resultInput.error(actualValue);
-                    this.originalAccuracy += correct ? 1d : 0d;
-                    confidences = resultInput.confidences();
-                    inputConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, inputConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about output-based                     
-                    if (resultOutput != null) {
-                        correct = resultOutput.correct(actualValue);
-                        this.averageError += resultOutput.error(actualValue);
-                        this.accuracy += correct ? 1d : 0d;
-                        confidences = resultOutput.confidences();
-                        outputConfidences[confidencesIndex] = index;
-                        System.arraycopy(confidences, 0, outputConfidences, confidencesIndex + 1, confidences.length);
+                        // Try
+                        try {
+                            
+                            // Train with all training sets
+                            boolean trained = false;
+                            for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
+                                if (trainingFold != evaluationFold) {                        
+                                    for (int index : folds.get(trainingFold)) {
+                                        checkInterrupt();
+                                        inputClassifier.train(inputHandle, outputHandle, index);
+                                        inputZeroR.train(inputHandle, outputHandle, index);
+                                        if (outputClassifier != null && !outputHandle.isOutlier(index)) {
+                                            outputClassifier.train(outputHandle, outputHandle, index);
+                                            trained = true;
+                                        }
+                                        progress.value = (int)(done.incrementAndGet() * total);
+                                    }
+                                }
+                            }
+                            
+                            // Close
+                            inputClassifier.close();
+                            inputZeroR.close();
+                            if (outputClassifier != null && trained) {
+                                outputClassifier.close();
+                            }
+                            
+                            // Now validate
+                            int sample = evaluationOffset;
+                            for (int index : folds.get(evaluationFold)) {
+                                
+                                // Check
+                                checkInterrupt();
+                                
+                                // Classify
+                                ClassificationResult resultInput = inputClassifier.classify(inputHandle, index);
+                                ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
+                                ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputHandle, index);
+                                    
+                                // Correct result
+                                String actualValue = outputHandle.getValue(index, _specification.classIndex, true);
+                                int confidencesIndex = sample * (numClasses + 1);
+                                    
+                                // Maintain data about ZeroR
+                                zerorErrors[sample] = resultInputZR.error(actualValue);
+                                zerorCorrect[sample] = resultInputZR.correct(actualValue);
+                                double[] confidences = resultInputZR.confidences();
+                                zerorConfidences[confidencesIndex] = index;
+                                System.arraycopy(confidences, 0, zerorConfidences, confidencesIndex + 1, confidences.length);
+            
+                                // Maintain data about input-based classifier
+                                inputErrors[sample] = resultInput.error(actualValue);
+                                inputCorrect[sample] = resultInput.correct(actualValue);
+                                confidences = resultInput.confidences();
+                                inputConfidences[confidencesIndex] = index;
+                                System.arraycopy(confidences, 0, inputConfidences, confidencesIndex + 1, confidences.length);
+            
+                                // Maintain data about output-based                     
+                                if (resultOutput != null) {
+                                    outputErrors[sample] = resultOutput.error(actualValue);
+                                    outputCorrect[sample] = resultOutput.correct(actualValue);
+                                    outputClassified[sample] = true;
+                                    confidences = resultOutput.confidences();
+                                    outputConfidences[confidencesIndex] = index;
+                                    System.arraycopy(confidences, 0, outputConfidences, confidencesIndex + 1, confidences.length);
+                                }
+                                    
+                                // Next
+                                sample++;
+                                progress.value = (int)(done.incrementAndGet() * total);
+                            }
+                        } catch (Exception e) {
+                            if (e instanceof ComputationInterruptedException) {
+                                throw e;
+                            } else {
+                                throw new UnexpectedErrorException(e);
+                            }
+                        }
+                        return null;
                     }
-                        
-                    // Next
-                    confidencesIndex += numClasses + 1;
-                    
-                    this.progress.value = (int)((++done) * total);
-                }
-            } catch (Exception e) {
-                if (e instanceof ComputationInterruptedException) {
-                    throw e;
-                } else {
-                    throw new UnexpectedErrorException(e);
-                }
+                });
+                offset += folds.get(fold).size();
+            }
+            
+            // Evaluate
+            execute(tasks, executor);
+            
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        
+        // Reduce
+        for (int sample = 0; sample < numSamples; sample++) {
+            this.zeroRAverageError += zerorErrors[sample];
+            this.zeroRAccuracy += zerorCorrect[sample] ? 1d : 0d;
+            this.originalAverageError += inputErrors[sample];
+            this.originalAccuracy += inputCorrect[sample] ? 1d : 0d;
+            if (outputClassified[sample]) {
+                this.averageError += outputErrors[sample];
+                this.accuracy += outputCorrect[sample] ? 1d : 0d;
             }
         }
         
@@ -717,6 +778,49 @@ public class StatisticsClassification {
         }
     }
 
+    /**
+     * Executes the given tasks
+     * 
+     * @param tasks
+     * @param executor
+     */
+    private void execute(List<Callable<Void>> tasks, ExecutorService executor) {
+
+        // Sequentially
+        if (executor == null) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return;
+        }
+
+        // In parallel
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
     /**
      * Creates the folds
      * @param numRecords
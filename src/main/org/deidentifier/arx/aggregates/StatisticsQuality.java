@@ -23,14 +23,23 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.quality.QualityConfiguration;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShare;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShareRaw;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShareRedaction;
+import org.deidentifier.arx.aggregates.quality.QualityEncoding;
 import org.deidentifier.arx.aggregates.quality.QualityMeasureColumnOriented;
 import org.deidentifier.arx.aggregates.quality.QualityMeasureRowOriented;
 import org.deidentifier.arx.aggregates.quality.QualityModelColumnOrientedLoss;
@@ -55,6 +64,74 @@ import org.deidentifier.arx.exceptions.ComputationInterruptedException;
  */
 public class StatisticsQuality {
 
+    /**
+     * A quality model, which is evaluated sequentially or in parallel with other models
+     *
+     * @author Fabian Prasser
+     * @param <T>
+     */
+    private abstract class QualityModelTask<T> {
+
+        /** Workload */
+        private final int      workload;
+        /** Result, if the model fails */
+        private final T        fallback;
+        /** Progress */
+        private WrappedInteger progress;
+        /** Result */
+        private T              result;
+
+        /**
+         * Creates a new instance
+         * @param workload
+         * @param fallback
+         */
+        private QualityModelTask(int workload, T fallback) {
+            this.workload = workload;
+            this.fallback = fallback;
+        }
+
+        /**
+         * Evaluates the model
+         * @param progress
+         * @param workload
+         * @return
+         */
+        protected abstract T evaluate(WrappedInteger progress, int workload);
+
+        /**
+         * Returns the progress
+         * @return
+         */
+        private int getProgress() {
+            return progress == null ? 0 : Math.min(progress.value, workload);
+        }
+
+        /**
+         * Returns the result
+         * @return
+         */
+        private T getResult() {
+            return result;
+        }
+
+        /**
+         * Evaluates the model
+         * @param progress
+         */
+        private void run(WrappedInteger progress) {
+            this.progress = progress;
+            try {
+                this.result = evaluate(progress, workload);
+                checkInterrupt();
+            } catch (Exception e) {
+                // Fail silently
+                this.result = fallback;
+                progress.value += workload;
+            }
+        }
+    }
+
     /** Column-oriented model */
     private QualityMeasureColumnOriented       loss;
     /** Column-oriented model */
@@ -89,30 +166,34 @@ public class StatisticsQuality {
 
     /**
      * Creates a new instance
-     * @param input
-     * @param output
+     * @param internalInput
+     * @param internalOutput
      * @param config
      * @param stop
      * @param progress
      * @param qis
      */
-    StatisticsQuality(DataHandle input,
-                      DataHandle output,
+    StatisticsQuality(final DataHandleInternal internalInput,
+                      final DataHandleInternal internalOutput,
                       ARXConfiguration config,
-                      WrappedBoolean stop,
+                      final WrappedBoolean stop,
                       WrappedInteger progress,
                       Set<String> qis) {
      
+        // Handles
+        final DataHandle input = internalInput.getHandle();
+        final DataHandle output = internalOutput.getHandle();
+
         // State
         this.stop = stop;
         this.progress = progress;
         
         // Build config
-        QualityConfiguration configuration = new QualityConfiguration();
+        final QualityConfiguration configuration = new QualityConfiguration();
         // TODO: Do something with ARXConfiguration here.
         
         // Extract quasi-identifiers
-        int[] indices = getIndicesOfQuasiIdentifiers(qis, input);
+        final int[] indices = getIndicesOfQuasiIdentifiers(qis, input);
         
         // Basic measures
         this.attributes = getAttributes(output, indices);
@@ -142,204 +223,127 @@ public class StatisticsQuality {
             return;
         }
         
-        // Pre-computed frequently needed data
-        Groupify<TupleWrapper> groupedInput = this.getGroupify(input, indices);
-        this.progress.value = 6;
-        Groupify<TupleWrapper> groupedOutput = this.getGroupify(output, indices);
-        this.progress.value = 8;
-        String[][][] hierarchies = getHierarchies(input, indices, configuration);
-        QualityDomainShare[] shares = getDomainShares(input, indices, hierarchies, configuration);
-
-        this.progress.value = 10;
+        // Prepare parallel evaluation
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = threads == 1 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX-StatisticsQuality-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
         
-        // Build
-        int workload = 10;
         try {
             
-            this.loss = new QualityModelColumnOrientedLoss(stop,
-                                                           progress,
-                                                           workload,
-                                                           input,
-                                                           output,
-                                                           groupedInput,
-                                                           groupedOutput,
-                                                           hierarchies,
-                                                           shares,
-                                                           indices,
-                                                           configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.loss = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-        
-        // Build
-        workload = 15;
-        try {
-            this.entropy = new QualityModelColumnOrientedNonUniformEntropy(stop,
-                                                                           progress,
-                                                                           workload,
-                                                                           input,
-                                                                           output,
-                                                                           groupedInput,
-                                                                           groupedOutput,
-                                                                           hierarchies,
-                                                                           shares,
-                                                                           indices,
-                                                                           configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.entropy = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 10;
-        try {
-            this.precision = new QualityModelColumnOrientedPrecision(stop,
-                                                                     progress,
-                                                                     workload,
-                                                                     input,
-                                                                     output,
-                                                                     groupedInput,
-                                                                     groupedOutput,
-                                                                     hierarchies,
-                                                                     shares,
-                                                                     indices,
-                                                                     configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.precision = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 10;
-        try {
-            this.mse = new QualityModelColumnOrientedSquaredError(stop,
-                                                         progress,
-                                                         workload,
-                                                         input,
-                                                         output,
-                                                         groupedInput,
-                                                         groupedOutput,
-                                                         hierarchies,
-                                                         shares,
-                                                         indices,
-                                                         configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.mse = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 5;
-        try {
-            this.aecs = new QualityModelRowOrientedAECS(stop,
-                                                        progress,
-                                                        workload,
-                                                        input,
-                                                        output,
-                                                        groupedInput,
-                                                        groupedOutput,
-                                                        hierarchies,
-                                                        shares,
-                                                        indices,
-                                                        configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.aecs = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 10;
-        try {
-            this.ambiguity = new QualityModelRowOrientedAmbiguity(stop,
-                                                                  progress,
-                                                                  workload,
-                                                                  input,
-                                                                  output,
-                                                                  groupedInput,
-                                                                  groupedOutput,
-                                                                  hierarchies,
-                                                                  shares,
-                                                                  indices,
-                                                                  configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.ambiguity = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
-        
-        // Build
-        workload = 5;
-        try {
-            this.discernibility = new QualityModelRowOrientedDiscernibility(stop,
-                                                                            progress,
-                                                                            workload,
-                                                                            input,
-                                                                            output,
-                                                                            groupedInput,
-                                                                            groupedOutput,
-                                                                            hierarchies,
-                                                                            shares,
-                                                                            indices,
-                                                                            configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.discernibility = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 10;
-        try {
-            this.ssesst = new QualityModelRowOrientedSSESST(stop,
-                                                            progress,
-                                                            workload,
-                                                            input,
-                                                            output,
-                                                            groupedInput,
-                                                            groupedOutput,
-                                                            hierarchies,
-                                                            shares,
-                                                            indices,
-                                                            configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.ssesst = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
-        
-        // Build
-        workload = 15;
-        try {
-            this.sse = new QualityModelRowOrientedSquaredError(stop,
-                                                      progress,
-                                                      workload,
-                                                      input,
-                                                      output,
-                                                      groupedInput,
-                                                      groupedOutput,
-                                                      hierarchies,
-                                                      shares,
-                                                      indices,
-                                                      configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.sse = new QualityMeasureRowOriented();
-            this.progress.value += workload;
+            // Pre-computed frequently needed data
+            final Groupify<TupleWrapper> groupedInput = this.getGroupify(input, indices);
+            this.progress.value = 6;
+            final Groupify<TupleWrapper> groupedOutput = this.getGroupify(output, indices);
+            this.progress.value = 8;
+            final String[][][] hierarchies = getHierarchies(input, indices, configuration);
+            final QualityDomainShare[] shares = getDomainShares(input, indices, hierarchies, configuration);
+            final QualityEncoding encoding = new QualityEncoding(internalInput, internalOutput, indices, hierarchies, stop, executor);
+            this.progress.value = 10;
+
+            // Build
+            QualityModelTask<QualityMeasureColumnOriented> loss = new QualityModelTask<QualityMeasureColumnOriented>(10, new QualityMeasureColumnOriented()) {
+                @Override
+                protected QualityMeasureColumnOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelColumnOrientedLoss(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                     hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureColumnOriented> entropy = new QualityModelTask<QualityMeasureColumnOriented>(15, new QualityMeasureColumnOriented()) {
+                @Override
+                protected QualityMeasureColumnOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelColumnOrientedNonUniformEntropy(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                                  hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureColumnOriented> precision = new QualityModelTask<QualityMeasureColumnOriented>(10, new QualityMeasureColumnOriented()) {
+                @Override
+                protected QualityMeasureColumnOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelColumnOrientedPrecision(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                          hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureColumnOriented> mse = new QualityModelTask<QualityMeasureColumnOriented>(10, new QualityMeasureColumnOriented()) {
+                @Override
+                protected QualityMeasureColumnOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelColumnOrientedSquaredError(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                             hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureRowOriented> aecs = new QualityModelTask<QualityMeasureRowOriented>(5, new QualityMeasureRowOriented()) {
+                @Override
+                protected QualityMeasureRowOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelRowOrientedAECS(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                  hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureRowOriented> ambiguity = new QualityModelTask<QualityMeasureRowOriented>(10, new QualityMeasureRowOriented()) {
+                @Override
+                protected QualityMeasureRowOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelRowOrientedAmbiguity(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                       hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureRowOriented> discernibility = new QualityModelTask<QualityMeasureRowOriented>(5, new QualityMeasureRowOriented()) {
+                @Override
+                protected QualityMeasureRowOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelRowOrientedDiscernibility(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                            hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureRowOriented> ssesst = new QualityModelTask<QualityMeasureRowOriented>(10, new QualityMeasureRowOriented()) {
+                @Override
+                protected QualityMeasureRowOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelRowOrientedSSESST(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                    hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Build
+            QualityModelTask<QualityMeasureRowOriented> sse = new QualityModelTask<QualityMeasureRowOriented>(15, new QualityMeasureRowOriented()) {
+                @Override
+                protected QualityMeasureRowOriented evaluate(WrappedInteger progress, int workload) {
+                    return new QualityModelRowOrientedSquaredError(stop, progress, workload, input, output, groupedInput, groupedOutput,
+                                                                          hierarchies, shares, encoding, indices, configuration).evaluate();
+                }
+            };
+
+            // Evaluate
+            this.evaluate(executor, loss, entropy, precision, mse, aecs, ambiguity, discernibility, ssesst, sse);
+            this.loss = loss.getResult();
+            this.entropy = entropy.getResult();
+            this.precision = precision.getResult();
+            this.mse = mse.getResult();
+            this.aecs = aecs.getResult();
+            this.ambiguity = ambiguity.getResult();
+            this.discernibility = discernibility.getResult();
+            this.ssesst = ssesst.getResult();
+            this.sse = sse.getResult();
+            
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
     }
 
@@ -485,6 +489,55 @@ public class StatisticsQuality {
         }
     }
 
+    /**
+     * Evaluates the given models. If an executor is given, they are evaluated in parallel.
+     * 
+     * @param executor
+     * @param tasks
+     */
+    private void evaluate(ExecutorService executor, final QualityModelTask<?>... tasks) {
+
+        // Sequentially
+        if (executor == null) {
+            for (QualityModelTask<?> task : tasks) {
+                task.run(this.progress);
+            }
+            return;
+        }
+
+        // In parallel, each model tracks its own progress
+        int base = this.progress.value;
+        List<Future<?>> futures = new ArrayList<>();
+        for (final QualityModelTask<?> task : tasks) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    task.run(new WrappedInteger());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get(100, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    this.progress.value = base + getProgress(tasks);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new RuntimeException(cause);
+                }
+            }
+        }
+        this.progress.value = base + getProgress(tasks);
+    }
+
     /**
      * Returns a list of the attributes covered
      * @param output
@@ -583,6 +636,19 @@ public class StatisticsQuality {
         return groupify;
     }
 
+    /**
+     * Returns the overall progress of the given models
+     * @param tasks
+     * @return
+     */
+    private int getProgress(QualityModelTask<?>... tasks) {
+        int result = 0;
+        for (QualityModelTask<?> task : tasks) {
+            result += task.getProgress();
+        }
+        return result;
+    }
+
     /**
      * Returns hierarchies, creates trivial hierarchies if no hierarchy is found.
      * Adds an additional level, if there is no root node
@@ -730,4 +796,4 @@ public class StatisticsQuality {
         // Return
         return new QualityMeasureColumnOriented(output, indices, minimum, result, maximum);
     }
-}
+}
@@ -18,12 +18,11 @@ package org.deidentifier.arx.aggregates;
 
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
+import org.apache.commons.math3.util.FastMath;
 import org.deidentifier.arx.DataScale;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
@@ -36,7 +35,208 @@ import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 public class StatisticsSummary<T> {
     
     /**
-     * Summary statistics for variables with ordinal scale
+     * Summary statistics for variables with ratio scale, which are computed from a
+     * table of distinct values and their frequencies
+     * @author Fabian Prasser
+     *
+     */
+    static final class StatisticsSummaryNumeric {
+
+        /** Var */
+        private double[] values = new double[16];
+        /** Var */
+        private int[]    counts = new int[16];
+        /** Var */
+        private int      size   = 0;
+        /** Var */
+        private double   mean;
+        /** Var */
+        private double   variance;
+        /** Var */
+        private double   populationVariance;
+        /** Var */
+        private double   kurtosis;
+        /** Var */
+        private double   min;
+        /** Var */
+        private double   max;
+        /** Var */
+        private double   geometricMean;
+        /** Var */
+        private double   geometricMeanShifted;
+
+        /**
+         * Adds a value with the given frequency
+         * @param value
+         * @param count
+         */
+        public void addValue(double value, int count) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            values[size] = value;
+            counts[size] = count;
+            size++;
+        }
+
+        /**
+         * Returns the geometric mean
+         * @return
+         */
+        public double getGeometricMean() {
+            return geometricMean;
+        }
+
+        /**
+         * Returns the geometric mean of all values increased by one, decreased by one
+         * @return
+         */
+        public double getGeometricMeanShifted() {
+            return geometricMeanShifted;
+        }
+
+        /**
+         * Returns the kurtosis
+         * @return
+         */
+        public double getKurtosis() {
+            return kurtosis;
+        }
+
+        /**
+         * Returns the maximum
+         * @return
+         */
+        public double getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the arithmetic mean
+         * @return
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * Returns the minimum
+         * @return
+         */
+        public double getMin() {
+            return min;
+        }
+
+        /**
+         * Returns the population variance
+         * @return
+         */
+        public double getPopulationVariance() {
+            return populationVariance;
+        }
+
+        /**
+         * Returns the bias-corrected sample variance
+         * @return
+         */
+        public double getVariance() {
+            return variance;
+        }
+
+        /**
+         * Analyzes the data. The definitions of all statistics and the handling of
+         * corner cases follow the implementations in commons math, weighted by frequency.
+         */
+        void analyze() {
+
+            // Number of measures
+            double n = 0d;
+            for (int i = 0; i < size; i++) {
+                n += counts[i];
+            }
+
+            // No measures
+            if (n == 0d) {
+                mean = Double.NaN;
+                variance = Double.NaN;
+                populationVariance = Double.NaN;
+                kurtosis = Double.NaN;
+                min = Double.NaN;
+                max = Double.NaN;
+                geometricMean = Double.NaN;
+                geometricMeanShifted = Double.NaN;
+                values = null;
+                counts = null;
+                return;
+            }
+
+            // Min, max, sums and sums of logarithms
+            double sum = 0d;
+            double sumOfLogs = 0d;
+            double sumOfLogsShifted = 0d;
+            min = values[0];
+            max = values[0];
+            for (int i = 0; i < size; i++) {
+                double value = values[i];
+                int count = counts[i];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                sum += count * value;
+                sumOfLogs += count * FastMath.log(value);
+                sumOfLogsShifted += count * FastMath.log(value + 1d);
+            }
+            geometricMean = FastMath.exp(sumOfLogs / n);
+            geometricMeanShifted = FastMath.exp(sumOfLogsShifted / n) - 1d;
+
+            // Mean, with a correction term for rounding errors
+            double xbar = sum / n;
+            double correction = 0d;
+            for (int i = 0; i < size; i++) {
+                correction += counts[i] * (values[i] - xbar);
+            }
+            mean = xbar + (correction / n);
+
+            // Variances
+            if (n == 1d) {
+                variance = 0d;
+                populationVariance = 0d;
+            } else {
+                double accum = 0d;
+                double accum2 = 0d;
+                for (int i = 0; i < size; i++) {
+                    double deviation = values[i] - mean;
+                    accum += counts[i] * deviation * deviation;
+                    accum2 += counts[i] * deviation;
+                }
+                variance = (accum - (accum2 * accum2 / n)) / (n - 1d);
+                populationVariance = (accum - (accum2 * accum2 / n)) / n;
+            }
+
+            // Kurtosis
+            if (n > 3d) {
+                double stdDev = FastMath.sqrt(variance);
+                double accum3 = 0d;
+                for (int i = 0; i < size; i++) {
+                    accum3 += counts[i] * FastMath.pow(values[i] - mean, 4d);
+                }
+                accum3 /= FastMath.pow(stdDev, 4d);
+                double coefficientOne = (n * (n + 1d)) / ((n - 1d) * (n - 2d) * (n - 3d));
+                double termTwo = (3d * FastMath.pow(n - 1d, 2d)) / ((n - 2d) * (n - 3d));
+                kurtosis = (coefficientOne * accum3) - termTwo;
+            } else {
+                kurtosis = Double.NaN;
+            }
+
+            // Clear
+            values = null;
+            counts = null;
+        }
+    }
+
+    /**
+     * Summary statistics for variables with ordinal scale, which are computed from a
+     * table of distinct values and their frequencies
      * @author Fabian Prasser
      *
      */
@@ -47,6 +247,8 @@ public class StatisticsSummary<T> {
         /** Var */
         private final List<String>       values = new ArrayList<String>();
         /** Var */
+        private final List<Integer>      counts = new ArrayList<Integer>();
+        /** Var */
         private String                   mode;
         /** Var */
         private int                      distinctNumberOfValues;
@@ -89,11 +291,13 @@ public class StatisticsSummary<T> {
         }
         
         /**
-         * Adds a value
+         * Adds a distinct value with the given frequency
          * @param value
+         * @param count
          */
-        public void addValue(String value) {
+        public void addValue(String value, int count) {
             this.values.add(value);
+            this.counts.add(count);
         }
         
         /**
@@ -145,76 +349,85 @@ public class StatisticsSummary<T> {
         }
         
         /**
-         * Returns the index of the next element that does not equal the element at the given index
-         * @param index
-         * @param values
+         * Returns the value at the given position in the ordered list of all measures
+         * @param order
+         * @param position
          * @return
          */
-        private int moveWhileEqual(int index, List<String> values) {
-            String element = values.get(index);
-            // We can do == because of dictionary compression
-            while (index < values.size() && values.get(index) == element) { 
+        private String getValue(Integer[] order, int position) {
+            int index = 0;
+            while (position >= counts.get(order[index])) {
+                position -= counts.get(order[index]);
                 index++;
             }
-            return index;
+            return values.get(order[index]);
         }
 
         /**
          * Analyzes the data
          */
         void analyze() {
-            Collections.sort(values, comparator);
             
-            if (values.size() == 0) {
+            // Order distinct values
+            Integer[] order = new Integer[values.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return comparator.compare(values.get(o1), values.get(o2));
+                }
+            });
+            
+            // Number of measures
+            numberOfMeasures = 0;
+            for (int count : counts) {
+                numberOfMeasures += count;
+            }
+            
+            if (numberOfMeasures == 0) {
                 min = DataType.NULL_VALUE;
                 max = DataType.NULL_VALUE;
                 mode = DataType.NULL_VALUE;
                 median = DataType.NULL_VALUE;
                 distinctNumberOfValues = 0;
-                numberOfMeasures = 0;
             } else {
                 
                 // Determine simple things
-                min = values.get(0);
-                max = values.get(values.size() - 1);
-                if (values.size() % 2 == 1) {
-                    median = values.get(values.size() / 2);
+                min = values.get(order[0]);
+                max = values.get(order[order.length - 1]);
+                if (numberOfMeasures % 2 == 1) {
+                    median = getValue(order, numberOfMeasures / 2);
                 } else if (type != null && type instanceof DataTypeWithRatioScale<?>) {
                     DataType<T> dType = (DataType<T>)type;
                     @SuppressWarnings("unchecked")
                     DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>)dType;
-                    double median1 = rType.toDouble(dType.parse(values.get(values.size() / 2 - 1)));
-                    double median2 = rType.toDouble(dType.parse(values.get(values.size() / 2)));
+                    double median1 = rType.toDouble(dType.parse(getValue(order, numberOfMeasures / 2 - 1)));
+                    double median2 = rType.toDouble(dType.parse(getValue(order, numberOfMeasures / 2)));
                     median = dType.format(rType.fromDouble((median1 + median2) / 2d));
                 } else {
-                    String median1 = values.get(values.size() / 2 - 1);
-                    String median2 = values.get(values.size() / 2);
+                    String median1 = getValue(order, numberOfMeasures / 2 - 1);
+                    String median2 = getValue(order, numberOfMeasures / 2);
+                    // We can do == because of dictionary compression
                     if (median1 == median2) {
                         median = median1;
                     } else {
                         median = DataType.NULL_VALUE;
                     }
                 }
-                numberOfMeasures = values.size();
                 
                 // Determine distinct number of measures
-                Set<String> distinct = new HashSet<String>();
-                distinct.addAll(values);
-                distinctNumberOfValues = distinct.size();
-                distinct.clear();
+                distinctNumberOfValues = values.size();
                 
                 // Determine mode
                 int count = 0;
-                int index = 0;
-                mode = values.get(0);
-                while (index < values.size()) {
-                    int nIndex = moveWhileEqual(index, values);
-                    int nCount = nIndex - index;
-                    if (nCount > count) {
+                mode = values.get(order[0]);
+                for (int index : order) {
+                    if (counts.get(index) > count) {
                         mode = values.get(index);
-                        count = nCount;
+                        count = counts.get(index);
                     }
-                    index = nIndex;
                 }
                 
                 // Convert to correct output format
@@ -228,6 +441,7 @@ public class StatisticsSummary<T> {
             
             // Clear
             values.clear();
+            counts.clear();
         }
     }
 
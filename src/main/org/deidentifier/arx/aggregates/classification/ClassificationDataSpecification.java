@@ -46,6 +46,16 @@ public class ClassificationDataSpecification {
     public final ClassificationFeatureMetadata[] featureMetadata;
     /** Interrupt */
     private final WrappedBoolean                 interrupt;
+    /** Input handle */
+    private final DataHandleInternal             inputHandle;
+    /** Input features */
+    private final ClassificationFeatureMatrix    inputFeatures;
+    /** Output handle */
+    private final DataHandleInternal             outputHandle;
+    /** Output features */
+    private final ClassificationFeatureMatrix    outputFeatures;
+    /** Output classes */
+    private final int[]                          outputClasses;
 
     /**
      * Creates a new instance
@@ -90,6 +100,75 @@ public class ClassificationDataSpecification {
         if (classMap.size() == 0) {
             throw new IllegalArgumentException("No classes defined");
         }
+        
+        // Encode features
+        this.inputHandle = inputFeatureHandle;
+        this.inputFeatures = ClassificationFeatureMatrix.get(inputFeatureHandle, featureIndices, featureMetadata, interrupt);
+        this.outputHandle = outputFeatureHandle;
+        this.outputFeatures = inputFeatureHandle == outputFeatureHandle ? inputFeatures : 
+                              ClassificationFeatureMatrix.get(outputFeatureHandle, featureIndices, featureMetadata, interrupt);
+        this.outputClasses = getClasses(outputFeatureHandle, classIndex, classMap);
+    }
+
+    /**
+     * Creates a copy of the given specification with the given feature metadata
+     * @param other
+     * @param featureMetadata
+     */
+    private ClassificationDataSpecification(ClassificationDataSpecification other,
+                                            ClassificationFeatureMetadata[] featureMetadata) {
+        this.classIndex = other.classIndex;
+        this.classMap = other.classMap;
+        this.featureIndices = other.featureIndices;
+        this.featureMetadata = featureMetadata;
+        this.interrupt = other.interrupt;
+        this.inputHandle = other.inputHandle;
+        this.inputFeatures = other.inputFeatures;
+        this.outputHandle = other.outputHandle;
+        this.outputFeatures = other.outputFeatures;
+        this.outputClasses = other.outputClasses;
+    }
+
+    /**
+     * Returns a copy of this specification, which can be used concurrently with this
+     * specification. Immutable data, including encoded features, is shared, feature metadata is copied.
+     * @return
+     */
+    public ClassificationDataSpecification clone() {
+        ClassificationFeatureMetadata[] featureMetadata = new ClassificationFeatureMetadata[this.featureMetadata.length];
+        for (int i = 0; i < featureMetadata.length; i++) {
+            featureMetadata[i] = this.featureMetadata[i].clone();
+        }
+        return new ClassificationDataSpecification(this, featureMetadata);
+    }
+
+    /**
+     * Returns the encoded class of the given record
+     * @param handle
+     * @param row
+     * @return
+     */
+    public int getEncodedClass(DataHandleInternal handle, int row) {
+        if (handle == outputHandle) {
+            return outputClasses[row];
+        } else {
+            return classMap.get(handle.getValue(row, classIndex, true));
+        }
+    }
+
+    /**
+     * Returns the encoded features of the given handle
+     * @param handle
+     * @return
+     */
+    public ClassificationFeatureMatrix getFeatureMatrix(DataHandleInternal handle) {
+        if (handle == inputHandle) {
+            return inputFeatures;
+        } else if (handle == outputHandle) {
+            return outputFeatures;
+        } else {
+            return ClassificationFeatureMatrix.get(handle, featureIndices, featureMetadata, interrupt);
+        }
     }
 
     /**
@@ -101,6 +180,22 @@ public class ClassificationDataSpecification {
         }
     }
 
+    /**
+     * Returns the encoded classes of all records
+     * @param handle
+     * @param column
+     * @param classMap
+     * @return
+     */
+    private int[] getClasses(DataHandleInternal handle, int column, Map<String, Integer> classMap) {
+        int[] result = new int[handle.getNumRows()];
+        for (int row = 0; row < result.length; row++) {
+            checkInterrupt();
+            result[row] = classMap.get(handle.getValue(row, column, true));
+        }
+        return result;
+    }
+
     /**
      * Returns the class index
      * @param handle
@@ -0,0 +1,161 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.aggregates.classification;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * Encoded features of a data handle. Records are represented by the identifiers of their
+ * values in the dictionary of the handle, while string and numeric representations are
+ * stored once per distinct value. Matrices are immutable and cached with the handle, so
+ * that they can be shared by all classifiers and by repeated evaluations of the same data.
+ *
+ * @author Fabian Prasser
+ */
+public class ClassificationFeatureMatrix {
+
+    /**
+     * Returns the feature matrix for the given handle and features. The matrix is
+     * obtained from the cache of the handle or created and cached, if there is none.
+     *
+     * @param handle
+     * @param features
+     * @param metadata
+     * @param interrupt
+     * @return
+     */
+    public static ClassificationFeatureMatrix get(DataHandleInternal handle,
+                                                  int[] features,
+                                                  ClassificationFeatureMetadata[] metadata,
+                                                  WrappedBoolean interrupt) {
+
+        // Build key
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < features.length; i++) {
+            String key = metadata[i].getKey();
+            builder.append(features[i]).append(':').append(key.length()).append(':').append(key);
+        }
+        String key = builder.toString();
+
+        // Obtain from cache or create
+        ClassificationFeatureMatrix matrix = handle.getFeatureMatrix(key);
+        if (matrix == null) {
+            matrix = new ClassificationFeatureMatrix(handle, features, metadata, interrupt);
+            handle.setFeatureMatrix(key, matrix);
+        }
+        return matrix;
+    }
+
+    /** Identifiers of the values, per feature and record */
+    private final int[][]    identifiers;
+
+    /** Values, per feature and identifier + 1 */
+    private final String[][] values;
+
+    /** Numeric values, per feature and identifier + 1, NaN if not numeric */
+    private final double[][] numbers;
+
+    /**
+     * Creates a new instance
+     *
+     * @param handle
+     * @param features
+     * @param metadata
+     * @param interrupt
+     */
+    private ClassificationFeatureMatrix(DataHandleInternal handle,
+                                        int[] features,
+                                        ClassificationFeatureMetadata[] metadata,
+                                        WrappedBoolean interrupt) {
+
+        // Prepare
+        int rows = handle.getNumRows();
+        this.identifiers = new int[features.length][];
+        this.values = new String[features.length][];
+        this.numbers = new double[features.length][];
+
+        // For each feature
+        for (int i = 0; i < features.length; i++) {
+
+            // Collect identifiers
+            int column = features[i];
+            int[] identifiers = new int[rows];
+            int max = -1;
+            for (int row = 0; row < rows; row++) {
+                if (interrupt.value) {
+                    throw new ComputationInterruptedException("Interrupted");
+                }
+                int identifier = handle.getEncodedValue(row, column, true);
+                identifiers[row] = identifier;
+                max = Math.max(max, identifier);
+            }
+
+            // Decode each distinct value once. Identifying values are represented by -1.
+            String[] values = new String[max + 2];
+            double[] numbers = new double[max + 2];
+            for (int row = 0; row < rows; row++) {
+                int index = identifiers[row] + 1;
+                if (values[index] == null) {
+                    values[index] = handle.getValue(row, column, true);
+                    numbers[index] = metadata[i].getNumericValue(values[index]);
+                }
+            }
+
+            // Store
+            this.identifiers[i] = identifiers;
+            this.values[i] = values;
+            this.numbers[i] = numbers;
+        }
+    }
+
+    /**
+     * Returns the identifier of the value of the given feature in the given record
+     *
+     * @param feature
+     * @param row
+     * @return
+     */
+    public int getIdentifier(int feature, int row) {
+        return identifiers[feature][row];
+    }
+
+    /**
+     * Returns the scaled numeric value of the given feature in the given record, NaN if
+     * the value is not numeric
+     *
+     * @param feature
+     * @param row
+     * @return
+     */
+    public double getNumericValue(int feature, int row) {
+        return numbers[feature][identifiers[feature][row] + 1];
+    }
+
+    /**
+     * Returns the value of the given feature in the given record
+     *
+     * @param feature
+     * @param row
+     * @return
+     */
+    public String getValue(int feature, int row) {
+        return values[feature][identifiers[feature][row] + 1];
+    }
+}
@@ -23,6 +23,7 @@ import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.ARXDate;
 import org.deidentifier.arx.DataType.ARXDecimal;
 import org.deidentifier.arx.DataType.ARXInteger;
+import org.deidentifier.arx.DataType.DataTypeWithFormat;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 
 /**
@@ -38,6 +39,8 @@ public class ClassificationFeatureMetadata {
     private final DataType<?> type;
     /** Expression */
     private final Expression  expression;
+    /** Scaling function */
+    private final String      function;
     /** Is this a numeric attribute */
     private final boolean     numeric;
     /** Is this attribute microaggregated in a type preserving manner */
@@ -61,11 +64,77 @@ public class ClassificationFeatureMetadata {
         Expression e = scaling != null ? scaling.getScalingExpression(attribute) : null;
         if (e != null && this.numeric) {
             this.expression = e;
+            this.function = scaling.getScalingFunction(attribute);
         } else {
             this.expression = null;
+            this.function = null;
         }
     }
 
+    /**
+     * Creates a new instance
+     * @param attribute
+     * @param type
+     * @param expression
+     * @param function
+     * @param numeric
+     * @param isTypePreservingMicroaggregation
+     */
+    private ClassificationFeatureMetadata(String attribute,
+                                          DataType<?> type,
+                                          Expression expression,
+                                          String function,
+                                          boolean numeric,
+                                          boolean isTypePreservingMicroaggregation) {
+        this.attribute = attribute;
+        this.type = type;
+        this.expression = expression;
+        this.function = function;
+        this.numeric = numeric;
+        this.isTypePreservingMicroaggregation = isTypePreservingMicroaggregation;
+    }
+
+    /**
+     * Returns a copy of this object which does not share any mutable state, i.e. parsers
+     * and scaling expressions, with this object. It can thus be used concurrently.
+     * @return
+     */
+    public ClassificationFeatureMetadata clone() {
+        
+        // Data types with format wrap parsers which are not thread-safe
+        DataType<?> type = this.type;
+        if (type instanceof DataTypeWithFormat) {
+            DataTypeWithFormat format = (DataTypeWithFormat) type;
+            type = type.getDescription().newInstance(format.getFormat(), format.getLocale());
+        }
+        
+        // Expressions maintain variables
+        Expression expression = this.expression != null ? new Expression(this.expression) : null;
+        return new ClassificationFeatureMetadata(attribute, type, expression, function, numeric, isTypePreservingMicroaggregation);
+    }
+
+    /**
+     * Returns a key which identifies the numeric representation of values of this feature
+     * @return
+     */
+    String getKey() {
+        
+        // Values are not numeric
+        if (expression == null) {
+            return "";
+        }
+        
+        // Values are parsed and scaled
+        StringBuilder builder = new StringBuilder();
+        builder.append(type.toString());
+        if (type instanceof DataTypeWithFormat) {
+            builder.append('|').append(((DataTypeWithFormat) type).getFormat());
+            builder.append('|').append(((DataTypeWithFormat) type).getLocale());
+        }
+        builder.append('|').append(function);
+        return builder.toString();
+    }
+
     /**
      * Returns the name of the feature
      * @return
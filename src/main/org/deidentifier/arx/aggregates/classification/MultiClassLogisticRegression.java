@@ -122,7 +122,7 @@ public class MultiClassLogisticRegression extends ClassificationMethod {
      * @return
      */
     private int encodeClass(DataHandleInternal handle, int row) {
-        return specification.classMap.get(handle.getValue(row, specification.classIndex, true));
+        return specification.getEncodedClass(handle, row);
     }
 
     /**
@@ -144,21 +144,20 @@ public class MultiClassLogisticRegression extends ClassificationMethod {
             return vector;
         }
         
+        // Obtain encoded data
+        ClassificationFeatureMatrix features = specification.getFeatureMatrix(handle);
+        ClassificationFeatureMatrix inputFeatures = specification.getFeatureMatrix(inputHandle);
+        
         // For each attribute
         int count = 0;
         for (int index : specification.featureIndices) {
             
             // Obtain data
             ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
-            if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
-            }
-            Double numeric = metadata.getNumericValue(value);
+            ClassificationFeatureMatrix matrix = classify && metadata.isNumericMicroaggregation() ? inputFeatures : features;
+            double numeric = matrix.getNumericValue(count, row);
             if (Double.isNaN(numeric)) {    
-                wordEncoder.addToVector("Attribute-" + index + ":" + value, 1, vector);
+                wordEncoder.addToVector("Attribute-" + index + ":" + matrix.getValue(count, row), 1, vector);
             } else {
                 wordEncoder.addToVector("Attribute-" + index, numeric, vector);
             }
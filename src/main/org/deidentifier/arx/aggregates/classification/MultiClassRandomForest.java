@@ -167,7 +167,7 @@ public class MultiClassRandomForest extends ClassificationMethod {
      * @return
      */
     private int encodeClass(DataHandleInternal handle, int row) {
-        return specification.classMap.get(handle.getValue(row, specification.classIndex, true));
+        return specification.getEncodedClass(handle, row);
     }
 
     /**
@@ -187,21 +187,24 @@ public class MultiClassRandomForest extends ClassificationMethod {
             return vector;
         }
         
+        // Obtain encoded data
+        ClassificationFeatureMatrix features = specification.getFeatureMatrix(handle);
+        ClassificationFeatureMatrix inputFeatures = specification.getFeatureMatrix(inputHandle);
+        
         // For each attribute
         int count = 0;
         for (int index : specification.featureIndices) {
             
             // Obtain data
             ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
-            if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
-            }
-            Double numeric = metadata.getNumericValue(value);
-            if (Double.isNaN(numeric)) {    
-                vector[count] = handle.getValueIdentifier(index, value);
+            ClassificationFeatureMatrix matrix = classify && metadata.isNumericMicroaggregation() ? inputFeatures : features;
+            double numeric = matrix.getNumericValue(count, row);
+            if (Double.isNaN(numeric)) {
+                if (matrix == features) {
+                    vector[count] = features.getIdentifier(count, row);
+                } else {
+                    vector[count] = handle.getValueIdentifier(index, matrix.getValue(count, row));
+                }
             } else {
                 vector[count] = numeric;
             }
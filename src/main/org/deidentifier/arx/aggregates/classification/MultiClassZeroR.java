@@ -58,7 +58,7 @@ public class MultiClassZeroR extends ClassificationMethod {
 
     @Override
     public void train(DataHandleInternal features, DataHandleInternal clazz, int row) {
-        Integer key = specification.classMap.get(clazz.getValue(row, specification.classIndex, true));
+        Integer key = specification.getEncodedClass(clazz, row);
         Integer count = counts.get(key);
         count = count == null ? 1 : count + 1;
         counts.put(key, count);
@@ -0,0 +1,378 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.aggregates.quality;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * Dictionary-encoded representation of the quasi-identifiers in input and output data,
+ * which is computed once and shared by all quality models. Models can thus compute
+ * properties once per distinct value instead of once per cell. The encoding is derived
+ * from the codes of the data handles, values are only decoded once per distinct code.
+ * Distinct input values are also linked to their rows in the generalization hierarchies.
+ *
+ * @author Fabian Prasser
+ */
+public class QualityEncoding {
+
+    /** Input codes, per quasi-identifier */
+    private final int[][]        inputCodes;
+
+    /** Distinct input values, per quasi-identifier */
+    private final String[][]     inputValues;
+
+    /** Output codes, per quasi-identifier */
+    private final int[][]        outputCodes;
+
+    /** Distinct output values, per quasi-identifier */
+    private final String[][]     outputValues;
+
+    /** Rows of distinct input values in the hierarchies, -1 if not contained, per quasi-identifier */
+    private final int[][]        hierarchyRows;
+
+    /** Whether all quasi-identifiers of a record are suppressed in the output */
+    private final boolean[]      suppressed;
+
+    /** Numeric representations of input and output, per quasi-identifier */
+    private final double[][][]   numbers;
+
+    /** Locks for computing numeric representations */
+    private final Object[]       locks;
+
+    /** Flag */
+    private final WrappedBoolean interrupt;
+
+    /**
+     * Creates a new instance
+     *
+     * @param input
+     * @param output
+     * @param indices
+     * @param hierarchies
+     * @param interrupt
+     * @param executor May be null, in which case columns are encoded sequentially
+     */
+    public QualityEncoding(final DataHandleInternal input,
+                           final DataHandleInternal output,
+                           final int[] indices,
+                           final String[][][] hierarchies,
+                           final WrappedBoolean interrupt,
+                           final ExecutorService executor) {
+
+        // Prepare
+        this.interrupt = interrupt;
+        this.inputCodes = new int[indices.length][];
+        this.inputValues = new String[indices.length][];
+        this.outputCodes = new int[indices.length][];
+        this.outputValues = new String[indices.length][];
+        this.hierarchyRows = new int[indices.length][];
+        this.numbers = new double[indices.length][][];
+        this.locks = new Object[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            this.locks[i] = new Object();
+        }
+
+        // Encode columns
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < indices.length; i++) {
+            final int index = i;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    encode(input, indices[index], inputCodes, inputValues, index);
+                    return null;
+                }
+            });
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    encode(output, indices[index], outputCodes, outputValues, index);
+                    return null;
+                }
+            });
+        }
+        execute(tasks, executor);
+
+        // Link input values to hierarchies
+        for (int i = 0; i < indices.length; i++) {
+            this.hierarchyRows[i] = getHierarchyRows(inputValues[i], hierarchies[i]);
+        }
+
+        // Identifiers of output values which are consistent across quasi-identifiers
+        Map<String, Integer> identifiers = new HashMap<>();
+        int[][] outputIdentifiers = new int[indices.length][];
+        for (int i = 0; i < indices.length; i++) {
+            outputIdentifiers[i] = new int[outputValues[i].length];
+            for (int code = 0; code < outputValues[i].length; code++) {
+                Integer identifier = identifiers.get(outputValues[i][code]);
+                if (identifier == null) {
+                    identifier = identifiers.size();
+                    identifiers.put(outputValues[i][code], identifier);
+                }
+                outputIdentifiers[i][code] = identifier;
+            }
+        }
+
+        // We assume that a record is suppressed, if all values are equal
+        int rows = output.getNumRows();
+        this.suppressed = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            boolean result = true;
+            if (!output.isOutlier(row)) {
+                for (int i = 1; i < indices.length; i++) {
+                    if (outputIdentifiers[i - 1][outputCodes[i - 1][row]] != outputIdentifiers[i][outputCodes[i][row]]) {
+                        result = false;
+                        break;
+                    }
+                }
+            }
+            this.suppressed[row] = result;
+            checkInterrupt();
+        }
+    }
+
+    /**
+     * Returns the codes of the input values of the given quasi-identifier
+     *
+     * @param index
+     * @return
+     */
+    public int[] getInputCodes(int index) {
+        return inputCodes[index];
+    }
+
+    /**
+     * Returns the distinct input values of the given quasi-identifier, indexed by code
+     *
+     * @param index
+     * @return
+     */
+    public String[] getInputValues(int index) {
+        return inputValues[index];
+    }
+
+    /**
+     * Returns the rows of the distinct input values of the given quasi-identifier in its
+     * hierarchy, indexed by code. Values which are not contained in the hierarchy are mapped to -1.
+     *
+     * @param index
+     * @return
+     */
+    public int[] getHierarchyRows(int index) {
+        return hierarchyRows[index];
+    }
+
+    /**
+     * Returns the codes of the output values of the given quasi-identifier
+     *
+     * @param index
+     * @return
+     */
+    public int[] getOutputCodes(int index) {
+        return outputCodes[index];
+    }
+
+    /**
+     * Returns the distinct output values of the given quasi-identifier, indexed by code
+     *
+     * @param index
+     * @return
+     */
+    public String[] getOutputValues(int index) {
+        return outputValues[index];
+    }
+
+    /**
+     * Returns whether all quasi-identifiers of the given record are suppressed in the output
+     *
+     * @param row
+     * @return
+     */
+    public boolean isSuppressed(int row) {
+        return suppressed[row];
+    }
+
+    /**
+     * Returns the lock guarding the numeric representation of the given quasi-identifier
+     *
+     * @param index
+     * @return
+     */
+    Object getLock(int index) {
+        return locks[index];
+    }
+
+    /**
+     * Returns the numeric representation of the given quasi-identifier, if it has been computed
+     *
+     * @param index
+     * @return
+     */
+    double[][] getNumbers(int index) {
+        return numbers[index];
+    }
+
+    /**
+     * Stores the numeric representation of the given quasi-identifier
+     *
+     * @param index
+     * @param numbers
+     */
+    void setNumbers(int index, double[][] numbers) {
+        this.numbers[index] = numbers;
+    }
+
+    /**
+     * Checks whether an interruption happened.
+     */
+    private void checkInterrupt() {
+        if (interrupt.value) { throw new ComputationInterruptedException("Interrupted"); }
+    }
+
+    /**
+     * Encodes the given column. Codes of the handle are translated into dense codes. As the
+     * dictionary of a handle may contain a value more than once, e.g. suppressed values
+     * and values generalized to the same string, values are decoded once per code of the handle
+     * and merged by string.
+     *
+     * @param handle
+     * @param column
+     * @param codes
+     * @param values
+     * @param index
+     */
+    private void encode(DataHandleInternal handle, int column, int[][] codes, String[][] values, int index) {
+
+        // Prepare
+        int rows = handle.getNumRows();
+        int[] result = new int[rows];
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> list = new ArrayList<>();
+
+        // Translation of the handle's codes, shifted by one to include suppressed values (-1)
+        int[] translation = new int[16];
+        Arrays.fill(translation, -1);
+
+        // Encode
+        for (int row = 0; row < rows; row++) {
+            int key = handle.getEncodedValue(row, column, false) + 1;
+            if (key >= translation.length) {
+                int size = translation.length;
+                translation = Arrays.copyOf(translation, Math.max(key + 1, size << 1));
+                Arrays.fill(translation, size, translation.length, -1);
+            }
+            int code = translation[key];
+            if (code == -1) {
+                String value = handle.getValue(row, column);
+                Integer existing = dictionary.get(value);
+                if (existing == null) {
+                    existing = list.size();
+                    dictionary.put(value, existing);
+                    list.add(value);
+                }
+                code = existing;
+                translation[key] = code;
+            }
+            result[row] = code;
+            checkInterrupt();
+        }
+
+        // Store
+        codes[index] = result;
+        values[index] = list.toArray(new String[list.size()]);
+    }
+
+    /**
+     * Returns the rows of the given values in the given hierarchy, -1 if not contained
+     *
+     * @param values
+     * @param hierarchy
+     * @return
+     */
+    private int[] getHierarchyRows(String[] values, String[][] hierarchy) {
+
+        // Index the first level of the hierarchy. Later rows take precedence.
+        Map<String, Integer> rows = new HashMap<>();
+        for (int row = 0; row < hierarchy.length; row++) {
+            rows.put(hierarchy[row][0], row);
+        }
+
+        // Link
+        int[] result = new int[values.length];
+        for (int code = 0; code < values.length; code++) {
+            Integer row = rows.get(values[code]);
+            result[code] = row == null ? -1 : row;
+        }
+        return result;
+    }
+
+    /**
+     * Executes the given tasks
+     *
+     * @param tasks
+     * @param executor
+     */
+    private void execute(List<Callable<Void>> tasks, ExecutorService executor) {
+
+        // Sequentially
+        if (executor == null) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return;
+        }
+
+        // In parallel
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+}
@@ -78,6 +78,9 @@ abstract class QualityModel<T> {
     /** Shares */
     private final QualityDomainShare[]   shares;
 
+    /** Encoded data */
+    private final QualityEncoding        encoding;
+
     /** Value */
     private final String                 suppressedValue;
 
@@ -102,6 +105,7 @@ abstract class QualityModel<T> {
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -114,6 +118,7 @@ abstract class QualityModel<T> {
                  Groupify<TupleWrapper> groupedOutput,
                  String[][][] hierarchies,
                  QualityDomainShare[] shares,
+                 QualityEncoding encoding,
                  int[] indices,
                  QualityConfiguration config) {
         
@@ -124,6 +129,7 @@ abstract class QualityModel<T> {
         this.groupedOutput = groupedOutput;
         this.indices = indices;
         this.shares = shares;
+        this.encoding = encoding;
         this.hierarchies = hierarchies;
         this.interrupt = interrupt;
         this.progress = progress;
@@ -173,6 +179,13 @@ abstract class QualityModel<T> {
         return shares;
     }
 
+    /**
+     * Returns the encoded data
+     */
+    protected QualityEncoding getEncoding() {
+        return encoding;
+    }
+
     /**
      * Returns grouped input
      */
@@ -327,6 +340,23 @@ abstract class QualityModel<T> {
         this.progress.value = startWorkload + totalWorkload;
     }
 
+    /**
+     * Returns the given quasi-identifier from the input and output dataset converted to numbers.
+     * The result is computed once and shared with all other models using the same encoding.
+     * @param index
+     * @return
+     */
+    protected double[][] getColumnsAsNumbers(int index) {
+        synchronized (encoding.getLock(index)) {
+            double[][] result = encoding.getNumbers(index);
+            if (result == null) {
+                result = getColumnsAsNumbers(input, output, hierarchies[index], indices[index]);
+                encoding.setNumbers(index, result);
+            }
+            return result;
+        }
+    }
+
     /**
      * Returns a columns from the input and output dataset converted to numbers
      * @param input
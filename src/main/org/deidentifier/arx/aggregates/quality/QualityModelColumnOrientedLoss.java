@@ -45,6 +45,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -57,6 +58,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
                                           Groupify<TupleWrapper> groupedOutput,
                                           String[][][] hierarchies,
                                           QualityDomainShare[] shares,
+                                          QualityEncoding encoding,
                                           int[] indices,
                                           QualityConfiguration config) {
         super(interrupt,
@@ -68,6 +70,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
@@ -87,24 +90,27 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
         setSteps(result.length);
         
         // For each column
+        QualityEncoding encoding = getEncoding();
         for (int i = 0; i < result.length; i++) {
             
             // Map
-            int column = indices[i];
+            int[] codes = encoding.getOutputCodes(i);
+            String[] values = encoding.getOutputValues(i);
             
-            // For each row
-            for (int row = 0; row < output.getNumRows(); row++) {
-                
+            // Compute shares once per distinct value
+            double[] sharesOfValues = new double[values.length];
+            for (int code = 0; code < values.length; code++) {
                 try {
-                    double share = 1d;
-                    if (!isSuppressed(output, indices, row)) {
-                        share = shares[i].getShare(output.getValue(row, column), 0);
-                    }
-                    result[i] += share;
+                    sharesOfValues[code] = shares[i].getShare(values[code], 0);
                 } catch (Exception e) {
                     // Silently catch exceptions
-                    result[i] = Double.NaN;
+                    sharesOfValues[code] = Double.NaN;
                 }
+            }
+            
+            // For each row
+            for (int row = 0; row < output.getNumRows(); row++) {
+                result[i] += encoding.isSuppressed(row) ? 1d : sharesOfValues[codes[row]];
                 
                 // Check
                 checkInterrupt();
@@ -59,6 +59,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -71,6 +72,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                                                        Groupify<TupleWrapper> groupedOutput,
                                                        String[][][] hierarchies,
                                                        QualityDomainShare[] shares,
+                                                       QualityEncoding encoding,
                                                        int[] indices,
                                                        QualityConfiguration config) {
         super(interrupt,
@@ -82,6 +84,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
@@ -92,6 +95,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         // Prepare
         int[] indices = getIndices();
         DataHandle output = getOutput();
+        QualityEncoding encoding = getEncoding();
         String[][][] hierarchies = getHierarchies();
         double[] result = new double[indices.length];
         double[] min = new double[indices.length];
@@ -103,19 +107,26 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         // For each column
         for (int i = 0; i < result.length; i++) {
 
-            // Map
-            int column = indices[i];
-
             try {
                 
                 // Prepare
-                Map<String, String>[] generalizationFunctions = getGeneralizationFunctions(hierarchies, i);
+                String[][] hierarchy = hierarchies[i];
+                int[] hierarchyRows = encoding.getHierarchyRows(i);
                 Map<String, Integer> inverseGeneralizationFunction = getInverseGeneralizationFunction(hierarchies, i);
+                int[] inputCodes = encoding.getInputCodes(i);
+                String[] inputValues = encoding.getInputValues(i);
+                int[] outputCodes = encoding.getOutputCodes(i);
+                String[] outputValues = encoding.getOutputValues(i);
+                int rows = inputCodes.length;
                 
                 // Determine generalization levels
-                final int[] transformations = new int[output.getNumRows()];
-                for (int row = 0; row < output.getNumRows(); row++) {
-                    transformations[row] = inverseGeneralizationFunction.get(output.getValue(row, column));
+                int[] levelsOfValues = new int[outputValues.length];
+                for (int code = 0; code < outputValues.length; code++) {
+                    levelsOfValues[code] = inverseGeneralizationFunction.get(outputValues[code]);
+                }
+                final int[] transformations = new int[rows];
+                for (int row = 0; row < rows; row++) {
+                    transformations[row] = levelsOfValues[outputCodes[row]];
                 }
                 
                 // Group and sort all generalization levels
@@ -126,6 +137,13 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                 List<Integer> levels = new ArrayList<Integer>();
                 levels.addAll(_levels);
                 Collections.sort(levels);
+                
+                // Encode generalized input values. Values not contained in the hierarchy are mapped to null.
+                Map<String, Integer> generalizedValues = new HashMap<String, Integer>();
+                int[][] generalizedCodes = new int[hierarchy[0].length][];
+                for (int level : levels) {
+                    generalizedCodes[level] = getGeneralizedCodes(hierarchy, hierarchyRows, level, generalizedValues);
+                }
 
                 // Progress
                 setStepPerformed();
@@ -138,24 +156,24 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                     int previousLevel = levelIndex > 0 ? levels.get(levelIndex - 1) : currentLevel;
                     
                     // Frequencies in input or levelIndex - 1 for all rows with transformation level >= level
-                    Map<String, Double> inputFrequencies = levelIndex == 0 ? getInputFrequencies(transformations, column, currentLevel)
-                                                                           : getOutputFrequencies(transformations, generalizationFunctions, column, currentLevel, previousLevel);
+                    int[] inputKeys = levelIndex == 0 ? null : generalizedCodes[previousLevel];
+                    double[] inputFrequencies = getFrequencies(transformations, inputCodes, inputKeys, 
+                                                               levelIndex == 0 ? inputValues.length : generalizedValues.size(),
+                                                               currentLevel);
 
                     // Frequencies of values on the given level in output for all rows with transformation level >= level
-                    Map<String, Double> outputFrequencies = getOutputFrequencies(transformations, generalizationFunctions, column, currentLevel, currentLevel);
+                    int[] outputKeys = generalizedCodes[currentLevel];
+                    double[] outputFrequencies = getFrequencies(transformations, inputCodes, outputKeys, generalizedValues.size(), currentLevel);
                     
                     // Sum up loss of values transformation level >= level
-                    DataHandle input = getInput();
-                    for (int row = 0; row < input.getNumRows(); row++) {
+                    for (int row = 0; row < rows; row++) {
 
-                        // Input and output value for this cell
-                        String value = input.getValue(row, column);
-                        String inputValue = levelIndex == 0 ? value : generalizationFunctions[previousLevel].get(value);
-                        String outputValue = generalizationFunctions[currentLevel].get(value);
-                        
                         // Calculate result
                         if (transformations[row] >= currentLevel) {
-                            result[i] += log2(inputFrequencies.get(inputValue) / outputFrequencies.get(outputValue));
+                            int code = inputCodes[row];
+                            int inputValue = levelIndex == 0 ? code : inputKeys[code];
+                            int outputValue = outputKeys[code];
+                            result[i] += log2(inputFrequencies[inputValue] / outputFrequencies[outputValue]);
                         }
                         
                         // Check
@@ -167,10 +185,9 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                 setStepPerformed();
 
                 // Calculate maximum
-                DataHandle input = getInput();
-                Map<String, Double> inputFrequencies = getInputFrequencies(transformations, column, 0);
-                for (int row = 0; row < input.getNumRows(); row++) {
-                    max[i] += log2(inputFrequencies.get(input.getValue(row, column)) / (double)input.getNumRows());
+                double[] inputFrequencies = getFrequencies(transformations, inputCodes, null, inputValues.length, 0);
+                for (int row = 0; row < rows; row++) {
+                    max[i] += log2(inputFrequencies[inputCodes[row]] / (double)rows);
 
                     // Check
                     checkInterrupt();
@@ -205,50 +222,46 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
     }
 
     /**
-     * Builds a generalization function mapping input values to the given level of the hierarchy
-     * 
-     * @param hierarchies
-     * @param index
+     * Returns the frequencies of values in input data for all rows with transformation level >= level.
+     * Values are identified by their codes, or by the keys associated with their codes, if given.
+     * @param transformations
+     * @param codes
+     * @param keys
+     * @param size Number of distinct keys
+     * @param level
      * @return
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, String>[] getGeneralizationFunctions(String[][][] hierarchies, int index) {
-        
-        // Prepare
-        Map<String, String>[] result = new HashMap[hierarchies[index][0].length];
-
-        // For each dimension
-        for (int level = 0; level < hierarchies[index][0].length; level++) {
-            Map<String, String> map = new HashMap<String, String>();
-            for (int row = 0; row < hierarchies[index].length; row++) {
-                map.put(hierarchies[index][row][0], hierarchies[index][row][level]);
+    private double[] getFrequencies(int[] transformations, int[] codes, int[] keys, int size, int level) {
+        double[] result = new double[size];
+        for (int row = 0; row < codes.length; row++) {
+            if (transformations[row] >= level) {
+                result[keys == null ? codes[row] : keys[codes[row]]]++;
             }
-            result[level] = map;
+
+            // Check
+            checkInterrupt();
         }
-        
-        // Return
         return result;
     }
 
     /**
-     * Returns the frequencies of values in input data for all rows with transformation level >= level
-     * @param transformations
-     * @param column
+     * Returns codes for the values on the given level of the hierarchy of all input values
+     * @param hierarchy
+     * @param rows Rows of the input values in the hierarchy, -1 if not contained
      * @param level
+     * @param codes Dictionary of generalized values
      * @return
      */
-    private Map<String, Double> getInputFrequencies( int[] transformations, int column, int level) {
-        DataHandle input = getInput();
-        Map<String, Double> result = new HashMap<String, Double>();
-        for (int row = 0; row < input.getNumRows(); row++) {
-            if (transformations[row] >= level) {
-                String value = input.getValue(row, column);
-                Double count = result.get(value);
-                result.put(value, count != null ? count + 1d : 1d);
+    private int[] getGeneralizedCodes(String[][] hierarchy, int[] rows, int level, Map<String, Integer> codes) {
+        int[] result = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            String value = rows[i] == -1 ? null : hierarchy[rows[i]][level];
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                codes.put(value, code);
             }
-
-            // Check
-            checkInterrupt();
+            result[i] = code;
         }
         return result;
     }
@@ -285,33 +298,4 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         // Return
         return result;
     }
-
-    /**
-     * Returns the frequencies of values in input data on the target level in output for all rows with transformation level >= level
-     * @param transformations
-     * @param generalizationFunctions
-     * @param column
-     * @param level
-     * @param target
-     * @return
-     */
-    private Map<String, Double> getOutputFrequencies(int[] transformations,
-                                                     Map<String, String>[] generalizationFunctions,
-                                                     int column, 
-                                                     int level, 
-                                                     int target) {
-        Map<String, Double> result = new HashMap<String, Double>();
-        DataHandle input = getInput();
-        for (int row = 0; row < input.getNumRows(); row++) {
-            if (transformations[row] >= level) {
-                String value = generalizationFunctions[target].get(input.getValue(row, column));
-                Double count = result.get(value);
-                result.put(value, count != null ? count + 1d : 1d);
-            }
-
-            // Check
-            checkInterrupt();
-        }
-        return result;
-    }
 }
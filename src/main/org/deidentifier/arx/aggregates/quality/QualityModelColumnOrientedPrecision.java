@@ -48,6 +48,7 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -60,6 +61,7 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
                                                Groupify<TupleWrapper> groupedOutput,
                                                String[][][] hierarchies,
                                                QualityDomainShare[] shares,
+                                               QualityEncoding encoding,
                                                int[] indices,
                                                QualityConfiguration config) {
         super(interrupt,
@@ -71,6 +73,7 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
@@ -91,25 +94,28 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
         setSteps(result.length);
         
         // For each column
+        QualityEncoding encoding = getEncoding();
         for (int i = 0; i < result.length; i++) {
             
             // Map
-            int column = indices[i];
+            int[] codes = encoding.getOutputCodes(i);
+            String[] values = encoding.getOutputValues(i);
             
-            // For each row
-            for (int row = 0; row < output.getNumRows(); row++) {
-                
+            // Compute precisions once per distinct value
+            double[] precisionsOfValues = new double[values.length];
+            for (int code = 0; code < values.length; code++) {
                 try {
-                    double precision = 1d;
-                    if (!isSuppressed(output, indices, row)) {
-                        Double temp = precisions[i].get(output.getValue(row, column));
-                        precision = temp != null ? temp : 1d;
-                    }
-                    result[i] += precision;
+                    Double temp = precisions[i].get(values[code]);
+                    precisionsOfValues[code] = temp != null ? temp : 1d;
                 } catch (Exception e) {
                     // Silently catch exceptions
-                    result[i] = Double.NaN;
+                    precisionsOfValues[code] = Double.NaN;
                 }
+            }
+            
+            // For each row
+            for (int row = 0; row < output.getNumRows(); row++) {
+                result[i] += encoding.isSuppressed(row) ? 1d : precisionsOfValues[codes[row]];
                 
                 // Check
                 checkInterrupt();
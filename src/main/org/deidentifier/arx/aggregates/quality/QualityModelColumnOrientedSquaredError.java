@@ -43,6 +43,7 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -55,6 +56,7 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
                                          Groupify<TupleWrapper> groupedOutput,
                                          String[][][] hierarchies,
                                          QualityDomainShare[] shares,
+                                         QualityEncoding encoding,
                                          int[] indices,
                                          QualityConfiguration config) {
         super(interrupt,
@@ -66,6 +68,7 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
@@ -78,7 +81,6 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
         double[] result = new double[indices.length];
         double[] min = new double[indices.length];
         double[] max = new double[indices.length];
-        String[][][] hierarchies = getHierarchies();
         
         // Progress
         setSteps(result.length);
@@ -89,14 +91,12 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
             try {
                 
                 // Map
-                int column = indices[i];
                 double[] input = null;
                 double[] output = null;
                 
                 // Parse
                 try {
-                    double[][] columnsAsNumbers = getColumnsAsNumbers(getInput(), getOutput(), 
-                                                                      hierarchies[i], column);
+                    double[][] columnsAsNumbers = getColumnsAsNumbers(i);
                     if (columnsAsNumbers != null) {
                         input = columnsAsNumbers[0];
                         output= columnsAsNumbers[1];
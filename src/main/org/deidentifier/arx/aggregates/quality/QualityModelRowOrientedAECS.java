@@ -46,6 +46,7 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -58,6 +59,7 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
                                        Groupify<TupleWrapper> groupedOutput,
                                        String[][][] hierarchies,
                                        QualityDomainShare[] shares,
+                                       QualityEncoding encoding,
                                        int[] indices,
                                        QualityConfiguration config) {
         super(interrupt,
@@ -69,6 +71,7 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
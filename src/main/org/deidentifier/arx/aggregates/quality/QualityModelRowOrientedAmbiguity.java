@@ -45,6 +45,7 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -57,6 +58,7 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
                                             Groupify<TupleWrapper> groupedOutput,
                                             String[][][] hierarchies,
                                             QualityDomainShare[] shares,
+                                            QualityEncoding encoding,
                                             int[] indices,
                                             QualityConfiguration config) {
         super(interrupt,
@@ -68,6 +70,7 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
@@ -87,13 +90,25 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
         setSteps(output.getNumRows());
         
         try {
+            
+            // Compute shares once per distinct value
+            QualityEncoding encoding = getEncoding();
+            double[][] sharesOfValues = new double[indices.length][];
+            for (int i = 0; i < indices.length; i++) {
+                String[] values = encoding.getOutputValues(i);
+                sharesOfValues[i] = new double[values.length];
+                for (int code = 0; code < values.length; code++) {
+                    sharesOfValues[i][code] = shares[i].getShare(values[code], 0) * shares[i].getDomainSize();
+                }
+            }
+            
+            // For each row
             for (int row = 0; row < output.getNumRows(); row++) {
                 double rowMin = 1d;
                 double rowResult = 1d;
                 double rowMax = 1d;
                 for (int i = 0; i < indices.length; i++) {
-                    int column = indices[i];
-                    rowResult *= shares[i].getShare(output.getValue(row, column), 0) * shares[i].getDomainSize();
+                    rowResult *= sharesOfValues[i][encoding.getOutputCodes(i)[row]];
                     rowMin *= 1d;
                     rowMax *= shares[i].getDomainSize();
                 }
@@ -47,6 +47,7 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -59,6 +60,7 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
                                                  Groupify<TupleWrapper> groupedOutput,
                                                  String[][][] hierarchies,
                                                  QualityDomainShare[] shares,
+                                                 QualityEncoding encoding,
                                                  int[] indices,
                                                  QualityConfiguration config) {
         super(interrupt,
@@ -70,6 +72,7 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
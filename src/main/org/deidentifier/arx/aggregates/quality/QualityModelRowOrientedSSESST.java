@@ -47,6 +47,7 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -59,6 +60,7 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
                                       Groupify<TupleWrapper> groupedOutput,
                                       String[][][] hierarchies,
                                       QualityDomainShare[] shares,
+                                      QualityEncoding encoding,
                                       int[] indices,
                                       QualityConfiguration config) {
         super(interrupt,
@@ -70,6 +72,7 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
@@ -83,7 +86,6 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
             int[] indices = getIndices();
             List<double[]> columns1 = new ArrayList<>();
             List<double[]> columns2 = new ArrayList<>();
-            String[][][] hierarchies = getHierarchies();
 
             // Progress
             setSteps(indices.length + 2);
@@ -91,9 +93,7 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
             // Collect
             for (int index = 0; index < indices.length; index++) {
                 try {
-                    int column = indices[index];
-                    double[][] columnsAsNumbers = getColumnsAsNumbers(getInput(), getOutput(), 
-                                                                      hierarchies[index], column);
+                    double[][] columnsAsNumbers = getColumnsAsNumbers(index);
                     if (columnsAsNumbers != null) {
                         columns1.add(columnsAsNumbers[0]);
                         columns2.add(columnsAsNumbers[1]);
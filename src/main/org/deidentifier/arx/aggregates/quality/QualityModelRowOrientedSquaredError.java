@@ -47,6 +47,7 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
      * @param groupedOutput
      * @param hierarchies
      * @param shares
+     * @param encoding
      * @param indices
      * @param config
      */
@@ -59,6 +60,7 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
                                       Groupify<TupleWrapper> groupedOutput,
                                       String[][][] hierarchies,
                                       QualityDomainShare[] shares,
+                                      QualityEncoding encoding,
                                       int[] indices,
                                       QualityConfiguration config) {
         super(interrupt,
@@ -70,6 +72,7 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
               groupedOutput,
               hierarchies,
               shares,
+              encoding,
               indices,
               config);
     }
@@ -84,7 +87,6 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
             List<double[]> columns1 = new ArrayList<>();
             List<double[]> columns2 = new ArrayList<>();
             List<Double> stdDevs = new ArrayList<>();
-            String[][][] hierarchies = getHierarchies();
 
             // Progress
             setSteps(indices.length + 2);
@@ -92,9 +94,7 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
             // Collect
             for (int index = 0; index < indices.length; index++) {
                 try {
-                    int column = indices[index];
-                    double[][] columnsAsNumbers = getColumnsAsNumbers(getInput(), getOutput(), 
-                                                                      hierarchies[index], column);
+                    double[][] columnsAsNumbers = getColumnsAsNumbers(index);
                     if (columnsAsNumbers != null) {
                         double stdDev = getStandardDeviation(columnsAsNumbers[0]);
                         columns1.add(columnsAsNumbers[0]);
@@ -17,11 +17,15 @@
 
 package org.deidentifier.arx.algorithm;
 
+import java.io.IOException;
+
 import org.deidentifier.arx.ARXListener;
 import org.deidentifier.arx.ARXConfiguration.Monotonicity;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationCheckerPool;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.lattice.Checkpoint;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.InformationLoss;
@@ -36,19 +40,25 @@ import org.deidentifier.arx.metric.InformationLossWithBound;
 public abstract class AbstractAlgorithm {
 
     /** The optimal transformation. */
-    private Transformation          globalOptimum          = null;
+    private Transformation              globalOptimum          = null;
 
     /** The optimal information loss. */
-    private InformationLoss<?>      optimalInformationLoss = null;
+    private InformationLoss<?>          optimalInformationLoss = null;
 
     /** The listener */
-    private ARXListener             listener               = null;
+    private ARXListener                 listener               = null;
+
+    /** The checkpoint, if any */
+    private Checkpoint                  checkpoint             = null;
 
     /** A node checker. */
-    protected TransformationChecker checker                = null;
+    protected TransformationChecker     checker                = null;
+
+    /** A pool of checkers for parallel checks, if any. */
+    protected TransformationCheckerPool pool                   = null;
 
     /** The lattice. */
-    protected SolutionSpace         solutionSpace          = null;
+    protected SolutionSpace             solutionSpace          = null;
 
     /**
      * Walks the lattice.
@@ -71,6 +81,53 @@ public abstract class AbstractAlgorithm {
         return globalOptimum;
     }
 
+    /**
+     * Restores the state of a previous search from the given checkpoint. Transformations
+     * which have already been checked will not be checked again. If records have been
+     * appended to the data since, transformations will be checked again, but the baseline
+     * stored in the checkpoint is extended with the appended records.
+     * 
+     * @param checkpoint
+     * @throws IOException
+     */
+    public void resume(Checkpoint checkpoint) throws IOException {
+        Transformation optimum = checkpoint.read(solutionSpace);
+        if (optimum != null) {
+            globalOptimum = optimum;
+            optimalInformationLoss = optimum.getInformationLoss();
+        }
+        createBaseline(checkpoint.getBaseline(), checkpoint.getBaselineRows());
+    }
+
+    /**
+     * Creates the baseline for all checkers, which allows to check transformations without
+     * processing all records.
+     * 
+     * @param previous The baseline created for the leading records, may be null
+     * @param previousRows The number of records covered by the given baseline
+     */
+    public void createBaseline(int[] previous, int previousRows) {
+        if (checker.createBaseline(previous, previousRows) && pool != null) {
+            pool.setBaseline(solutionSpace.getBottom(), checker.getHistory().getBaseline());
+        }
+    }
+
+    /**
+     * Sets a checkpoint, to which the state of the search is written periodically
+     * @param checkpoint
+     */
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Sets a pool of checkers, which enables parallel checks of independent transformations
+     * @param pool
+     */
+    public void setCheckerPool(TransformationCheckerPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * Sets a listener
      * @param listener
@@ -86,6 +143,16 @@ public abstract class AbstractAlgorithm {
      */
     public abstract boolean traverse();
 
+    /**
+     * Writes the state of the search to the checkpoint, if any
+     * @throws IOException
+     */
+    public void writeCheckpoint() throws IOException {
+        if (checkpoint != null) {
+            checkpoint.write(solutionSpace, globalOptimum, checker.getHistory().getBaseline());
+        }
+    }
+
     /**
      * Determine information loss implied by the given transformation if it can be
      * used for estimating minimum and maximum information loss for tagged nodes.
@@ -130,6 +197,15 @@ public abstract class AbstractAlgorithm {
             globalOptimum = transformation;
             optimalInformationLoss = transformation.getInformationLoss();
         }
+
+        // Persist the state of the search, if requested
+        if (checkpoint != null && checkpoint.isDue()) {
+            try {
+                checkpoint.write(solutionSpace, globalOptimum, checker.getHistory().getBaseline());
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot write checkpoint to " + checkpoint.getFile(), e);
+            }
+        }
     }
 
 }
@@ -26,6 +26,7 @@ import java.util.PriorityQueue;
 import org.deidentifier.arx.algorithm.FLASHPhaseConfiguration.PhaseAnonymityProperty;
 import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.TransformationChecker;
+import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
 import org.deidentifier.arx.framework.lattice.DependentAction;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
@@ -39,6 +40,8 @@ import cern.colt.function.IntComparator;
 import cern.colt.list.LongArrayList;
 
 import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntOpenHashSet;
+import com.carrotsearch.hppc.cursors.IntCursor;
 
 import de.linearbits.jhpl.JHPLIterator.LongIterator;
 import de.linearbits.jhpl.PredictiveProperty;
@@ -66,6 +69,9 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
     /** The number of checked transformations */
     private int                        checked = 0;
 
+    /** Transformations with results of parallel checks that have not yet been consumed */
+    private final IntOpenHashSet       prefetched;
+
     /**
      * Creates a new instance.
      *
@@ -90,6 +96,7 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         this.config = config;
         this.potentiallyInsufficientUtility = this.config.isPruneInsufficientUtility() ? 
                                               new LinkedList<Integer>() : null;
+        this.prefetched = new IntOpenHashSet();
     }
 
     @Override
@@ -105,6 +112,9 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
 
         // Set some triggers
         checker.getHistory().setStorageStrategy(config.getSnapshotStorageStrategy());
+        if (pool != null) {
+            pool.setStorageStrategy(config.getSnapshotStorageStrategy());
+        }
 
         // Initialize
         PriorityQueue<Integer> queue = new PriorityQueue<Integer>(solutionSpace.getTop().getLevel() + 1, strategy);
@@ -130,6 +140,12 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
             }
         }
 
+        // Discard results of parallel checks that have not been consumed
+        for (IntCursor cursor : prefetched) {
+            solutionSpace.getTransformation(cursor.value).setData(null);
+        }
+        prefetched.clear();
+
         // Potentially allows to better estimate utility in the lattice
         computeUtilityForMonotonicMetrics(bottom);
         computeUtilityForMonotonicMetrics(top);
@@ -199,6 +215,9 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
             }
         } else if (configuration.getTriggerCheck().appliesTo(transformation)) {
             transformation.setChecked(checker.check(transformation));
+            if (prefetched.remove((int)transformation.getIdentifier())) {
+                transformation.setData(null);
+            }
             progress((double)++checked / (double)solutionSpace.getSize());
         }
 
@@ -241,6 +260,11 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
             // Skip
             if (!skip(triggerSkip, transformation)) {
 
+                // Check nodes which may be visited next in parallel
+                if (isPrefetchRequired(transformation, config.getBinaryPhaseConfiguration())) {
+                    prefetch(getBinarySearchCandidates(path, low, high), config.getBinaryPhaseConfiguration());
+                }
+
                 // Check and tag
                 checkAndTag(transformation, config.getBinaryPhaseConfiguration());
 
@@ -294,6 +318,31 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         return path;
     }
     
+    /**
+     * Returns the nodes of the given path in the order in which they may be visited by
+     * a binary search on the given interval, i.e. in breadth-first order of the search tree.
+     *
+     * @param path
+     * @param low
+     * @param high
+     * @return
+     */
+    private List<Transformation> getBinarySearchCandidates(List<Transformation> path, int low, int high) {
+        List<Transformation> result = new ArrayList<Transformation>();
+        LinkedList<int[]> intervals = new LinkedList<int[]>();
+        intervals.add(new int[] { low, high });
+        while (!intervals.isEmpty() && result.size() < pool.getSize()) {
+            int[] interval = intervals.poll();
+            if (interval[0] <= interval[1]) {
+                int mid = (interval[0] + interval[1]) / 2;
+                result.add(path.get(mid));
+                intervals.add(new int[] { interval[0], mid - 1 });
+                intervals.add(new int[] { mid + 1, interval[1] });
+            }
+        }
+        return result;
+    }
+
     /**
      * Sorts pointers to successor nodes according to the strategy.
      *
@@ -340,6 +389,32 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         return array;
     }
 
+    /**
+     * Returns whether checking the given transformation should trigger parallel checks
+     *
+     * @param transformation
+     * @param configuration
+     * @return
+     */
+    private boolean isPrefetchRequired(Transformation transformation, FLASHPhaseConfiguration configuration) {
+        return pool != null && isPrefetchCandidate(transformation, configuration);
+    }
+
+    /**
+     * Returns whether the given transformation will be checked by the given phase, if it is visited,
+     * and whether no result is available yet. This method has no side effects on the solution space.
+     *
+     * @param transformation
+     * @param configuration
+     * @return
+     */
+    private boolean isPrefetchCandidate(Transformation transformation, FLASHPhaseConfiguration configuration) {
+        return !configuration.getTriggerSkip().appliesTo(transformation) &&
+               !configuration.getTriggerEvaluate().appliesTo(transformation) &&
+               configuration.getTriggerCheck().appliesTo(transformation) &&
+               transformation.getData() == null;
+    }
+
     /**
      * Implements a depth-first search with predictive tagging.
      *
@@ -353,6 +428,16 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         // Skip this node
         if (!skip(triggerSkip, transformation)) {
 
+            // Check this node and its successors in parallel
+            if (isPrefetchRequired(transformation, config.getLinearPhaseConfiguration())) {
+                List<Transformation> candidates = new ArrayList<Transformation>();
+                candidates.add(transformation);
+                for (final int child : getSortedSuccessors(transformation)) {
+                    candidates.add(solutionSpace.getTransformation(child));
+                }
+                prefetch(candidates, config.getLinearPhaseConfiguration());
+            }
+
             // Check and tag
             checkAndTag(transformation, config.getLinearPhaseConfiguration());
 
@@ -369,6 +454,42 @@ public class FLASHAlgorithmImpl extends AbstractAlgorithm {
         transformation.setProperty(solutionSpace.getPropertySuccessorsPruned());
     }
 
+    /**
+     * Checks up to one candidate per checker in the pool in parallel and attaches the results to
+     * the transformations. They will be picked up when the transformations are checked by the
+     * sequential search, which is therefore not altered in any way. Results for transformations
+     * that are never visited are discarded.
+     *
+     * @param candidates
+     * @param configuration
+     */
+    private void prefetch(List<Transformation> candidates, FLASHPhaseConfiguration configuration) {
+
+        // Collect transformations
+        List<Transformation> batch = new ArrayList<Transformation>();
+        for (Transformation candidate : candidates) {
+            if (batch.size() == pool.getSize()) {
+                break;
+            }
+            if (isPrefetchCandidate(candidate, configuration)) {
+                batch.add(candidate);
+            }
+        }
+
+        // Nothing to be gained
+        if (batch.size() <= 1) {
+            return;
+        }
+
+        // Check and attach results
+        Transformation[] transformations = batch.toArray(new Transformation[batch.size()]);
+        TransformationResult[] results = pool.check(transformations, false, ScoreType.INFORMATION_LOSS);
+        for (int i = 0; i < transformations.length; i++) {
+            transformations[i].setData(results[i]);
+            prefetched.add((int)transformations[i].getIdentifier());
+        }
+    }
+
     /**
      * We may be able to prune some transformations based on weak lower bounds on
      * the monotonic share of a node's information loss.
@@ -18,14 +18,17 @@ package org.deidentifier.arx.algorithm;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import org.apache.commons.math3.distribution.EnumeratedDistribution;
 import org.apache.commons.math3.random.AbstractRandomGenerator;
 import org.apache.commons.math3.util.Pair;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -35,11 +38,46 @@ import org.deidentifier.arx.metric.InformationLoss;
  * The genetic algorithm. "Expanding Access to Large-Scale Genomic Data While
  * Promoting Privacy: A Game Theoretic Approach", Wan et al. DOI:
  * 10.1016/j.ajhg.2016.12.002
+ * <br>
+ * Individuals are created first and then evaluated together in batches.
+ * Mutated individuals are stored before the parents for crossovers are
+ * selected, and the remaining individuals of a generation are evaluated
+ * together with those of the next step. If a pool of checkers is available,
+ * they are evaluated in parallel. As evaluations do not consume random
+ * numbers, the search is the same in both cases, and the same as when
+ * evaluating each individual right after it has been created.
  * 
  * @author Kieu-Mi Do
  */
 public class GAAlgorithm extends AbstractAlgorithm {
 
+	/**
+	 * An individual which is to be evaluated and then stored at the given
+	 * position in a sub-population
+	 */
+	private static class Candidate {
+
+		/** Sub-population */
+		private final GASubpopulation population;
+		/** Position */
+		private final int index;
+		/** Generalization */
+		private final int[] generalization;
+
+		/**
+		 * Creates a new instance
+		 * 
+		 * @param population
+		 * @param index
+		 * @param generalization
+		 */
+		private Candidate(GASubpopulation population, int index, int[] generalization) {
+			this.population = population;
+			this.index = index;
+			this.generalization = generalization;
+		}
+	}
+
 	/**
 	 * Returns a new instance
 	 * 
@@ -93,9 +131,15 @@ public class GAAlgorithm extends AbstractAlgorithm {
 		int imm = config.getImmigrationInterval();
 		int immf = config.getImmigrationFraction();
 
+		// All histories store all snapshots
+		if (pool != null) {
+			pool.setStorageStrategy(StorageStrategy.ALL);
+		}
+
 		// Build sub-populations
 		GASubpopulation z1 = new GASubpopulation();
 		GASubpopulation z2 = new GASubpopulation();
+		List<Candidate> candidates = new ArrayList<>();
 
 		// Fill sub-population 1
 		for (int i = 0; i < k; i++) {
@@ -118,7 +162,8 @@ public class GAAlgorithm extends AbstractAlgorithm {
 					generalization[j] = randomBetween(minValues[j], maxValues[j]);
 				}
 			}
-			z1.addIndividual(getIndividual(generalization));
+			z1.addIndividual(null);
+			candidates.add(new Candidate(z1, i, generalization));
 		}
 
 		// Fill sub-population 2
@@ -131,9 +176,13 @@ public class GAAlgorithm extends AbstractAlgorithm {
 			for (int j = 0; j < maxValues.length; j++) {
 				generalization[j] = randomBetween(minValues[j], maxValues[j]);
 			}
-			z2.addIndividual(getIndividual(generalization));
+			z2.addIndividual(null);
+			candidates.add(new Candidate(z2, i, generalization));
 		}
 
+		// Evaluate both sub-populations
+		evaluate(candidates);
+
 		// Main iterator
 		for (int t = 0; t < itr; t++) {
 
@@ -154,9 +203,10 @@ public class GAAlgorithm extends AbstractAlgorithm {
 			}
 
 			// Iterate
-			iterateSubpopulation(z1);
-			iterateSubpopulation(z2);
-			System.out.println(getGlobalOptimum() == null);
+			candidates.clear();
+			iterateSubpopulation(z1, candidates);
+			iterateSubpopulation(z2, candidates);
+			evaluate(candidates);
 		}
 
 		// Check whether we found a solution
@@ -164,22 +214,67 @@ public class GAAlgorithm extends AbstractAlgorithm {
 	}
 
 	/**
-	 * Returns an individual
+	 * Checks all transformations which have not been checked yet, in parallel
+	 * if a pool of checkers is available
 	 * 
-	 * @param generalization
-	 * @return
+	 * @param transformations
+	 */
+	private void check(Transformation[] transformations) {
+
+		// Collect distinct transformations that need to be checked
+		List<Transformation> unchecked = new ArrayList<>();
+		Set<Long> identifiers = new HashSet<>();
+		for (Transformation transformation : transformations) {
+			if (!transformation.hasProperty(this.solutionSpace.getPropertyChecked()) &&
+				identifiers.add(transformation.getIdentifier())) {
+				unchecked.add(transformation);
+			}
+		}
+
+		// Check sequentially
+		if (pool == null || unchecked.size() <= 1) {
+			for (Transformation transformation : unchecked) {
+				transformation.setChecked(this.checker.check(transformation, true, ScoreType.INFORMATION_LOSS));
+			}
+			return;
+		}
+
+		// Check in parallel
+		Transformation[] batch = unchecked.toArray(new Transformation[unchecked.size()]);
+		TransformationResult[] results = pool.check(batch, true, ScoreType.INFORMATION_LOSS);
+		for (int i = 0; i < batch.length; i++) {
+			batch[i].setChecked(results[i]);
+		}
+	}
+
+	/**
+	 * Evaluates the given candidates and stores them in their sub-populations.
+	 * The optimum is tracked in the order in which the candidates have been
+	 * created.
+	 * 
+	 * @param candidates
 	 */
-	private Transformation getIndividual(int[] generalization) {
-		Transformation transformation = this.solutionSpace.getTransformation(generalization);
-		if (!transformation.hasProperty(this.solutionSpace.getPropertyChecked())) {
-			transformation.setChecked(this.checker.check(transformation, true, ScoreType.INFORMATION_LOSS));
+	private void evaluate(List<Candidate> candidates) {
+
+		// Prepare
+		Transformation[] transformations = new Transformation[candidates.size()];
+		for (int i = 0; i < transformations.length; i++) {
+			transformations[i] = this.solutionSpace.getTransformation(candidates.get(i).generalization);
+		}
+
+		// Check
+		check(transformations);
+
+		// Track and store
+		for (int i = 0; i < transformations.length; i++) {
+			Candidate candidate = candidates.get(i);
+			trackOptimum(transformations[i]);
+			candidate.population.setIndividual(candidate.index, transformations[i]);
 		}
-		trackOptimum(transformation);
-		return transformation;
 	}
 
 	/**
-	 * Returns a mutated transformation, which means that a random parent is
+	 * Returns a mutated generalization, which means that a random parent is
 	 * selected. <br>
 	 * - Randomly generate an integer r, representing the number of mutated
 	 * places (from 1 to ceil (upper bound on mutation probability * m)) <br>
@@ -189,14 +284,14 @@ public class GAAlgorithm extends AbstractAlgorithm {
 	 * 
 	 * @return
 	 */
-	private Transformation getMutatedIndividual(Transformation transformation) {
+	private int[] getMutatedGeneralization(Transformation transformation) {
 		int m = maxValues.length;
 		double mutProb = config.getMutationProbability();
 
 		// create array of random size between 1 - ceil(m * mutationProbability)
 		// and fill it with random values between min and max
 		int mutator[] = shuffle(randomBetween(1, (int) Math.ceil(m * mutProb)), m);
-		int mutated[] = transformation.getGeneralization();
+		int mutated[] = transformation.getGeneralization().clone();
 
 		for (int i = 0; i < mutator.length; i++) {
 			int index = mutator[i];
@@ -204,7 +299,7 @@ public class GAAlgorithm extends AbstractAlgorithm {
 			mutated[index] = rand;
 		}
 
-		return getIndividual(mutated);
+		return mutated;
 	}
 
 	private int[] shuffle(int size, int m) {
@@ -215,7 +310,7 @@ public class GAAlgorithm extends AbstractAlgorithm {
 			list.add(new Integer(i));
 		}
 
-		Collections.shuffle(list);
+		Collections.shuffle(list, random);
 		for (int i = 0; i < size; i++) {
 			res[i] = list.get(i);
 		}
@@ -288,11 +383,15 @@ public class GAAlgorithm extends AbstractAlgorithm {
 	}
 
 	/**
-	 * Performs one iteration on a sub-population.
+	 * Performs one iteration on a sub-population. Mutated individuals are
+	 * evaluated together with the given candidates and stored, before the
+	 * parents for crossovers are selected. The crossed-over individuals are
+	 * added to the given list of candidates, to be evaluated later.
 	 * 
 	 * @param population
+	 * @param candidates
 	 */
-	private void iterateSubpopulation(GASubpopulation population) {
+	private void iterateSubpopulation(GASubpopulation population, List<Candidate> candidates) {
 
 		// The population (ordered by fitness descending) consists of 3 groups
 		// - First: all individuals in the elite group will remain unchanged
@@ -310,12 +409,13 @@ public class GAAlgorithm extends AbstractAlgorithm {
 		for (int mutation = eliteCount; mutation < k - crossoverCount; mutation++) {
 
 			// Mutate
-			Transformation individual = getMutatedIndividual(population.getIndividual(mutation));
-			if (individual != null) {
-				population.setIndividual(mutation, individual);
-			}
+			candidates.add(new Candidate(population, mutation, getMutatedGeneralization(population.getIndividual(mutation))));
 		}
 
+		// Store mutated individuals before selecting parents
+		evaluate(candidates);
+		candidates.clear();
+
 		// Crossover worst individuals
 		Transformation[] parents1 = getRandomIndividuals(population, eliteCount, crossoverCount);
 		Transformation[] parents2 = getRandomIndividuals(population, eliteCount, crossoverCount);
@@ -328,7 +428,7 @@ public class GAAlgorithm extends AbstractAlgorithm {
 			}
 
 			// Replace
-			population.setIndividual(k - crossover - 1, getIndividual(vec));
+			candidates.add(new Candidate(population, k - crossover - 1, vec));
 		}
 	}
 }
\ No newline at end of file
@@ -140,16 +140,18 @@ public class TransformationApplicator {
         Data microaggregatedOutput = Data.createWrapper(new DataMatrix(0,0), new String[0], new int[0], new Dictionary(0));
         Data generalizedOutput = Data.createWrapper(transformer.getBuffer(), inputGeneralized.getHeader(), inputGeneralized.getColumns(), inputGeneralized.getDictionary());
         
-        // Perform microaggregation. This has to be done before suppression.
-        if (aggregation.getColdQIsFunctions().length > 0 ||
-            aggregation.getHotQIsNotGeneralizedFunctions().length > 0 ||
-            aggregation.getHotQIsGeneralizedFunctions().length > 0) {
-            microaggregatedOutput = currentGroupify.performMicroaggregation(aggregation, microaggregationDictionary);
-        }
-        
-        // Perform suppression
-        if (config.getAbsoluteSuppressionLimit() != 0 || !currentGroupify.isPrivacyModelFulfilled()) {
-            currentGroupify.performSuppression();
+        // Perform microaggregation and suppression in one pass
+        boolean microaggregate = aggregation.getColdQIsFunctions().length > 0 ||
+                                 aggregation.getHotQIsNotGeneralizedFunctions().length > 0 ||
+                                 aggregation.getHotQIsGeneralizedFunctions().length > 0;
+        boolean suppress = config.getAbsoluteSuppressionLimit() != 0 || !currentGroupify.isPrivacyModelFulfilled();
+        if (microaggregate || suppress) {
+            Data result = currentGroupify.performMicroaggregationAndSuppression(microaggregate ? aggregation : null,
+                                                                                microaggregationDictionary,
+                                                                                suppress);
+            if (result != null) {
+                microaggregatedOutput = result;
+            }
         }
         
         // Return the buffer
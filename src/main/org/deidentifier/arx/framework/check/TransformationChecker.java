@@ -136,9 +136,14 @@ public class TransformationChecker {
                                    dictionarySensFreq,
                                    solutionSpace);
         
+        // Use own views on the input, which may be shared with other checkers
+        DataMatrix dataGeneralized = manager.getDataGeneralized().getArray().getView();
+        DataMatrix dataAnalyzed = manager.getDataAnalyzed().getArray();
+        dataAnalyzed = dataAnalyzed != null ? dataAnalyzed.getView() : null;
+        
         this.stateMachine = new TransformationCheckerStateMachine(history);
-        this.transformer = new Transformer(manager.getDataGeneralized().getArray(),
-                                           manager.getDataAnalyzed().getArray(),
+        this.transformer = new Transformer(dataGeneralized,
+                                           dataAnalyzed,
                                            manager.getAggregationInformation().getHotThreshold(),
                                            manager.getHierarchies(),
                                            config,
@@ -146,14 +151,14 @@ public class TransformationChecker {
                                            dictionarySensFreq);
         
         this.currentGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                                manager.getDataGeneralized().getArray(),
+                                                dataGeneralized,
                                                 transformer.getBuffer(),
-                                                manager.getDataAnalyzed().getArray());
+                                                dataAnalyzed);
         
         this.lastGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                             manager.getDataGeneralized().getArray(),
+                                             dataGeneralized,
                                              transformer.getBuffer(),
-                                             manager.getDataAnalyzed().getArray());
+                                             dataAnalyzed);
     }
 
     /**
@@ -238,6 +243,50 @@ public class TransformationChecker {
                                       bound);
     }
     
+    /**
+     * Creates the baseline of the history, a snapshot of the bottom transformation covering all records,
+     * which allows to transform other transformations without processing all records. If a baseline
+     * created for the given number of leading records is provided, it is extended with the remaining
+     * records only. Otherwise, all records are processed.
+     * 
+     * @param previous The baseline created for the leading records, may be null
+     * @param previousRows The number of records covered by the given baseline
+     * @return Whether the baseline has been created
+     */
+    public boolean createBaseline(final int[] previous, final int previousRows) {
+        
+        // Check
+        if (config.getRequirements() != ARXConfiguration.REQUIREMENT_COUNTER) {
+            return false;
+        }
+        
+        // Prepare
+        Transformation bottom = solutionSpace.getBottom();
+        int rows = dataGeneralized.getArray().getNumRows();
+        int width = config.getSnapshotLength();
+        
+        // Transform
+        if (previous == null) {
+            currentGroupify = transformer.apply(0L, bottom.getGeneralization(), currentGroupify);
+        } else {
+            
+            // Append the remaining records as classes of size one
+            int[] snapshot = new int[previous.length + (rows - previousRows) * width];
+            System.arraycopy(previous, 0, snapshot, 0, previous.length);
+            for (int row = previousRows, index = previous.length; row < rows; row++, index += width) {
+                snapshot[index] = row;
+                snapshot[index + 1] = 1;
+            }
+            currentGroupify = transformer.applySnapshot(0L, bottom.getGeneralization(), currentGroupify, snapshot);
+        }
+        
+        // Store and clean up
+        boolean result = history.setBaseline(bottom, currentGroupify);
+        currentGroupify.stateClear();
+        stateMachine.reset();
+        return result;
+    }
+
     /**
      * Returns an associated transformation applicator
      * @return
@@ -304,5 +353,15 @@ public class TransformationChecker {
         history.setSize(0);
         currentGroupify.stateClear();
         lastGroupify.stateClear();
+        transformer.reset();
+    }
+
+    /**
+     * Sets the number of threads used for applying transformations.
+     *
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        transformer.setParallelism(parallelism);
     }
 }
\ No newline at end of file
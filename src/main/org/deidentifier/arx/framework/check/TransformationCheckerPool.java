@@ -0,0 +1,176 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
+import org.deidentifier.arx.framework.lattice.Transformation;
+
+/**
+ * A pool of transformation checkers that evaluates independent transformations concurrently.
+ * Each checker owns its groupify operators, transformation buffers and history, and is used
+ * by at most one thread at a time. Results do not depend on the thread that computed them.
+ *
+ * @author Fabian Prasser
+ */
+public class TransformationCheckerPool {
+
+    /** The checkers */
+    private final TransformationChecker[] checkers;
+
+    /** The executor */
+    private final ExecutorService         executor;
+
+    /**
+     * Creates a new instance
+     * @param checkers One checker per thread
+     */
+    public TransformationCheckerPool(TransformationChecker[] checkers) {
+        if (checkers == null || checkers.length == 0) {
+            throw new IllegalArgumentException("At least one checker is required");
+        }
+        this.checkers = checkers;
+        this.executor = Executors.newFixedThreadPool(checkers.length, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX-Checker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Checks the given transformations concurrently. Only reads from the solution space.
+     *
+     * @param transformations
+     * @param forceMeasureInfoLoss
+     * @param scoreType
+     * @return The results, in the order of the transformations
+     */
+    public TransformationResult[] check(final Transformation[] transformations,
+                                        final boolean forceMeasureInfoLoss,
+                                        final ScoreType scoreType) {
+
+        // Prepare
+        final TransformationResult[] results = new TransformationResult[transformations.length];
+        final AtomicInteger next = new AtomicInteger(0);
+        int threads = Math.min(checkers.length, transformations.length);
+        List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+
+        // Each checker processes transformations until none is left
+        for (int i = 0; i < threads; i++) {
+            final TransformationChecker checker = checkers[i];
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    int index;
+                    while ((index = next.getAndIncrement()) < transformations.length) {
+                        results[index] = checker.check(transformations[index], forceMeasureInfoLoss, scoreType);
+                    }
+                }
+            }));
+        }
+
+        // Wait for completion
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of checkers
+     * @return
+     */
+    public int getSize() {
+        return checkers.length;
+    }
+
+    /**
+     * Frees all resources
+     */
+    public void reset() {
+        executor.shutdownNow();
+        for (TransformationChecker checker : checkers) {
+            checker.reset();
+        }
+    }
+
+    /**
+     * Sets the baseline of all histories
+     * @param transformation
+     * @param snapshot
+     */
+    public void setBaseline(Transformation transformation, int[] snapshot) {
+        for (TransformationChecker checker : checkers) {
+            checker.getHistory().setBaseline(transformation, snapshot);
+        }
+    }
+
+    /**
+     * Sets whether all histories store compressed snapshots
+     * @param compression
+     */
+    public void setCompression(boolean compression) {
+        for (TransformationChecker checker : checkers) {
+            checker.getHistory().setCompression(compression);
+        }
+    }
+
+    /**
+     * Sets the maximal number of bytes occupied by each history
+     * @param memoryLimit
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        for (TransformationChecker checker : checkers) {
+            checker.getHistory().setMemoryLimit(memoryLimit);
+        }
+    }
+
+    /**
+     * Sets the storage strategy of all histories
+     * @param strategy
+     */
+    public void setStorageStrategy(StorageStrategy strategy) {
+        for (TransformationChecker checker : checkers) {
+            checker.getHistory().setStorageStrategy(strategy);
+        }
+    }
+}
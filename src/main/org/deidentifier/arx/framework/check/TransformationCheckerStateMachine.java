@@ -130,9 +130,14 @@ public class TransformationCheckerStateMachine {
 
         // First transition
         if (lastTransition == null) {
-            result.type = TransitionType.UNOPTIMIZED;
             result.projection = 0L;
-            result.snapshot = null;
+            if (isPossibleBaseline(transformation)) {
+                result.type = TransitionType.SNAPSHOT;
+                result.snapshot = snapshot;
+            } else {
+                result.type = TransitionType.UNOPTIMIZED;
+                result.snapshot = null;
+            }
         } else {
             switch (lastTransition.type) {
             case UNOPTIMIZED:
@@ -143,6 +148,9 @@ public class TransformationCheckerStateMachine {
                 } else if (isPossibleRollup(transformation)) {
                     result.type = TransitionType.ROLLUP;
                     result.snapshot = null;
+                } else if (isPossibleBaseline(transformation)) {
+                    result.type = TransitionType.SNAPSHOT;
+                    result.snapshot = snapshot;
                 } else {
                     result.type = TransitionType.UNOPTIMIZED;
                     result.snapshot = null;
@@ -158,6 +166,10 @@ public class TransformationCheckerStateMachine {
                     result.projection = getProjection(transformation);
                     result.type = TransitionType.ROLLUP;
                     result.snapshot = null;
+                } else if (isPossibleBaseline(transformation)) {
+                    result.projection = isPredecessor(snapshotTransformation, lastTransformation) ? getProjection(transformation) : 0L;
+                    result.type = TransitionType.SNAPSHOT;
+                    result.snapshot = snapshot;
                 } else {
                     result.projection = 0L;
                     result.type = TransitionType.UNOPTIMIZED;
@@ -191,6 +203,18 @@ public class TransformationCheckerStateMachine {
         return projection;
     }
 
+    /**
+     * Is the baseline available for a snapshot optimization.
+     * 
+     * @param transformation the current transformation
+     * @return true, if the baseline can be used
+     */
+    private boolean isPossibleBaseline(final int[] transformation) {
+        snapshot = history.getBaseline(transformation);
+        snapshotTransformation = history.getTransformation();
+        return snapshot != null;
+    }
+
     /**
      * Is a rollup optimization possible.
      * 
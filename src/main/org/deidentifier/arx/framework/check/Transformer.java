@@ -17,6 +17,15 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
@@ -39,17 +48,26 @@ import org.deidentifier.arx.framework.check.transformer.Transformer13;
 import org.deidentifier.arx.framework.check.transformer.Transformer14;
 import org.deidentifier.arx.framework.check.transformer.Transformer15;
 import org.deidentifier.arx.framework.check.transformer.TransformerAll;
+import org.deidentifier.arx.framework.check.transformer.TransformerHighDimensional;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 
 /**
- * The class Transformer.
+ * The class Transformer. Transformations can be applied by multiple threads. In this case,
+ * the rows, classes or snapshot entries are partitioned into consecutive ranges. The first range
+ * is added to the target groupify operator directly, the others are added to partial operators
+ * in parallel, which are then merged into the target in the order of the ranges. This results
+ * in the same equivalence classes, in the same order and with the same representatives as a
+ * sequential run.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
  */
 public class Transformer {
 
+    /** Minimal number of rows, classes or snapshot entries processed by a thread. */
+    private static final int                  MIN_ENTRIES_PER_THREAD = 10000;
+
     /** The config. */
     protected final ARXConfigurationInternal  config;
 
@@ -80,6 +98,21 @@ public class Transformer {
     /** Number of columns to analyze */
     protected final int                       dataAnalyzedNumberOfColumns;
 
+    /** Number of threads used for applying transformations. */
+    private int                               parallelism            = 1;
+
+    /** The executor for parallel application, created when needed. */
+    private ExecutorService                   executor;
+
+    /** The applicators of the additional threads. */
+    private AbstractTransformer[][]           workerInstances;
+
+    /** The partial groupify operators of the additional threads. */
+    private HashGroupify[]                    workerGroupifies;
+
+    /** The views on the buffer used by the additional threads. */
+    private DataMatrix[]                      workerBuffers;
+
     /**
      * Instantiates a new transformer.
      *
@@ -103,16 +136,14 @@ public class Transformer {
         this.inputGeneralized = inputGeneralized;
         this.dataAnalyzedNumberOfColumns = dataAnalyzedNumberOfColumns;
         this.hierarchies = hierarchies;
-        this.instances = new AbstractTransformer[16];
-        this.outputGeneralized = new DataMatrix(inputGeneralized.getNumRows(), 
-                                                inputGeneralized.getNumColumns());
+        this.outputGeneralized = DataMatrix.create(inputGeneralized.getNumRows(), 
+                                                   getDomainSizes(hierarchies));
 
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = dictionarySensValue;
         this.dictionarySensFreq = dictionarySensFreq;
         this.inputAnalyzed = inputAnalyzed;
-
-        buildTransformers();
+        this.instances = getTransformers(inputGeneralized, inputAnalyzed);
     }
 
     /**
@@ -231,9 +262,61 @@ public class Transformer {
     }
 
     /**
-     * Builds the applicators.
+     * Returns the number of threads used for applying transformations.
+     *
+     * @return
      */
-    private void buildTransformers() {
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Stops all threads. They are started again, when needed.
+     */
+    public void reset() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Sets the number of threads used for applying transformations. Only inputs that are
+     * large enough are processed in parallel.
+     *
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be >= 1");
+        }
+        if (parallelism != this.parallelism) {
+            reset();
+            this.workerInstances = null;
+            this.workerGroupifies = null;
+            this.workerBuffers = null;
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * Builds the applicators for the given input data.
+     *
+     * @param inputGeneralized
+     * @param inputAnalyzed
+     * @return
+     */
+    private AbstractTransformer[] getTransformers(final DataMatrix inputGeneralized, final DataMatrix inputAnalyzed) {
+        AbstractTransformer[] instances = new AbstractTransformer[dimensions > 15 ? 17 : 16];
+        if (dimensions > 15) {
+            instances[16] = new TransformerHighDimensional(inputGeneralized,
+                                                           hierarchies,
+                                                           inputAnalyzed,
+                                                           dataAnalyzedNumberOfColumns,
+                                                           dictionarySensValue,
+                                                           dictionarySensFreq,
+                                                           config);
+        }
         instances[15] = new Transformer15(inputGeneralized,
                                           hierarchies,
                                           inputAnalyzed,
@@ -346,11 +429,31 @@ public class Transformer {
                                           dictionarySensValue,
                                           dictionarySensFreq,
                                           config);
+        return instances;
+    }
+
+    /**
+     * Returns the number of distinct values which may be contained in each column of the output buffer
+     * @param hierarchies
+     * @return
+     */
+    private int[] getDomainSizes(GeneralizationHierarchy[] hierarchies) {
+        int[] result = new int[hierarchies.length];
+        for (int column = 0; column < hierarchies.length; column++) {
+            int max = 0;
+            for (int[] values : hierarchies[column].getArray()) {
+                for (int value : values) {
+                    max = Math.max(max, value);
+                }
+            }
+            result[column] = max + 1;
+        }
+        return result;
     }
 
     /**
      * Apply internal.
-     * 
+     *
      * @param projection the projection
      * @param state the state
      * @param source the source
@@ -387,6 +490,12 @@ public class Transformer {
             break;
         }
 
+        // Apply in parallel, if the input is large enough
+        int threads = Math.min(parallelism, (stopIndex - startIndex) / MIN_ENTRIES_PER_THREAD);
+        if (threads > 1 && instances.length > 1) {
+            return applyParallel(projection, state, source, target, snapshot, transition, startIndex, stopIndex, element, threads);
+        }
+
         AbstractTransformer transformer = null;
 
         transformer = getTransformer(projection);
@@ -405,6 +514,109 @@ public class Transformer {
         return transformer.call();
     }
 
+    /**
+     * Applies a transformation with multiple threads.
+     *
+     * @param projection the projection
+     * @param state the state
+     * @param source the source
+     * @param target the target
+     * @param snapshot the snapshot
+     * @param transition the transition
+     * @param startIndex the start index
+     * @param stopIndex the stop index
+     * @param element the first element, if any
+     * @param threads the number of threads
+     * @return the hash groupify
+     */
+    private HashGroupify applyParallel(final long projection,
+                                       final int[] state,
+                                       final HashGroupify source,
+                                       final HashGroupify target,
+                                       final int[] snapshot,
+                                       final TransitionType transition,
+                                       final int startIndex,
+                                       final int stopIndex,
+                                       HashGroupifyEntry element,
+                                       final int threads) {
+
+        // Prepare
+        initializeWorkers();
+        int size = (stopIndex - startIndex) / threads;
+        List<Future<HashGroupify>> futures = new ArrayList<Future<HashGroupify>>(threads - 1);
+
+        // Process the first range in the current thread
+        AbstractTransformer transformer = getTransformer(instances, projection);
+        transformer.init(projection, state, target, source, snapshot, transition, startIndex, startIndex + size, element, outputGeneralized);
+
+        boolean success = false;
+        try {
+            
+            // Process other ranges in parallel
+            for (int thread = 1; thread < threads; thread++) {
+                int start = startIndex + thread * size;
+                int stop = thread == threads - 1 ? stopIndex : start + size;
+                if (transition == TransitionType.ROLLUP) {
+                    for (int i = 0; i < size; i++) {
+                        element = element.nextOrdered;
+                    }
+                }
+                AbstractTransformer worker = getTransformer(workerInstances[thread - 1], projection);
+                worker.init(projection, state, workerGroupifies[thread - 1], source, snapshot, transition, start, stop, element, workerBuffers[thread - 1]);
+                futures.add(executor.submit(worker));
+            }
+            transformer.call();
+    
+            // Merge partial results in the order of the ranges
+            for (Future<HashGroupify> future : futures) {
+                HashGroupify partial = getResult(future);
+                HashGroupifyEntry entry = partial.getFirstEquivalenceClass();
+                while (entry != null) {
+                    target.addFromGroupify(entry.representative, entry.distributions, entry.representative, entry.count, entry.pcount);
+                    entry = entry.nextOrdered;
+                }
+                partial.stateClear();
+            }
+            success = true;
+            return target;
+            
+        } finally {
+            
+            // Make sure that no thread still uses the partial groupify operators and buffers,
+            // which are reused by subsequent calls, before the error is propagated
+            if (!success) {
+                for (Future<HashGroupify> future : futures) {
+                    awaitTermination(future);
+                }
+                for (HashGroupify partial : workerGroupifies) {
+                    partial.stateClear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the given thread has terminated, ignoring its result.
+     *
+     * @param future
+     */
+    private void awaitTermination(Future<HashGroupify> future) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Gets the applicator.
      * 
@@ -412,11 +624,82 @@ public class Transformer {
      * @return the applicator
      */
     protected AbstractTransformer getTransformer(final long projection) {
+        return getTransformer(instances, projection);
+    }
+
+    /**
+     * Returns the result computed by a thread.
+     *
+     * @param future
+     * @return
+     */
+    private HashGroupify getResult(Future<HashGroupify> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Gets the applicator from the given instances.
+     * 
+     * @param instances the instances
+     * @param projection the projection
+     * @return the applicator
+     */
+    private AbstractTransformer getTransformer(final AbstractTransformer[] instances, final long projection) {
         final int index = dimensions - Long.bitCount(projection);
-        if (index > (instances.length - 1)) {
+        if (index > 15) {
+            // Transformer for more columns than supported by the specialized transformers, if any
+            return instances.length > 16 ? instances[16] : instances[0];
+        } else if (index > (instances.length - 1)) {
             return instances[0];
         } else {
             return instances[index];
         }
     }
+
+    /**
+     * Creates the threads, applicators and partial groupify operators for parallel application.
+     * Each thread accesses the data via its own views.
+     */
+    private void initializeWorkers() {
+
+        // Applicators and groupify operators
+        if (workerInstances == null) {
+            int initialSize = Math.max(16, inputGeneralized.getNumRows() / parallelism / 100);
+            workerInstances = new AbstractTransformer[parallelism - 1][];
+            workerGroupifies = new HashGroupify[parallelism - 1];
+            workerBuffers = new DataMatrix[parallelism - 1];
+            for (int i = 0; i < workerInstances.length; i++) {
+                DataMatrix input = inputGeneralized.getView();
+                DataMatrix analyzed = inputAnalyzed != null ? inputAnalyzed.getView() : null;
+                workerBuffers[i] = outputGeneralized.getView();
+                workerInstances[i] = getTransformers(input, analyzed);
+                workerGroupifies[i] = new HashGroupify(initialSize, config, dataAnalyzedNumberOfColumns, input,
+                                                       workerBuffers[i], analyzed);
+            }
+        }
+
+        // Threads
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelism - 1, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ARX-Transformer-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
 }
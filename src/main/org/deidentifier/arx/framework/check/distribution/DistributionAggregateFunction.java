@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math3.util.FastMath;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 
@@ -48,16 +49,13 @@ public abstract class DistributionAggregateFunction implements Serializable {
     public static class DistributionAggregateFunctionArithmeticMean extends DistributionAggregateFunction {
 
         /** SVUID. */
-        private static final long               serialVersionUID = 8379579591466576517L;
-
-        /** Commons math object to calculate the statistic. */
-        private transient DescriptiveStatistics stats;
+        private static final long serialVersionUID = 8379579591466576517L;
 
         /** Minimum */
-        private Double                          minimum          = null;
+        private Double            minimum          = null;
 
         /** Maximum */
-        private Double                          maximum          = null;
+        private Double            maximum          = null;
 
         /**
          * Instantiates.
@@ -84,13 +82,13 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> String aggregate(Distribution distribution) {
-            stats.clear();
             @SuppressWarnings("unchecked")
             DataType<T> type = (DataType<T>)this.type;
             @SuppressWarnings("unchecked")
             DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 0d);
-            return stats.getN() == 0 ? DataType.NULL_VALUE : type.format(rType.fromDouble(stats.getMean()));
+            int[] buckets = distribution.getBuckets();
+            int count = getCount(buckets);
+            return count == 0 ? DataType.NULL_VALUE : type.format(rType.fromDouble(getMean(buckets, count)));
         }
 
         /**
@@ -108,23 +106,58 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> double getError(Distribution distribution) {
-            stats.clear();
-            @SuppressWarnings("unchecked")
-            DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 0d);
-            return getNMSE(minimum, maximum, stats.getValues(), stats.getMean());
+            int[] buckets = distribution.getBuckets();
+            int count = getCount(buckets);
+            return getNMSE(minimum, maximum, getValues(buckets, count, 0d), count == 0 ? Double.NaN : getMean(buckets, count));
         }
 
         @Override
         public void initialize(String[] dictionary, DataType<?> type) {
             super.initialize(dictionary, type);
-            this.stats = new DescriptiveStatistics();
+            this.initializeNumbers();
             if (minimum == null || maximum == null) {
                 double[] values = getMinMax(dictionary, (DataTypeWithRatioScale<?>)type);
                 this.minimum = values[0];
                 this.maximum = values[1];
             }
-        }        
+        }
+
+        /**
+         * Returns the arithmetic mean of the values in the distribution. Like in commons math, a
+         * correction term is added, and values are summed up in the order of the distribution.
+         * 
+         * @param buckets
+         * @param count
+         * @return
+         */
+        private double getMean(int[] buckets, int count) {
+            
+            // Sum
+            double sum = 0d;
+            for (int i = 0; i < buckets.length; i += 2) {
+                int value = buckets[i];
+                if (value != -1 && !ignored[value]) {
+                    double number = numbers[value];
+                    for (int j = 0; j < buckets[i + 1]; j++) {
+                        sum += number;
+                    }
+                }
+            }
+            double mean = sum / count;
+            
+            // Correct
+            double correction = 0d;
+            for (int i = 0; i < buckets.length; i += 2) {
+                int value = buckets[i];
+                if (value != -1 && !ignored[value]) {
+                    double difference = numbers[value] - mean;
+                    for (int j = 0; j < buckets[i + 1]; j++) {
+                        correction += difference;
+                    }
+                }
+            }
+            return mean + (correction / count);
+        }
     }
 
     /**
@@ -136,16 +169,16 @@ public abstract class DistributionAggregateFunction implements Serializable {
     public static class DistributionAggregateFunctionGeometricMean extends DistributionAggregateFunction {
 
         /** SVUID. */
-        private static final long               serialVersionUID = -3835477735362966307L;
+        private static final long  serialVersionUID = -3835477735362966307L;
 
-        /** Commons math object to calculate the statistic. */
-        private transient DescriptiveStatistics stats;
+        /** Logarithms of the numeric values plus one, per code of the dictionary */
+        private transient double[] logarithms;
 
         /** Minimum */
-        private Double                          minimum          = null;
+        private Double             minimum          = null;
 
         /** Maximum */
-        private Double                          maximum          = null;
+        private Double             maximum          = null;
 
         /**
          * Instantiates.
@@ -172,13 +205,13 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> String aggregate(Distribution distribution) {
-            stats.clear();
             @SuppressWarnings("unchecked")
             DataType<T> type = (DataType<T>)this.type;
             @SuppressWarnings("unchecked")
             DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 1d);
-            return stats.getN() == 0 ? DataType.NULL_VALUE : type.format(rType.fromDouble(stats.getGeometricMean() - 1d));
+            int[] buckets = distribution.getBuckets();
+            int count = getCount(buckets);
+            return count == 0 ? DataType.NULL_VALUE : type.format(rType.fromDouble(getGeometricMean(buckets, count) - 1d));
         }
 
         /**
@@ -197,23 +230,47 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> double getError(Distribution distribution) {
-            stats.clear();
-            @SuppressWarnings("unchecked")
-            DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 1d);
-            return getNMSE(minimum, maximum, stats.getValues(), stats.getGeometricMean() - 1d);
+            int[] buckets = distribution.getBuckets();
+            int count = getCount(buckets);
+            return getNMSE(minimum, maximum, getValues(buckets, count, 1d), count == 0 ? Double.NaN : getGeometricMean(buckets, count) - 1d);
         }
         
         @Override
         public void initialize(String[] dictionary, DataType<?> type) {
             super.initialize(dictionary, type);
-            this.stats = new DescriptiveStatistics();
+            this.initializeNumbers();
+            this.logarithms = new double[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                this.logarithms[i] = FastMath.log(numbers[i] + 1d);
+            }
             if (minimum == null || maximum == null) {
                 double[] values = getMinMax(dictionary, (DataTypeWithRatioScale<?>)type);
                 this.minimum = values[0];
                 this.maximum = values[1];
             }
         }
+
+        /**
+         * Returns the geometric mean of the values in the distribution plus one. Like in commons
+         * math, logarithms are summed up in the order of the distribution.
+         * 
+         * @param buckets
+         * @param count
+         * @return
+         */
+        private double getGeometricMean(int[] buckets, int count) {
+            double sum = 0d;
+            for (int i = 0; i < buckets.length; i += 2) {
+                int value = buckets[i];
+                if (value != -1 && !ignored[value]) {
+                    double logarithm = logarithms[value];
+                    for (int j = 0; j < buckets[i + 1]; j++) {
+                        sum += logarithm;
+                    }
+                }
+            }
+            return FastMath.exp(sum / count);
+        }
     }
 
     /**
@@ -249,7 +306,7 @@ public abstract class DistributionAggregateFunction implements Serializable {
             for (int i = 0; i < buckets.length; i += 2) {
                 int value = buckets[i];
                 if (value != -1) {
-                    T valT = type.parse(dictionary[value]);
+                    T valT = parse(value);
                     if (minT == null || type.compare(valT, minT) < 0 ) {
                         minT = valT;
                     }
@@ -337,7 +394,7 @@ public abstract class DistributionAggregateFunction implements Serializable {
                 int value = buckets[i];
                 if (value != -1) {
                     int frequency = buckets[i + 1];
-                    values.add(type.parse(dictionary[value]));
+                    values.add(this.<T>parse(value));
                     frequencies.add(frequency);
                 }
             }
@@ -597,6 +654,18 @@ public abstract class DistributionAggregateFunction implements Serializable {
     /** Type */
     protected transient DataType<?> type;
 
+    /** Numeric values, per code of the dictionary. Missing values are represented by zero */
+    protected transient double[]    numbers;
+
+    /** Whether values are ignored, per code of the dictionary */
+    protected transient boolean[]   ignored;
+
+    /** Parsed values, per code of the dictionary */
+    private transient Object[]      values;
+
+    /** Whether values have been parsed, per code of the dictionary */
+    private transient boolean[]     parsed;
+
     /**
      * Instantiates a new function.
      * 
@@ -659,6 +728,10 @@ public abstract class DistributionAggregateFunction implements Serializable {
     public void initialize(String[] dictionary, DataType<?> type) {
         this.dictionary = dictionary;
         this.type = type;
+        this.numbers = null;
+        this.ignored = null;
+        this.values = null;
+        this.parsed = null;
     }
     
     /**
@@ -690,6 +763,24 @@ public abstract class DistributionAggregateFunction implements Serializable {
         }
     }
 
+    /**
+     * Returns the number of values in the distribution, which are not ignored. Requires
+     * numeric values to be initialized.
+     * 
+     * @param buckets
+     * @return
+     */
+    protected int getCount(int[] buckets) {
+        int count = 0;
+        for (int i = 0; i < buckets.length; i += 2) {
+            int value = buckets[i];
+            if (value != -1 && !ignored[value]) {
+                count += buckets[i + 1];
+            }
+        }
+        return count;
+    }
+
     /**
      * Returns the minimum and maximum value
      * @param dictionary
@@ -713,6 +804,65 @@ public abstract class DistributionAggregateFunction implements Serializable {
         return new double[]{_min, _max};
     }
 
+    /**
+     * Returns all values in the distribution, which are not ignored, in the order of the
+     * distribution. Requires numeric values to be initialized.
+     * 
+     * @param buckets
+     * @param count
+     * @param offset will be added to values
+     * @return
+     */
+    protected double[] getValues(int[] buckets, int count, double offset) {
+        double[] result = new double[count];
+        int index = 0;
+        for (int i = 0; i < buckets.length; i += 2) {
+            int value = buckets[i];
+            if (value != -1 && !ignored[value]) {
+                double number = numbers[value] + offset;
+                for (int j = 0; j < buckets[i + 1]; j++) {
+                    result[index++] = number;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses all values of the dictionary into numeric values, which can then be aggregated
+     * with primitive arithmetic. Missing values are ignored or represented by zero.
+     */
+    protected <T> void initializeNumbers() {
+        @SuppressWarnings("unchecked")
+        DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
+        this.numbers = new double[dictionary.length];
+        this.ignored = new boolean[dictionary.length];
+        for (int i = 0; i < dictionary.length; i++) {
+            Double value = rType.toDouble(rType.parse(dictionary[i]));
+            this.numbers[i] = value != null ? value : 0d;
+            this.ignored[i] = value == null && ignoreMissingData;
+        }
+    }
+
+    /**
+     * Returns the parsed value with the given code. Each value is parsed only once.
+     * 
+     * @param code
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T parse(int code) {
+        if (parsed == null) {
+            values = new Object[dictionary.length];
+            parsed = new boolean[dictionary.length];
+        }
+        if (!parsed[code]) {
+            values[code] = type.parse(dictionary[code]);
+            parsed[code] = true;
+        }
+        return (T) values[code];
+    }
+
     /**
      * Calculates the mean square error after normalizing everything into [0,1]
      * 
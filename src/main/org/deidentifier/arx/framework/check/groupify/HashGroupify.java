@@ -17,6 +17,8 @@
 
 package org.deidentifier.arx.framework.check.groupify;
 
+import java.util.Arrays;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.RowSet;
 import org.deidentifier.arx.criteria.DPresence;
@@ -32,11 +34,15 @@ import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.Metric;
 
-import com.carrotsearch.hppc.ObjectIntOpenHashMap;
-
 /**
- * A hash groupify operator. It implements a hash table with chaining and keeps
- * track of additional properties per equivalence class
+ * A hash groupify operator. It implements a hash table with open addressing and keeps
+ * track of additional properties per equivalence class. The table stores indices of
+ * classes and their hash codes in primitive arrays. The properties of classes are stored
+ * in parallel arrays, indexed in the order of insertion, which are reused after the
+ * operator has been cleared. Grouping and analyzing data thus neither allocates nor
+ * dereferences one object per class. Criteria, metrics and other components access classes
+ * through {@link HashGroupifyEntry} views, which are created once, reused and updated
+ * on demand.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -49,20 +55,44 @@ public class HashGroupify {
     /** The current number of outliers. */
     private int                          currentNumOutliers;
 
-    /** The entry array. */
-    private HashGroupifyEntry[]          hashTableBuckets;
+    /** The number of elements per class. Excluding elements from the public table. */
+    private int[]                        classCounts;
 
-    /** Current number of elements. */
-    private int                          hashTableElementCount;
+    /** Frequency sets for other attributes per class. */
+    private Distribution[][]             classDistributions;
+
+    /** The hash code per class. */
+    private int[]                        classHashcodes;
+
+    /** Whether a class is not an outlier. */
+    private boolean[]                    classNotOutliers;
+
+    /** The number of elements per class. Including elements from the public table. */
+    private int[]                        classPcounts;
 
-    /** The first entry. */
-    private HashGroupifyEntry            hashTableFirstEntry;
+    /** The index of the representative row per class. */
+    private int[]                        classRepresentatives;
 
-    /** The last entry. */
-    private HashGroupifyEntry            hashTableLastEntry;
+    /** The key row per class. */
+    private int[]                        classRows;
+
+    /** Views of the classes. Views beyond the current number of elements are reused. */
+    private HashGroupifyEntry[]          classViews;
+
+    /** Whether the views reflect the current state of all classes. */
+    private boolean                      classViewsUpToDate;
+
+    /** The hash codes of the classes referenced by each slot. */
+    private int[]                        hashTableHashcodes;
+
+    /** The index of the class referenced by each slot, plus one. Zero marks empty slots. */
+    private int[]                        hashTableSlots;
+
+    /** Current number of elements. */
+    private int                          hashTableElementCount;
 
     /** Load factor. */
-    private final float                  hashTableLoadFactor = 0.75f;
+    private final float                  hashTableLoadFactor = 0.5f;
 
     /** Maximum number of elements that can be put in this map before having to rehash. */
     private int                          hashTableThreshold;
@@ -132,8 +162,18 @@ public class HashGroupify {
         // Set capacity
         capacity = HashTableUtil.calculateCapacity(capacity);
         this.hashTableElementCount = 0;
-        this.hashTableBuckets = new HashGroupifyEntry[capacity];
-        this.hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        this.classCounts = new int[16];
+        this.classDistributions = new Distribution[16][];
+        this.classHashcodes = new int[16];
+        this.classNotOutliers = new boolean[16];
+        this.classPcounts = new int[16];
+        this.classRepresentatives = new int[16];
+        this.classRows = new int[16];
+        this.classViews = new HashGroupifyEntry[16];
+        this.classViewsUpToDate = true;
+        this.hashTableHashcodes = new int[capacity];
+        this.hashTableSlots = new int[capacity];
+        this.hashTableThreshold = HashTableUtil.calculateThreshold(hashTableSlots.length, hashTableLoadFactor);
         
         // Set params
         this.currentNumOutliers = 0;
@@ -177,17 +217,19 @@ public class HashGroupify {
         
         // Add
         final int hash = dataOutput.hashCode(generalized);
-        final HashGroupifyEntry entry = addInternal(generalized, hash, representative, count, pcount);
+        final int index = addInternal(generalized, hash, representative, count, pcount);
         
         // Is a other attribute provided
         if (other != -1) {
-            if (entry.distributions == null) {
-                entry.distributions = new Distribution[dataAnalyzedNumberOfColumns];
+            Distribution[] distributions = classDistributions[index];
+            if (distributions == null) {
+                distributions = new Distribution[dataAnalyzedNumberOfColumns];
                 
                 // TODO: Improve!
-                for (int i = 0; i < entry.distributions.length; i++) {
-                    entry.distributions[i] = new Distribution();
+                for (int i = 0; i < distributions.length; i++) {
+                    distributions[i] = new Distribution();
                 }
+                classDistributions[index] = distributions;
             }
             
             // Only add other value if in research subset
@@ -195,8 +237,8 @@ public class HashGroupify {
                 
                 // TODO: Improve!
                 dataAnalyzed.iterator(other);
-                for (int i = 0; i < entry.distributions.length; i++) {
-                    entry.distributions[i].add(dataAnalyzed.iterator_next());
+                for (int i = 0; i < distributions.length; i++) {
+                    distributions[i].add(dataAnalyzed.iterator_next());
                 }
             }
         }
@@ -214,17 +256,17 @@ public class HashGroupify {
 
         // Add
         final int hash = dataOutput.hashCode(generalized);
-        final HashGroupifyEntry entry = addInternal(generalized, hash, representative, count, pcount);
+        final int index = addInternal(generalized, hash, representative, count, pcount);
         
         // Is a distribution provided
         if (distributions != null) {
-            if (entry.distributions == null) {
-                entry.distributions = distributions;
+            if (classDistributions[index] == null) {
+                classDistributions[index] = distributions;
             } else {
                 
                 // TODO: Improve!
-                for (int i = 0; i < entry.distributions.length; i++) {
-                    entry.distributions[i].merge(distributions[i]);
+                for (int i = 0; i < distributions.length; i++) {
+                    classDistributions[index][i].merge(distributions[i]);
                 }
             }
         }
@@ -243,23 +285,25 @@ public class HashGroupify {
 
         // Add
         final int hash = dataOutput.hashCode(generalized);
-        final HashGroupifyEntry entry = addInternal(generalized, hash, representative, count, pcount);
+        final int index = addInternal(generalized, hash, representative, count, pcount);
         
         // Is a distribution provided
         if (elements != null) {
-            if (entry.distributions == null) {
+            Distribution[] distributions = classDistributions[index];
+            if (distributions == null) {
                 
-                entry.distributions = new Distribution[elements.length];
+                distributions = new Distribution[elements.length];
                 
                 // TODO: Improve!
-                for (int i = 0; i < entry.distributions.length; i++) {
-                    entry.distributions[i] = new Distribution(elements[i], frequencies[i]);
+                for (int i = 0; i < distributions.length; i++) {
+                    distributions[i] = new Distribution(elements[i], frequencies[i]);
                 }
+                classDistributions[index] = distributions;
             } else {
                 
                 // TODO: Improve!
-                for (int i = 0; i < entry.distributions.length; i++) {
-                    entry.distributions[i].merge(elements[i], frequencies[i]);
+                for (int i = 0; i < distributions.length; i++) {
+                    distributions[i].merge(elements[i], frequencies[i]);
                 }
             }
         }
@@ -272,12 +316,17 @@ public class HashGroupify {
      */
     public HashGroupifyEntry getEntry(int[] tuple) {
         final int hash = dataOutput.hashCode(tuple);
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != hash) || !dataOutput.equals(m.row, tuple))) {
-            m = m.next;
+        final int mask = hashTableSlots.length - 1;
+        int slot = getSlot(hash, mask);
+        int index;
+        while ((index = hashTableSlots[slot]) != 0) {
+            if (hashTableHashcodes[slot] == hash && dataOutput.equals(classRows[index - 1], tuple)) {
+                updateViews();
+                return classViews[index - 1];
+            }
+            slot = (slot + 1) & mask;
         }
-        return m;
+        return null;
     }
     
     /**
@@ -285,7 +334,11 @@ public class HashGroupify {
      * @return
      */
     public HashGroupifyEntry getFirstEquivalenceClass() {
-        return hashTableFirstEntry;
+        if (hashTableElementCount == 0) {
+            return null;
+        }
+        updateViews();
+        return classViews[0];
     }
     
     /**
@@ -336,44 +389,81 @@ public class HashGroupify {
      */
     public Data performMicroaggregation(DataAggregationInformation microaggregationData,
                                         Dictionary dictionary) {
-        
-        // Initialize
-        int[] indices = microaggregationData.getMicroaggregationIndices();
-        DistributionAggregateFunction[] functions = microaggregationData.getMicroaggregationFunctions();
-        String[] header = microaggregationData.getMicroaggregationHeader();
-        int[] columns = microaggregationData.getMicroaggregationColumns();
-        
-        // Prepare result
-        Data result = Data.createWrapper(new DataMatrix(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
+        return performMicroaggregationAndSuppression(microaggregationData, dictionary, false);
+    }
+
+    /**
+     * Performs microaggregation, if aggregation information is given, and suppresses all records
+     * in the output dataset which <br>
+     * (a) do not satisfy privacy requirements, or <br>
+     * (b) are not included in the research subset, if requested. <br>
+     * Both is done in one pass, in which the class of each record is looked up once and each
+     * aggregate is computed once per class.
+     * 
+     * @param microaggregationData May be null
+     * @param dictionary
+     * @param suppress
+     * @return A data object with microaggregation performed, null if no aggregation information is given
+     */
+    public Data performMicroaggregationAndSuppression(DataAggregationInformation microaggregationData,
+                                                      Dictionary dictionary,
+                                                      boolean suppress) {
+        
+        // Prepare microaggregation
+        Data result = null;
+        int[] indices = null;
+        DistributionAggregateFunction[] functions = null;
+        int[] codes = null;
+        if (microaggregationData != null) {
+            indices = microaggregationData.getMicroaggregationIndices();
+            functions = microaggregationData.getMicroaggregationFunctions();
+            String[] header = microaggregationData.getMicroaggregationHeader();
+            int[] columns = microaggregationData.getMicroaggregationColumns();
+            result = Data.createWrapper(DataMatrix.create(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
+            
+            // Codes of the aggregates, per class and column
+            codes = new int[hashTableElementCount * indices.length];
+            Arrays.fill(codes, -1);
+        }
 
-        // TODO: To improve performance, microaggregation and marking of outliers could be performed in one pass
-        ObjectIntOpenHashMap<Distribution> cache = new ObjectIntOpenHashMap<Distribution>();
+        // For each record
         for (int row = 0; row < dataOutput.getNumRows(); row++) {
             if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
+                
+                // Find class
+                final int index = findIndexIgnoringOutliers(row, dataOutput.hashCode(row));
+                if (index == -1) {
+                    throw new RuntimeException("Invalid state! Group the data before performing microaggregation or suppression!");
                 }
-                if (m == null) { throw new RuntimeException("Invalid state! Groupify the data before performing microaggregation!"); }
-                result.getArray().iterator(row);
-                for (int i = 0; i < indices.length; i++) {
-                    int columnIndex = indices[i];
-                    Distribution distribution = m.distributions[columnIndex];
-                    int code = cache.getOrDefault(distribution, -1);
-                    if (code == -1) {
-                        String value = functions[i].aggregate(distribution);
-                        code = result.getDictionary().register(i, value);
-                        cache.put(distribution, code);
+                
+                // Microaggregate
+                if (result != null) {
+                    result.getArray().iterator(row);
+                    final int offset = index * indices.length;
+                    for (int i = 0; i < indices.length; i++) {
+                        int code = codes[offset + i];
+                        if (code == -1) {
+                            String value = functions[i].aggregate(classDistributions[index][indices[i]]);
+                            code = result.getDictionary().register(i, value);
+                            codes[offset + i] = code;
+                        }
+                        result.getArray().iterator_write(code);
                     }
-                    result.getArray().iterator_write(code);
                 }
+                
+                // Suppress
+                if (suppress && !classNotOutliers[index]) {
+                    dataOutput.or(row, Data.OUTLIER_MASK);
+                }
+            } else if (suppress) {
+                dataOutput.or(row, Data.OUTLIER_MASK);
             }
         }
         
         // Finalize
-        result.getDictionary().finalizeAll();
+        if (result != null) {
+            result.getDictionary().finalizeAll();
+        }
         
         // Returns the result
         return result;
@@ -385,25 +475,7 @@ public class HashGroupify {
      * (b) are not included in the research subset
      */
     public void performSuppression() {
-        
-        for (int row = 0; row < dataOutput.getNumRows(); row++) {
-            if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
-                if (m == null) {
-                    throw new RuntimeException("Invalid state! Group the data before suppressing records!");
-                }
-                if (!m.isNotOutlier) {
-                    dataOutput.or(row, Data.OUTLIER_MASK);
-                }
-            } else {
-                dataOutput.or(row, Data.OUTLIER_MASK);
-            }
-        }
+        performMicroaggregationAndSuppression(null, null, true);
     }
     
     /**
@@ -421,11 +493,11 @@ public class HashGroupify {
      */
     public void stateClear() {
         if (hashTableElementCount > 0) {
+            Arrays.fill(classDistributions, 0, hashTableElementCount, null);
             this.hashTableElementCount = 0;
             this.currentNumOutliers = 0;
-            this.hashTableFirstEntry = null;
-            this.hashTableLastEntry = null;
-            HashTableUtil.nullifyArray(hashTableBuckets);
+            this.classViewsUpToDate = true;
+            Arrays.fill(hashTableSlots, 0);
         }
     }
     
@@ -433,14 +505,24 @@ public class HashGroupify {
      * This method will reset all flags that indicate that equivalence classes are suppressed.
      */
     public void stateResetSuppression() {
-        HashGroupifyEntry entry = hashTableFirstEntry;
-        while (entry != null) {
-            entry.isNotOutlier = true;
-            entry = entry.nextOrdered;
+        for (int index = 0; index < hashTableElementCount; index++) {
+            setNotOutlier(index, true);
         }
         this.currentNumOutliers = 0;
     }
     
+    /**
+     * Sets whether the class with the given index is not an outlier
+     * @param index
+     * @param notOutlier
+     */
+    void setNotOutlier(int index, boolean notOutlier) {
+        classNotOutliers[index] = notOutlier;
+        if (classViewsUpToDate) {
+            classViews[index].isNotOutlier = notOutlier;
+        }
+    }
+    
     /**
      * Internal adder method.
      *
@@ -449,32 +531,32 @@ public class HashGroupify {
      * @param representative
      * @param count
      * @param pcount
-     * @return the hash groupify entry
+     * @return the index of the class
      */
-    private HashGroupifyEntry addInternal(final int generalized, final int hash, final int representative, int count, final int pcount) {
+    private int addInternal(final int generalized, final int hash, final int representative, int count, final int pcount) {
         
-        // Find or create entry
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry entry = findEntry(generalized, index, hash);
-        if (entry == null) {
-            if (++hashTableElementCount > hashTableThreshold) {
+        // Find or create class
+        int index = findIndex(generalized, hash);
+        if (index == -1) {
+            if (hashTableElementCount + 1 > hashTableThreshold) {
                 rehash();
-                index = hash & (hashTableBuckets.length - 1);
             }
-            entry = createEntry(generalized, index, hash, representative);
+            index = createClass(generalized, hash, representative);
         }
+        classViewsUpToDate = false;
         
         // If we enforce d-presence and the tuple is not contained in the research subset: set its count to zero
         count = (privacyModelDefinesSubset != null && !privacyModelDefinesSubset.contains(representative)) ? 0 : count;
         
         // Track size: private table for d-presence, overall table, else
-        entry.count += count;
+        final int total = classCounts[index] + count;
+        classCounts[index] = total;
         
         // Indirectly check if we enforce d-presence
         if (privacyModelDefinesSubset != null) {
             
             // Increase size of tuples from public table
-            entry.pcount += pcount;
+            classPcounts[index] += pcount;
             
             // This is a tuple from the research subset, but the class is not represented by a tuple from the subset.
             // Or this is a tuple from the subset with a representative that is smaller than the current representative of the tuple (which is also from the subset)
@@ -496,22 +578,24 @@ public class HashGroupify {
             // If we iterate over a snapshot, G1 will be iterated over before G2 (although it has the larger representative), resetting the representative index 3
             //
             // To prevent this, we always choose the smallest index:
-            entry.representative = (count > 0 && (entry.count == count || entry.representative < representative)) ? representative : entry.representative;
+            if (count > 0 && (total == count || classRepresentatives[index] < representative)) {
+                classRepresentatives[index] = representative;
+            }
         }
         
         // Compute current total number of outliers, if k-anonymity is contained in the set of criteria
         // TODO: Replace with conditional moves
-        if (entry.count >= minimalClassSize) {
-            if (!entry.isNotOutlier) {
-                entry.isNotOutlier = true;
-                currentNumOutliers -= (entry.count - count);
+        if (total >= minimalClassSize) {
+            if (!classNotOutliers[index]) {
+                classNotOutliers[index] = true;
+                currentNumOutliers -= (total - count);
             }
         } else {
             currentNumOutliers += count;
         }
         
         // Return
-        return entry;
+        return index;
     }
     
     /**
@@ -526,11 +610,14 @@ public class HashGroupify {
         // Iterate over all classes
         boolean dpresent = true;
         currentNumOutliers = 0;
-        HashGroupifyEntry entry = hashTableFirstEntry;
-        while (entry != null) {
+        if (classBasedCriteria.length > 0) {
+            updateViews();
+        }
+        for (int index = 0; index < hashTableElementCount; index++) {
             
             // Check for anonymity
-            int anonymous = isPrivacyModelFulfilled(transformation, entry);
+            final int count = classCounts[index];
+            int anonymous = isPrivacyModelFulfilled(transformation, index);
             
             // Determine outliers
             if (anonymous != -1) {
@@ -540,18 +627,15 @@ public class HashGroupify {
                 // Tuples from the public table that have no matching candidates in the private table
                 // and that do not fulfill d-presence cannot be suppressed. In this case, the whole
                 // transformation must be considered to not fulfill the privacy criteria.
-                if (privacyModelContainsDPresence && entry.count == 0 && anonymous == 1) {
+                if (privacyModelContainsDPresence && count == 0 && anonymous == 1) {
                     dpresent = false;
                 }
                 
-                currentNumOutliers += entry.count;
+                currentNumOutliers += count;
             }
             
             // We only suppress classes that are contained in the research subset
-            entry.isNotOutlier = entry.count != 0 ? (anonymous == -1) : true;
-            
-            // Next class
-            entry = entry.nextOrdered;
+            setNotOutlier(index, count != 0 ? (anonymous == -1) : true);
         }
         
         this.analyzeSampleBasedCriteria(transformation, false);
@@ -574,7 +658,7 @@ public class HashGroupify {
         // Build a distribution
         HashGroupifyDistribution distribution = new HashGroupifyDistribution(heuristicForSampleBasedCriteria ? null : utilityMeasure,
                                                                              transformation,
-                                                                             this.hashTableFirstEntry);
+                                                                             this);
         
         // For each criterion
         for (SampleBasedCriterion criterion : this.sampleBasedCriteria) {
@@ -615,11 +699,14 @@ public class HashGroupify {
         
         // Iterate over all classes
         currentNumOutliers = 0;
-        HashGroupifyEntry entry = hashTableFirstEntry;
-        while (entry != null) {
+        if (classBasedCriteria.length > 0) {
+            updateViews();
+        }
+        for (int index = 0; index < hashTableElementCount; index++) {
             
             // Check for anonymity
-            int anonymous = isPrivacyModelFulfilled(transformation, entry);
+            final int count = classCounts[index];
+            int anonymous = isPrivacyModelFulfilled(transformation, index);
             
             // Determine outliers
             if (anonymous != -1) {
@@ -631,11 +718,11 @@ public class HashGroupify {
                 // transformation must be considered to not fulfill the privacy criteria.
                 // CAUTION: This leaves GroupifyEntry.isNotOutlier and currentOutliers in an inconsistent state
                 // for non-anonymous transformations
-                if (privacyModelContainsDPresence && entry.count == 0 && anonymous == 1) {
+                if (privacyModelContainsDPresence && count == 0 && anonymous == 1) {
                     this.privacyModelFulfilled = false;
                     return;
                 }
-                currentNumOutliers += entry.count;
+                currentNumOutliers += count;
                 
                 // Break as soon as too many classes are not anonymous
                 // CAUTION: This leaves GroupifyEntry.isNotOutlier and currentOutliers in an inconsistent state
@@ -647,10 +734,7 @@ public class HashGroupify {
             }
             
             // We only suppress classes that are contained in the research subset
-            entry.isNotOutlier = entry.count != 0 ? (anonymous == -1) : true;
-            
-            // Next class
-            entry = entry.nextOrdered;
+            setNotOutlier(index, count != 0 ? (anonymous == -1) : true);
         }
         
         this.analyzeSampleBasedCriteria(transformation, true);
@@ -658,63 +742,132 @@ public class HashGroupify {
     }
         
     /**
-     * Creates a new entry.
+     * Creates a new class at the end of the arrays, which are enlarged if necessary.
      * 
      * @param row
      *            the row
-     * @param index
-     *            the index
      * @param hash
      *            the hash
      * @param line
      *            the line
-     * @return the hash groupify entry
+     * @return the index of the class
      */
-    private HashGroupifyEntry createEntry(final int row, final int index, final int hash, final int line) {
-        final HashGroupifyEntry entry = new HashGroupifyEntry(this.dataOutput, row, hash);
-        entry.next = hashTableBuckets[index];
-        entry.representative = line;
-        hashTableBuckets[index] = entry;
-        if (hashTableFirstEntry == null) {
-            hashTableFirstEntry = entry;
-            hashTableLastEntry = entry;
-        } else {
-            hashTableLastEntry.nextOrdered = entry;
-            hashTableLastEntry = entry;
+    private int createClass(final int row, final int hash, final int line) {
+        
+        // Enlarge
+        final int index = hashTableElementCount++;
+        if (index == classRows.length) {
+            final int capacity = index << 1;
+            classCounts = Arrays.copyOf(classCounts, capacity);
+            classDistributions = Arrays.copyOf(classDistributions, capacity);
+            classHashcodes = Arrays.copyOf(classHashcodes, capacity);
+            classNotOutliers = Arrays.copyOf(classNotOutliers, capacity);
+            classPcounts = Arrays.copyOf(classPcounts, capacity);
+            classRepresentatives = Arrays.copyOf(classRepresentatives, capacity);
+            classRows = Arrays.copyOf(classRows, capacity);
         }
-        return entry;
+        
+        // Initialize
+        classCounts[index] = 0;
+        classDistributions[index] = null;
+        classHashcodes[index] = hash;
+        classNotOutliers[index] = false;
+        classPcounts[index] = 0;
+        classRepresentatives[index] = line;
+        classRows[index] = row;
+        
+        // Insert into table
+        insertEntry(hashTableSlots, hashTableHashcodes, index, hash);
+        return index;
     }
 
     /**
-     * Returns the according entry.
+     * Returns the index of the according class.
      * 
      * @param row
      *            the row
-     * @param index
-     *            the index
-     * @param keyHash
+     * @param hash
      *            the key hash
-     * @return the hash groupify entry
+     * @return the index of the class, -1 if there is none
+     */
+    private int findIndex(final int row, final int hash) {
+        final int mask = hashTableSlots.length - 1;
+        int slot = getSlot(hash, mask);
+        int index;
+        while ((index = hashTableSlots[slot]) != 0) {
+            if (hashTableHashcodes[slot] == hash && dataOutput.equals(row, classRows[index - 1])) {
+                return index - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the according entry, ignoring the outlier flag of the given row.
+     * 
+     * @param row
+     *            the row
+     * @param hash
+     *            the key hash
+     * @return the index of the hash groupify entry, -1 if there is none
+     */
+    private int findIndexIgnoringOutliers(final int row, final int hash) {
+        final int mask = hashTableSlots.length - 1;
+        int slot = getSlot(hash, mask);
+        int index;
+        while ((index = hashTableSlots[slot]) != 0) {
+            if (hashTableHashcodes[slot] == hash && dataOutput.equalsIgnoringOutliers(row, classRows[index - 1])) {
+                return index - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first slot to probe for the given hash code. Hash codes are mixed,
+     * because linear probing is sensitive to clustered values.
+     * 
+     * @param hash
+     * @param mask
+     * @return
+     */
+    private int getSlot(final int hash, final int mask) {
+        final int mixed = hash * 0x9E3779B9;
+        return (mixed ^ (mixed >>> 16)) & mask;
+    }
+
+    /**
+     * Inserts the class with the given index into the given table.
+     * 
+     * @param slots
+     * @param hashcodes
+     * @param index
+     * @param hash
      */
-    private HashGroupifyEntry findEntry(final int row, final int index, final int keyHash) {
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != keyHash) || !dataOutput.equals(row, m.row))) {
-            m = m.next;
+    private void insertEntry(final int[] slots, final int[] hashcodes, final int index, final int hash) {
+        final int mask = slots.length - 1;
+        int slot = getSlot(hash, mask);
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
         }
-        return m;
+        slots[slot] = index + 1;
+        hashcodes[slot] = hash;
     }
 
     /**
-     * Checks whether the given entry is anonymous.
+     * Checks whether the class with the given index is anonymous. Requires up-to-date views, if
+     * class-based criteria are specified.
      * @param transformation
-     * @param entry
+     * @param index
      * @return
      * @returns -1, if all criteria are fulfilled, 0, if minimal group size is not fulfilled, (index+1) if criteria[index] is not fulfilled
      */
-    private int isPrivacyModelFulfilled(Transformation transformation, HashGroupifyEntry entry) {
+    private int isPrivacyModelFulfilled(Transformation transformation, int index) {
         
         // Check minimal group size
-        if (minimalClassSize != Integer.MAX_VALUE && entry.count < minimalClassSize) {
+        if (minimalClassSize != Integer.MAX_VALUE && classCounts[index] < minimalClassSize) {
             return 0;
         }
         
@@ -722,7 +875,7 @@ public class HashGroupify {
         // Note: The d-presence criterion must be checked first to ensure correct handling of d-presence with tuple suppression.
         // This is currently ensured by convention. See ARXConfiguration.getCriteriaAsArray();
         for (int i = 0; i < classBasedCriteria.length; i++) {
-            if (!classBasedCriteria[i].isAnonymous(transformation, entry)) {
+            if (!classBasedCriteria[i].isAnonymous(transformation, classViews[index])) {
                 return i + 1;
             }
         }
@@ -734,16 +887,55 @@ public class HashGroupify {
      */
     private void rehash() {
         
-        final int length = HashTableUtil.calculateCapacity((hashTableBuckets.length == 0 ? 1 : hashTableBuckets.length << 1));
-        final HashGroupifyEntry[] newData = new HashGroupifyEntry[length];
-        HashGroupifyEntry entry = hashTableFirstEntry;
-        while (entry != null) {
-            final int index = entry.hashcode & (length - 1);
-            entry.next = newData[index];
-            newData[index] = entry;
-            entry = entry.nextOrdered;
-        }
-        hashTableBuckets = newData;
-        hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        final int length = HashTableUtil.calculateCapacity((hashTableSlots.length == 0 ? 1 : hashTableSlots.length << 1));
+        final int[] slots = new int[length];
+        final int[] hashcodes = new int[length];
+        for (int index = 0; index < hashTableElementCount; index++) {
+            insertEntry(slots, hashcodes, index, classHashcodes[index]);
+        }
+        hashTableSlots = slots;
+        hashTableHashcodes = hashcodes;
+        hashTableThreshold = HashTableUtil.calculateThreshold(hashTableSlots.length, hashTableLoadFactor);
+    }
+
+    /**
+     * Updates the views of all classes, if they do not reflect the current state.
+     */
+    private void updateViews() {
+        
+        // Check
+        if (classViewsUpToDate) {
+            return;
+        }
+        
+        // Enlarge
+        if (classViews.length < classRows.length) {
+            classViews = Arrays.copyOf(classViews, classRows.length);
+        }
+        
+        // Update and link in the order of insertion
+        HashGroupifyEntry previous = null;
+        for (int index = 0; index < hashTableElementCount; index++) {
+            HashGroupifyEntry view = classViews[index];
+            if (view == null) {
+                view = new HashGroupifyEntry(dataOutput, index);
+                classViews[index] = view;
+            }
+            view.update(classRows[index],
+                        classHashcodes[index],
+                        classRepresentatives[index],
+                        classCounts[index],
+                        classPcounts[index],
+                        classNotOutliers[index],
+                        classDistributions[index]);
+            if (previous != null) {
+                previous.nextOrdered = view;
+            }
+            previous = view;
+        }
+        if (previous != null) {
+            previous.nextOrdered = null;
+        }
+        classViewsUpToDate = true;
     }
 }
@@ -81,6 +81,9 @@ public class HashGroupifyDistribution {
     private int                 numSuppressed   = 0;
     /** Entries that can be suppressed */
     private HashGroupifyEntry[] entries;
+
+    /** The groupify operator owning the entries */
+    private final HashGroupify  groupify;
     /** Number of tuples in the data set */
     private double              numRecords    = 0;
     /** Number of classes in the data set */
@@ -91,13 +94,15 @@ public class HashGroupifyDistribution {
      * 
      * @param metric, null if ordering should not be applied
      * @param transformation
-     * @param entry
+     * @param groupify
      */
     HashGroupifyDistribution(final Metric<?> metric,
                              final Transformation transformation,
-                             HashGroupifyEntry entry) {
+                             HashGroupify groupify) {
         
         // Initialize
+        this.groupify = groupify;
+        HashGroupifyEntry entry = groupify.getFirstEquivalenceClass();
         List<HashGroupifyEntry> list = new ArrayList<HashGroupifyEntry>();
         while(entry != null) {
             if (entry.isNotOutlier && entry.count > 0) {
@@ -327,7 +332,7 @@ public class HashGroupifyDistribution {
      * @param entry
      */
     private void suppressEntry(HashGroupifyEntry entry) {
-        entry.isNotOutlier = false;
+        groupify.setNotOutlier(entry.index, false);
         removeFromDistribution(entry.count);
         this.numSuppressed += entry.count;
         // No need to adjust "numRecords", because this is done in "removeFromDistribution"
@@ -342,7 +347,7 @@ public class HashGroupifyDistribution {
         if (this.numSuppressed == 0 || entry.isNotOutlier) {
             throw new IllegalStateException("Internal error. There are no suppressed entries.");
         }
-        entry.isNotOutlier = true;
+        groupify.setNotOutlier(entry.index, true);
         this.numSuppressed -= entry.count;
         addToDistribution(entry.count);
         // No need to adjust "numRecords", because this is done in "addToDistribution"
@@ -21,7 +21,9 @@ import org.deidentifier.arx.framework.check.distribution.Distribution;
 import org.deidentifier.arx.framework.data.DataMatrix;
 
 /**
- * Implements an equivalence class.
+ * Implements a view of an equivalence class. The properties of classes are stored in
+ * arrays by the {@link HashGroupify} owning the view, which updates views on demand and
+ * reuses them after the operator has been cleared. Views must not be modified.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -35,13 +37,10 @@ public class HashGroupifyEntry {
     public int               pcount         = 0;
 
     /** The hashcode of this class. */
-    public final int         hashcode;
+    public int               hashcode;
 
     /** The key of this class. */
-    public final int         row;
-
-    /** The next element in this bucket. */
-    public HashGroupifyEntry next           = null;
+    public int               row;
 
     /** The overall next element in original order. */
     public HashGroupifyEntry nextOrdered    = null;
@@ -55,20 +54,48 @@ public class HashGroupifyEntry {
     /** Frequency set for other attributes *. */
     public Distribution[]    distributions;
     
+    /** The index of the class in the groupify operator */
+    final int                index;
+    
     /** Matrix*/
     private final DataMatrix matrix;
 
     /**
-     * Creates a new entry.
+     * Creates a new view.
      * 
      * @param matrix the matrix
+     * @param index the index of the class
+     */
+    HashGroupifyEntry(DataMatrix matrix, final int index) {
+        this.matrix = matrix;
+        this.index = index;
+    }
+    
+    /**
+     * Updates this view.
+     *
      * @param row the row
      * @param hash the hash
+     * @param representative the representative
+     * @param count the count
+     * @param pcount the pcount
+     * @param isNotOutlier whether the class is not an outlier
+     * @param distributions the distributions
      */
-    public HashGroupifyEntry(DataMatrix matrix, final int row, final int hash) {
+    void update(final int row,
+                final int hash,
+                final int representative,
+                final int count,
+                final int pcount,
+                final boolean isNotOutlier,
+                final Distribution[] distributions) {
         this.hashcode = hash;
         this.row = row;
-        this.matrix = matrix;
+        this.representative = representative;
+        this.count = count;
+        this.pcount = pcount;
+        this.isNotOutlier = isNotOutlier;
+        this.distributions = distributions;
     }
     
     /**
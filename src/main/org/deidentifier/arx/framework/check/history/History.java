@@ -17,8 +17,10 @@
 
 package org.deidentifier.arx.framework.check.history;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.TreeSet;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
@@ -31,7 +33,13 @@ import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
 
 /**
- * The Class History.
+ * The Class History. Snapshots are indexed by the generalization levels of their
+ * transformations, so that the smallest snapshot of an ancestor of a transformation
+ * is found without scanning all snapshots. The history is limited by the number of
+ * snapshots as well as by the memory they occupy. Snapshots can optionally be stored
+ * in compressed form. If the memory is limited, snapshots are evicted based on the
+ * number of rows they save per byte occupied (GreedyDual-Size), otherwise the least
+ * recently used snapshot is evicted.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -47,9 +55,27 @@ public class History {
         NON_ANONYMOUS
     }
 
+    /** Maximal initial capacity of internal maps. */
+    private static final int                INITIAL_CAPACITY              = 1024;
+
+    /** The baseline, a snapshot covering all records, which is never evicted. */
+    private int[]                           baseline                      = null;
+
+    /** The metadata of the baseline. */
+    private MRUCacheEntryMetadata           baselineMetadata              = null;
+
     /** The actual buffer. */
     private MRUCache<MRUCacheEntryMetadata> cache                         = null;
 
+    /** Whether snapshots are stored in compressed form. */
+    private boolean                         compression                   = false;
+
+    /** The last snapshot decompressed, which is kept to avoid decompressing it repeatedly. */
+    private int[]                           decompressed                  = null;
+
+    /** The id of the last snapshot decompressed. */
+    private long                            decompressedId                = -1L;
+
     /** Current configuration. */
     private final ARXConfigurationInternal  config;
 
@@ -59,15 +85,42 @@ public class History {
     /** The dictionary for values of the distributions. */
     private final IntArrayDictionary        dictionarySensValue;
 
+    /** Snapshots indexed by their transformations, ordered by size and then by the order of accesses. */
+    private final SnapshotIndex                  index;
+
+    /** Snapshots ordered by their priority for eviction and then by the order of accesses. */
+    private final TreeSet<MRUCacheEntryMetadata> priorities;
+
+    /** Priority of the last snapshot evicted, used for aging the remaining snapshots. */
+    private double                          inflation                     = 0d;
+
+    /** Maximal number of bytes occupied by snapshots. */
+    private long                            memoryLimit                   = Long.MAX_VALUE;
+
+    /** Number of bytes currently occupied by snapshots. */
+    private long                            memoryUsed                    = 0L;
+
+    /** Counter for the order of accesses. */
+    private long                            stamp                         = 0L;
+
     /** A map from nodes to snapshots. */
     private HashMap<Long, int[]>            nodeToSnapshot                = null;
 
+    /** A map from nodes to compressed snapshots. */
+    private HashMap<Long, byte[]>           nodeToCompressedSnapshot      = null;
+
+    /** A map from nodes to the distributions referenced by compressed snapshots. */
+    private HashMap<Long, int[]>            nodeToReferences              = null;
+
     /** The current requirements. */
     private final int                       requirements;
 
     /** The node backing the last returned snapshot. */
     private MRUCacheEntryMetadata           resultMetadata;
 
+    /** The number of rows. */
+    private final int                       rowCount;
+
     /** Maximal number of entries. */
     private int                             size;
 
@@ -122,8 +175,25 @@ public class History {
         
         this.snapshotSizeDataset = (long) (rowCount * snapshotSizeDataset);
         this.snapshotSizeSnapshot = snapshotSizeSnapshot;
-        this.cache = new MRUCache<MRUCacheEntryMetadata>(size);
-        this.nodeToSnapshot = new HashMap<Long, int[]>(size);
+        this.cache = new MRUCache<MRUCacheEntryMetadata>(Math.min(size, INITIAL_CAPACITY));
+        this.nodeToSnapshot = new HashMap<Long, int[]>(Math.min(size, INITIAL_CAPACITY));
+        this.nodeToCompressedSnapshot = new HashMap<Long, byte[]>(Math.min(size, INITIAL_CAPACITY));
+        this.nodeToReferences = new HashMap<Long, int[]>(Math.min(size, INITIAL_CAPACITY));
+        this.index = new SnapshotIndex(new Comparator<MRUCacheEntryMetadata>() {
+            @Override
+            public int compare(MRUCacheEntryMetadata o1, MRUCacheEntryMetadata o2) {
+                int result = Integer.compare(o1.size, o2.size);
+                return result != 0 ? result : Long.compare(o1.stamp, o2.stamp);
+            }
+        }, Math.min(size, INITIAL_CAPACITY));
+        this.priorities = new TreeSet<MRUCacheEntryMetadata>(new Comparator<MRUCacheEntryMetadata>() {
+            @Override
+            public int compare(MRUCacheEntryMetadata o1, MRUCacheEntryMetadata o2) {
+                int result = Double.compare(o1.priority, o2.priority);
+                return result != 0 ? result : Long.compare(o1.stamp, o2.stamp);
+            }
+        });
+        this.rowCount = rowCount;
         this.size = size;
         this.dictionarySensFreq = dictionarySensFreq;
         this.dictionarySensValue = dictionarySensValue;
@@ -141,30 +211,14 @@ public class History {
      */
     public int[] get(final int[] transformation) {
 
-        // Init
+        // Search for the smallest snapshot of an ancestor
         int[] resultSnapshot = null;
-        MRUCacheEntryMetadata resultMetadata = null;
-        int level = solutionSpace.getLevel(transformation);
-
-        // Search
-        MRUCacheEntry<MRUCacheEntryMetadata> entry = cache.getHead();
-        while (entry != null) {
-            MRUCacheEntryMetadata currentMetadata = entry.data;
-            if (currentMetadata.level < level) {
-                final int[] currentSnapshot = nodeToSnapshot.get(currentMetadata.id);
-                if ((resultMetadata == null) || (currentSnapshot.length < resultSnapshot.length)) {
-                    if (solutionSpace.isParentChildOrEqual(transformation, currentMetadata.transformation)) {
-                        resultMetadata = currentMetadata;
-                        resultSnapshot = currentSnapshot;
-                    }
-                }
-            }
-            entry = entry.next;
-        }
+        MRUCacheEntryMetadata resultMetadata = index.getSmallestPredecessor(transformation);
 
         // Manager
         if (resultMetadata != null) {
-            cache.touch(resultMetadata);
+            resultSnapshot = getSnapshot(resultMetadata);
+            touch(resultMetadata);
         }
         this.resultMetadata = resultMetadata;
 
@@ -172,6 +226,29 @@ public class History {
         return resultSnapshot;
     }
 
+    /**
+     * Returns the baseline, if any.
+     *
+     * @return
+     */
+    public int[] getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * Retrieves the baseline, if it can be used to transform the given transformation.
+     *
+     * @param transformation
+     * @return snapshot
+     */
+    public int[] getBaseline(final int[] transformation) {
+        if (baseline != null && solutionSpace.isParentChildOrEqual(transformation, baselineMetadata.transformation)) {
+            this.resultMetadata = baselineMetadata;
+            return baseline;
+        }
+        return null;
+    }
+
     /**
      * Method needed for benchmarking.
      *
@@ -217,10 +294,84 @@ public class History {
      */
     public void reset() {
         this.cache.clear();
+        this.index.clear();
+        this.priorities.clear();
         this.nodeToSnapshot.clear();
+        this.nodeToCompressedSnapshot.clear();
+        this.nodeToReferences.clear();
+        this.decompressed = null;
+        this.decompressedId = -1L;
+        this.memoryUsed = 0L;
+        this.inflation = 0d;
         this.dictionarySensFreq.clear();
         this.dictionarySensValue.clear();
         this.resultMetadata = null;
+        this.baseline = null;
+        this.baselineMetadata = null;
+    }
+
+    /**
+     * Sets the baseline, a snapshot of the given transformation covering all records, which
+     * is used if no other snapshot or rollup is available. In contrast to other snapshots, the
+     * baseline is never evicted. It is only supported if nothing but the number of records
+     * per class must be tracked, because this allows to persist and extend it. The baseline
+     * counts towards the memory limit.
+     *
+     * @param transformation
+     * @param groupify
+     * @return Whether the baseline has been set
+     */
+    public boolean setBaseline(final Transformation transformation, final HashGroupify groupify) {
+        
+        // Early abort if too large or not supported
+        if (groupify.getNumberOfEquivalenceClasses() > snapshotSizeDataset ||
+            requirements != ARXConfiguration.REQUIREMENT_COUNTER ||
+            getMemory(groupify.getNumberOfEquivalenceClasses() * config.getSnapshotLength()) > memoryLimit) {
+            return false;
+        }
+        
+        // Store
+        setBaseline(transformation, createSnapshot(groupify));
+        return true;
+    }
+
+    /**
+     * Sets the baseline, which has been created by another history with the same configuration.
+     * Snapshots are evicted, if required to stay within the memory limit.
+     *
+     * @param transformation
+     * @param snapshot May be null, to remove the baseline
+     */
+    public void setBaseline(final Transformation transformation, final int[] snapshot) {
+        memoryUsed -= getMemoryBaseline();
+        this.baseline = snapshot;
+        this.baselineMetadata = snapshot == null ? null : new MRUCacheEntryMetadata(transformation, snapshot.length);
+        memoryUsed += getMemoryBaseline();
+        while (cache.size() > 0 && memoryUsed > memoryLimit) {
+            removeHistoryEntry(evict());
+        }
+    }
+
+    /**
+     * Sets whether snapshots are stored in compressed form. Compression reduces the
+     * memory occupied by snapshots at the cost of decompressing them when retrieved.
+     *
+     * @param compression
+     */
+    public void setCompression(boolean compression) {
+        if (this.compression != compression) {
+            reset();
+        }
+        this.compression = compression;
+    }
+
+    /**
+     * Sets the maximal number of bytes occupied by the snapshots in this history.
+     *
+     * @param memoryLimit
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
     }
 
     /**
@@ -259,6 +410,12 @@ public class History {
             return false;
         }
 
+        // Early abort if already stored
+        if (nodeToSnapshot.containsKey(transformation.getIdentifier()) ||
+            nodeToCompressedSnapshot.containsKey(transformation.getIdentifier())) {
+            return false;
+        }
+
         // Early abort if too large
         if (snapshot != null) {
             final double relativeSize = (groupify.getNumberOfEquivalenceClasses() / ((double) snapshot.length / config.getSnapshotLength()));
@@ -271,20 +428,53 @@ public class History {
             return false;
         }
         
-        // Clear the cache
-        cleanUpHistory();
-
-        // Perform LRU eviction, if still too large
-        if (cache.size() >= size) {
-            removeHistoryEntry(cache.removeHead());
+        // Early abort if larger than the memory not occupied by the baseline. Compressed snapshots are never larger.
+        final int length = groupify.getNumberOfEquivalenceClasses() * config.getSnapshotLength();
+        if (!compression && getMemoryBaseline() + getMemory(length) > memoryLimit) {
+            return false;
         }
-        
-        // Create the snapshot
+
+        // Create the snapshot. Distributions referenced by compressed snapshots are kept separately,
+        // so that they can be released without decompressing the snapshot.
         final int[] data = createSnapshot(groupify);
+        final byte[] compressed = compression ? SnapshotCompression.compress(data, config.getSnapshotLength()) : null;
+        final int[] references = compression ? getReferences(data) : null;
+        long memory = compression ? getMemory(compressed) : getMemory(length);
+        if (references != null) {
+            memory += getMemory(references.length);
+        }
+        if (getMemoryBaseline() + memory > memoryLimit) {
+            release(data);
+            return false;
+        }
+
+        // Clear the cache, if required
+        if (cache.size() >= size || memoryUsed + memory > memoryLimit) {
+            cleanUpHistory();
+        }
+
+        // Perform eviction, if still too large
+        while (cache.size() >= size || memoryUsed + memory > memoryLimit) {
+            removeHistoryEntry(evict());
+        }
 
         // Assign snapshot and keep reference for cache
-        nodeToSnapshot.put(transformation.getIdentifier(), data);
-        cache.append(new MRUCacheEntryMetadata(transformation));
+        final MRUCacheEntryMetadata metadata = new MRUCacheEntryMetadata(transformation, data.length);
+        metadata.stamp = stamp++;
+        metadata.memory = memory;
+        metadata.priority = getPriority(metadata);
+        if (compression) {
+            nodeToCompressedSnapshot.put(transformation.getIdentifier(), compressed);
+            if (references != null) {
+                nodeToReferences.put(transformation.getIdentifier(), references);
+            }
+        } else {
+            nodeToSnapshot.put(transformation.getIdentifier(), data);
+        }
+        cache.append(metadata);
+        index.add(metadata);
+        priorities.add(metadata);
+        memoryUsed += memory;
 
         // Success
         return true;
@@ -358,31 +548,190 @@ public class History {
     }
 
     /**
-     * Removes a snapshot.
+     * Removes the snapshot to evict from the cache and returns it. If the memory is limited, the
+     * snapshot which saves the fewest rows per byte, aged by the order of accesses, is evicted.
+     * Otherwise, the least recently used snapshot is evicted.
      *
-     * @param metadata
+     * @return
      */
-    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
-        final int[] snapshot = nodeToSnapshot.remove(metadata.id);
+    private final MRUCacheEntryMetadata evict() {
+        if (memoryLimit == Long.MAX_VALUE) {
+            return cache.removeHead();
+        }
+        final MRUCacheEntryMetadata metadata = priorities.first();
+        inflation = metadata.priority;
+        cache.remove(metadata);
+        return metadata;
+    }
+
+    /**
+     * Returns the number of bytes occupied by a compressed snapshot.
+     *
+     * @param compressed
+     * @return
+     */
+    private final long getMemory(byte[] compressed) {
+        // Array header and payload
+        return 16L + compressed.length;
+    }
+
+    /**
+     * Returns the number of bytes occupied by a snapshot with the given length.
+     *
+     * @param length
+     * @return
+     */
+    private final long getMemory(int length) {
+        // Array header and payload
+        return 16L + 4L * length;
+    }
 
+    /**
+     * Returns the number of bytes occupied by the baseline.
+     *
+     * @return
+     */
+    private final long getMemoryBaseline() {
+        return baseline == null ? 0L : getMemory(baseline.length);
+    }
+
+    /**
+     * Returns the offset of the first reference to a distribution within each entry of a snapshot,
+     * -1 if snapshots do not reference distributions.
+     *
+     * @return
+     */
+    private final int getOffsetDistributions() {
         switch (requirements) {
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_SECONDARY_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
-            for (int i = 0; i < snapshot.length; i += config.getSnapshotLength()) {
-                for (int j = i + 3; j < i + config.getSnapshotLength() - 1; j += 2) {
-                    dictionarySensValue.decrementRefCount(snapshot[j]);
-                    dictionarySensFreq.decrementRefCount(snapshot[j+1]);
-                }
-            }
-            break;
+            return 3;
         // TODO: If we only need a distribution, we should get rid of the primary counter
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
         case ARXConfiguration.REQUIREMENT_DISTRIBUTION:
-            for (int i = 0; i < snapshot.length; i += config.getSnapshotLength()) {
-                for (int j = i + 2; j < i + config.getSnapshotLength() - 1; j += 2) {
-                    dictionarySensValue.decrementRefCount(snapshot[j]);
-                    dictionarySensFreq.decrementRefCount(snapshot[j+1]);
-                }
+            return 2;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the priority of the given snapshot for eviction, which is the number of rows
+     * saved when transforming from the snapshot, per byte occupied.
+     *
+     * @param metadata
+     * @return
+     */
+    private final double getPriority(final MRUCacheEntryMetadata metadata) {
+        final int classes = metadata.size / config.getSnapshotLength();
+        return inflation + (double) (rowCount - classes + 1) / (double) metadata.memory;
+    }
+
+    /**
+     * Returns the uncompressed snapshot.
+     *
+     * @param metadata
+     * @return
+     */
+    private final int[] getSnapshot(final MRUCacheEntryMetadata metadata) {
+        final int[] snapshot = nodeToSnapshot.get(metadata.id);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        if (decompressedId != metadata.id) {
+            decompressed = SnapshotCompression.decompress(nodeToCompressedSnapshot.get(metadata.id), metadata.size, config.getSnapshotLength());
+            decompressedId = metadata.id;
+        }
+        return decompressed;
+    }
+
+    /**
+     * Returns the distributions referenced by the given snapshot as pairs of entries in the
+     * dictionaries for values and frequencies, null if snapshots do not reference distributions.
+     *
+     * @param snapshot
+     * @return
+     */
+    private final int[] getReferences(final int[] snapshot) {
+        final int offset = getOffsetDistributions();
+        if (offset == -1) {
+            return null;
+        }
+        final int stride = config.getSnapshotLength();
+        final int[] references = new int[snapshot.length / stride * (stride - offset)];
+        int index = 0;
+        for (int i = 0; i < snapshot.length; i += stride) {
+            System.arraycopy(snapshot, i + offset, references, index, stride - offset);
+            index += stride - offset;
+        }
+        return references;
+    }
+
+    /**
+     * Releases the distributions referenced by the given snapshot.
+     *
+     * @param snapshot
+     */
+    private final void release(final int[] snapshot) {
+        final int offset = getOffsetDistributions();
+        if (offset == -1) {
+            return;
+        }
+        for (int i = 0; i < snapshot.length; i += config.getSnapshotLength()) {
+            for (int j = i + offset; j < i + config.getSnapshotLength() - 1; j += 2) {
+                dictionarySensValue.decrementRefCount(snapshot[j]);
+                dictionarySensFreq.decrementRefCount(snapshot[j+1]);
             }
         }
     }
+
+    /**
+     * Releases the distributions referenced by a compressed snapshot.
+     *
+     * @param references Pairs of entries in the dictionaries, as returned by getReferences()
+     */
+    private final void releaseReferences(final int[] references) {
+        for (int i = 0; i < references.length; i += 2) {
+            dictionarySensValue.decrementRefCount(references[i]);
+            dictionarySensFreq.decrementRefCount(references[i+1]);
+        }
+    }
+
+    /**
+     * Marks the given snapshot as the most recently used one.
+     *
+     * @param metadata
+     */
+    private final void touch(final MRUCacheEntryMetadata metadata) {
+        priorities.remove(metadata);
+        metadata.stamp = stamp++;
+        metadata.priority = getPriority(metadata);
+        index.update(metadata);
+        priorities.add(metadata);
+        cache.touch(metadata);
+    }
+
+    /**
+     * Removes a snapshot.
+     *
+     * @param metadata
+     */
+    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
+        index.remove(metadata);
+        priorities.remove(metadata);
+        memoryUsed -= metadata.memory;
+        final int[] snapshot = nodeToSnapshot.remove(metadata.id);
+        final int[] references = nodeToReferences.remove(metadata.id);
+        nodeToCompressedSnapshot.remove(metadata.id);
+        if (decompressedId == metadata.id) {
+            decompressed = null;
+            decompressedId = -1L;
+        }
+
+        // Only snapshots with distributions reference entries in the dictionaries
+        if (snapshot != null) {
+            release(snapshot);
+        } else if (references != null) {
+            releaseReferences(references);
+        }
+    }
 }
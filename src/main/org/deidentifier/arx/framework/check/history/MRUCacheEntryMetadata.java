@@ -31,14 +31,24 @@ public class MRUCacheEntryMetadata {
     public final int   level;
     /** Id */
     public final long  id;
+    /** Length of the snapshot */
+    public final int   size;
+    /** Position in the order of accesses, managed by the history */
+    long               stamp;
+    /** Number of bytes occupied by the snapshot, managed by the history */
+    long               memory;
+    /** Priority for cost-aware eviction, managed by the history */
+    double             priority;
 
     /**
      * Creates a new instance
      * @param transformation
+     * @param size
      */
-    public MRUCacheEntryMetadata(Transformation transformation) {
+    public MRUCacheEntryMetadata(Transformation transformation, int size) {
         this.transformation = transformation.getGeneralization().clone();
         this.level = transformation.getLevel();
         this.id = transformation.getIdentifier();
+        this.size = size;
     }
 }
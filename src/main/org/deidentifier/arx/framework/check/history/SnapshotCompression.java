@@ -0,0 +1,131 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+/**
+ * Compresses snapshots. Representatives are encoded as differences to the representative
+ * of the previous class, all values are stored as zig-zag encoded variable-length integers.
+ * Representatives are mostly ascending and all other values, such as counts, are mostly small,
+ * so that most values require one or two bytes instead of four.
+ *
+ * @author Fabian Prasser
+ */
+final class SnapshotCompression {
+
+    /**
+     * Compresses the given snapshot
+     * @param snapshot
+     * @param stride Number of values per equivalence class
+     * @return
+     */
+    static byte[] compress(int[] snapshot, int stride) {
+
+        // Determine size
+        int length = 0;
+        int previous = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            int value = snapshot[i];
+            if (i % stride == 0) {
+                int representative = value;
+                value -= previous;
+                previous = representative;
+            }
+            length += getLength(encode(value));
+        }
+
+        // Encode
+        byte[] result = new byte[length];
+        int offset = 0;
+        previous = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            int value = snapshot[i];
+            if (i % stride == 0) {
+                int representative = value;
+                value -= previous;
+                previous = representative;
+            }
+            int encoded = encode(value);
+            while ((encoded & ~0x7F) != 0) {
+                result[offset++] = (byte) ((encoded & 0x7F) | 0x80);
+                encoded >>>= 7;
+            }
+            result[offset++] = (byte) encoded;
+        }
+        return result;
+    }
+
+    /**
+     * Decompresses the given snapshot
+     * @param data
+     * @param length Number of values in the snapshot
+     * @param stride Number of values per equivalence class
+     * @return
+     */
+    static int[] decompress(byte[] data, int length, int stride) {
+        int[] result = new int[length];
+        int offset = 0;
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            int encoded = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[offset++];
+                encoded |= (current & 0x7F) << shift;
+                shift += 7;
+            } while (current < 0);
+            int value = (encoded >>> 1) ^ -(encoded & 1);
+            if (i % stride == 0) {
+                value += previous;
+                previous = value;
+            }
+            result[i] = value;
+        }
+        return result;
+    }
+
+    /**
+     * Zig-zag encoding
+     * @param value
+     * @return
+     */
+    private static int encode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Returns the number of bytes required for the given encoded value
+     * @param encoded
+     * @return
+     */
+    private static int getLength(int encoded) {
+        int length = 1;
+        while ((encoded & ~0x7F) != 0) {
+            encoded >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * No instances
+     */
+    private SnapshotCompression() {
+        // Empty by design
+    }
+}
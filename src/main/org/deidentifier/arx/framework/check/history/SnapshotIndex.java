@@ -0,0 +1,456 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An index of snapshots, which returns the smallest snapshot of a predecessor of a given
+ * transformation. Snapshots are organized in a k-d tree over the generalization levels of their
+ * transformations. Each node knows the bounding box and the smallest snapshot of its subtree.
+ * Searches skip subtrees which cannot contain a predecessor or a smaller snapshot, and subtrees
+ * which only contain predecessors are answered without visiting them. Removed nodes are kept
+ * until the tree is rebuilt, and unbalanced subtrees are rebuilt as in a scapegoat tree.
+ *
+ * @author Fabian Prasser
+ */
+class SnapshotIndex {
+
+    /**
+     * A node of the tree
+     *
+     * @author Fabian Prasser
+     */
+    private static class Node {
+
+        /** The snapshot, null if it has been removed */
+        private MRUCacheEntryMetadata metadata;
+
+        /** The generalization levels of the transformation */
+        private final int[]           transformation;
+
+        /** The dimension used for splitting */
+        private final int             dimension;
+
+        /** Left child, containing smaller values in the dimension used for splitting */
+        private Node                  left;
+
+        /** Right child */
+        private Node                  right;
+
+        /** Parent */
+        private Node                  parent;
+
+        /** Number of nodes in the subtree, including removed ones */
+        private int                   count;
+
+        /** The smallest snapshot in the subtree, null if the subtree contains no snapshots */
+        private MRUCacheEntryMetadata min;
+
+        /** Lower bounds of the generalization levels in the subtree */
+        private final int[]           lower;
+
+        /** Upper bounds of the generalization levels in the subtree */
+        private final int[]           upper;
+
+        /**
+         * Creates a new node
+         * @param metadata
+         * @param dimension
+         */
+        private Node(MRUCacheEntryMetadata metadata, int dimension) {
+            this.metadata = metadata;
+            this.transformation = metadata.transformation;
+            this.dimension = dimension;
+            this.lower = new int[transformation.length];
+            this.upper = new int[transformation.length];
+        }
+    }
+
+    /** Maximal ratio between the size of a subtree and the size of its parent's subtree */
+    private static final double                     ALPHA      = 0.75d;
+
+    /** The order of snapshots */
+    private final Comparator<MRUCacheEntryMetadata> comparator;
+
+    /** The nodes of all snapshots */
+    private final HashMap<MRUCacheEntryMetadata, Node> nodes;
+
+    /** The number of dimensions */
+    private int                                     dimensions;
+
+    /** The root */
+    private Node                                    root;
+
+    /** Number of removed nodes */
+    private int                                     removed    = 0;
+
+    /**
+     * Creates a new instance
+     *
+     * @param comparator The order of snapshots. Smaller snapshots are preferred.
+     * @param capacity
+     */
+    SnapshotIndex(Comparator<MRUCacheEntryMetadata> comparator, int capacity) {
+        this.comparator = comparator;
+        this.nodes = new HashMap<MRUCacheEntryMetadata, Node>(capacity);
+    }
+
+    /**
+     * Adds a snapshot
+     *
+     * @param metadata
+     */
+    void add(MRUCacheEntryMetadata metadata) {
+
+        // Empty tree
+        if (root == null) {
+            dimensions = metadata.transformation.length;
+            root = new Node(metadata, 0);
+            nodes.put(metadata, root);
+            update(root);
+            return;
+        }
+
+        // Descend
+        Node parent = root;
+        int depth = 1;
+        while (true) {
+            Node next = isLeft(parent, metadata.transformation) ? parent.left : parent.right;
+            if (next == null) {
+                break;
+            }
+            parent = next;
+            depth++;
+        }
+
+        // Insert
+        Node node = new Node(metadata, getNextDimension(parent.dimension));
+        node.parent = parent;
+        if (isLeft(parent, metadata.transformation)) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        nodes.put(metadata, node);
+        update(node);
+
+        // Rebuild the subtree of a scapegoat, if too deep
+        if (depth > Math.log(root.count) / Math.log(1d / ALPHA) + 1d) {
+            Node scapegoat = node.parent;
+            while (scapegoat != null && getCount(scapegoat.left) <= ALPHA * scapegoat.count &&
+                   getCount(scapegoat.right) <= ALPHA * scapegoat.count) {
+                scapegoat = scapegoat.parent;
+            }
+            if (scapegoat != null) {
+                rebuild(scapegoat);
+            }
+        }
+    }
+
+    /**
+     * Removes all snapshots
+     */
+    void clear() {
+        root = null;
+        nodes.clear();
+        removed = 0;
+    }
+
+    /**
+     * Returns the smallest snapshot of a predecessor of the given transformation, null if there is none
+     *
+     * @param transformation
+     * @return
+     */
+    MRUCacheEntryMetadata getSmallestPredecessor(int[] transformation) {
+        return search(root, transformation, null);
+    }
+
+    /**
+     * Removes a snapshot
+     *
+     * @param metadata
+     */
+    void remove(MRUCacheEntryMetadata metadata) {
+        Node node = nodes.remove(metadata);
+        if (node == null) {
+            return;
+        }
+        node.metadata = null;
+        removed++;
+        if (removed > nodes.size()) {
+            rebuild(root);
+        } else {
+            update(node);
+        }
+    }
+
+    /**
+     * Must be called when the order of the given snapshot has changed
+     *
+     * @param metadata
+     */
+    void update(MRUCacheEntryMetadata metadata) {
+        Node node = nodes.get(metadata);
+        if (node != null) {
+            update(node);
+        }
+    }
+
+    /**
+     * Builds a balanced tree from the given snapshots
+     *
+     * @param snapshots
+     * @param from
+     * @param to
+     * @param dimension
+     * @param parent
+     * @return
+     */
+    private Node build(List<MRUCacheEntryMetadata> snapshots, int from, int to, final int dimension, Node parent) {
+
+        // Empty
+        if (from >= to) {
+            return null;
+        }
+
+        // Split at the median
+        if (dimensions != 0) {
+            Collections.sort(snapshots.subList(from, to), new Comparator<MRUCacheEntryMetadata>() {
+                @Override
+                public int compare(MRUCacheEntryMetadata o1, MRUCacheEntryMetadata o2) {
+                    return Integer.compare(o1.transformation[dimension], o2.transformation[dimension]);
+                }
+            });
+        }
+        int median = (from + to) >>> 1;
+        int next = getNextDimension(dimension);
+        Node node = new Node(snapshots.get(median), dimension);
+        node.parent = parent;
+        nodes.put(node.metadata, node);
+        node.left = build(snapshots, from, median, next, node);
+        node.right = build(snapshots, median + 1, to, next, node);
+        aggregate(node);
+        return node;
+    }
+
+    /**
+     * Collects all snapshots in the given subtree
+     *
+     * @param node
+     * @param snapshots
+     */
+    private void collect(Node node, List<MRUCacheEntryMetadata> snapshots) {
+        if (node != null) {
+            if (node.metadata != null) {
+                snapshots.add(node.metadata);
+            } else {
+                removed--;
+            }
+            collect(node.left, snapshots);
+            collect(node.right, snapshots);
+        }
+    }
+
+    /**
+     * Returns the number of nodes in the given subtree
+     *
+     * @param node
+     * @return
+     */
+    private int getCount(Node node) {
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Returns the dimension used for splitting the children of a node which is split at the given dimension
+     *
+     * @param dimension
+     * @return
+     */
+    private int getNextDimension(int dimension) {
+        return dimension + 1 < dimensions ? dimension + 1 : 0;
+    }
+
+    /**
+     * Returns whether the given transformation belongs to the left subtree of the given node
+     *
+     * @param node
+     * @param transformation
+     * @return
+     */
+    private boolean isLeft(Node node, int[] transformation) {
+        return dimensions != 0 && transformation[node.dimension] < node.transformation[node.dimension];
+    }
+
+    /**
+     * Returns whether all values of the first array are less than or equal to the values of the second array
+     *
+     * @param first
+     * @param second
+     * @return
+     */
+    private boolean isLessOrEqual(int[] first, int[] second) {
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] > second[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the first transformation is a predecessor of the second one, i.e. less or equal
+     * and not equal
+     *
+     * @param first
+     * @param second
+     * @return
+     */
+    private boolean isPredecessor(int[] first, int[] second) {
+        boolean equal = true;
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] > second[i]) {
+                return false;
+            }
+            equal &= first[i] == second[i];
+        }
+        return !equal;
+    }
+
+    /**
+     * Rebuilds the given subtree
+     *
+     * @param node
+     */
+    private void rebuild(Node node) {
+        List<MRUCacheEntryMetadata> snapshots = new ArrayList<MRUCacheEntryMetadata>(node.count);
+        collect(node, snapshots);
+        Node parent = node.parent;
+        Node subtree = build(snapshots, 0, snapshots.size(), node.dimension, parent);
+        if (parent == null) {
+            root = subtree;
+        } else {
+            if (parent.left == node) {
+                parent.left = subtree;
+            } else {
+                parent.right = subtree;
+            }
+            update(parent);
+        }
+    }
+
+    /**
+     * Searches for the smallest snapshot of a predecessor in the given subtree
+     *
+     * @param node
+     * @param transformation
+     * @param result The best result found so far
+     * @return
+     */
+    private MRUCacheEntryMetadata search(Node node, int[] transformation, MRUCacheEntryMetadata result) {
+
+        // Skip subtrees without predecessors or smaller snapshots
+        if (node == null || node.min == null || (result != null && comparator.compare(node.min, result) >= 0) ||
+            !isLessOrEqual(node.lower, transformation)) {
+            return result;
+        }
+
+        // The smallest snapshot is a predecessor, if all snapshots in the subtree are
+        if (isLessOrEqual(node.upper, transformation) && isPredecessor(node.min.transformation, transformation)) {
+            return node.min;
+        }
+
+        // Check node
+        if (node.metadata != null && isPredecessor(node.transformation, transformation) &&
+            (result == null || comparator.compare(node.metadata, result) < 0)) {
+            result = node.metadata;
+        }
+
+        // Check children, the one with the smaller snapshot first
+        Node first = node.left;
+        Node second = node.right;
+        if (first == null || first.min == null ||
+            (second != null && second.min != null && comparator.compare(second.min, first.min) < 0)) {
+            first = node.right;
+            second = node.left;
+        }
+        result = search(first, transformation, result);
+        return search(second, transformation, result);
+    }
+
+    /**
+     * Recomputes the aggregates of the given node and its ancestors
+     *
+     * @param node
+     */
+    private void update(Node node) {
+        while (node != null) {
+            aggregate(node);
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Computes the aggregates of the given node from its snapshot and its children
+     *
+     * @param node
+     */
+    private void aggregate(Node node) {
+        node.count = 1 + getCount(node.left) + getCount(node.right);
+        node.min = null;
+        if (node.metadata != null) {
+            include(node, node.metadata, node.transformation, node.transformation);
+        }
+        if (node.left != null && node.left.min != null) {
+            include(node, node.left.min, node.left.lower, node.left.upper);
+        }
+        if (node.right != null && node.right.min != null) {
+            include(node, node.right.min, node.right.lower, node.right.upper);
+        }
+    }
+
+    /**
+     * Includes the given snapshot and bounds into the aggregates of the given node
+     *
+     * @param node
+     * @param min
+     * @param lower
+     * @param upper
+     */
+    private void include(Node node, MRUCacheEntryMetadata min, int[] lower, int[] upper) {
+        if (node.min == null) {
+            node.min = min;
+            System.arraycopy(lower, 0, node.lower, 0, lower.length);
+            System.arraycopy(upper, 0, node.upper, 0, upper.length);
+        } else {
+            if (comparator.compare(min, node.min) < 0) {
+                node.min = min;
+            }
+            for (int i = 0; i < lower.length; i++) {
+                node.lower[i] = Math.min(node.lower[i], lower[i]);
+                node.upper[i] = Math.max(node.upper[i], upper[i]);
+            }
+        }
+    }
+}
@@ -69,7 +69,7 @@ public class Transformer02 extends AbstractTransformer {
     @Override
     protected void processGroupify() {
 
-        while (element != null) {
+        for (int i = startIndex; i < stopIndex; i++) {
 
             // Transform
             buffer.setRow(element.representative);
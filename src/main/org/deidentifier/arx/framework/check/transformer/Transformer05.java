@@ -71,7 +71,7 @@ public class Transformer05 extends AbstractTransformer {
     @Override
     protected void processGroupify() {
 
-        while (element != null) {
+        for (int i = startIndex; i < stopIndex; i++) {
 
             // Transform
             buffer.setRow(element.representative);
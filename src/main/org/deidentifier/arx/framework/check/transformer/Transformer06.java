@@ -72,7 +72,7 @@ public class Transformer06 extends AbstractTransformer {
     @Override
     protected void processGroupify() {
 
-        while (element != null) {
+        for (int i = startIndex; i < stopIndex; i++) {
 
             // Transform
             buffer.setRow(element.representative);
@@ -74,7 +74,7 @@ public class Transformer08 extends AbstractTransformer {
     @Override
     protected void processGroupify() {
 
-        while (element != null) {
+        for (int i = startIndex; i < stopIndex; i++) {
             // Transform
             buffer.setRow(element.representative);
             data.setRow(element.representative);
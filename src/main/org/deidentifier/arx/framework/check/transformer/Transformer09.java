@@ -75,7 +75,7 @@ public class Transformer09 extends AbstractTransformer {
     @Override
     protected void processGroupify() {
 
-        while (element != null) {
+        for (int i = startIndex; i < stopIndex; i++) {
             // Transform
             buffer.setRow(element.representative);
             data.setRow(element.representative);
@@ -80,7 +80,7 @@ public class Transformer14 extends AbstractTransformer {
 
     @Override
     protected void processGroupify() {
-        while (element != null) {
+        for (int i = startIndex; i < stopIndex; i++) {
 
             // Transform
             buffer.setRow(element.representative);
@@ -81,7 +81,7 @@ public class TransformerAll extends AbstractTransformer {
             mHierarchies[i] = hierarchies[i].getArray();
         }
         
-        while (element != null) {
+        for (int i = startIndex; i < stopIndex; i++) {
 
             // Transform
             buffer.setRow(element.representative);
@@ -0,0 +1,195 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.transformer;
+
+import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
+import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.groupify.HashGroupifyEntry;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
+
+/**
+ * A transformer for an arbitrary number of columns, which is used if more columns need to be
+ * transformed than supported by the specialized transformers. In contrast to {@link TransformerAll},
+ * only columns which are not covered by the projection are transformed. Moreover, the hierarchy of
+ * each column is resolved into lookup tables, one per generalization level, which map each value
+ * directly to its generalization. Lookup tables are computed on demand and cached.
+ *
+ * @author Fabian Prasser
+ */
+public class TransformerHighDimensional extends AbstractTransformer {
+
+    /** Lookup tables, indexed by column and generalization level */
+    private final int[][][] lookups;
+
+    /** The columns to transform */
+    private final int[]     transformedColumns;
+
+    /** The lookup tables of the columns to transform */
+    private final int[][]   transformedLookups;
+
+    /** The number of columns to transform */
+    private int             transformedNumberOfColumns;
+
+    /**
+     * Instantiates a new transformer.
+     *
+     * @param data the data
+     * @param hierarchies the hierarchies
+     * @param dataAnalyzed
+     * @param dataAnalyzedNumberOfColumns
+     * @param dictionarySensValue
+     * @param dictionarySensFreq
+     * @param config
+     */
+    public TransformerHighDimensional(final DataMatrix data,
+                                      final GeneralizationHierarchy[] hierarchies,
+                                      final DataMatrix dataAnalyzed,
+                                      final int dataAnalyzedNumberOfColumns,
+                                      final IntArrayDictionary dictionarySensValue,
+                                      final IntArrayDictionary dictionarySensFreq,
+                                      final ARXConfigurationInternal config) {
+        super(data, hierarchies, dataAnalyzed, dataAnalyzedNumberOfColumns, dictionarySensValue, dictionarySensFreq, config);
+        this.lookups = new int[dimensions][][];
+        for (int i = 0; i < dimensions; i++) {
+            this.lookups[i] = new int[hierarchies[i].getLevels()][];
+        }
+        this.transformedColumns = new int[dimensions];
+        this.transformedLookups = new int[dimensions][];
+    }
+
+    @Override
+    public void init(final long projection,
+                     final int[] state,
+                     final HashGroupify groupify,
+                     final HashGroupify source,
+                     final int[] snapshot,
+                     final TransitionType transition,
+                     final int startIndex,
+                     final int stopIndex,
+                     final HashGroupifyEntry element,
+                     final DataMatrix buffer) {
+
+        super.init(projection, state, groupify, source, snapshot, transition, startIndex, stopIndex, element, buffer);
+
+        // Select columns and lookup tables
+        int index = 0;
+        for (int i = 0; i < dimensions; i++) {
+            if ((projection & (1L << i)) == 0) {
+                transformedColumns[index] = i;
+                transformedLookups[index] = getLookup(i, state[i]);
+                index++;
+            }
+        }
+        transformedNumberOfColumns = index;
+    }
+
+    @Override
+    protected void processAll() {
+
+        final int count = transformedNumberOfColumns;
+        final int[] columns = transformedColumns;
+        final int[][] lookups = transformedLookups;
+
+        for (int i = startIndex; i < stopIndex; i++) {
+
+            // Transform
+            buffer.setRow(i);
+            data.setRow(i);
+            for (int j = 0; j < count; j++) {
+                final int column = columns[j];
+                buffer.setValueAtColumn(column, lookups[j][data.getValueAtColumn(column)]);
+            }
+
+            // Call
+            delegate.callAll(i, i);
+        }
+    }
+
+    @Override
+    protected void processGroupify() {
+
+        final int count = transformedNumberOfColumns;
+        final int[] columns = transformedColumns;
+        final int[][] lookups = transformedLookups;
+
+        for (int i = startIndex; i < stopIndex; i++) {
+
+            // Transform
+            buffer.setRow(element.representative);
+            data.setRow(element.representative);
+            for (int j = 0; j < count; j++) {
+                final int column = columns[j];
+                buffer.setValueAtColumn(column, lookups[j][data.getValueAtColumn(column)]);
+            }
+
+            // Call
+            delegate.callGroupify(element.representative, element);
+
+            // Next element
+            element = element.nextOrdered;
+        }
+    }
+
+    @Override
+    protected void processSnapshot() {
+
+        final int count = transformedNumberOfColumns;
+        final int[] columns = transformedColumns;
+        final int[][] lookups = transformedLookups;
+
+        startIndex *= ssStepWidth;
+        stopIndex *= ssStepWidth;
+
+        for (int i = startIndex; i < stopIndex; i += ssStepWidth) {
+
+            // Transform
+            buffer.setRow(snapshot[i]);
+            data.setRow(snapshot[i]);
+            for (int j = 0; j < count; j++) {
+                final int column = columns[j];
+                buffer.setValueAtColumn(column, lookups[j][data.getValueAtColumn(column)]);
+            }
+
+            // Call
+            delegate.callSnapshot(snapshot[i], snapshot, i);
+        }
+    }
+
+    /**
+     * Returns the lookup table for the given column and generalization level
+     *
+     * @param column
+     * @param level
+     * @return
+     */
+    private int[] getLookup(final int column, final int level) {
+        int[] lookup = lookups[column][level];
+        if (lookup == null) {
+            int[][] hierarchy = hierarchies[column].getArray();
+            lookup = new int[hierarchy.length];
+            for (int value = 0; value < hierarchy.length; value++) {
+                lookup[value] = hierarchy[value][level];
+            }
+            lookups[column][level] = lookup;
+        }
+        return lookup;
+    }
+}
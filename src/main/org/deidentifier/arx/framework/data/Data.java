@@ -62,7 +62,7 @@ public class Data implements Cloneable, Serializable {
         }
 
         // Clone matrix
-        DataMatrix matrix = new DataMatrix(data.getNumRows(), columns.length);
+        DataMatrix matrix = DataMatrix.create(data.getNumRows(), columns.length);
         for (int row = 0; row < data.getNumRows(); row++) {
             
             // Prepare row
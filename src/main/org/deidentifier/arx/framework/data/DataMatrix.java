@@ -28,7 +28,49 @@ import java.io.Serializable;
 public class DataMatrix implements Serializable {
 
     /** SVUID */
-    private static final long serialVersionUID = 1626391500373995527L;
+    private static final long    serialVersionUID   = 1626391500373995527L;
+
+    /** Maximal number of cells stored on the heap, can be set via the system property "arx.matrix.offheap.threshold" */
+    private static final long    OFF_HEAP_THRESHOLD = Long.getLong("arx.matrix.offheap.threshold", Integer.MAX_VALUE - 8);
+
+    /** Whether rows may be bit-packed, can be disabled via the system property "arx.matrix.packed" */
+    private static final boolean PACKED             = !"false".equals(System.getProperty("arx.matrix.packed"));
+
+    /**
+     * Creates a new matrix. Matrices with more cells than can be stored in an array, or more cells than
+     * specified by the system property "arx.matrix.offheap.threshold", are stored outside of the Java heap.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     * @return
+     */
+    public static DataMatrix create(final int rows, final int columns) {
+        long cells = (long) rows * (long) columns;
+        if (cells > OFF_HEAP_THRESHOLD) {
+            return new DataMatrixOffHeap(rows, columns);
+        } else {
+            return new DataMatrix(rows, columns);
+        }
+    }
+
+    /**
+     * Creates a new matrix for values from domains of the given sizes. If enabled via the system property
+     * "arx.matrix.packed", which is the default, and if this reduces the memory requirements, rows are bit-packed.
+     *
+     * @param rows the num rows
+     * @param domainSizes the number of distinct values per column
+     * @return
+     */
+    public static DataMatrix create(final int rows, final int[] domainSizes) {
+        long cells = (long) rows * (long) domainSizes.length;
+        if (PACKED && cells <= OFF_HEAP_THRESHOLD) {
+            long words = (long) rows * (long) DataMatrixPacked.getWordsPerRow(domainSizes);
+            if (words * 2L < cells) {
+                return new DataMatrixPacked(rows, domainSizes);
+            }
+        }
+        return create(rows, domainSizes.length);
+    }
 
     /** Backing array */
     private final int[]       array;
@@ -65,6 +107,18 @@ public class DataMatrix implements Serializable {
         }
     }
 
+    /**
+     * Creates a view which is backed by the data of the given matrix.
+     *
+     * @param other
+     * @param rows the number of rows, which may be less than the number of rows of the given matrix
+     */
+    private DataMatrix(final DataMatrix other, final int rows) {
+        this.columns = other.columns;
+        this.rows = rows;
+        this.array = other.array;
+    }
+
     /**
      * ANDs the first value of the row with the given value
      * @param row
@@ -76,8 +130,14 @@ public class DataMatrix implements Serializable {
 
     @Override
     public DataMatrix clone() {
-        DataMatrix result = new DataMatrix(this.rows, this.columns);
-        System.arraycopy(this.array, 0, result.array, 0, this.array.length);
+        DataMatrix result = DataMatrix.create(this.rows, this.columns);
+        if (result.getClass() != DataMatrix.class) {
+            for (int row = 0; row < rows; row++) {
+                result.copyFrom(row, this, row);
+            }
+        } else {
+            System.arraycopy(this.array, 0, result.array, 0, result.array.length);
+        }
         return result;
     }
     
@@ -88,9 +148,15 @@ public class DataMatrix implements Serializable {
      * @param sourceRow
      */
     public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
-        int sourceOffset = sourceRow * columns;
         int thisOffset = row * columns;
-        System.arraycopy(sourceMatrix.array, sourceOffset, this.array, thisOffset, columns);
+        if (sourceMatrix.getClass() == DataMatrix.class) {
+            int sourceOffset = sourceRow * columns;
+            System.arraycopy(sourceMatrix.array, sourceOffset, this.array, thisOffset, columns);
+        } else {
+            for (int column = 0; column < columns; column++) {
+                this.array[thisOffset++] = sourceMatrix.get(sourceRow, column);
+            }
+        }
     }
 
     /**
@@ -262,6 +328,18 @@ public class DataMatrix implements Serializable {
         return rows;
     }
 
+    /**
+     * Returns a matrix which is backed by the same data and consists of the given number of
+     * leading rows. This allows to shrink a matrix, which has been allocated for an upper
+     * bound of the number of rows, without copying it.
+     * @param rows
+     * @return
+     */
+    public DataMatrix getPrefix(int rows) {
+        checkPrefix(rows);
+        return new DataMatrix(this, rows);
+    }
+
     /**
      * Gets the value in the given column for the row which
      * has been set via setRow(row).
@@ -272,18 +350,22 @@ public class DataMatrix implements Serializable {
         return this.array[baseOffset + column];
     }
 
+    /**
+     * Returns a matrix which is backed by the same data but maintains its own row pointer and
+     * iterator. Different threads may use different views to access different rows concurrently.
+     * @return
+     */
+    public DataMatrix getView() {
+        return new DataMatrix(this, rows);
+    }
+
     /**
      * Returns an hashcode for the given row
      * @param row
      * @return
      */
     public int hashCode(final int row) {
-        int offset = row * columns;
-        int result = 23;
-        for (int i = 0; i < columns; i++) {
-            result = (37 * result) + this.array[offset++];
-        }
-        return result;        
+        return hashCode(this.array, row * columns, columns, 23);
     }
 
     /**
@@ -292,23 +374,8 @@ public class DataMatrix implements Serializable {
      * @param array
      * @return the hashcode
      */
-    public final int hashCode(final int[] array) {
-        final int len = array.length;
-        int result = 23;
-        int i = 0;
-        // Do blocks of four ints unrolled.
-        for (; (i + 3) < len; i += 4) {
-            result = (1874161 * result) + // 37 * 37 * 37 * 37 
-                     (50653 * array[i]) + // 37 * 37 * 37
-                     (1369 * array[i + 1]) + // 37 * 37
-                     (37 * array[i + 2]) +
-                     array[i + 3];
-        }
-        // Do the rest
-        for (; i < len; i++) {
-            result = (37 * result) + array[i];
-        }
-        return result;
+    public int hashCode(final int[] array) {
+        return hashCode(array, 0, array.length, 23);
     }
     
     /**
@@ -319,12 +386,11 @@ public class DataMatrix implements Serializable {
      */
     public int hashCodeIgnore(final int row, final int ignore) {
         int offset = row * columns;
-        int result = 23;
-        for (int i = 0; i < columns; i++) {
-            result = (i == ignore) ? result : ((37 * result) + this.array[offset]);
-            offset++;
+        if (ignore < 0 || ignore >= columns) {
+            return hashCode(this.array, offset, columns, 23);
         }
-        return result;        
+        int result = hashCode(this.array, offset, ignore, 23);
+        return hashCode(this.array, offset + ignore + 1, columns - ignore - 1, result);
     }
     
     /**
@@ -428,6 +494,35 @@ public class DataMatrix implements Serializable {
         }
     }
 
+    /**
+     * Continues the computation of a hashcode over the given range of an array. Values are processed in
+     * blocks of four, which are combined using precomputed powers of 37. This yields the same result as
+     * processing one value after the other, but breaks the chain of dependent multiplications, so that
+     * the processor can compute the products of a block in parallel.
+     * 
+     * @param array
+     * @param offset
+     * @param length
+     * @param result
+     * @return the hashcode
+     */
+    static int hashCode(final int[] array, int offset, final int length, int result) {
+        final int end = offset + length;
+        // Do blocks of four ints unrolled.
+        for (; (offset + 3) < end; offset += 4) {
+            result = (1874161 * result) + // 37 * 37 * 37 * 37 
+                     (50653 * array[offset]) + // 37 * 37 * 37
+                     (1369 * array[offset + 1]) + // 37 * 37
+                     (37 * array[offset + 2]) +
+                     array[offset + 3];
+        }
+        // Do the rest
+        for (; offset < end; offset++) {
+            result = (37 * result) + array[offset];
+        }
+        return result;
+    }
+
     /**
      * Internal equals
      * @param row1
@@ -535,6 +630,16 @@ public class DataMatrix implements Serializable {
         return true;
     }
 
+    /**
+     * Checks whether a prefix with the given number of rows can be extracted
+     * @param rows
+     */
+    protected void checkPrefix(int rows) {
+        if (rows < 0 || rows > getNumRows()) {
+            throw new IllegalArgumentException("Invalid number of rows: " + rows);
+        }
+    }
+
     /**
      * Clones only a subset of the records
      * @param subset
@@ -543,14 +648,20 @@ public class DataMatrix implements Serializable {
     protected DataMatrix clone(int[] subset) {
         
         // Create instance
-        DataMatrix result = new DataMatrix(subset.length, this.columns);
+        DataMatrix result = DataMatrix.create(subset.length, this.columns);
         
         // Copy subset
-        int targetOffset = 0;
-        for (int source : subset) {
-            int sourceOffset = source * columns;
-            System.arraycopy(this.array, sourceOffset, result.array, targetOffset, columns);
-            targetOffset += columns;
+        if (result.getClass() != DataMatrix.class) {
+            for (int row = 0; row < subset.length; row++) {
+                result.copyFrom(row, this, subset[row]);
+            }
+        } else {
+            int targetOffset = 0;
+            for (int source : subset) {
+                int sourceOffset = source * columns;
+                System.arraycopy(this.array, sourceOffset, result.array, targetOffset, columns);
+                targetOffset += columns;
+            }
         }
         
         // Return
@@ -0,0 +1,420 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A data matrix which stores its cells outside of the Java heap, in memory-mapped segments
+ * of temporary files. Rows never span segments and the number of rows per segment is a power
+ * of two, so that a cell is addressed with a shift, a mask and a multiplication. The number
+ * of cells is only limited by the address space.
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixOffHeap extends DataMatrix {
+
+    /** SVUID */
+    private static final long       serialVersionUID  = -4327622406436357474L;
+
+    /** Maximal number of cells per segment: 2^28, i.e. 1 GB */
+    private static final int        MAX_SEGMENT_CELLS = 1 << 28;
+
+    /** The segments */
+    private transient IntBuffer[]   segments;
+
+    /** The number of rows. */
+    private final int               rows;
+
+    /** The number of columns. */
+    private final int               columns;
+
+    /** Log2 of the number of rows per segment */
+    private final int               segmentShift;
+
+    /** Mask for the index of a row within its segment */
+    private final int               segmentMask;
+
+    /** Iterate */
+    private transient IntBuffer     iteratorSegment;
+
+    /** Iterate */
+    private int                     iteratorI         = 0;
+
+    /** Iterate */
+    private int                     iteratorOffset    = 0;
+
+    /** Base segment */
+    private transient IntBuffer     baseSegment;
+
+    /** Iterate */
+    private int                     baseOffset        = 0;
+
+    /**
+     * Creates a new instance
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     */
+    public DataMatrixOffHeap(final int rows, final int columns) {
+        super(0, 0);
+        if (columns <= 0 || columns > MAX_SEGMENT_CELLS) {
+            throw new IllegalArgumentException("Invalid number of columns: " + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.segmentShift = 31 - Integer.numberOfLeadingZeros(MAX_SEGMENT_CELLS / columns);
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.segments = allocate();
+    }
+
+    /**
+     * Creates a view which is backed by the segments of the given matrix
+     *
+     * @param other
+     * @param rows the number of rows, which may be less than the number of rows of the given matrix
+     */
+    private DataMatrixOffHeap(final DataMatrixOffHeap other, final int rows) {
+        super(0, 0);
+        this.rows = rows;
+        this.columns = other.columns;
+        this.segmentShift = other.segmentShift;
+        this.segmentMask = other.segmentMask;
+        this.segments = other.segments;
+    }
+
+    @Override
+    public void and(int row, int value) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        segment.put(offset, segment.get(offset) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        DataMatrixOffHeap result = new DataMatrixOffHeap(this.rows, this.columns);
+        for (int i = 0; i < result.segments.length; i++) {
+            IntBuffer target = result.segments[i].duplicate();
+            target.clear();
+            IntBuffer source = segments[i].duplicate();
+            source.clear();
+            source.limit(target.capacity());
+            target.put(source);
+        }
+        return result;
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int column = 0; column < columns; column++) {
+            segment.put(offset + column, sourceMatrix.get(sourceRow, column));
+        }
+    }
+
+    @Override
+    public boolean equals(final int row1, final int row2) {
+        return equals(row1, row2, ~0);
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int i = 0; i < columns; i++) {
+            if (segment.get(offset++) != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        for (int i = 0; i < columns; i++) {
+            if ((ignore != i) && segment1.get(offset1 + i) != segment2.get(offset2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        return this.equals(row1, row2, Data.REMOVE_OUTLIER_MASK);
+    }
+
+    @Override
+    public int get(final int row, final int col) {
+        return segments[row >>> segmentShift].get((row & segmentMask) * columns + col);
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public DataMatrix getPrefix(int rows) {
+        checkPrefix(rows);
+        return new DataMatrixOffHeap(this, rows);
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return baseSegment.get(baseOffset + column);
+    }
+
+    @Override
+    public DataMatrix getView() {
+        return new DataMatrixOffHeap(this, rows);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        return hashCode(segment, offset, columns, 23);
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        if (ignore < 0 || ignore >= columns) {
+            return hashCode(segment, offset, columns, 23);
+        }
+        int result = hashCode(segment, offset, ignore, 23);
+        return hashCode(segment, offset + ignore + 1, columns - ignore - 1, result);
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorSegment = segments[row >>> segmentShift];
+        iteratorOffset = (row & segmentMask) * columns;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        int result = iteratorSegment.get(iteratorOffset++);
+        iteratorI++;
+        return result;
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        iteratorSegment.put(iteratorOffset++, value);
+        iteratorI++;
+    }
+
+    @Override
+    public void or(int row, int value) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        segment.put(offset, segment.get(offset) | value);
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        segments[row >>> segmentShift].put((row & segmentMask) * columns + column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseSegment = segments[row >>> segmentShift];
+        this.baseOffset = (row & segmentMask) * columns;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int i = 0; i < data.length; i++) {
+            segment.put(offset + i, data[i]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        baseSegment.put(baseOffset + column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        for (int index = 0; index < columns; index++) {
+            int temp = segment1.get(offset1);
+            segment1.put(offset1, segment2.get(offset2));
+            segment2.put(offset2, temp);
+            offset1++;
+            offset2++;
+        }
+    }
+
+    /**
+     * Allocates the segments
+     * @return
+     */
+    private IntBuffer[] allocate() {
+
+        // Prepare
+        int rowsPerSegment = 1 << segmentShift;
+        int numSegments = rows == 0 ? 0 : ((rows - 1) >>> segmentShift) + 1;
+        IntBuffer[] result = new IntBuffer[numSegments];
+
+        // Map each segment to a temporary file, which is deleted, if the platform allows this while it is mapped
+        for (int i = 0; i < numSegments; i++) {
+            int segmentRows = Math.min(rowsPerSegment, rows - i * rowsPerSegment);
+            long bytes = (long) segmentRows * (long) columns * 4L;
+            File file = null;
+            try {
+                file = File.createTempFile("arx", ".matrix");
+                file.deleteOnExit();
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(bytes);
+                    FileChannel channel = raf.getChannel();
+                    result[i] = channel.map(MapMode.READ_WRITE, 0, bytes).order(ByteOrder.nativeOrder()).asIntBuffer();
+                } finally {
+                    raf.close();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot allocate off-heap storage", e);
+            } finally {
+                if (file != null) {
+                    file.delete();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Continues the computation of a hashcode over the given range of a buffer, in blocks of four.
+     * See {@link DataMatrix#hashCode(int[], int, int, int)}.
+     * 
+     * @param segment
+     * @param offset
+     * @param length
+     * @param result
+     * @return
+     */
+    private static int hashCode(final IntBuffer segment, int offset, final int length, int result) {
+        final int end = offset + length;
+        for (; (offset + 3) < end; offset += 4) {
+            result = (1874161 * result) +
+                     (50653 * segment.get(offset)) +
+                     (1369 * segment.get(offset + 1)) +
+                     (37 * segment.get(offset + 2)) +
+                     segment.get(offset + 3);
+        }
+        for (; offset < end; offset++) {
+            result = (37 * result) + segment.get(offset);
+        }
+        return result;
+    }
+
+    /**
+     * Internal equals
+     * @param row1
+     * @param row2
+     * @param flag
+     * @return
+     */
+    private boolean equals(int row1, int row2, int flag) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        if ((segment1.get(offset1) & flag) != (segment2.get(offset2) & flag)) {
+            return false;
+        }
+        for (int i = 1; i < columns; i++) {
+            if (segment1.get(offset1 + i) != segment2.get(offset2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * De-serialization
+     * @param stream
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        this.segments = allocate();
+        for (IntBuffer segment : segments) {
+            for (int i = 0; i < segment.capacity(); i++) {
+                segment.put(i, stream.readInt());
+            }
+        }
+    }
+
+    /**
+     * Serialization
+     * @param stream
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+        for (IntBuffer segment : segments) {
+            for (int i = 0; i < segment.capacity(); i++) {
+                stream.writeInt(segment.get(i));
+            }
+        }
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        DataMatrix result = DataMatrix.create(subset.length, this.columns);
+        for (int row = 0; row < subset.length; row++) {
+            result.copyFrom(row, this, subset[row]);
+        }
+        return result;
+    }
+}
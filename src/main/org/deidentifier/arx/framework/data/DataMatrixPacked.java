@@ -0,0 +1,491 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.util.Arrays;
+
+/**
+ * A data matrix which packs each row into a fixed number of longs. Each column occupies
+ * ceil(log2(domain size)) bits, columns never span words. The first column has an additional
+ * bit, which stores the flag represented by Data.OUTLIER_MASK. Comparisons and hash codes
+ * are computed on the packed words. Hash codes are consistent with hashCode(int[]).
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixPacked extends DataMatrix {
+
+    /** SVUID */
+    private static final long serialVersionUID = 2904716473340137640L;
+
+    /**
+     * Returns the number of words per row required to pack rows with the given domain sizes
+     * @param domainSizes
+     * @return
+     */
+    public static int getWordsPerRow(int[] domainSizes) {
+        int words = 1;
+        int used = 0;
+        for (int column = 0; column < domainSizes.length; column++) {
+            int width = getWidth(domainSizes, column);
+            if (used + width > 64) {
+                words++;
+                used = 0;
+            }
+            used += width;
+        }
+        return words;
+    }
+
+    /**
+     * Returns the number of bits required for the given column
+     * @param domainSizes
+     * @param column
+     * @return
+     */
+    private static int getWidth(int[] domainSizes, int column) {
+        int width = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(domainSizes[column] - 1, 0)));
+        return column == 0 ? width + 1 : width;
+    }
+
+    /** Backing array */
+    private final long[]      array;
+
+    /** The number of rows. */
+    private final int         rows;
+
+    /** The number of columns. */
+    private final int         columns;
+
+    /** The number of words per row */
+    private final int         stride;
+
+    /** Word of each column */
+    private final int[]       columnWord;
+
+    /** Shift of each column */
+    private final int[]       columnShift;
+
+    /** Unshifted mask of each column */
+    private final long[]      columnMask;
+
+    /** Mask of the outlier flag of the first column, unshifted */
+    private final long        outlierFlag;
+
+    /** Mask of the outlier flag in the first word */
+    private final long        outlierMask;
+
+    /** Iterate */
+    private int               iteratorI        = 0;
+
+    /** Iterate */
+    private int               iteratorOffset   = 0;
+
+    /** Iterate */
+    private int               baseOffset       = 0;
+
+    /**
+     * Creates a new instance
+     *
+     * @param rows the num rows
+     * @param domainSizes the number of distinct values per column
+     */
+    public DataMatrixPacked(final int rows, final int[] domainSizes) {
+        super(0, 0);
+
+        // Check
+        for (int domainSize : domainSizes) {
+            if (domainSize < 0) {
+                throw new IllegalArgumentException("Invalid domain size: " + domainSize);
+            }
+        }
+
+        // Layout
+        this.rows = rows;
+        this.columns = domainSizes.length;
+        this.columnWord = new int[columns];
+        this.columnShift = new int[columns];
+        this.columnMask = new long[columns];
+        int word = 0;
+        int used = 0;
+        for (int column = 0; column < columns; column++) {
+            int width = getWidth(domainSizes, column);
+            if (used + width > 64) {
+                word++;
+                used = 0;
+            }
+            this.columnWord[column] = word;
+            this.columnShift[column] = used;
+            this.columnMask[column] = width == 64 ? ~0L : (1L << width) - 1L;
+            used += width;
+        }
+        this.stride = word + 1;
+        this.outlierFlag = columns == 0 ? 0L : (columnMask[0] >>> 1) + 1L;
+        this.outlierMask = outlierFlag << (columns == 0 ? 0 : columnShift[0]);
+
+        // Allocate
+        try {
+            this.array = new long[Math.multiplyExact(rows, stride)];
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not more then 2^31-1 words supported");
+        }
+    }
+
+    /**
+     * Copy constructor with a different number of rows
+     * @param other
+     * @param rows
+     */
+    private DataMatrixPacked(DataMatrixPacked other, int rows) {
+        this(other, rows, new long[rows * other.stride]);
+    }
+
+    /**
+     * Creates a matrix with the layout of the given matrix, which is backed by the given array
+     * @param other
+     * @param rows
+     * @param array
+     */
+    private DataMatrixPacked(DataMatrixPacked other, int rows, long[] array) {
+        super(0, 0);
+        this.rows = rows;
+        this.columns = other.columns;
+        this.stride = other.stride;
+        this.columnWord = other.columnWord;
+        this.columnShift = other.columnShift;
+        this.columnMask = other.columnMask;
+        this.outlierFlag = other.outlierFlag;
+        this.outlierMask = other.outlierMask;
+        this.array = array;
+    }
+
+    @Override
+    public void and(int row, int value) {
+        set(row, 0, get(row, 0) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        DataMatrixPacked result = new DataMatrixPacked(this, this.rows);
+        System.arraycopy(this.array, 0, result.array, 0, result.array.length);
+        return result;
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        if (isSameLayout(sourceMatrix)) {
+            System.arraycopy(((DataMatrixPacked) sourceMatrix).array, sourceRow * stride, this.array, row * stride, stride);
+        } else {
+            for (int column = 0; column < columns; column++) {
+                set(row, column, sourceMatrix.get(sourceRow, column));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(final int row1, final int row2) {
+        int offset1 = row1 * stride;
+        int offset2 = row2 * stride;
+        switch (stride) {
+        case 1:
+            return array[offset1] == array[offset2];
+        case 2:
+            return array[offset1] == array[offset2] && array[offset1 + 1] == array[offset2 + 1];
+        default:
+            for (int i = 0; i < stride; i++) {
+                if (array[offset1 + i] != array[offset2 + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        int offset = row * stride;
+        long word = 0L;
+        int index = 0;
+        for (int column = 0; column < columns; column++) {
+            if (columnWord[column] != index) {
+                if (array[offset + index] != word) {
+                    return false;
+                }
+                word = 0L;
+                index++;
+            }
+            word |= encode(column, data[column]);
+        }
+        return array[offset + index] == word;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        int offset1 = row1 * stride;
+        int offset2 = row2 * stride;
+        int ignoreWord = columnWord[ignore];
+        long ignoreMask = ~(columnMask[ignore] << columnShift[ignore]);
+        for (int i = 0; i < stride; i++) {
+            long mask = i == ignoreWord ? ignoreMask : ~0L;
+            if (((array[offset1 + i] ^ array[offset2 + i]) & mask) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        int offset1 = row1 * stride;
+        int offset2 = row2 * stride;
+        if (((array[offset1] ^ array[offset2]) & ~outlierMask) != 0L) {
+            return false;
+        }
+        for (int i = 1; i < stride; i++) {
+            if (array[offset1 + i] != array[offset2 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int get(final int row, final int col) {
+        return decode(col, array[row * stride + columnWord[col]]);
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public DataMatrix getPrefix(int rows) {
+        checkPrefix(rows);
+        return new DataMatrixPacked(this, rows, array);
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return decode(column, array[baseOffset + columnWord[column]]);
+    }
+
+    @Override
+    public DataMatrix getView() {
+        return new DataMatrixPacked(this, rows, array);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        int offset = row * stride;
+        switch (stride) {
+        case 1:
+            return fold(23, array[offset]);
+        case 2:
+            return fold(fold(23, array[offset]), array[offset + 1]);
+        default:
+            int result = 23;
+            for (int i = 0; i < stride; i++) {
+                result = fold(result, array[offset + i]);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public int hashCode(final int[] data) {
+        int result = 23;
+        long word = 0L;
+        int index = 0;
+        for (int column = 0; column < columns; column++) {
+            if (columnWord[column] != index) {
+                result = fold(result, word);
+                word = 0L;
+                index++;
+            }
+            word |= encode(column, data[column]);
+        }
+        return fold(result, word);
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        int offset = row * stride;
+        int ignoreWord = columnWord[ignore];
+        long ignoreMask = ~(columnMask[ignore] << columnShift[ignore]);
+        int result = 23;
+        for (int i = 0; i < stride; i++) {
+            long word = array[offset + i];
+            result = fold(result, i == ignoreWord ? word & ignoreMask : word);
+        }
+        return result;
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorOffset = row * stride;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        int result = decode(iteratorI, array[iteratorOffset + columnWord[iteratorI]]);
+        iteratorI++;
+        return result;
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        write(iteratorOffset, iteratorI, value);
+        iteratorI++;
+    }
+
+    @Override
+    public void or(int row, int value) {
+        set(row, 0, get(row, 0) | value);
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        write(row * stride, column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseOffset = row * stride;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        int offset = row * stride;
+        Arrays.fill(array, offset, offset + stride, 0L);
+        for (int column = 0; column < data.length; column++) {
+            array[offset + columnWord[column]] |= encode(column, data[column]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        write(baseOffset, column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        int offset1 = row1 * stride;
+        int offset2 = row2 * stride;
+        for (int i = 0; i < stride; i++) {
+            long temp = array[offset1];
+            array[offset1] = array[offset2];
+            array[offset2] = temp;
+            offset1++;
+            offset2++;
+        }
+    }
+
+    /**
+     * Decodes the value of the given column from the given word
+     * @param column
+     * @param word
+     * @return
+     */
+    private int decode(int column, long word) {
+        long field = (word >>> columnShift[column]) & columnMask[column];
+        if (column == 0 && (field & outlierFlag) != 0L) {
+            return (int) (field & ~outlierFlag) | Data.OUTLIER_MASK;
+        }
+        return (int) field;
+    }
+
+    /**
+     * Encodes the value of the given column, shifted to its position within its word
+     * @param column
+     * @param value
+     * @return
+     * @throws IllegalArgumentException if the value does not fit into the column
+     */
+    private long encode(int column, int value) {
+        long field = column == 0 ? value & Data.REMOVE_OUTLIER_MASK : value;
+        long mask = column == 0 ? columnMask[0] >>> 1 : columnMask[column];
+        if ((field & ~mask) != 0L) {
+            throw new IllegalArgumentException("Value " + value + " does not fit into column " + column);
+        }
+        if (column == 0 && (value & Data.OUTLIER_MASK) != 0) {
+            field |= outlierFlag;
+        }
+        return field << columnShift[column];
+    }
+
+    /**
+     * Folds a word into a hash code. The word is mixed first, as the lower bits, which
+     * are used to address hash buckets, otherwise only depend on the first columns.
+     * @param result
+     * @param word
+     * @return
+     */
+    private int fold(int result, long word) {
+        word *= 0x9E3779B97F4A7C15L;
+        return (37 * result) + (int) (word ^ (word >>> 32));
+    }
+
+    /**
+     * Returns whether the given matrix is packed with the same layout
+     * @param other
+     * @return
+     */
+    private boolean isSameLayout(DataMatrix other) {
+        if (!(other instanceof DataMatrixPacked)) {
+            return false;
+        }
+        DataMatrixPacked packed = (DataMatrixPacked) other;
+        return packed.columnWord == this.columnWord ||
+               (Arrays.equals(packed.columnWord, this.columnWord) &&
+                Arrays.equals(packed.columnShift, this.columnShift) &&
+                Arrays.equals(packed.columnMask, this.columnMask));
+    }
+
+    /**
+     * Writes a value
+     * @param offset of the row
+     * @param column
+     * @param value
+     */
+    private void write(int offset, int column, int value) {
+        int index = offset + columnWord[column];
+        array[index] = (array[index] & ~(columnMask[column] << columnShift[column])) | encode(column, value);
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        DataMatrixPacked result = new DataMatrixPacked(this, subset.length);
+        int targetOffset = 0;
+        for (int source : subset) {
+            System.arraycopy(this.array, source * stride, result.array, targetOffset, stride);
+            targetOffset += stride;
+        }
+        return result;
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.deidentifier.arx.framework.data;
 
+import java.util.Arrays;
+
 /**
  * A subset of a data matrix
  * 
@@ -83,11 +85,22 @@ public class DataMatrixSubset extends DataMatrix {
         return subset.length;
     }
 
+    @Override
+    public DataMatrix getPrefix(int rows) {
+        checkPrefix(rows);
+        return new DataMatrixSubset(matrix, Arrays.copyOf(subset, rows));
+    }
+
     @Override
     public int getValueAtColumn(int column) {
         return matrix.getValueAtColumn(column);
     }
 
+    @Override
+    public DataMatrix getView() {
+        return new DataMatrixSubset(matrix == null ? null : matrix.getView(), subset);
+    }
+
     @Override
     public int hashCode(int row) {
         return matrix.hashCode(subset[row]);
@@ -0,0 +1,264 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.lattice;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.deidentifier.arx.RowSet;
+import org.deidentifier.arx.framework.data.DataMatrix;
+
+/**
+ * A checkpoint, which persists the state of a search through the solution space to a file,
+ * from which an interrupted search can be resumed. The checkpoint consists of all properties,
+ * information loss values and lower bounds of transformations that have already been evaluated
+ * as well as of the global optimum found so far. Files are replaced atomically, if supported
+ * by the file system, so that a crash while writing does not destroy the previous checkpoint.<br>
+ * <br>
+ * Moreover, a checkpoint may contain a baseline, i.e. a snapshot of the bottom transformation.
+ * If records have been appended to the data since the checkpoint has been written, the state of
+ * the search is outdated and all transformations must be checked again. The baseline can then be
+ * extended with the appended records, which allows to check transformations without processing
+ * all records.
+ * 
+ * @author Fabian Prasser
+ */
+public class Checkpoint {
+
+    /** Magic number */
+    private static final int MAGIC     = 0x41525843;
+
+    /** Version of the file format */
+    private static final int VERSION   = 4;
+
+    /** The file */
+    private final File       file;
+
+    /** The minimal number of milliseconds between two checkpoints */
+    private final long       interval;
+
+    /** The attributes of the data, used to detect checkpoints created for other data */
+    private final String[]   header;
+
+    /** Fingerprint of the configuration, used to detect checkpoints created with other settings */
+    private final long       configuration;
+
+    /** The data */
+    private final DataMatrix data;
+
+    /** The analyzed data, may be null */
+    private final DataMatrix analyzed;
+
+    /** The research subset, may be null */
+    private final RowSet     subset;
+
+    /** The number of records */
+    private final int        rows;
+
+    /** Fingerprint of all records, computed when needed */
+    private Long             fingerprint;
+
+    /** The baseline read from the checkpoint, if any */
+    private int[]            baseline;
+
+    /** The number of records covered by the baseline */
+    private int              baselineRows;
+
+    /** The time at which the last checkpoint has been written */
+    private long             timestamp = System.currentTimeMillis();
+
+    /**
+     * Creates a new instance
+     * @param file
+     * @param interval The minimal number of milliseconds between two checkpoints
+     * @param header The quasi-identifiers of the data
+     * @param data The encoded quasi-identifiers
+     * @param analyzed The encoded sensitive and other analyzed attributes, may be null
+     * @param subset The research subset, may be null
+     * @param configuration Fingerprint of the privacy models, suppression limit, quality model and hierarchies
+     */
+    public Checkpoint(File file, long interval, String[] header, DataMatrix data, DataMatrix analyzed, RowSet subset, long configuration) {
+        this.file = file;
+        this.interval = interval;
+        this.header = header.clone();
+        this.data = data;
+        this.analyzed = analyzed;
+        this.subset = subset;
+        this.configuration = configuration;
+        this.rows = data.getNumRows();
+    }
+
+    /**
+     * Returns the baseline read from the checkpoint, if any
+     * @return
+     */
+    public int[] getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * Returns the number of records covered by the baseline read from the checkpoint
+     * @return
+     */
+    public int getBaselineRows() {
+        return baselineRows;
+    }
+
+    /**
+     * Returns the file
+     * @return
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns whether the next checkpoint should be written
+     * @return
+     */
+    public boolean isDue() {
+        return System.currentTimeMillis() - timestamp >= interval;
+    }
+
+    /**
+     * Restores the state of the given solution space from the checkpoint. Returns the
+     * global optimum contained in the checkpoint, null if none has been found. If records
+     * have been appended to the data since the checkpoint has been written, only the
+     * baseline is restored and null is returned.
+     * 
+     * @param solutionSpace
+     * @return
+     * @throws IOException
+     */
+    public Transformation read(SolutionSpace solutionSpace) throws IOException {
+        
+        ObjectInputStream input = null;
+        try {
+            
+            // Check header
+            input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            int rows = input.readInt();
+            long fingerprint = input.readLong();
+            boolean appended = rows < this.rows;
+            if (!Arrays.equals(header, (String[]) input.readObject()) || rows > this.rows ||
+                (!appended && fingerprint != getFingerprint(rows))) {
+                throw new IllegalArgumentException("Checkpoint has been created for different data");
+            }
+            if (input.readLong() != configuration) {
+                throw new IllegalArgumentException("Checkpoint has been created with a different configuration");
+            }
+            
+            // Read baseline, which can only be used if the leading records are unchanged
+            int[] baseline = (int[]) input.readObject();
+            if (!appended || fingerprint == getFingerprint(rows)) {
+                this.baseline = baseline;
+                this.baselineRows = rows;
+            }
+            if (appended) {
+                return null;
+            }
+            
+            // Read solution space
+            solutionSpace.read(input);
+            
+            // Read optimum
+            long optimum = input.readLong();
+            return optimum == -1L ? null : solutionSpace.getTransformation(optimum);
+            
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            if (input != null) {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the state of the given solution space, the given optimum and the given baseline to the checkpoint
+     * 
+     * @param solutionSpace
+     * @param optimum May be null
+     * @param baseline May be null
+     * @throws IOException
+     */
+    public void write(SolutionSpace solutionSpace, Transformation optimum, int[] baseline) throws IOException {
+        
+        // Write to a temporary file
+        File temp = new File(file.getPath() + ".tmp");
+        ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(rows);
+            if (fingerprint == null) {
+                fingerprint = getFingerprint(rows);
+            }
+            output.writeLong(fingerprint);
+            output.writeObject(header);
+            output.writeLong(configuration);
+            output.writeObject(baseline);
+            solutionSpace.write(output);
+            output.writeLong(optimum == null ? -1L : optimum.getIdentifier());
+        } finally {
+            output.close();
+        }
+        
+        // Replace previous checkpoint
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns a fingerprint of the given number of leading records, covering quasi-identifiers,
+     * analyzed attributes and membership in the research subset
+     * 
+     * @param rows
+     * @return
+     */
+    private long getFingerprint(int rows) {
+        long result = rows;
+        for (int row = 0; row < rows; row++) {
+            result = 31L * result + data.hashCode(row);
+            if (analyzed != null) {
+                result = 31L * result + analyzed.hashCode(row);
+            }
+            if (subset != null) {
+                result = 31L * result + (subset.contains(row) ? 1 : 0);
+            }
+        }
+        return result;
+    }
+}
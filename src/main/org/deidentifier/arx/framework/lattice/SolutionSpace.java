@@ -17,6 +17,11 @@
 
 package org.deidentifier.arx.framework.lattice;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.Monotonicity;
 import org.deidentifier.arx.ARXLattice;
@@ -24,7 +29,11 @@ import org.deidentifier.arx.ARXLattice.ARXNode;
 import org.deidentifier.arx.ARXLattice.Anonymity;
 import org.deidentifier.arx.metric.InformationLoss;
 
+import cern.colt.list.IntArrayList;
+import cern.colt.list.LongArrayList;
+
 import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
 
 import de.linearbits.jhpl.JHPLIterator.LongIterator;
 import de.linearbits.jhpl.Lattice;
@@ -32,7 +41,8 @@ import de.linearbits.jhpl.PredictiveProperty;
 import de.linearbits.jhpl.PredictiveProperty.Direction;
 
 /**
- * A class representing the solution space
+ * A class representing the solution space. Access to properties and associated data is synchronized,
+ * to allow concurrent checks to read from the solution space while it is being updated.
  * @author Fabian Prasser
  */
 public class SolutionSpace {
@@ -314,7 +324,7 @@ public class SolutionSpace {
      * @param identifier
      * @return
      */
-    public InformationLoss<?> getUtility(long identifier) {
+    public synchronized InformationLoss<?> getUtility(long identifier) {
         return utility.getOrDefault(identifier, null);
     }
     
@@ -324,7 +334,7 @@ public class SolutionSpace {
      * @param property
      * @return
      */
-    public boolean hasProperty(int[] transformation, PredictiveProperty property) {
+    public synchronized boolean hasProperty(int[] transformation, PredictiveProperty property) {
         int[] index = toJHPL(transformation);
         int level = getLevel(index);
         return lattice.hasProperty(index, level, property);
@@ -363,6 +373,50 @@ public class SolutionSpace {
         return true;
     }
 
+    /**
+     * Restores the properties, information loss values and lower bounds of transformations
+     * from the given stream, which has been created with {@link #write(ObjectOutputStream)}.
+     * Properties that only reflect the progress of a traversal, such as "visited", are not
+     * contained in the stream.
+     * 
+     * @param input
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public synchronized void read(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        
+        // Check structure
+        if (!Arrays.equals(getBottom().getGeneralization(), (int[]) input.readObject()) ||
+            !Arrays.equals(getTop().getGeneralization(), (int[]) input.readObject())) {
+            throw new IllegalArgumentException("Checkpoint does not match the solution space");
+        }
+        
+        // Properties
+        PredictiveProperty[] properties = getPersistentProperties();
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            long id = input.readLong();
+            int mask = input.readInt();
+            int[] index = lattice.space().toIndex(id);
+            int level = getLevel(index);
+            for (int j = 0; j < properties.length; j++) {
+                if ((mask & (1 << j)) != 0) {
+                    lattice.putProperty(index, level, properties[j]);
+                }
+            }
+        }
+        
+        // Information loss and lower bounds
+        count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            utility.put(input.readLong(), (InformationLoss<?>) input.readObject());
+        }
+        count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            lowerBound.put(input.readLong(), (InformationLoss<?>) input.readObject());
+        }
+    }
+
     /**
      * Makes the anonymity property predictable
      * @param predictable
@@ -394,6 +448,73 @@ public class SolutionSpace {
         return lattice.unsafe().listAllNodesAsIdentifiers(toJHPL(level));
     }
 
+    /**
+     * Writes the properties, information loss values and lower bounds of all transformations
+     * to the given stream.
+     * 
+     * @param output
+     * @throws IOException
+     */
+    public synchronized void write(ObjectOutputStream output) throws IOException {
+        
+        // Structure
+        output.writeObject(getBottom().getGeneralization());
+        output.writeObject(getTop().getGeneralization());
+        
+        // Collect properties
+        PredictiveProperty[] properties = getPersistentProperties();
+        LongArrayList identifiers = new LongArrayList();
+        IntArrayList masks = new IntArrayList();
+        for (LongIterator iterator = lattice.listNodesAsIdentifiers(); iterator.hasNext();) {
+            long id = iterator.next();
+            int[] index = lattice.space().toIndex(id);
+            int level = getLevel(index);
+            int mask = 0;
+            for (int j = 0; j < properties.length; j++) {
+                if (lattice.hasProperty(index, level, properties[j])) {
+                    mask |= 1 << j;
+                }
+            }
+            if (mask != 0) {
+                identifiers.add(id);
+                masks.add(mask);
+            }
+        }
+        
+        // Properties
+        output.writeInt(identifiers.size());
+        for (int i = 0; i < identifiers.size(); i++) {
+            output.writeLong(identifiers.get(i));
+            output.writeInt(masks.get(i));
+        }
+        
+        // Information loss and lower bounds
+        output.writeInt(utility.size());
+        for (LongObjectCursor<InformationLoss<?>> cursor : utility) {
+            output.writeLong(cursor.key);
+            output.writeObject(cursor.value);
+        }
+        output.writeInt(lowerBound.size());
+        for (LongObjectCursor<InformationLoss<?>> cursor : lowerBound) {
+            output.writeLong(cursor.key);
+            output.writeObject(cursor.value);
+        }
+    }
+
+    /**
+     * Returns the properties which are persisted by checkpoints
+     * @return
+     */
+    private PredictiveProperty[] getPersistentProperties() {
+        return new PredictiveProperty[] { propertyChecked,
+                                          propertyAnonymous,
+                                          propertyNotAnonymous,
+                                          propertyKAnonymous,
+                                          propertyNotKAnonymous,
+                                          propertyInsufficientUtility,
+                                          propertySuccessorsPruned };
+    }
+
     /**
      * Reverses the given array
      * @param input
@@ -415,6 +536,27 @@ public class SolutionSpace {
         setAnonymityPropertyPredictable(config.getMonotonicityOfPrivacy() == Monotonicity.FULL);
     }
 
+    /**
+     * Returns whether the node with the given JHPL index has a given property
+     * @param index
+     * @param level
+     * @param property
+     * @return
+     */
+    protected synchronized boolean hasProperty(int[] index, int level, PredictiveProperty property) {
+        return lattice.hasProperty(index, level, property);
+    }
+
+    /**
+     * Sets a property for the node with the given JHPL index
+     * @param index
+     * @param level
+     * @param property
+     */
+    protected synchronized void putProperty(int[] index, int level, PredictiveProperty property) {
+        lattice.putProperty(index, level, property);
+    }
+
     /**
      * Internal method that adds the offset
      * @param level
@@ -442,7 +584,7 @@ public class SolutionSpace {
      * @param id
      * @return
      */
-    protected Object getData(long id) {
+    protected synchronized Object getData(long id) {
         return data.getOrDefault(id, null);
     }
     
@@ -452,7 +594,7 @@ public class SolutionSpace {
      * @param identifier
      * @return
      */
-    protected InformationLoss<?> getInformationLoss(long identifier) {
+    protected synchronized InformationLoss<?> getInformationLoss(long identifier) {
         return utility.getOrDefault(identifier, null);
     }
     
@@ -461,7 +603,7 @@ public class SolutionSpace {
      * @param identifier
      * @return
      */
-    protected InformationLoss<?> getLowerBound(long identifier) {
+    protected synchronized InformationLoss<?> getLowerBound(long identifier) {
         return lowerBound.getOrDefault(identifier, null);
     }
 
@@ -470,7 +612,7 @@ public class SolutionSpace {
      * @param id
      * @param object
      */
-    protected void setData(long id, Object object) {
+    protected synchronized void setData(long id, Object object) {
         data.put(id, object);
     }
 
@@ -479,7 +621,7 @@ public class SolutionSpace {
      * @param identifier
      * @param loss
      */
-    protected void setInformationLoss(long identifier, InformationLoss<?> loss) {
+    protected synchronized void setInformationLoss(long identifier, InformationLoss<?> loss) {
         utility.put(identifier, loss);
     }
 
@@ -488,7 +630,7 @@ public class SolutionSpace {
      * @param identifier
      * @param loss
      */
-    protected void setLowerBound(long identifier, InformationLoss<?> loss) {
+    protected synchronized void setLowerBound(long identifier, InformationLoss<?> loss) {
         lowerBound.put(identifier, loss);
     }
 
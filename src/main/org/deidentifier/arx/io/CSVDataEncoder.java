@@ -0,0 +1,623 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+
+/**
+ * Reads a CSV file with multiple threads and encodes it directly into a dictionary and a data matrix,
+ * without materializing records as strings. The file is split into ranges of bytes which start after
+ * line breaks that are not enclosed in quotes. Ranges are parsed and encoded into local dictionaries
+ * concurrently, which are then merged in the order of the ranges. As a consequence, the resulting
+ * codes are identical to the codes assigned when reading the file sequentially.<br>
+ * <br>
+ * While splitting the file, the line breaks outside of quotes are counted, which bounds the number
+ * of records in each range. Ranges are encoded directly into a data matrix allocated for this bound,
+ * and the matrix is compacted and shrunk afterwards, so that no additional copy of the data is required.<br>
+ * <br>
+ * Files are only split if they use a charset in which line breaks and quotes are encoded as single bytes
+ * that do not occur otherwise, and if quotes are escaped by doubling them. Other files are read by one thread.
+ * Moreover, quotes must only be used for enclosing values, as specified in RFC 4180. Files which are
+ * not split are encoded into a buffer first, which is then copied into the data matrix.
+ *
+ * @author Fabian Prasser
+ */
+public class CSVDataEncoder {
+
+    /**
+     * A range of the file and its encoded content
+     *
+     * @author Fabian Prasser
+     */
+    private static class Chunk {
+
+        /** First byte */
+        private final long   start;
+        /** Last byte, exclusive */
+        private final long   end;
+        /** Maximal number of records, -1 if unknown */
+        private final long   capacity;
+        /** First row in the data matrix, if the capacity is known */
+        private int          offset;
+        /** Number of records */
+        private int          rows;
+        /** Local dictionary */
+        private Dictionary   dictionary;
+        /** Local codes, row by row, if the capacity is unknown */
+        private IntArrayList codes;
+
+        /**
+         * Creates a new instance
+         * @param start
+         * @param end
+         * @param capacity
+         */
+        private Chunk(long start, long end, long capacity) {
+            this.start = start;
+            this.end = end;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * An input stream reading a range of bytes from a file
+     *
+     * @author Fabian Prasser
+     */
+    private static class RangeInputStream extends InputStream {
+
+        /** File */
+        private final RandomAccessFile file;
+        /** Channel */
+        private final FileChannel      channel;
+        /** Position */
+        private long                   position;
+        /** End, exclusive */
+        private final long             end;
+
+        /**
+         * Creates a new instance
+         * @param file
+         * @param start
+         * @param end
+         * @throws IOException
+         */
+        private RangeInputStream(File file, long start, long end) throws IOException {
+            this.file = new RandomAccessFile(file, "r");
+            this.channel = this.file.getChannel();
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            return read(buffer, 0, 1) == -1 ? -1 : buffer[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            length = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, length), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+
+    /** Minimal number of bytes per range */
+    private static final long       MIN_BYTES_PER_CHUNK = 1L << 20;
+
+    /** Maximal number of bytes per range */
+    private static final long       MAX_BYTES_PER_CHUNK = 64L << 20;
+
+    /** File */
+    private final File              file;
+
+    /** Charset */
+    private final Charset           charset;
+
+    /** Settings */
+    private final CsvParserSettings settings;
+
+    /** Quote */
+    private final char              quote;
+
+    /** Line break */
+    private final char              linebreak;
+
+    /** Whether the file may be split */
+    private final boolean           splittable;
+
+    /** Number of threads */
+    private final int               threads;
+
+    /** Header */
+    private String[]                header;
+
+    /** Dictionary */
+    private Dictionary              dictionary;
+
+    /** Data */
+    private DataMatrix              data;
+
+    /**
+     * Creates a new instance
+     *
+     * @param file
+     * @param charset
+     * @param config
+     * @param options May be null
+     * @param threads
+     */
+    public CSVDataEncoder(final File file, final Charset charset, final CSVSyntax config, final CSVOptions options, final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.file = file;
+        this.charset = charset;
+        this.threads = threads;
+        this.quote = config.getQuote();
+        this.linebreak = config.getLinebreak()[config.getLinebreak().length - 1];
+        this.settings = CSVDataInput.createSettings(config.getDelimiter(),
+                                                    config.getQuote(),
+                                                    config.getEscape(),
+                                                    config.getLinebreak(),
+                                                    options);
+        this.splittable = config.getEscape() == config.getQuote() &&
+                          (charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1f) &&
+                          Arrays.equals(new String(new char[] { quote, linebreak }).getBytes(charset),
+                                        new byte[] { (byte) quote, (byte) linebreak });
+    }
+
+    /**
+     * Reads and encodes the file
+     *
+     * @throws IOException
+     */
+    public void encode() throws IOException {
+
+        // Header
+        CsvParser parser = new CsvParser(settings);
+        parser.beginParsing(new InputStreamReader(new RangeInputStream(file, 0, file.length()), charset));
+        this.header = parser.parseNext();
+        parser.stopParsing();
+        if (this.header == null) {
+            throw new IllegalArgumentException("Data object is empty!");
+        }
+
+        // Split
+        long length = file.length();
+        long size = Math.max(MIN_BYTES_PER_CHUNK, Math.min(MAX_BYTES_PER_CHUNK, length / (threads * 4)));
+        final List<Chunk> chunks = splittable ? getChunks(length, size) : getChunks(length);
+
+        // Reserve rows for the maximal number of records of each range, if known
+        this.data = null;
+        if (splittable) {
+            long capacity = 0;
+            for (Chunk chunk : chunks) {
+                if (capacity + chunk.capacity > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Not more than 2^31-1 records supported");
+                }
+                chunk.offset = (int) capacity;
+                capacity += chunk.capacity;
+            }
+            this.data = DataMatrix.create((int) capacity, header.length);
+        }
+
+        // Encode sequentially
+        this.dictionary = new Dictionary(header.length);
+        if (threads == 1 || chunks.size() == 1) {
+            for (int i = 0; i < chunks.size(); i++) {
+                encode(chunks.get(i), i == 0);
+                merge(chunks.get(i));
+            }
+
+        // Encode in parallel
+        } else {
+            ExecutorService executor = getExecutor(chunks.size());
+            try {
+                List<Future<Chunk>> futures = new ArrayList<>();
+                for (int i = 0; i < chunks.size(); i++) {
+                    final Chunk chunk = chunks.get(i);
+                    final boolean first = i == 0;
+                    futures.add(executor.submit(new Callable<Chunk>() {
+                        @Override
+                        public Chunk call() throws IOException {
+                            encode(chunk, first);
+                            return chunk;
+                        }
+                    }));
+                }
+                for (Future<Chunk> future : futures) {
+                    merge(get(future));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        // Build matrix
+        int rows = 0;
+        for (Chunk chunk : chunks) {
+            rows += chunk.rows;
+        }
+        if (this.data == null) {
+            copy(chunks, rows);
+        } else {
+            compact(chunks, rows);
+        }
+
+        // Finalize dictionary
+        this.dictionary.finalizeAll();
+    }
+
+    /**
+     * Moves the records of all ranges to the beginning of the matrix, which is then shrunk
+     *
+     * @param chunks
+     * @param rows
+     */
+    private void compact(List<Chunk> chunks, int rows) {
+        int row = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.offset != row) {
+                for (int i = 0; i < chunk.rows; i++) {
+                    this.data.copyFrom(row + i, this.data, chunk.offset + i);
+                }
+            }
+            row += chunk.rows;
+        }
+        if (rows < this.data.getNumRows()) {
+            this.data = this.data.getPrefix(rows);
+        }
+    }
+
+    /**
+     * Creates the matrix and copies the buffered records of all ranges into it. Buffers are released
+     * as soon as they have been copied.
+     *
+     * @param chunks
+     * @param rows
+     */
+    private void copy(List<Chunk> chunks, int rows) {
+        this.data = DataMatrix.create(rows, header.length);
+        int row = 0;
+        int[] tuple = new int[header.length];
+        for (Chunk chunk : chunks) {
+            int[] codes = chunk.codes.buffer;
+            int count = chunk.codes.size();
+            chunk.codes = null;
+            for (int offset = 0; offset < count; offset += tuple.length) {
+                System.arraycopy(codes, offset, tuple, 0, tuple.length);
+                this.data.setRow(row++, tuple);
+            }
+        }
+    }
+
+    /**
+     * Returns the encoded data
+     *
+     * @return
+     */
+    public DataMatrix getData() {
+        return data;
+    }
+
+    /**
+     * Returns the dictionary
+     *
+     * @return
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the header
+     *
+     * @return
+     */
+    public String[] getHeader() {
+        return header;
+    }
+
+    /**
+     * Parses and encodes the given range into a local dictionary. The records are stored in the
+     * rows of the matrix reserved for the range, if any, and buffered otherwise.
+     *
+     * @param chunk
+     * @param first
+     * @throws IOException
+     */
+    private void encode(Chunk chunk, boolean first) throws IOException {
+
+        // Prepare
+        chunk.dictionary = new Dictionary(header.length);
+        DataMatrix matrix = chunk.capacity == -1 ? null : this.data.getView();
+        if (matrix == null) {
+            chunk.codes = new IntArrayList();
+        }
+        int[] tuple = new int[header.length];
+        CsvParser parser = new CsvParser(settings);
+        parser.beginParsing(new InputStreamReader(new RangeInputStream(file, chunk.start, chunk.end), charset));
+
+        // Skip header
+        if (first) {
+            parser.parseNext();
+        }
+
+        // Encode
+        String[] strings;
+        while ((strings = parser.parseNext()) != null) {
+            for (int i = 0; i < header.length; i++) {
+                String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
+                value = (value != null) ? value : DataType.NULL_VALUE;
+                tuple[i] = chunk.dictionary.register(i, value);
+            }
+            if (matrix == null) {
+                chunk.codes.add(tuple, 0, tuple.length);
+            } else {
+                if (chunk.rows == chunk.capacity) {
+                    parser.stopParsing();
+                    throw new IllegalArgumentException("Number of records exceeds estimate");
+                }
+                matrix.setRow(chunk.offset + chunk.rows, tuple);
+            }
+            chunk.rows++;
+        }
+        parser.stopParsing();
+        chunk.dictionary.finalizeAll();
+    }
+
+    /**
+     * Returns the result of the given future
+     *
+     * @param future
+     * @return
+     * @throws IOException
+     */
+    private Chunk get(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Returns one range covering the whole file
+     *
+     * @param length
+     * @return
+     */
+    private List<Chunk> getChunks(long length) {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(new Chunk(0, length, -1));
+        return chunks;
+    }
+
+    /**
+     * Splits the file into ranges of roughly the given size, which start after line breaks
+     * that are not enclosed in quotes. As quotes are escaped by doubling them, a line break is
+     * enclosed in quotes if and only if the number of quotes before it is odd. The number of
+     * records in a range is bounded by the number of such line breaks in it, plus one for the
+     * last line of the file.
+     *
+     * @param length
+     * @param size
+     * @return
+     * @throws IOException
+     */
+    private List<Chunk> getChunks(final long length, final long size) throws IOException {
+
+        // For each range, count quotes and find the first line break after an even and odd number of quotes
+        int count = (int) ((length + size - 1) / size);
+        ExecutorService executor = getExecutor(count);
+        List<long[]> scans = new ArrayList<>();
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                final long start = i * size;
+                final long end = Math.min(length, start + size);
+                futures.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws IOException {
+                        return scan(start, end);
+                    }
+                }));
+            }
+            for (Future<long[]> future : futures) {
+                try {
+                    scans.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new RuntimeException(cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Determine boundaries outside of quotes. Ranges without such a boundary are merged with their predecessor.
+        List<Chunk> chunks = new ArrayList<>();
+        long start = 0;
+        long quotes = scans.get(0)[0];
+        long linebreaks = scans.get(0)[3];
+        for (int i = 1; i < count; i++) {
+            long[] scan = scans.get(i);
+            int parity = (int) (quotes % 2);
+            long boundary = scan[1 + parity];
+            if (boundary != -1) {
+                // The line break before the boundary belongs to the previous range
+                chunks.add(new Chunk(start, boundary, linebreaks + 1));
+                start = boundary;
+                linebreaks = scan[3 + parity] - 1;
+            }
+            quotes += scan[0];
+        }
+        chunks.add(new Chunk(start, length, linebreaks + 1));
+        return chunks;
+    }
+
+    /**
+     * Returns an executor
+     *
+     * @param tasks
+     * @return
+     */
+    private ExecutorService getExecutor(int tasks) {
+        return Executors.newFixedThreadPool(Math.min(threads, tasks), new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX-CSVDataEncoder-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Registers the values of the given range in the global dictionary and translates its codes
+     *
+     * @param chunk
+     */
+    private void merge(Chunk chunk) {
+
+        // Translate local dictionary
+        String[][] mapping = chunk.dictionary.getMapping();
+        int[][] translation = new int[header.length][];
+        for (int column = 0; column < header.length; column++) {
+            translation[column] = new int[mapping[column].length];
+            for (int code = 0; code < mapping[column].length; code++) {
+                translation[column][code] = dictionary.register(column, mapping[column][code]);
+            }
+        }
+        chunk.dictionary = null;
+
+        // Translate buffered codes
+        if (chunk.codes != null) {
+            int[] codes = chunk.codes.buffer;
+            int count = chunk.codes.size();
+            for (int offset = 0; offset < count; offset += header.length) {
+                for (int column = 0; column < header.length; column++) {
+                    codes[offset + column] = translation[column][codes[offset + column]];
+                }
+            }
+
+        // Translate codes in the matrix
+        } else {
+            for (int row = chunk.offset; row < chunk.offset + chunk.rows; row++) {
+                for (int column = 0; column < header.length; column++) {
+                    data.set(row, column, translation[column][data.get(row, column)]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans the given range. Returns the number of quotes, the position after the first line break
+     * preceded by an even number of quotes and the position after the first line break preceded
+     * by an odd number of quotes in this range, or -1 if there is no such line break, as well as
+     * the number of line breaks preceded by an even and by an odd number of quotes in this range.
+     *
+     * @param start
+     * @param end
+     * @return
+     * @throws IOException
+     */
+    private long[] scan(long start, long end) throws IOException {
+        long[] result = new long[] { 0, -1, -1, 0, 0 };
+        byte[] buffer = new byte[1 << 16];
+        InputStream stream = new RangeInputStream(file, start, end);
+        try {
+            long position = start;
+            int read;
+            while ((read = stream.read(buffer, 0, buffer.length)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte current = buffer[i];
+                    if (current == quote) {
+                        result[0]++;
+                    } else if (current == linebreak) {
+                        int parity = (int) (result[0] % 2);
+                        if (result[1 + parity] == -1) {
+                            result[1 + parity] = position + i + 1;
+                        }
+                        result[3 + parity]++;
+                    }
+                }
+                position += read;
+            }
+        } finally {
+            stream.close();
+        }
+        return result;
+    }
+}
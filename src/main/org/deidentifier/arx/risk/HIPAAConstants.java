@@ -50,21 +50,32 @@ public abstract class HIPAAConstants {
         return dataUS;
     }
 
+    /** Category of cities */
+    static final int                                   CATEGORY_CITY      = 1 << 0;
+    /** Category of first names */
+    static final int                                   CATEGORY_FIRSTNAME = 1 << 1;
+    /** Category of last names */
+    static final int                                   CATEGORY_LASTNAME  = 1 << 2;
+    /** Category of states */
+    static final int                                   CATEGORY_STATE     = 1 << 3;
+
     /** Cities */
-    private Set<String>                       cities     = null;
+    private volatile Set<String>                       cities             = null;
     /** First names */
-    private Set<String>                       firstnames = null;
+    private volatile Set<String>                       firstnames         = null;
     /** Last names */
-    private Set<String>                       lastnames  = null;
+    private volatile Set<String>                       lastnames          = null;
     /** States */
-    private Set<String>                       states     = null;
+    private volatile Set<String>                       states             = null;
     /** Zip codes */
-    private Set<String>                       zipcodes   = null;
+    private volatile Set<String>                       zipcodes           = null;
     /** Labels */
-    private Map<String, Map<String, Integer>> labels     = null;
+    private volatile Map<String, Map<String, Integer>> labels             = null;
+    /** Categories of cities, names and states */
+    private volatile Map<String, Integer>              categories         = null;
                                                          
     /** Default charset */
-    private static final Charset              CHARSET    = StandardCharsets.UTF_8;
+    private static final Charset                       CHARSET            = StandardCharsets.UTF_8;
 
     /**
      * Returns all matchers for the given category
@@ -136,10 +147,57 @@ public abstract class HIPAAConstants {
         return getZipcodes().contains(value);
     }
     
+    /**
+     * Returns the categories of the given value as a bit set. All lists of cities, names and
+     * states are combined into one dictionary, so that a value is matched against all of them
+     * with a single lookup.
+     * 
+     * @param value Trimmed and lower case value
+     * @return
+     */
+    int getCategories(String value) {
+        Integer result = getCategories().get(value);
+        return result == null ? 0 : result;
+    }
+    
+    /**
+     * Adds the given category to all given values
+     * @param categories
+     * @param values
+     * @param category
+     */
+    private void add(Map<String, Integer> categories, Set<String> values, int category) {
+        for (String value : values) {
+            Integer current = categories.get(value);
+            categories.put(value, current == null ? category : current | category);
+        }
+    }
+    
+    /** Categories */
+    private Map<String, Integer> getCategories() {
+        if (categories == null) {
+            synchronized (this) {
+                if (categories == null) {
+                    Map<String, Integer> result = new HashMap<String, Integer>();
+                    add(result, getCities(), CATEGORY_CITY);
+                    add(result, getFirstnames(), CATEGORY_FIRSTNAME);
+                    add(result, getLastnames(), CATEGORY_LASTNAME);
+                    add(result, getStates(), CATEGORY_STATE);
+                    categories = result;
+                }
+            }
+        }
+        return categories;
+    }
+    
     /** Cities */
     private Set<String> getCities() {
         if (cities == null) {
-            cities = load("cities.csv");
+            synchronized (this) {
+                if (cities == null) {
+                    cities = load("cities.csv");
+                }
+            }
         }
         return cities;
     }
@@ -147,7 +205,11 @@ public abstract class HIPAAConstants {
     /** First names */
     private Set<String> getFirstnames() {
         if (firstnames == null) {
-            firstnames = load("firstnames.csv");
+            synchronized (this) {
+                if (firstnames == null) {
+                    firstnames = load("firstnames.csv");
+                }
+            }
         }
         return firstnames;
     }
@@ -155,7 +217,11 @@ public abstract class HIPAAConstants {
     /** Last names */
     private Set<String> getLastnames() {
         if (lastnames == null) {
-            lastnames = load("lastnames.csv");
+            synchronized (this) {
+                if (lastnames == null) {
+                    lastnames = load("lastnames.csv");
+                }
+            }
         }
         return lastnames;
     }
@@ -167,43 +233,61 @@ public abstract class HIPAAConstants {
     private Map<String, Map<String, Integer>> getNameConfigurations() {
         
         if (this.labels == null) {
-                
-            InputStream stream = getInputStream("labels.properties");
-            BufferedReader br = new BufferedReader(new InputStreamReader(stream, CHARSET));
-            this.labels = new HashMap<String, Map<String, Integer>>();
-    
-            try {
-                String line = br.readLine();
-                while (line != null) {
+            synchronized (this) {
+                if (this.labels == null) {
+                    this.labels = loadNameConfigurations();
+                }
+            }
+        }
+        
+        return this.labels;
+    }
     
-                    String[] parts = line.split("=");
-                    String label = parts[0];
-                    parts = parts[1].split(",");
-                    Map<String, Integer> map = new HashMap<String, Integer>();
-                    for (int i = 0; i < parts.length; i += 2) {
-                        map.put(parts[i], Integer.valueOf(parts[i+1]));
-                    }
-                    labels.put(label, map);
-                    line = br.readLine();
+    /**
+     * Loads all name configurations
+     * @return
+     */
+    private Map<String, Map<String, Integer>> loadNameConfigurations() {
+                
+        InputStream stream = getInputStream("labels.properties");
+        BufferedReader br = new BufferedReader(new InputStreamReader(stream, CHARSET));
+        Map<String, Map<String, Integer>> labels = new HashMap<String, Map<String, Integer>>();
+
+        try {
+            String line = br.readLine();
+            while (line != null) {
+
+                String[] parts = line.split("=");
+                String label = parts[0];
+                parts = parts[1].split(",");
+                Map<String, Integer> map = new HashMap<String, Integer>();
+                for (int i = 0; i < parts.length; i += 2) {
+                    map.put(parts[i], Integer.valueOf(parts[i+1]));
                 }
-            } catch (Exception e) {
+                labels.put(label, map);
+                line = br.readLine();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                br.close();
+            } catch (IOException e) {
                 e.printStackTrace();
-            } finally {
-                try {
-                    br.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
             }
         }
         
-        return this.labels;
+        return labels;
     }
 
     /** States */
     private Set<String> getStates() {
         if (states == null) {
-            states = load("states.csv");
+            synchronized (this) {
+                if (states == null) {
+                    states = load("states.csv");
+                }
+            }
         }
         return states;
     }
@@ -211,7 +295,11 @@ public abstract class HIPAAConstants {
     /** Zip codes */
     private Set<String> getZipcodes() {
         if (zipcodes == null) {
-            zipcodes = load("zipcodes.csv");
+            synchronized (this) {
+                if (zipcodes == null) {
+                    zipcodes = load("zipcodes.csv");
+                }
+            }
         }
         return zipcodes;
     }
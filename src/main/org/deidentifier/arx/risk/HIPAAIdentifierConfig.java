@@ -20,6 +20,7 @@ package org.deidentifier.arx.risk;
 import java.util.List;
 
 import org.deidentifier.arx.risk.HIPAAIdentifierMatch.HIPAAIdentifier;
+import org.deidentifier.arx.risk.HIPAAMatcherAttributeValue.HIPAAMatcherCategory;
 
 /**
  * Encapsulates validation logic for column headers and pattern matching
@@ -98,6 +99,30 @@ class HIPAAIdentifierConfig {
         return null;
     }
     
+    /**
+     * Returns whether this configuration matches attribute values
+     * @return
+     */
+    boolean isMatchingAttributeValues() {
+        return matcherValue != null;
+    }
+    
+    /**
+     * Returns whether the value matches. Matchers for lists of cities, names and states
+     * use the given categories of the value instead of querying the lists again.
+     * 
+     * @param value
+     * @param categories
+     * @return
+     */
+    boolean isMatchingAttributeValue(String value, int categories) {
+        if (matcherValue instanceof HIPAAMatcherCategory) {
+            return ((HIPAAMatcherCategory) matcherValue).matches(categories);
+        } else {
+            return matcherValue != null && matcherValue.matches(value);
+        }
+    }
+    
     /**
      * Returns the value itself if it matches
      * 
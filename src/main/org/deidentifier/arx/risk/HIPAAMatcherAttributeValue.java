@@ -19,8 +19,8 @@ package org.deidentifier.arx.risk;
 
 import java.util.Calendar;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.validator.routines.CalendarValidator;
@@ -57,6 +57,11 @@ abstract class HIPAAMatcherAttributeValue {
                 return false;
             }
             
+            // Numbers end with a digit
+            if (!Character.isDigit(value.charAt(value.length() - 1))) {
+                return false;
+            }
+            
             try {
                 int number = Integer.valueOf(value);
                 return (number >= 0 && number <= 130);
@@ -70,20 +75,49 @@ abstract class HIPAAMatcherAttributeValue {
      * Pattern which matches a city with a predefined list of cities
      * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
      */
-    static class HIPAAMatcherCity extends HIPAAMatcherAttributeValue {
+    static class HIPAAMatcherCity extends HIPAAMatcherCategory {
         
         /**
          * Creates a new instance
          * @param constants
          */
         HIPAAMatcherCity(HIPAAConstants constants) {
+            super(constants, HIPAAConstants.CATEGORY_CITY);
+        }
+    }
+    
+    /**
+     * Pattern which matches values with predefined lists of cities, names or states. All lists
+     * are combined into one dictionary, which is only queried once per value, when scanning data.
+     * @author Fabian Prasser
+     */
+    static abstract class HIPAAMatcherCategory extends HIPAAMatcherAttributeValue {
+        
+        /** Category */
+        private final int category;
+        
+        /**
+         * Creates a new instance
+         * @param constants
+         * @param category
+         */
+        HIPAAMatcherCategory(HIPAAConstants constants, int category) {
             super(constants);
+            this.category = category;
         }
         
         @Override
         public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isCity(value);
+            return matches(constants.getCategories(value.trim().toLowerCase()));
+        }
+        
+        /**
+         * Returns whether a value with the given categories matches
+         * @param categories
+         * @return
+         */
+        boolean matches(int categories) {
+            return (categories & category) != 0;
         }
     }
     
@@ -93,12 +127,16 @@ abstract class HIPAAMatcherAttributeValue {
      */
     static class HIPAAMatcherDate extends HIPAAMatcherAttributeValue {
 
+        /** Formats */
+        private final List<String> formats;
+
         /**
          * Creates a new instance
          * @param constants
          */
         HIPAAMatcherDate(HIPAAConstants constants) {
             super(constants);
+            this.formats = DataType.DATE.getDescription().getExampleFormats();
         }
         
         @Override
@@ -107,6 +145,11 @@ abstract class HIPAAMatcherAttributeValue {
                 return false;
             }
             
+            // All formats contain numeric fields
+            if (!containsDigit(value)) {
+                return false;
+            }
+            
             value = value.toLowerCase().trim();
 
             if (isDate(value)) {
@@ -122,7 +165,7 @@ abstract class HIPAAMatcherAttributeValue {
          */
         private boolean isDate(String value) {
             DateValidator validator = DateValidator.getInstance();
-            for (String format : DataType.DATE.getDescription().getExampleFormats()) {
+            for (String format : formats) {
                 if (validator.isValid(value, format)) {
                     return true;
                 }
@@ -148,6 +191,19 @@ abstract class HIPAAMatcherAttributeValue {
             int currentYear = Calendar.getInstance().get(Calendar.YEAR);
             return ((currentYear - birthYear) > 89) && ((currentYear - birthYear) < 130); // Filter out differences above 130, as humans do not get older than that
         }
+        
+        /**
+         * @param value Cell content
+         * @return True if input contains a digit
+         */
+        private boolean containsDigit(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (Character.isDigit(value.charAt(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
     
     /**
@@ -175,20 +231,14 @@ abstract class HIPAAMatcherAttributeValue {
      * Pattern which matches first names with a predefined list of names
      * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
      */
-    static class HIPAAMatcherFirstName extends HIPAAMatcherAttributeValue {
+    static class HIPAAMatcherFirstName extends HIPAAMatcherCategory {
 
         /**
          * Creates a new instance
          * @param constants
          */
         HIPAAMatcherFirstName(HIPAAConstants constants) {
-            super(constants);
-        }
-        
-        @Override
-        public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isFirstname(value);
+            super(constants, HIPAAConstants.CATEGORY_FIRSTNAME);
         }
     }
     
@@ -238,20 +288,14 @@ abstract class HIPAAMatcherAttributeValue {
      * Pattern which matches last names with a predefined list of names
      * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
      */
-    static class HIPAAMatcherLastName extends HIPAAMatcherAttributeValue {
+    static class HIPAAMatcherLastName extends HIPAAMatcherCategory {
 
         /**
          * Creates a new instance
          * @param constants
          */
         HIPAAMatcherLastName(HIPAAConstants constants) {
-            super(constants);
-        }
-        
-        @Override
-        public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isLastname(value);
+            super(constants, HIPAAConstants.CATEGORY_LASTNAME);
         }
     }
 
@@ -268,20 +312,14 @@ abstract class HIPAAMatcherAttributeValue {
      * Pattern which matches a state with a predefined list of states
      * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
      */
-    static class HIPAAMatcherState extends HIPAAMatcherAttributeValue {
+    static class HIPAAMatcherState extends HIPAAMatcherCategory {
 
         /**
          * Creates a new instance
          * @param constants
          */
         HIPAAMatcherState(HIPAAConstants constants) {
-            super(constants);
-        }
-        
-        @Override
-        public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isState(value);
+            super(constants, HIPAAConstants.CATEGORY_STATE);
         }
     }
     
@@ -290,17 +328,16 @@ abstract class HIPAAMatcherAttributeValue {
      * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
      */
     static abstract class HIPAAMatcherString extends HIPAAMatcherAttributeValue {
-        Matcher matcher;
+        Pattern pattern;
         
         HIPAAMatcherString(String regex) {
             super(null);
-            Pattern pattern = Pattern.compile(regex);
-            matcher = pattern.matcher("");
+            pattern = Pattern.compile(regex);
         }
         
         @Override
         public boolean matches(String value) {
-            return matcher.reset(value).matches();
+            return pattern.matcher(value).matches();
         }
     }
     
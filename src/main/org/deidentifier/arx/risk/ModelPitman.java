@@ -258,15 +258,17 @@ class ModelPitman extends RiskModelPopulation {
                 }
                 checkInterrupt();
 
-                // For each class...
+                // For each class. Classes are sorted ascending by size, so the sums
+                // over 1..size-1 are shared and extended from one class to the next
+                double val1 = 0;
+                double val2 = 0;
+                int j = 1;
                 for (int i = 0; i < classes.length; i += 2) {
                     int key = classes[i];
                     int value = classes[i + 1];
 
                     if (key != 1) {
-                        double val1 = 0;
-                        double val2 = 0;
-                        for (int j = 1; j < key; j++) {
+                        for (; j < key; j++) {
                             double val3 = j - a;
                             val1 += 1d / (val3 * val3);
                             val2 += 1d / val3;
@@ -339,14 +341,15 @@ class ModelPitman extends RiskModelPopulation {
                 }
                 checkInterrupt();
 
-                // For each class...
+                // For each class, sharing the sums over 1..size-1 between classes
+                double val2 = 0;
+                int j = 1;
                 for (int i = 0; i < classes.length; i += 2) {
                     int key = classes[i];
                     int value = classes[i + 1];
 
                     if (key != 1) {
-                        double val2 = 0;
-                        for (int j = 1; j < key; j++) {
+                        for (; j < key; j++) {
                             double val3 = j - a;
                             val2 += 1d / val3;
                         }
@@ -89,16 +89,18 @@ class ModelZayatz extends RiskModelPopulation {
         if (sampleSize > Integer.MAX_VALUE) {
             param2 = Integer.MAX_VALUE; // TODO: This is an error: overflow
         }
+        // Distributions are only used for computing probabilities, so we do not
+        // need to create and seed a random generator for each of them
         for (int i = 0; i < classes.length; i += 2) {
             int size = classes[i];
             int count = classes[i + 1];
 
-            HypergeometricDistribution distribution = new HypergeometricDistribution(param1, size, param2);
+            HypergeometricDistribution distribution = new HypergeometricDistribution(null, param1, size, param2);
             temp += (count / ((double) numClasses)) * distribution.probability(1);
             checkInterrupt();
         }
 
-        HypergeometricDistribution distribution = new HypergeometricDistribution(param1, 1, param2);
+        HypergeometricDistribution distribution = new HypergeometricDistribution(null, param1, 1, param2);
         return (((double) numClassesOfSize1 / ((double) numClasses)) * (distribution.probability(1))) / temp;
     }
 }
@@ -208,6 +208,20 @@ public class RiskEstimateBuilder {
         return new RiskModelHIPAASafeHarbor().getMatches(handle, threshold, stop);
     }
 
+    /**
+     * Returns the a set of potential HIPAA identifiers. Values are matched with the
+     * given confidence threshold. Instead of matching all distinct values of an attribute,
+     * values are sampled until it has been decided with the given confidence whether the
+     * fraction of matching values exceeds the threshold.
+     *
+     * @param threshold Confidence threshold
+     * @param confidence Confidence of the decision in (0, 1], e.g. 0.95
+     * @return
+     */
+    public HIPAAIdentifierMatch[] getHIPAAIdentifiersSampled(double threshold, double confidence) {
+        return new RiskModelHIPAASafeHarbor().getMatches(handle, threshold, confidence, stop);
+    }
+
     /**
      * Returns an interruptible instance of this object.
      *
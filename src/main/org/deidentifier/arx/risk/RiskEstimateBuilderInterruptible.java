@@ -80,6 +80,25 @@ public class RiskEstimateBuilderInterruptible {
         }
     }
     
+    /**
+     * Returns the a set of potential HIPAA identifiers. Values are matched with the
+     * given confidence threshold. Instead of matching all distinct values of an attribute,
+     * values are sampled until it has been decided with the given confidence whether the
+     * fraction of matching values exceeds the threshold.
+     *
+     * @param threshold Confidence threshold
+     * @param confidence Confidence of the decision in (0, 1], e.g. 0.95
+     * @return
+     * @throws InterruptedException
+     */
+    public HIPAAIdentifierMatch[] getHIPAAIdentifiersSampled(double threshold, double confidence) throws InterruptedException {
+        try {
+            return parent.getHIPAAIdentifiersSampled(threshold, confidence);
+        } catch (ComputationInterruptedException e) {
+            throw new InterruptedException("Computation interrupted");
+        }
+    }
+    
     /**
      * Returns a class providing population-based uniqueness estimates
      * 
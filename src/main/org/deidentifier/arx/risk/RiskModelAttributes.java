@@ -19,13 +19,18 @@ package org.deidentifier.arx.risk;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXPopulationModel;
@@ -35,6 +40,8 @@ import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+
 /**
  * A class for analyzing attribute-related risks. Calculates alpha-distinction and
  * alpha separation as described in R. Motwani et al.
@@ -65,20 +72,13 @@ public class RiskModelAttributes {
          * Creates a new instance
          *
          * @param identifier
+         * @param histogram
          */
-        private QuasiIdentifierRisk(List<String> identifier) {
+        private QuasiIdentifierRisk(List<String> identifier, RiskModelHistogram histogram) {
 
             // Store identifier
             this.identifier = identifier;
 
-            // Calculate distribution of class sizes
-            RiskModelHistogram histogram = new RiskEstimateBuilder(population,
-                                                                   handle,
-                                                                   new HashSet<String>(identifier),
-                                                                   stop,
-                                                                   solverconfig,
-                                                                   arxconfig).getEquivalenceClassModel();
-
             // Calculate distinction and separation
             this.alphaDistinction = getAlphaDistinction(histogram);
             this.alphaSeparation = getAlphaSeparation(histogram);
@@ -136,21 +136,56 @@ public class RiskModelAttributes {
             return alphaSeparation;
         }
     }
+    /**
+     * Equivalence classes induced by a set of attributes. Each class is represented
+     * by one of its records and its size.
+     *
+     * @author Fabian Prasser
+     */
+    private static final class Classes {
+
+        /** One record of each class */
+        private final int[] representatives;
+        /** Size of each class */
+        private final int[] sizes;
+        /** Number of classes */
+        private final int   size;
+
+        /**
+         * Creates a new instance
+         * @param representatives
+         * @param sizes
+         * @param size
+         */
+        private Classes(int[] representatives, int[] sizes, int size) {
+            this.representatives = representatives;
+            this.sizes = sizes;
+            this.size = size;
+        }
+    }
+
+    /** Minimal number of records for evaluating subsets in parallel */
+    private static final int            MIN_RECORDS_PARALLEL = 10000;
     /** Stop flag */
     private final WrappedBoolean        stop;
     /** Results */
     private final QuasiIdentifierRisk[] risks;
-    /** Just needed for creating risk models */
-    private ARXPopulationModel          population;
-    /** Data handle */
-    private DataHandleInternal          handle;
-    /** Just needed for creating risk models */
-    private ARXSolverConfiguration      solverconfig;
-    /** Just needed for creating risk models */
-    private ARXConfiguration            arxconfig;
+    /** Progress */
+    private final WrappedInteger        percentageDone;
+    /** Number of subsets evaluated */
+    private final AtomicInteger         done                 = new AtomicInteger();
+    /** Number of subsets to evaluate */
+    private int                         total;
+    /** The quasi-identifiers, ordered by column index */
+    private String[]                    attributes;
+    /** Dictionary-encoded values of the quasi-identifiers of all records which are not suppressed */
+    private int[][]                     codes;
 
     /**
-     * Creates a new instance
+     * Creates a new instance. Equivalence classes are computed once for the complete set of
+     * quasi-identifiers. Classes for all subsets are then derived by rolling up the classes
+     * of a superset which contains one more attribute. Independent subsets are evaluated in parallel.
+     * 
      * @param population
      * @param handle
      * @param identifiers
@@ -167,51 +202,94 @@ public class RiskModelAttributes {
                         final ARXSolverConfiguration solverconfig,
                         final ARXConfiguration arxconfig) {
         
-        this.population = population;
-        this.handle = handle;
         this.stop = stop;
-        this.solverconfig = solverconfig;
-        this.arxconfig = arxconfig;
+        this.percentageDone = percentageDone;
+
+        // Order qis by column index
+        this.attributes = identifiers.toArray(new String[identifiers.size()]);
+        Arrays.sort(this.attributes, new Comparator<String>(){
+            @Override
+            public int compare(String o1, String o2) {
+                int index1 = handle.getColumnIndexOf(o1);
+                int index2 = handle.getColumnIndexOf(o2);
+                return new Integer(index1).compareTo(index2);
+            }
+        });
+        if (attributes.length > 30) {
+            throw new IllegalArgumentException("Too many quasi-identifiers");
+        }
+        this.total = (1 << attributes.length) - 1;
 
-        // Find order list of qis
-        List<List<String>> qis = new ArrayList<>();
-        Set<Set<String>> powerset = getPowerSet(identifiers);
-        for (Set<String> set : powerset) {
-            
-            // Exclude empty set
-            if (!set.isEmpty()) {
-                
-                // Create and add
-                List<String> qi = new ArrayList<String>(set);
-                qis.add(qi);
-                
-                // Sort by column index
-                Collections.sort(qi, new Comparator<String>(){
-                    @Override
-                    public int compare(String o1, String o2) {
-                        int index1 = handle.getColumnIndexOf(o1);
-                        int index2 = handle.getColumnIndexOf(o2);
-                        return new Integer(index1).compareTo(index2);
+        // Nothing to do
+        if (attributes.length == 0) {
+            this.risks = new QuasiIdentifierRisk[0];
+            return;
+        }
+
+        // Encode data and group by all qis
+        Classes classes = getClasses(handle);
+        int subset = total;
+
+        // Prepare tasks: subtrees of the enumeration, which may be evaluated independently
+        int threads = codes[0].length < MIN_RECORDS_PARALLEL ? 1 : Runtime.getRuntime().availableProcessors();
+        List<int[]> tasks = new ArrayList<>();
+        getTasks(subset, -1, threads == 1 ? Integer.MAX_VALUE : Math.max(1, total / (threads * 8)), tasks);
+        List<List<QuasiIdentifierRisk>> results = new ArrayList<>();
+
+        // Evaluate sequentially
+        if (threads == 1 || tasks.size() == 1) {
+            for (int[] task : tasks) {
+                results.add(evaluate(classes, task));
+            }
+
+        // Evaluate in parallel
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()), new ThreadFactory() {
+                int count = 0;
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ARX-RiskModelAttributes-" + count++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            try {
+                List<Future<List<QuasiIdentifierRisk>>> futures = new ArrayList<>();
+                for (final int[] task : tasks) {
+                    final Classes _classes = classes;
+                    futures.add(executor.submit(new Callable<List<QuasiIdentifierRisk>>() {
+                        @Override
+                        public List<QuasiIdentifierRisk> call() {
+                            return evaluate(_classes, task);
+                        }
+                    }));
+                }
+                for (Future<List<QuasiIdentifierRisk>> future : futures) {
+                    try {
+                        results.add(future.get());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        }
+                        throw new RuntimeException(cause);
                     }
-                });
+                }
+            } finally {
+                executor.shutdownNow();
             }
         }
         
-        // Compute risk estimates for all elements in the power set
-        Map<List<String>, QuasiIdentifierRisk> scores = new HashMap<>();
-        int done = 0;
-        for (List<String> qi : qis) {
-            checkInterrupt();
-            scores.put(qi, new QuasiIdentifierRisk(qi));
-            percentageDone.value = (int) Math.round((double) done++ / (double) (powerset.size() - 1) * 100d);
-        }
-
         // Now create sorted array
-        risks = new QuasiIdentifierRisk[scores.size()];
-        int idx = 0;
-        for (QuasiIdentifierRisk value : scores.values()) {
-            risks[idx++] = value;
+        this.codes = null;
+        List<QuasiIdentifierRisk> list = new ArrayList<>();
+        for (List<QuasiIdentifierRisk> result : results) {
+            list.addAll(result);
         }
+        risks = list.toArray(new QuasiIdentifierRisk[list.size()]);
         Arrays.sort(risks);
     }
 
@@ -309,29 +387,249 @@ public class RiskModelAttributes {
     }
 
     /**
-     * Returns the power set
-     *
-     * @param originalSet
+     * Evaluates the subtree of the enumeration rooted at the given task
+     * 
+     * @param classes Classes induced by all qis
+     * @param task
      * @return
      */
-    private <T> Set<Set<T>> getPowerSet(Set<T> originalSet) {
+    private List<QuasiIdentifierRisk> evaluate(Classes classes, int[] task) {
+        List<QuasiIdentifierRisk> result = new ArrayList<>();
+        int subset = task[0];
+        if (subset != total) {
+            classes = getClasses(classes, getIndices(subset));
+        }
+        evaluate(classes, subset, task[1], task[2] == 1, result);
+        return result;
+    }
+
+    /**
+     * Evaluates the given subset and, if requested, all subsets enumerated below it.
+     * Subsets are enumerated by removing attributes with increasing indices, which
+     * visits each subset exactly once.
+     * 
+     * @param classes Classes induced by the subset
+     * @param subset
+     * @param last Index of the attribute removed last
+     * @param recursive
+     * @param result
+     */
+    private void evaluate(Classes classes, int subset, int last, boolean recursive, List<QuasiIdentifierRisk> result) {
+
+        // Evaluate
         checkInterrupt();
-        Set<Set<T>> sets = new HashSet<Set<T>>();
-        if (originalSet.isEmpty()) {
-            sets.add(new HashSet<T>());
-            return sets;
+        result.add(new QuasiIdentifierRisk(getIdentifier(subset), getHistogram(classes)));
+        percentageDone.value = (int) Math.round((double) done.getAndIncrement() / (double) total * 100d);
+
+        // Roll up into subsets
+        if (recursive) {
+            for (int index = last + 1; index < attributes.length; index++) {
+                int child = subset & ~(1 << index);
+                if (child != subset && child != 0) {
+                    evaluate(getClasses(classes, getIndices(child)), child, index, true, result);
+                }
+            }
         }
-        List<T> list = new ArrayList<T>(originalSet);
-        T head = list.get(0);
-        Set<T> rest = new HashSet<T>(list.subList(1, list.size()));
-        for (Set<T> set : getPowerSet(rest)) {
+    }
+
+    /**
+     * Derives the classes induced by the given attributes from classes induced by a superset of the attributes
+     * 
+     * @param source
+     * @param indices
+     * @return
+     */
+    private Classes getClasses(Classes source, int[] indices) {
+
+        // Prepare
+        int capacity = 16;
+        while (capacity < source.size * 2) {
+            capacity <<= 1;
+        }
+        int mask = capacity - 1;
+        int[] buckets = new int[capacity];
+        int[] representatives = new int[source.size];
+        int[] sizes = new int[source.size];
+        int size = 0;
+
+        // Merge classes which agree on the given attributes
+        for (int i = 0; i < source.size; i++) {
+            
+            // Check interrupt
+            if ((i & 0xFFFF) == 0) {
+                checkInterrupt();
+            }
+
+            // Hash
+            int row = source.representatives[i];
+            int hash = 23;
+            for (int index : indices) {
+                hash = 37 * hash + codes[index][row];
+            }
+            hash *= 0x9E3779B9;
+            hash ^= hash >>> 16;
+
+            // Probe
+            int slot = hash & mask;
+            while (true) {
+                int entry = buckets[slot];
+                if (entry == 0) {
+                    representatives[size] = row;
+                    sizes[size] = source.sizes[i];
+                    buckets[slot] = ++size;
+                    break;
+                } else if (equals(indices, row, representatives[entry - 1])) {
+                    sizes[entry - 1] += source.sizes[i];
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        // Return
+        return new Classes(representatives, sizes, size);
+    }
+
+    /**
+     * Encodes all records which are not suppressed and returns the classes induced by all qis
+     * 
+     * @param handle
+     * @return
+     */
+    private Classes getClasses(DataHandleInternal handle) {
+
+        // Prepare
+        int[] columns = new int[attributes.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = handle.getColumnIndexOf(attributes[i]);
+            if (columns[i] == -1) {
+                throw new IllegalArgumentException(attributes[i] + " is not an attribute");
+            }
+        }
+        int numRows = handle.getNumRows();
+        int[] rows = new int[numRows];
+        int count = 0;
+        for (int row = 0; row < numRows; row++) {
+            if (!handle.isOutlier(row)) {
+                rows[count++] = row;
+            }
+        }
+
+        // Encode values, records are grouped by their string representations
+        codes = new int[columns.length][count];
+        for (int i = 0; i < columns.length; i++) {
             checkInterrupt();
-            Set<T> newSet = new HashSet<T>();
-            newSet.add(head);
-            newSet.addAll(set);
-            sets.add(newSet);
-            sets.add(set);
+            Map<String, Integer> dictionary = new HashMap<>();
+            for (int j = 0; j < count; j++) {
+                String value = handle.getValue(rows[j], columns[i], false);
+                Integer code = dictionary.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.put(value, code);
+                }
+                codes[i][j] = code;
+            }
+        }
+
+        // Each record forms a class of its own
+        int[] representatives = new int[count];
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            representatives[i] = i;
+            sizes[i] = 1;
+        }
+        return getClasses(new Classes(representatives, sizes, count), getIndices(total));
+    }
+
+    /**
+     * Returns the distribution of class sizes
+     * 
+     * @param classes
+     * @return
+     */
+    private RiskModelHistogram getHistogram(Classes classes) {
+        IntIntOpenHashMap grouped = new IntIntOpenHashMap();
+        for (int i = 0; i < classes.size; i++) {
+            grouped.putOrAdd(classes.sizes[i], 1, 1);
+        }
+        return new RiskModelHistogram(grouped);
+    }
+
+    /**
+     * Returns the attributes in the given subset
+     * 
+     * @param subset
+     * @return
+     */
+    private List<String> getIdentifier(int subset) {
+        List<String> result = new ArrayList<>();
+        for (int index = 0; index < attributes.length; index++) {
+            if ((subset & (1 << index)) != 0) {
+                result.add(attributes[index]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the indices of the attributes in the given subset
+     * 
+     * @param subset
+     * @return
+     */
+    private int[] getIndices(int subset) {
+        int[] result = new int[Integer.bitCount(subset)];
+        int offset = 0;
+        for (int index = 0; index < attributes.length; index++) {
+            if ((subset & (1 << index)) != 0) {
+                result[offset++] = index;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits the enumeration into tasks containing at most the given number of subsets.
+     * Each task is an array {subset, index of the attribute removed last, recursive}.
+     * 
+     * @param subset
+     * @param last
+     * @param limit
+     * @param tasks
+     */
+    private void getTasks(int subset, int last, int limit, List<int[]> tasks) {
+        
+        // Number of subsets enumerated below this subset, including itself
+        long size = 1L << Integer.bitCount(subset >>> (last + 1));
+        if (size <= limit) {
+            tasks.add(new int[] { subset, last, 1 });
+            return;
+        }
+        
+        // Split
+        tasks.add(new int[] { subset, last, 0 });
+        for (int index = last + 1; index < attributes.length; index++) {
+            int child = subset & ~(1 << index);
+            if (child != subset && child != 0) {
+                getTasks(child, index, limit, tasks);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given records agree on the given attributes
+     * 
+     * @param indices
+     * @param row1
+     * @param row2
+     * @return
+     */
+    private boolean equals(int[] indices, int row1, int row2) {
+        for (int index : indices) {
+            if (codes[index][row1] != codes[index][row2]) {
+                return false;
+            }
         }
-        return sets;
+        return true;
     }
-}
\ No newline at end of file
+}
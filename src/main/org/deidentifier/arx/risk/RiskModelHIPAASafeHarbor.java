@@ -18,7 +18,15 @@
 package org.deidentifier.arx.risk;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.common.WrappedBoolean;
@@ -48,10 +56,14 @@ class RiskModelHIPAASafeHarbor {
     /** All configurations*/
     private final List<HIPAAIdentifierConfig> configurations;
 
+    /** Constants */
+    private final HIPAAConstants              constants;
+
     /**
      * Constructor
      */
     RiskModelHIPAASafeHarbor() {
+        this.constants = HIPAAConstants.getUSData();
         this.configurations = getConfigurations();
     }
     
@@ -66,67 +78,244 @@ class RiskModelHIPAASafeHarbor {
     public HIPAAIdentifierMatch[] getMatches(DataHandleInternal handle, 
                                              double threshold,
                                              WrappedBoolean stop) {
+        return getMatches(handle, threshold, 1d, stop);
+    }
+    
+    /**
+     * Returns a list of matches with HIPAA identifiers. Attributes are processed in parallel.
+     * If the confidence is lower than one, distinct values are sampled in random order until it
+     * has been decided with the given confidence whether the fraction of matching values exceeds
+     * the threshold. The fraction reported for a match is then an estimate.
+     * 
+     * @param handle
+     * @param threshold
+     * @param confidence Confidence in (0, 1], 1 to match all values
+     * @param stop
+     * @return An array of warnings
+     */
+    public HIPAAIdentifierMatch[] getMatches(final DataHandleInternal handle, 
+                                             final double threshold,
+                                             final double confidence,
+                                             final WrappedBoolean stop) {
+        
+        // Check
+        if (!(confidence > 0d && confidence <= 1d)) {
+            throw new IllegalArgumentException("Confidence must be in (0, 1]");
+        }
         
         // Prepare
-        List<HIPAAIdentifierMatch> results = new ArrayList<HIPAAIdentifierMatch>();
+        final int columns = handle.getNumColumns();
+        final List<List<HIPAAIdentifierMatch>> matches = new ArrayList<List<HIPAAIdentifierMatch>>();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int column = 0; column < columns; column++) {
+            matches.add(null);
+            final int index = column;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    String attribute = handle.getAttributeName(index);
+                    String[] values = handle.getDistinctValues(index);
+                    matches.set(index, getMatches(attribute, values, threshold, confidence, stop));
+                    return null;
+                }
+            });
+        }
         
-        // Check each attribute
-        for (int column = 0; column < handle.getNumColumns(); column++) {
+        // Prepare executor
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), tasks.size());
+        ExecutorService executor = threads <= 1 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX-RiskModelHIPAASafeHarbor-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
 
-            // Init
-            String attribute = handle.getAttributeName(column);
-            String[] values = handle.getDistinctValues(column);
-            
-            // Match attribute name
-            for (HIPAAIdentifierConfig config : configurations) {
-                if (stop.value) {
-                    throw new ComputationInterruptedException();
+        // Check each attribute
+        try {
+            execute(tasks, executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        
+        // Collect, in the order of attributes
+        List<HIPAAIdentifierMatch> results = new ArrayList<HIPAAIdentifierMatch>();
+        for (List<HIPAAIdentifierMatch> list : matches) {
+            results.addAll(list);
+        }
+        
+        // Return
+        return results.toArray(new HIPAAIdentifierMatch[results.size()]);
+    }
+    
+    /**
+     * Executes the given tasks
+     *
+     * @param tasks
+     * @param executor
+     */
+    private void execute(List<Callable<Void>> tasks, ExecutorService executor) {
+
+        // Sequentially
+        if (executor == null) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
                 }
-                String match = config.getMatchingAttributeName(attribute);
-                if (match != null) {
-                    results.add(new HIPAAIdentifierMatch(attribute, 
-                                                         config.getIdentifier(), 
-                                                         config.getInstance(),
-                                                         MatchType.ATTRIBUTE_NAME, 
-                                                         match));
+            }
+            return;
+        }
+
+        // In parallel
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
                 }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+    
+    /**
+     * Returns the list of matches for the given attribute. All configurations are evaluated
+     * in one pass over the values. Each value is normalized and looked up in the lists of
+     * cities, names and states only once.
+     * 
+     * @param attribute
+     * @param values
+     * @param threshold
+     * @param confidence
+     * @param stop
+     * @return
+     */
+    private List<HIPAAIdentifierMatch> getMatches(String attribute,
+                                                  String[] values,
+                                                  double threshold,
+                                                  double confidence,
+                                                  WrappedBoolean stop) {
+        
+        // Prepare
+        List<HIPAAIdentifierMatch> results = new ArrayList<HIPAAIdentifierMatch>();
+        
+        // Match attribute name
+        for (HIPAAIdentifierConfig config : configurations) {
+            if (stop.value) {
+                throw new ComputationInterruptedException();
+            }
+            String match = config.getMatchingAttributeName(attribute);
+            if (match != null) {
+                results.add(new HIPAAIdentifierMatch(attribute, 
+                                                     config.getIdentifier(), 
+                                                     config.getInstance(),
+                                                     MatchType.ATTRIBUTE_NAME, 
+                                                     match));
             }
+        }
+        
+        // Sample in random order, if requested
+        boolean sampling = confidence < 1d;
+        if (sampling) {
+            values = values.clone();
+            Random random = new Random(0xDEADBEEF);
+            for (int i = values.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                String temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        
+        // Prepare matching of values
+        int size = configurations.size();
+        int[] matches = new int[size];
+        int[] nonmatches = new int[size];
+        double[] estimates = new double[size];
+        boolean[] active = new boolean[size];
+        Arrays.fill(estimates, Double.NaN);
+        Arrays.fill(active, true);
+        int remaining = size;
+        
+        // Match attribute values
+        for (int i = 0; i < values.length && remaining > 0; i++) {
             
-            // Match attribute values
-            for (HIPAAIdentifierConfig config : configurations) {
-                int matches = 0;
-                int nonmatches = 0;
-                for (String value : values) {
+            // Normalize and look up once
+            String value = values[i];
+            int categories = constants.getCategories(value.trim().toLowerCase());
+            
+            // Count matching values
+            for (int j = 0; j < size; j++) {
+                if (active[j]) {
                     if (stop.value) {
                         throw new ComputationInterruptedException();
                     }
-                    
-                    // Count matching values
-                    if (config.getMatchingAttributeValue(value) != null) {
-                        matches++;
+                    if (configurations.get(j).isMatchingAttributeValue(value, categories)) {
+                        matches[j]++;
                     } else {
                         
-                        // Break if too many non-matching values
-                        nonmatches++;
-                        double nonpercentage = (double)nonmatches / (double)values.length;
+                        // Stop if too many non-matching values
+                        nonmatches[j]++;
+                        double nonpercentage = (double)nonmatches[j] / (double)values.length;
                         if (nonpercentage > 1d - threshold) {
-                            break;
+                            active[j] = false;
+                            remaining--;
                         }
                     }
                 }
-                double percentage = (double)matches / (double)values.length;
-                if (percentage > threshold) {
-                    results.add(new HIPAAIdentifierMatch(attribute, 
-                                                         config.getIdentifier(), 
-                                                         config.getInstance(),
-                                                         MatchType.ATTRIBUTE_VALUE, 
-                                                         String.valueOf(percentage)));
+            }
+            
+            // Stop if decided with the given confidence. This is based on Serfling's
+            // inequality for sampling without replacement from a finite population.
+            if (sampling) {
+                double sampled = i + 1;
+                double epsilon = Math.sqrt((1d - (sampled - 1d) / (double)values.length) * 
+                                           Math.log(2d / (1d - confidence)) / (2d * sampled));
+                for (int j = 0; j < size; j++) {
+                    if (active[j]) {
+                        double estimate = (double)matches[j] / sampled;
+                        if (estimate - epsilon > threshold || estimate + epsilon <= threshold) {
+                            estimates[j] = estimate;
+                            active[j] = false;
+                            remaining--;
+                        }
+                    }
                 }
             }
         }
         
+        // Collect
+        for (int j = 0; j < size; j++) {
+            HIPAAIdentifierConfig config = configurations.get(j);
+            double percentage = Double.isNaN(estimates[j]) ? (double)matches[j] / (double)values.length : estimates[j];
+            if (percentage > threshold) {
+                results.add(new HIPAAIdentifierMatch(attribute, 
+                                                     config.getIdentifier(), 
+                                                     config.getInstance(),
+                                                     MatchType.ATTRIBUTE_VALUE, 
+                                                     String.valueOf(percentage)));
+            }
+        }
+        
         // Return
-        return results.toArray(new HIPAAIdentifierMatch[results.size()]);
+        return results;
     }
     
     /**
@@ -134,8 +323,6 @@ class RiskModelHIPAASafeHarbor {
      */
     private List<HIPAAIdentifierConfig> getConfigurations() {
         
-        HIPAAConstants constants = HIPAAConstants.getUSData();
-        
         List<HIPAAIdentifierConfig> configurations = new ArrayList<HIPAAIdentifierConfig>();
 
         configurations.add(new HIPAAIdentifierConfig(HIPAAIdentifier.NAME,
@@ -18,6 +18,15 @@
 package org.deidentifier.arx.risk;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deidentifier.arx.ARXPopulationModel;
 import org.deidentifier.arx.ARXSolverConfiguration;
@@ -125,16 +134,8 @@ public class RiskModelPopulationUniqueness extends RiskModelPopulation {
         // If precomputation (for interruptible builders)
         if (precompute) {
 
-            // Estimate with Zayatz's model
-            getNumUniqueTuplesZayatz();
-            progress.value = 50;
-
-            // Estimate with Pitman's model
-            getNumUniqueTuplesPitman();
-            progress.value = 75;
-
-            // Estimate with SNB model
-            getNumUniqueTuplesSNB();
+            // Estimate with Zayatz's, Pitman's and the SNB model
+            precompute(progress);
 
             // Decision rule by Dankar et al.
             getNumUniqueTuplesDankar();
@@ -368,6 +369,107 @@ public class RiskModelPopulationUniqueness extends RiskModelPopulation {
         return getNumUniqueTuplesZayatz() != 0d || numClassesOfSize1 == 0;
     }
 
+    /**
+     * Computes the estimates of all statistical models. The models are independent of each other,
+     * so they are evaluated concurrently if multiple processors are available.
+     * 
+     * @param progress
+     */
+    private void precompute(final WrappedInteger progress) {
+
+        // Prepare tasks
+        final AtomicInteger done = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(new Callable<Void>() {
+            @Override
+            public Void call() {
+                getNumUniqueTuplesZayatz();
+                progress.value = 25 + 25 * done.incrementAndGet();
+                return null;
+            }
+        });
+        tasks.add(new Callable<Void>() {
+            @Override
+            public Void call() {
+                getNumUniqueTuplesPitman();
+                progress.value = 25 + 25 * done.incrementAndGet();
+                return null;
+            }
+        });
+        tasks.add(new Callable<Void>() {
+            @Override
+            public Void call() {
+                getNumUniqueTuplesSNB();
+                done.incrementAndGet();
+                return null;
+            }
+        });
+
+        // Prepare executor
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), tasks.size());
+        ExecutorService executor = threads <= 1 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            int count = 0;
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX-RiskModelPopulationUniqueness-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // Execute
+        try {
+            execute(tasks, executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Executes the given tasks
+     *
+     * @param tasks
+     * @param executor
+     */
+    private void execute(List<Callable<Void>> tasks, ExecutorService executor) {
+
+        // Sequentially
+        if (executor == null) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return;
+        }
+
+        // In parallel
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
     /**
      * Is an estimate valid?
      * 
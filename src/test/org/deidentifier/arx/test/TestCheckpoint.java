@@ -0,0 +1,405 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.Hierarchy.DefaultHierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataSubset;
+import org.deidentifier.arx.criteria.DistinctLDiversity;
+import org.deidentifier.arx.criteria.HierarchicalDistanceTCloseness;
+import org.deidentifier.arx.criteria.Inclusion;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests writing checkpoints and resuming from them. Checkpoints which have been written
+ * for different data or with a different configuration must be rejected. Resuming after
+ * records have been appended must yield the same results as a fresh anonymization.
+ *
+ *
+ * @author Fabian Prasser
+ */
+public class TestCheckpoint {
+
+    /** Quasi-identifiers */
+    private static final String[] QIS       = { "age", "education", "marital-status", "native-country" };
+
+    /** Sensitive attribute */
+    private static final String   SENSITIVE = "occupation";
+
+    /** Number of records contained in the checkpoint, when records are appended */
+    private static final int      ROWS      = 20000;
+
+    /** The checkpoint */
+    private File                  file;
+
+    /**
+     * Creates a checkpoint
+     * @throws IOException
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("arx", ".checkpoint");
+        write(getData(), getConfig(5, 0.02d, Metric.createLossMetric()));
+    }
+
+    /**
+     * Deletes the checkpoint
+     */
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testAppend() throws IOException {
+        List<String[]> records = getRecords();
+        write(getData(records.subList(0, ROWS + 1), false), getConfig(5, 0.02d, Metric.createLossMetric()));
+
+        // Append and resume
+        Data data = Data.create(getData(records.subList(0, ROWS + 1), false), getAppended(records));
+        ARXResult actual = new ARXAnonymizer().resume(data, getConfig(5, 0.02d, Metric.createLossMetric()), file);
+        ARXResult expected = new ARXAnonymizer().anonymize(getData(), getConfig(5, 0.02d, Metric.createLossMetric()));
+        assertSameResults(expected, actual);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testAppendWithChangedRecords() throws IOException {
+        List<String[]> records = getRecords();
+        write(getData(records.subList(0, ROWS + 1), false), getConfig(5, 0.02d, Metric.createLossMetric()));
+
+        // Change leading records, which must discard the baseline
+        int column = getData().getHandle().getColumnIndexOf(QIS[0]);
+        for (int row = 1; row <= ROWS; row += 2) {
+            records.get(row)[column] = "90";
+        }
+
+        // Append and resume
+        Data data = Data.create(getData(records.subList(0, ROWS + 1), false), getAppended(records));
+        ARXResult actual = new ARXAnonymizer().resume(data, getConfig(5, 0.02d, Metric.createLossMetric()), file);
+        ARXResult expected = new ARXAnonymizer().anonymize(getData(records, false), getConfig(5, 0.02d, Metric.createLossMetric()));
+        assertSameResults(expected, actual);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testAppendWithDifferentHeader() throws IOException {
+        List<String[]> records = getRecords();
+        Data data = getData(records.subList(0, ROWS + 1), false);
+        List<String[]> appended = new ArrayList<String[]>();
+        appended.add(records.get(0).clone());
+        appended.get(0)[0] = "different";
+        appended.addAll(records.subList(ROWS + 1, records.size()));
+        try {
+            Data.create(data, appended.iterator());
+            fail("Records with a different header accepted");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testResume() throws IOException {
+        ARXResult result = new ARXAnonymizer().resume(getData(), getConfig(5, 0.02d, Metric.createLossMetric()), file);
+        assertNotNull(result.getGlobalOptimum());
+        DataHandle output = result.getOutput();
+        int suppressed = 0;
+        for (int row = 0; row < output.getNumRows(); row++) {
+            suppressed += output.isOutlier(row) ? 1 : 0;
+        }
+        assertTrue(suppressed <= 0.02d * output.getNumRows());
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testResumeWithDifferentGroundDistance() throws IOException {
+        Data data = getData(getRecords(), true);
+        ARXConfiguration config = getConfig(5, 0.02d, Metric.createLossMetric());
+        config.addPrivacyModel(new HierarchicalDistanceTCloseness(SENSITIVE, 0.2d, getHierarchy(SENSITIVE)));
+        write(data, config);
+
+        // Flat hierarchy for the sensitive attribute
+        DefaultHierarchy hierarchy = Hierarchy.create();
+        for (String value : data.getHandle().getDistinctValues(data.getHandle().getColumnIndexOf(SENSITIVE))) {
+            hierarchy.add(value, "*");
+        }
+        data = getData(getRecords(), true);
+        config = getConfig(5, 0.02d, Metric.createLossMetric());
+        config.addPrivacyModel(new HierarchicalDistanceTCloseness(SENSITIVE, 0.2d, hierarchy));
+        assertRejected(data, config);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testResumeWithDifferentK() throws IOException {
+        assertRejected(getConfig(50, 0.02d, Metric.createLossMetric()));
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testResumeWithDifferentQualityModel() throws IOException {
+        assertRejected(getConfig(5, 0.02d, Metric.createEntropyMetric()));
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testResumeWithDifferentSensitiveValues() throws IOException {
+        ARXConfiguration config = getConfig(2, 0.02d, Metric.createLossMetric());
+        config.addPrivacyModel(new DistinctLDiversity(SENSITIVE, 3));
+        write(getData(getRecords(), true), config);
+
+        // Change all sensitive values
+        List<String[]> records = getRecords();
+        int column = getData().getHandle().getColumnIndexOf(SENSITIVE);
+        for (int row = 1; row < records.size(); row++) {
+            records.get(row)[column] = "Sales";
+        }
+        config = getConfig(2, 0.02d, Metric.createLossMetric());
+        config.addPrivacyModel(new DistinctLDiversity(SENSITIVE, 3));
+        assertRejected(getData(records, true), config);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testResumeWithDifferentSubset() throws IOException {
+        Data data = getData();
+        ARXConfiguration config = getConfig(5, 0.02d, Metric.createLossMetric());
+        config.addPrivacyModel(new Inclusion(getSubset(data, 2)));
+        write(data, config);
+
+        data = getData();
+        config = getConfig(5, 0.02d, Metric.createLossMetric());
+        config.addPrivacyModel(new Inclusion(getSubset(data, 3)));
+        assertRejected(data, config);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testResumeWithDifferentSuppressionLimit() throws IOException {
+        assertRejected(getConfig(5, 0.1d, Metric.createLossMetric()));
+    }
+
+    /**
+     * Checks whether resuming with the given configuration is rejected
+     * @param config
+     * @throws IOException
+     */
+    private void assertRejected(ARXConfiguration config) throws IOException {
+        assertRejected(getData(), config);
+    }
+
+    /**
+     * Checks whether resuming with the given data and configuration is rejected
+     * @param data
+     * @param config
+     * @throws IOException
+     */
+    private void assertRejected(Data data, ARXConfiguration config) throws IOException {
+        try {
+            new ARXAnonymizer().resume(data, config, file);
+            fail("Checkpoint written for different data or with a different configuration accepted");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Checks whether the given results are equal
+     * @param expected
+     * @param actual
+     */
+    private void assertSameResults(ARXResult expected, ARXResult actual) {
+
+        // Compare solutions
+        assertArrayEquals(expected.getGlobalOptimum().getTransformation(), actual.getGlobalOptimum().getTransformation());
+        assertEquals(expected.getGlobalOptimum().getHighestScore(), actual.getGlobalOptimum().getHighestScore());
+
+        // Compare output
+        Iterator<String[]> expectedIterator = expected.getOutput().iterator();
+        Iterator<String[]> actualIterator = actual.getOutput().iterator();
+        while (expectedIterator.hasNext()) {
+            assertArrayEquals(expectedIterator.next(), actualIterator.next());
+        }
+        assertEquals(expectedIterator.hasNext(), actualIterator.hasNext());
+    }
+
+    /**
+     * Returns the header followed by the records which are appended to the leading records
+     * @param records
+     * @return
+     */
+    private Iterator<String[]> getAppended(List<String[]> records) {
+        List<String[]> appended = new ArrayList<String[]>();
+        appended.add(records.get(0));
+        appended.addAll(records.subList(ROWS + 1, records.size()));
+        return appended.iterator();
+    }
+
+    /**
+     * Returns a configuration
+     * @param k
+     * @param suppressionLimit
+     * @param metric
+     * @return
+     */
+    private ARXConfiguration getConfig(int k, double suppressionLimit, Metric<?> metric) {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(k));
+        config.setSuppressionLimit(suppressionLimit);
+        config.setQualityModel(metric);
+        return config;
+    }
+
+    /**
+     * Returns the dataset
+     * @return
+     * @throws IOException
+     */
+    private Data getData() throws IOException {
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String qi : QIS) {
+            data.getDefinition().setAttributeType(qi, getHierarchy(qi));
+        }
+        return data;
+    }
+
+    /**
+     * Returns a dataset consisting of the given records
+     * @param records
+     * @param sensitive
+     * @return
+     * @throws IOException
+     */
+    private Data getData(List<String[]> records, boolean sensitive) throws IOException {
+        Data data = Data.create(records);
+        for (String qi : QIS) {
+            data.getDefinition().setAttributeType(qi, getHierarchy(qi));
+        }
+        if (sensitive) {
+            data.getDefinition().setAttributeType(SENSITIVE, AttributeType.SENSITIVE_ATTRIBUTE);
+        }
+        return data;
+    }
+
+    /**
+     * Returns the hierarchy for the given attribute
+     * @param attribute
+     * @return
+     * @throws IOException
+     */
+    private Hierarchy getHierarchy(String attribute) throws IOException {
+        return Hierarchy.create("./data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';');
+    }
+
+    /**
+     * Returns the header and the records of the dataset
+     * @return
+     * @throws IOException
+     */
+    private List<String[]> getRecords() throws IOException {
+        List<String[]> records = new ArrayList<String[]>();
+        Iterator<String[]> iterator = getData().getHandle().iterator();
+        while (iterator.hasNext()) {
+            records.add(iterator.next().clone());
+        }
+        return records;
+    }
+
+    /**
+     * Returns a subset containing every n-th record of the given data
+     * @param data
+     * @param n
+     * @return
+     */
+    private DataSubset getSubset(Data data, int n) {
+        Set<Integer> rows = new HashSet<Integer>();
+        for (int row = 0; row < data.getHandle().getNumRows(); row += n) {
+            rows.add(row);
+        }
+        return DataSubset.create(data, rows);
+    }
+
+    /**
+     * Anonymizes the given data and writes a checkpoint
+     * @param data
+     * @param config
+     * @throws IOException
+     */
+    private void write(Data data, ARXConfiguration config) throws IOException {
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        anonymizer.setCheckpoint(file, 0L);
+        anonymizer.anonymize(data, config);
+    }
+}
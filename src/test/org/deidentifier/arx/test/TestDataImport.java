@@ -17,14 +17,22 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
 import org.junit.Test;
 
 import cern.colt.Arrays;
@@ -52,4 +60,99 @@ public class TestDataImport extends AbstractTest {
             System.out.println(Arrays.toString(result.get(result.size() - 1)));
         }
     }
+
+    /**
+     * Tests whether files encoded with multiple threads equal files imported sequentially
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testEncoder() throws IOException {
+        for (String file : new String[] { "data/test-import.csv", "data/adult.csv" }) {
+            for (int threads : new int[] { 1, 4 }) {
+                assertSameData(Data.create(file, StandardCharsets.UTF_8, ';'),
+                               Data.create(new File(file), StandardCharsets.UTF_8, ';', threads));
+            }
+        }
+    }
+
+    /**
+     * Tests whether files with quoted line breaks and delimiters, which are split into multiple
+     * ranges, equal files imported sequentially
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testEncoderWithQuotes() throws IOException {
+        File file = File.createTempFile("arx", ".csv");
+        file.deleteOnExit();
+        try {
+            Random random = new Random(0xDEADBEEF);
+            String[] values = { "a", "b", "\"c;d\"", "\"e\ne\"", "\"f\"\"g\"", "\"h;\"\"i\"\"\nj\"", "" };
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+            try {
+                writer.write("first;second;third");
+                for (int row = 0; row < 200000; row++) {
+                    writer.write(row % 1000 == 0 ? "\n\n" : "\n");
+                    for (int column = 0; column < 3; column++) {
+                        writer.write(values[random.nextInt(values.length)]);
+                        writer.write(column < 2 ? ";" : "");
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+            for (int threads : new int[] { 1, 4 }) {
+                assertSameData(Data.create(file, StandardCharsets.UTF_8, ';'),
+                               Data.create(file, StandardCharsets.UTF_8, ';', threads));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests whether handles of encoded data can be sorted and modified
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testEncoderModifications() throws IOException {
+        DataHandle expected = Data.create("data/adult.csv", StandardCharsets.UTF_8, ';').getHandle();
+        DataHandle actual = Data.create(new File("data/adult.csv"), StandardCharsets.UTF_8, ';', 4).getHandle();
+        for (DataHandle handle : new DataHandle[] { expected, actual }) {
+            handle.sort(true, 0, 3);
+            handle.replace(1, "Male", "M");
+        }
+        assertSameData(expected, actual);
+    }
+
+    /**
+     * Compares two datasets
+     * @param expected
+     * @param actual
+     */
+    private void assertSameData(Data expected, Data actual) {
+        assertSameData(expected.getHandle(), actual.getHandle());
+    }
+
+    /**
+     * Compares two handles, including the order of distinct values
+     * @param expected
+     * @param actual
+     */
+    private void assertSameData(DataHandle expected, DataHandle actual) {
+        assertEquals(expected.getNumRows(), actual.getNumRows());
+        assertEquals(expected.getNumColumns(), actual.getNumColumns());
+        for (int column = 0; column < expected.getNumColumns(); column++) {
+            assertEquals(expected.getAttributeName(column), actual.getAttributeName(column));
+            assertArrayEquals(expected.getDistinctValues(column), actual.getDistinctValues(column));
+        }
+        Iterator<String[]> expectedIterator = expected.iterator();
+        Iterator<String[]> actualIterator = actual.iterator();
+        while (expectedIterator.hasNext()) {
+            assertArrayEquals(expectedIterator.next(), actualIterator.next());
+        }
+        assertEquals(expectedIterator.hasNext(), actualIterator.hasNext());
+    }
 }
@@ -0,0 +1,287 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.deidentifier.arx.framework.data.Data;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixOffHeap;
+import org.deidentifier.arx.framework.data.DataMatrixPacked;
+import org.deidentifier.arx.framework.data.DataMatrixSubset;
+import org.junit.Test;
+
+/**
+ * Tests the off-heap and the packed implementation of data matrices against the default one
+ *
+ * @author Fabian Prasser
+ */
+public class TestDataMatrix {
+
+    /** Rows */
+    private static final int   ROWS         = 1000;
+
+    /** Domain sizes */
+    private static final int[] DOMAIN_SIZES = { 3, 1, 17, 256, 1000, 2, 70000, 5 };
+
+    /**
+     * Tests the off-heap matrix
+     */
+    @Test
+    public void testOffHeap() {
+        DataMatrix expected = getData(new DataMatrix(ROWS, DOMAIN_SIZES.length));
+        DataMatrix actual = getData(new DataMatrixOffHeap(ROWS, DOMAIN_SIZES.length));
+        assertSameBehaviour(expected, actual);
+        assertSameBehaviour(expected.clone(), actual.clone());
+        assertSameBehaviour(expected.getView(), actual.getView());
+        assertSameModifications(expected, actual);
+    }
+
+    /**
+     * Tests the packed matrix
+     */
+    @Test
+    public void testPacked() {
+        DataMatrix expected = getData(new DataMatrix(ROWS, DOMAIN_SIZES.length));
+        DataMatrix actual = getData(new DataMatrixPacked(ROWS, DOMAIN_SIZES));
+        assertSameBehaviour(expected, actual);
+        assertSameBehaviour(expected.clone(), actual.clone());
+        assertSameBehaviour(expected.getView(), actual.getView());
+        assertSameModifications(expected, actual);
+    }
+
+    /**
+     * Tests whether hash codes of the packed matrix are consistent with hashCode(int[])
+     */
+    @Test
+    public void testPackedHashCodes() {
+        DataMatrix matrix = getData(new DataMatrixPacked(ROWS, DOMAIN_SIZES));
+        for (int row = 0; row < ROWS; row++) {
+            int[] data = getRow(matrix, row);
+            assertEquals(matrix.hashCode(row), matrix.hashCode(data));
+            assertTrue(matrix.equals(row, data));
+        }
+    }
+
+    /**
+     * Tests whether the packed matrix rejects values which exceed the domain of a column
+     */
+    @Test
+    public void testPackedRejectsValuesOutOfDomain() {
+        DataMatrix matrix = new DataMatrixPacked(ROWS, DOMAIN_SIZES);
+        for (int column = 0; column < DOMAIN_SIZES.length; column++) {
+            int width = 32 - Integer.numberOfLeadingZeros(Math.max(DOMAIN_SIZES[column] - 1, 1));
+            for (int value : new int[] { 1 << width, -1 }) {
+                try {
+                    matrix.set(0, column, value);
+                    fail("Value " + value + " accepted for column " + column);
+                } catch (IllegalArgumentException e) {
+                    // Expected
+                }
+            }
+            matrix.set(0, column, DOMAIN_SIZES[column] - 1);
+            assertEquals(DOMAIN_SIZES[column] - 1, matrix.get(0, column));
+        }
+    }
+
+    /**
+     * Tests whether prefixes contain the leading rows and are backed by the same data
+     */
+    @Test
+    public void testPrefix() {
+        int[] subset = new int[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            subset[row] = ROWS - row - 1;
+        }
+        DataMatrix[] matrices = new DataMatrix[] { getData(new DataMatrix(ROWS, DOMAIN_SIZES.length)),
+                                                   getData(new DataMatrixOffHeap(ROWS, DOMAIN_SIZES.length)),
+                                                   getData(new DataMatrixPacked(ROWS, DOMAIN_SIZES)),
+                                                   new DataMatrixSubset(getData(new DataMatrix(ROWS, DOMAIN_SIZES.length)), subset) };
+        for (DataMatrix matrix : matrices) {
+            DataMatrix prefix = matrix.getPrefix(ROWS / 3);
+            DataMatrix clone = prefix.clone();
+            assertEquals(ROWS / 3, prefix.getNumRows());
+            assertEquals(ROWS / 3, clone.getNumRows());
+            for (int row = 0; row < ROWS / 3; row++) {
+                assertTrue(prefix.equals(row, getRow(matrix, row)));
+                assertTrue(clone.equals(row, getRow(matrix, row)));
+            }
+            prefix.set(1, 2, 7);
+            assertEquals(7, matrix.get(1, 2));
+            try {
+                matrix.getPrefix(ROWS + 1);
+                fail("Prefix larger than matrix");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Tests whether views maintain their own row pointers
+     */
+    @Test
+    public void testViews() {
+        DataMatrix[] matrices = new DataMatrix[] { getData(new DataMatrix(ROWS, DOMAIN_SIZES.length)),
+                                                   getData(new DataMatrixOffHeap(ROWS, DOMAIN_SIZES.length)),
+                                                   getData(new DataMatrixPacked(ROWS, DOMAIN_SIZES)) };
+        for (DataMatrix matrix : matrices) {
+            DataMatrix view = matrix.getView();
+            matrix.setRow(1);
+            view.setRow(2);
+            for (int column = 0; column < DOMAIN_SIZES.length; column++) {
+                assertEquals(matrix.get(1, column), matrix.getValueAtColumn(column));
+                assertEquals(matrix.get(2, column), view.getValueAtColumn(column));
+            }
+            view.setValueAtColumn(2, 7);
+            assertEquals(7, matrix.get(2, 2));
+        }
+    }
+
+    /**
+     * Compares the results of read accesses
+     * @param expected
+     * @param actual
+     */
+    private void assertSameBehaviour(DataMatrix expected, DataMatrix actual) {
+
+        assertEquals(expected.getNumRows(), actual.getNumRows());
+        assertEquals(expected.getNumColumns(), actual.getNumColumns());
+
+        // Values
+        for (int row = 0; row < ROWS; row++) {
+            expected.setRow(row);
+            actual.setRow(row);
+            actual.iterator(row);
+            for (int column = 0; column < DOMAIN_SIZES.length; column++) {
+                assertEquals(expected.get(row, column), actual.get(row, column));
+                assertEquals(expected.get(row, column), actual.getValueAtColumn(column));
+                assertTrue(actual.iterator_hasNext());
+                assertEquals(expected.get(row, column), actual.iterator_next());
+            }
+            assertFalse(actual.iterator_hasNext());
+        }
+
+        // Comparisons
+        Random random = new Random(0xDEADBEEF);
+        for (int i = 0; i < ROWS * 10; i++) {
+            int row1 = random.nextInt(ROWS);
+            int row2 = random.nextInt(ROWS);
+            int ignore = random.nextInt(DOMAIN_SIZES.length);
+            assertEquals(expected.equals(row1, row2), actual.equals(row1, row2));
+            assertEquals(expected.equalsIgnore(row1, row2, ignore), actual.equalsIgnore(row1, row2, ignore));
+            assertEquals(expected.equalsIgnoringOutliers(row1, row2), actual.equalsIgnoringOutliers(row1, row2));
+            assertEquals(expected.equals(row1, getRow(expected, row2)), actual.equals(row1, getRow(expected, row2)));
+            if (actual.equals(row1, row2)) {
+                assertEquals(actual.hashCode(row1), actual.hashCode(row2));
+            }
+            if (actual.equalsIgnore(row1, row2, ignore)) {
+                assertEquals(actual.hashCodeIgnore(row1, ignore), actual.hashCodeIgnore(row2, ignore));
+            }
+        }
+    }
+
+    /**
+     * Compares the results of write accesses
+     * @param expected
+     * @param actual
+     */
+    private void assertSameModifications(DataMatrix expected, DataMatrix actual) {
+        Random random = new Random(0xDEADBEEF);
+        for (int i = 0; i < ROWS; i++) {
+            int row1 = random.nextInt(ROWS);
+            int row2 = random.nextInt(ROWS);
+            switch (random.nextInt(7)) {
+            case 0:
+                expected.swap(row1, row2);
+                actual.swap(row1, row2);
+                break;
+            case 1:
+                expected.copyFrom(row1, expected, row2);
+                actual.copyFrom(row1, actual, row2);
+                break;
+            case 2:
+                expected.or(row1, Data.OUTLIER_MASK);
+                actual.or(row1, Data.OUTLIER_MASK);
+                break;
+            case 3:
+                expected.and(row1, Data.REMOVE_OUTLIER_MASK);
+                actual.and(row1, Data.REMOVE_OUTLIER_MASK);
+                break;
+            case 4:
+                int column = random.nextInt(DOMAIN_SIZES.length);
+                int value = random.nextInt(DOMAIN_SIZES[column]);
+                expected.set(row1, column, value);
+                actual.set(row1, column, value);
+                break;
+            case 5:
+                int[] data = getRow(expected, row2);
+                expected.setRow(row1, data);
+                actual.setRow(row1, data);
+                break;
+            case 6:
+                expected.copyFrom(row1, expected, row2);
+                actual.copyFrom(row1, expected, row2);
+                break;
+            }
+        }
+        assertSameBehaviour(expected, actual);
+    }
+
+    /**
+     * Fills the matrix with random data, which contains duplicates and outliers
+     * @param matrix
+     * @return
+     */
+    private DataMatrix getData(DataMatrix matrix) {
+        Random random = new Random(0xDEADBEEF);
+        for (int row = 0; row < ROWS; row++) {
+            if (row > 0 && random.nextInt(4) == 0) {
+                matrix.copyFrom(row, matrix, random.nextInt(row));
+            } else {
+                for (int column = 0; column < DOMAIN_SIZES.length; column++) {
+                    int size = random.nextBoolean() ? Math.min(DOMAIN_SIZES[column], 4) : DOMAIN_SIZES[column];
+                    matrix.set(row, column, random.nextInt(size));
+                }
+            }
+            if (random.nextInt(10) == 0) {
+                matrix.or(row, Data.OUTLIER_MASK);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns a copy of the given row
+     * @param matrix
+     * @param row
+     * @return
+     */
+    private int[] getRow(DataMatrix matrix, int row) {
+        int[] result = new int[matrix.getNumColumns()];
+        for (int column = 0; column < result.length; column++) {
+            result[column] = matrix.get(row, column);
+        }
+        return result;
+    }
+}
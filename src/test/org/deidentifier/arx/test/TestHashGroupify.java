@@ -0,0 +1,197 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.aggregates.StatisticsEquivalenceClasses;
+import org.deidentifier.arx.criteria.DistinctLDiversity;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.junit.Test;
+
+/**
+ * Tests the classes formed by the groupify operator. Outputs of different transformations
+ * are compared to equivalence classes which are computed from the hierarchies directly.
+ *
+ * @author Fabian Prasser
+ */
+public class TestHashGroupify {
+
+    /** Quasi-identifiers */
+    private static final String[] QIS             = { "age", "education", "marital-status", "native-country" };
+
+    /** Sensitive attribute */
+    private static final String   SENSITIVE       = "occupation";
+
+    /** Number of transformations to check */
+    private static final int      TRANSFORMATIONS = 20;
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testKAnonymity() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(1d);
+        assertSameClasses(config, 5, 0);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testLDiversity() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.addPrivacyModel(new DistinctLDiversity(SENSITIVE, 3));
+        config.setSuppressionLimit(1d);
+        assertSameClasses(config, 2, 3);
+    }
+
+    /**
+     * Applies several transformations and checks whether exactly the records in classes
+     * violating the privacy models have been suppressed
+     * @param config
+     * @param k
+     * @param l
+     * @throws IOException
+     */
+    private void assertSameClasses(ARXConfiguration config, int k, int l) throws IOException {
+
+        // Anonymize
+        Data data = getData(l != 0);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        DataHandle input = data.getHandle();
+
+        // Hierarchies
+        List<Map<String, String[]>> hierarchies = new ArrayList<Map<String, String[]>>();
+        int[] columns = new int[QIS.length];
+        for (int i = 0; i < QIS.length; i++) {
+            Map<String, String[]> hierarchy = new HashMap<String, String[]>();
+            for (String[] values : data.getDefinition().getHierarchy(QIS[i])) {
+                hierarchy.put(values[0], values);
+            }
+            hierarchies.add(hierarchy);
+            columns[i] = input.getColumnIndexOf(QIS[i]);
+        }
+        int sensitive = input.getColumnIndexOf(SENSITIVE);
+
+        // Select transformations, including the bottom and the top
+        List<ARXNode> nodes = new ArrayList<ARXNode>();
+        for (ARXNode[] level : result.getLattice().getLevels()) {
+            for (ARXNode node : level) {
+                nodes.add(node);
+            }
+        }
+        Random random = new Random(0xDEADBEEF);
+        List<ARXNode> selected = new ArrayList<ARXNode>();
+        selected.add(result.getLattice().getBottom());
+        selected.add(result.getLattice().getTop());
+        while (selected.size() < TRANSFORMATIONS && !nodes.isEmpty()) {
+            selected.add(nodes.remove(random.nextInt(nodes.size())));
+        }
+
+        // For each transformation
+        for (ARXNode node : selected) {
+
+            // Compute classes from the hierarchies
+            int[] transformation = new int[QIS.length];
+            for (int i = 0; i < QIS.length; i++) {
+                transformation[i] = node.getGeneralization(QIS[i]);
+            }
+            List<String> keys = new ArrayList<String>();
+            Map<String, Integer> sizes = new HashMap<String, Integer>();
+            Map<String, Set<String>> values = new HashMap<String, Set<String>>();
+            for (int row = 0; row < input.getNumRows(); row++) {
+                StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < QIS.length; i++) {
+                    builder.append(hierarchies.get(i).get(input.getValue(row, columns[i]))[transformation[i]]).append('|');
+                }
+                String key = builder.toString();
+                keys.add(key);
+                Integer size = sizes.get(key);
+                sizes.put(key, size == null ? 1 : size + 1);
+                if (!values.containsKey(key)) {
+                    values.put(key, new HashSet<String>());
+                }
+                values.get(key).add(input.getValue(row, sensitive));
+            }
+
+            // Compare suppressed records and classes
+            DataHandle output = result.getOutput(node, false);
+            int classes = 0;
+            int outliers = 0;
+            for (String key : sizes.keySet()) {
+                if (sizes.get(key) >= k && values.get(key).size() >= l) {
+                    classes++;
+                } else {
+                    outliers += sizes.get(key);
+                }
+            }
+            for (int row = 0; row < input.getNumRows(); row++) {
+                String key = keys.get(row);
+                boolean suppressed = sizes.get(key) < k || values.get(key).size() < l;
+                assertEquals("Transformation " + Arrays.toString(transformation) + ", row " + row, suppressed, output.isOutlier(row));
+            }
+            StatisticsEquivalenceClasses statistics = output.getStatistics().getEquivalenceClassStatistics();
+            assertEquals(classes, statistics.getNumberOfEquivalenceClasses());
+            assertEquals(outliers, statistics.getNumberOfOutlyingTuples());
+        }
+        assertTrue(selected.size() > 2);
+    }
+
+    /**
+     * Returns the dataset
+     * @param sensitive
+     * @return
+     * @throws IOException
+     */
+    private Data getData(boolean sensitive) throws IOException {
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String qi : QIS) {
+            data.getDefinition().setAttributeType(qi, Hierarchy.create("./data/adult_hierarchy_" + qi + ".csv", StandardCharsets.UTF_8, ';'));
+        }
+        if (sensitive) {
+            data.getDefinition().setAttributeType(SENSITIVE, AttributeType.SENSITIVE_ATTRIBUTE);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXLattice;
+import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+
+/**
+ * Tests the lattice, whose nodes and their neighbors are created when they are accessed.
+ * Neighbors must be consistent with the generalization levels of the transformations, also
+ * after nodes have been expanded.
+ *
+ * @author Fabian Prasser
+ */
+public class TestLattice {
+
+    /** Quasi-identifiers */
+    private static final String[] QIS = { "age", "education", "marital-status", "native-country" };
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testExpand() throws IOException {
+
+        ARXResult result = getResult();
+        ARXLattice lattice = result.getLattice();
+        int[] bottom = lattice.getBottom().getTransformation();
+        int[] top = lattice.getTop().getTransformation();
+
+        // Expand before the levels have been accessed, after accessing neighbors
+        ARXNode optimum = result.getGlobalOptimum();
+        for (ARXNode predecessor : optimum.getPredecessors()) {
+            predecessor.getSuccessors();
+        }
+        for (ARXNode successor : optimum.getSuccessors()) {
+            successor.getPredecessors();
+        }
+        lattice.expand(optimum);
+        assertNeighborsComplete(optimum, bottom, top);
+        assertConsistent(lattice);
+
+        // Expand after the levels have been accessed
+        ARXNode center = lattice.getLevels()[lattice.getLevels().length / 3][0];
+        lattice.expand(center);
+        assertNeighborsComplete(center, bottom, top);
+        assertConsistent(lattice);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testStructure() throws IOException {
+
+        ARXResult result = getResult();
+        ARXLattice lattice = result.getLattice();
+
+        // Neighbors of the optimum, before the levels have been accessed
+        ARXNode optimum = result.getGlobalOptimum();
+        for (ARXNode predecessor : optimum.getPredecessors()) {
+            assertTrue(Arrays.asList(predecessor.getSuccessors()).contains(optimum));
+        }
+        assertConsistent(lattice);
+
+        // Nodes are only created once
+        ARXNode[][] levels = lattice.getLevels();
+        assertSame(lattice.getBottom(), levels[0][0]);
+        assertSame(lattice.getTop(), levels[levels.length - 1][0]);
+        boolean found = false;
+        for (ARXNode node : levels[optimum.getTotalGeneralizationLevel()]) {
+            found |= node == optimum;
+        }
+        assertTrue(found);
+    }
+
+    /**
+     * Checks whether the levels, the neighbors and the scores of all nodes are consistent
+     * @param lattice
+     */
+    private void assertConsistent(ARXLattice lattice) {
+
+        // Index nodes
+        Map<String, ARXNode> nodes = new HashMap<String, ARXNode>();
+        ARXNode[][] levels = lattice.getLevels();
+        for (int level = 0; level < levels.length; level++) {
+            for (ARXNode node : levels[level]) {
+                assertEquals(level, node.getTotalGeneralizationLevel());
+                nodes.put(Arrays.toString(node.getTransformation()), node);
+            }
+        }
+        assertEquals(lattice.getSize(), nodes.size());
+
+        // Check nodes
+        for (ARXNode node : nodes.values()) {
+            assertTrue(node.getLowestScore().compareTo(node.getHighestScore()) <= 0);
+            assertTrue(lattice.getLowestScore().compareTo(node.getLowestScore()) <= 0);
+            assertTrue(lattice.getHighestScore().compareTo(node.getHighestScore()) >= 0);
+            for (ARXNode predecessor : node.getPredecessors()) {
+                assertSame(predecessor, nodes.get(Arrays.toString(predecessor.getTransformation())));
+                assertEquals(1, getDistance(predecessor, node));
+                assertTrue(Arrays.asList(predecessor.getSuccessors()).contains(node));
+            }
+            for (ARXNode successor : node.getSuccessors()) {
+                assertSame(successor, nodes.get(Arrays.toString(successor.getTransformation())));
+                assertEquals(1, getDistance(node, successor));
+                assertTrue(Arrays.asList(successor.getPredecessors()).contains(node));
+            }
+
+            // All materialized neighbors must be linked
+            int[] transformation = node.getTransformation().clone();
+            int predecessors = 0;
+            int successors = 0;
+            for (int i = 0; i < transformation.length; i++) {
+                transformation[i]--;
+                predecessors += nodes.containsKey(Arrays.toString(transformation)) ? 1 : 0;
+                transformation[i] += 2;
+                successors += nodes.containsKey(Arrays.toString(transformation)) ? 1 : 0;
+                transformation[i]--;
+            }
+            assertEquals(predecessors, node.getPredecessors().length);
+            assertEquals(successors, node.getSuccessors().length);
+        }
+    }
+
+    /**
+     * Checks whether all neighbors of the given node have been materialized
+     * @param node
+     * @param bottom
+     * @param top
+     */
+    private void assertNeighborsComplete(ARXNode node, int[] bottom, int[] top) {
+        int predecessors = 0;
+        int successors = 0;
+        int[] transformation = node.getTransformation();
+        for (int i = 0; i < transformation.length; i++) {
+            predecessors += transformation[i] > bottom[i] ? 1 : 0;
+            successors += transformation[i] < top[i] ? 1 : 0;
+        }
+        assertEquals(predecessors, node.getPredecessors().length);
+        assertEquals(successors, node.getSuccessors().length);
+    }
+
+    /**
+     * Returns the number of levels by which the second node generalizes the first node, -1 if it does not
+     * @param first
+     * @param second
+     * @return
+     */
+    private int getDistance(ARXNode first, ARXNode second) {
+        int distance = 0;
+        for (int i = 0; i < first.getTransformation().length; i++) {
+            int difference = second.getTransformation()[i] - first.getTransformation()[i];
+            if (difference < 0) {
+                return -1;
+            }
+            distance += difference;
+        }
+        return distance;
+    }
+
+    /**
+     * Anonymizes the dataset
+     * @return
+     * @throws IOException
+     */
+    private ARXResult getResult() throws IOException {
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String qi : QIS) {
+            data.getDefinition().setAttributeType(qi, Hierarchy.create("./data/adult_hierarchy_" + qi + ".csv", StandardCharsets.UTF_8, ';'));
+        }
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setQualityModel(Metric.createLossMetric());
+        config.setSuppressionLimit(0.02d);
+        return new ARXAnonymizer().anonymize(data, config);
+    }
+}
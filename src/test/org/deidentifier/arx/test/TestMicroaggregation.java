@@ -114,7 +114,7 @@ public class TestMicroaggregation extends AbstractTest {
         ARXResult result = anonymizer.anonymize(data, config);
         DataHandle output = result.getOutput();
         StatisticsSummary<?> statistics = output.getStatistics().getSummaryStatistics(false).get("age");
-        assertEquals(statistics.getArithmeticMeanAsDouble(), 37.86159590875886d, 0d);
+        assertEquals(statistics.getArithmeticMeanAsDouble(), 37.86159590875886d, 1e-9);
         assertEquals(Integer.valueOf(statistics.getMinAsString()), 18, 0d);
         assertEquals(Integer.valueOf(statistics.getMaxAsString()), 63, 0d);
         assertEquals(Integer.valueOf(statistics.getMedianAsString()), 40, 0d);
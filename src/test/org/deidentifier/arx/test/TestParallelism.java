@@ -0,0 +1,246 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.criteria.DistinctLDiversity;
+import org.deidentifier.arx.criteria.EntropyLDiversity;
+import org.deidentifier.arx.criteria.EqualDistanceTCloseness;
+import org.deidentifier.arx.criteria.HierarchicalDistanceTCloseness;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.criteria.RecursiveCLDiversity;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+
+/**
+ * Tests whether checking transformations with multiple threads yields the same results as
+ * checking them with a single thread. The dataset is large enough for transformations to be
+ * applied by multiple threads as well.
+ *
+ * @author Fabian Prasser
+ */
+public class TestParallelism {
+
+    /** Number of threads */
+    private static final int      THREADS = 4;
+
+    /** Quasi-identifiers */
+    private static final String[] QIS     = { "age", "education", "marital-status", "native-country", "race", "salary-class", "sex", "workclass" };
+
+    /** Sensitive attribute */
+    private static final String   SENSITIVE = "occupation";
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testKAnonymity() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setQualityModel(Metric.createLossMetric());
+        config.setSuppressionLimit(0d);
+        assertSameResults(config, false);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testKAnonymityWithSuppression() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setQualityModel(Metric.createEntropyMetric());
+        config.setSuppressionLimit(0.05d);
+        assertSameResults(config, false);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testLDiversity() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(3));
+        config.addPrivacyModel(new DistinctLDiversity(SENSITIVE, 3));
+        config.setQualityModel(Metric.createEntropyMetric());
+        config.setSuppressionLimit(0.05d);
+        assertSameResults(config, true);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testEntropyLDiversity() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new EntropyLDiversity(SENSITIVE, 3));
+        config.setQualityModel(Metric.createLossMetric());
+        config.setSuppressionLimit(0.02d);
+        assertSameResults(config, true);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testHierarchicalTCloseness() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new HierarchicalDistanceTCloseness(SENSITIVE, 0.05d, getHierarchy(SENSITIVE)));
+        config.setQualityModel(Metric.createLossMetric());
+        config.setSuppressionLimit(0.02d);
+        assertSameResults(config, true);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testRecursiveCLDiversity() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.addPrivacyModel(new RecursiveCLDiversity(SENSITIVE, 4d, 3));
+        config.setQualityModel(Metric.createEntropyMetric());
+        config.setSuppressionLimit(0.05d);
+        assertSameResults(config, true);
+    }
+
+    /**
+     * Test
+     * @throws IOException
+     */
+    @Test
+    public void testTCloseness() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new EqualDistanceTCloseness(SENSITIVE, 0.2d));
+        config.setQualityModel(Metric.createLossMetric());
+        config.setSuppressionLimit(0.02d);
+        assertSameResults(config, true);
+    }
+
+    /**
+     * Anonymizes the dataset with one and with multiple threads and compares the results
+     * @param config
+     * @param sensitive
+     * @throws IOException
+     */
+    private void assertSameResults(ARXConfiguration config, boolean sensitive) throws IOException {
+
+        ARXResult expected = getResult(config.clone(), sensitive, 1);
+        ARXResult actual = getResult(config.clone(), sensitive, THREADS);
+
+        // Compare solutions
+        assertArrayEquals(expected.getGlobalOptimum().getTransformation(), actual.getGlobalOptimum().getTransformation());
+        assertEquals(expected.getGlobalOptimum().getHighestScore(), actual.getGlobalOptimum().getHighestScore());
+        assertEquals(expected.getGlobalOptimum().getAnonymity(), actual.getGlobalOptimum().getAnonymity());
+
+        // Compare transformations which have been checked in both runs
+        Map<String, ARXNode> expectedNodes = getCheckedNodes(expected);
+        Map<String, ARXNode> actualNodes = getCheckedNodes(actual);
+        for (Entry<String, ARXNode> entry : actualNodes.entrySet()) {
+            ARXNode node = expectedNodes.get(entry.getKey());
+            if (node != null) {
+                assertEquals(entry.getKey(), node.getAnonymity(), entry.getValue().getAnonymity());
+                assertEquals(entry.getKey(), node.getHighestScore(), entry.getValue().getHighestScore());
+            }
+        }
+
+        // Compare output
+        DataHandle expectedOutput = expected.getOutput();
+        DataHandle actualOutput = actual.getOutput();
+        Iterator<String[]> expectedIterator = expectedOutput.iterator();
+        Iterator<String[]> actualIterator = actualOutput.iterator();
+        while (expectedIterator.hasNext()) {
+            assertArrayEquals(expectedIterator.next(), actualIterator.next());
+        }
+        assertEquals(expectedIterator.hasNext(), actualIterator.hasNext());
+    }
+
+    /**
+     * Returns all checked transformations of the given result
+     * @param result
+     * @return
+     */
+    private Map<String, ARXNode> getCheckedNodes(ARXResult result) {
+        Map<String, ARXNode> nodes = new HashMap<String, ARXNode>();
+        for (ARXNode[] level : result.getLattice().getLevels()) {
+            for (ARXNode node : level) {
+                if (node.isChecked()) {
+                    nodes.put(Arrays.toString(node.getTransformation()), node);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Anonymizes the dataset
+     * @param config
+     * @param sensitive
+     * @param threads
+     * @return
+     * @throws IOException
+     */
+    private ARXResult getResult(ARXConfiguration config, boolean sensitive, int threads) throws IOException {
+
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String qi : QIS) {
+            data.getDefinition().setAttributeType(qi, getHierarchy(qi));
+        }
+        if (sensitive) {
+            data.getDefinition().setAttributeType(SENSITIVE, AttributeType.SENSITIVE_ATTRIBUTE);
+        }
+
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        anonymizer.setParallelism(threads);
+        return anonymizer.anonymize(data, config);
+    }
+
+    /**
+     * Returns the hierarchy for the given attribute
+     * @param attribute
+     * @return
+     * @throws IOException
+     */
+    private Hierarchy getHierarchy(String attribute) throws IOException {
+        return Hierarchy.create("./data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';');
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.risk.HIPAAIdentifierMatch;
+import org.deidentifier.arx.risk.RiskEstimateBuilder;
+import org.junit.Test;
+
+/**
+ * Test matching of HIPAA identifiers. Sampling values must lead to the same decisions as
+ * matching all values for attributes which clearly do or do not contain identifiers.
+ *
+ * @author Fabian Prasser
+ */
+public class TestRiskHIPAASafeHarbor {
+
+    /** First names */
+    private static final String[] FIRST_NAMES = { "james", "mary", "john", "patricia", "robert", "linda", "michael", "barbara", "william", "elizabeth",
+                                                  "david", "jennifer", "richard", "maria", "joseph", "susan", "thomas", "margaret", "charles", "dorothy" };
+
+    /** Last names */
+    private static final String[] LAST_NAMES  = { "smith", "johnson", "williams", "brown", "jones", "miller", "davis", "garcia", "rodriguez", "wilson",
+                                                  "martinez", "anderson", "taylor", "thomas", "hernandez", "moore", "martin", "jackson", "thompson", "white" };
+
+    /** Cities */
+    private static final String[] CITIES      = { "boston", "chicago", "houston", "phoenix", "seattle", "denver", "austin", "dallas", "portland", "atlanta",
+                                                  "miami", "detroit", "memphis", "nashville", "baltimore", "louisville", "milwaukee", "albuquerque", "tucson", "fresno" };
+
+    /** States */
+    private static final String[] STATES      = { "ny", "ca", "tx", "fl", "wa", "co", "il", "ga", "ma", "oh",
+                                                  "mi", "tn", "md", "ky", "wi", "nm", "az", "or", "nv", "pa" };
+
+    /**
+     * Test
+     */
+    @Test
+    public void testExact() {
+
+        // Obtained by matching all values of each attribute one after another
+        String[] expected = new String[] {
+                "given | NAME | First name | ATTRIBUTE_VALUE | null | 1.0",
+                "given | NAME | Last name | ATTRIBUTE_VALUE | null | 1.0",
+                "surname | NAME | Last name | ATTRIBUTE_NAME | surname | null",
+                "surname | NAME | First name | ATTRIBUTE_VALUE | null | 0.7",
+                "surname | NAME | Last name | ATTRIBUTE_VALUE | null | 1.0",
+                "surname | GEOGRAPHIC_SUBDIVISION | City | ATTRIBUTE_VALUE | null | 0.85",
+                "residence | GEOGRAPHIC_SUBDIVISION | City | ATTRIBUTE_VALUE | null | 1.0",
+                "region | GEOGRAPHIC_SUBDIVISION | State | ATTRIBUTE_NAME | region | null",
+                "region | GEOGRAPHIC_SUBDIVISION | State | ATTRIBUTE_VALUE | null | 1.0",
+                "region | GEOGRAPHIC_SUBDIVISION | Generic geographic subdivision | ATTRIBUTE_VALUE | null | 1.0",
+                "admission | DATE | Date/Time | ATTRIBUTE_VALUE | null | 1.0",
+                "years | DATE | Date/Time | ATTRIBUTE_NAME | year | null",
+                "years | DATE | Age | ATTRIBUTE_VALUE | null | 1.0" };
+
+        RiskEstimateBuilder builder = getData().getHandle().getRiskEstimator();
+        assertEquals(Arrays.asList(expected), toString(builder.getHIPAAIdentifiers(), true));
+        assertEquals(Arrays.asList(expected), toString(builder.getHIPAAIdentifiersSampled(0.5d, 1d), true));
+    }
+
+    /**
+     * Test
+     */
+    @Test
+    public void testIllegalConfidence() {
+        RiskEstimateBuilder builder = getData().getHandle().getRiskEstimator();
+        for (double confidence : new double[] { 0d, -0.5d, 1.01d, Double.NaN }) {
+            try {
+                builder.getHIPAAIdentifiersSampled(0.5d, confidence);
+                fail("Confidence " + confidence + " accepted");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Test
+     */
+    @Test
+    public void testSampled() {
+        RiskEstimateBuilder builder = getData().getHandle().getRiskEstimator();
+        List<String> expected = toString(builder.getHIPAAIdentifiers(), false);
+        assertEquals(expected, toString(builder.getHIPAAIdentifiersSampled(0.5d, 0.95d), false));
+        assertEquals(expected, toString(builder.getHIPAAIdentifiersSampled(0.5d, 0.99d), false));
+    }
+
+    /**
+     * Returns a dataset with names, cities, states, dates and ages as well as with attributes
+     * in which no or only few values are identifiers
+     * @return
+     */
+    private Data getData() {
+        Data.DefaultData data = Data.create();
+        data.add("given", "surname", "residence", "region", "admission", "years", "code", "mixed");
+        for (int row = 0; row < 400; row++) {
+            data.add(FIRST_NAMES[row % FIRST_NAMES.length],
+                     LAST_NAMES[(row * 7) % LAST_NAMES.length],
+                     CITIES[(row * 3) % CITIES.length],
+                     STATES[row % STATES.length],
+                     String.format("%04d-%02d-%02d", 1990 + row % 20, row % 12 + 1, row % 28 + 1),
+                     String.valueOf((row * 7) % 100),
+                     "C" + row,
+                     row % 2 == 0 ? CITIES[row % CITIES.length] : "X" + row);
+        }
+        return data;
+    }
+
+    /**
+     * Converts the matches into strings
+     * @param matches
+     * @param confidence Whether to include the fraction of matching values
+     * @return
+     */
+    private List<String> toString(HIPAAIdentifierMatch[] matches, boolean confidence) {
+        List<String> result = new ArrayList<String>();
+        for (HIPAAIdentifierMatch match : matches) {
+            String string = match.getColumn() + " | " + match.getIdentifier() + " | " + match.getInstance() + " | " +
+                            match.getMatchType() + " | " + match.getValue();
+            result.add(confidence ? string + " | " + match.getConfidence() : string);
+        }
+        return result;
+    }
+}